@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.safecharge.exception.SafechargeConfigurationException;
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.Constants;
+
+/**
+ * <p>
+ * Executes large batches of independent requests, e.g. the {@link com.safecharge.request.SettleTransactionRequest}s of
+ * an end-of-day capture or bulk {@link com.safecharge.request.RefundTransactionRequest}s and {@link com.safecharge.request.VoidTransactionRequest}s,
+ * through {@link SafechargeRequestExecutor#executeAsync(SafechargeBaseRequest)} with a bounded number of requests in flight
+ * and an optional cap of the request rate.
+ * </p>
+ * <p>
+ * The items of the batch are read one by one, only when a request slot is free, and the request of an item is built right
+ * before it's sent, so its timestamp and checksum are current however long the batch is, and only the items in flight are
+ * held in memory. The result of every item is passed to a {@link ResultHandler} and the totals are returned as {@link BatchStats}.
+ * </p>
+ */
+public class BatchRequestExecutor {
+
+    public static final int DEFAULT_CONCURRENCY = 16;
+
+    private static final Log logger = LogFactory.getLog(BatchRequestExecutor.class);
+
+    private final SafechargeRequestExecutor requestExecutor;
+    private final int concurrency;
+    private final long sendIntervalNanos;
+
+    private BatchRequestExecutor(Builder builder) {
+        this.requestExecutor = builder.requestExecutor;
+        this.concurrency = builder.concurrency;
+        this.sendIntervalNanos = builder.maxRequestsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / builder.maxRequestsPerSecond) : 0;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Executes the requests of all of the {@code items} and waits for their responses.
+     *
+     * @param items          the items of the batch, read lazily
+     * @param requestFactory builds the request of an item, called right before the request is sent
+     * @param resultHandler  receives the result of every item, may be null
+     * @param <T>            the type of the items
+     * @return the totals of the batch
+     * @throws InterruptedException if the thread is interrupted while waiting. The requests in flight are still completed
+     */
+    public <T> BatchStats execute(Iterable<T> items, Function<? super T, ? extends SafechargeBaseRequest> requestFactory,
+            ResultHandler<? super T> resultHandler) throws InterruptedException {
+        return execute(items.iterator(), requestFactory, resultHandler);
+    }
+
+    /**
+     * Executes the requests of all of the remaining {@code items}, e.g. of a {@link java.util.stream.Stream#iterator()},
+     * and waits for their responses.
+     *
+     * @param items          the items of the batch, read lazily
+     * @param requestFactory builds the request of an item, called right before the request is sent
+     * @param resultHandler  receives the result of every item, may be null
+     * @param <T>            the type of the items
+     * @return the totals of the batch
+     * @throws InterruptedException if the thread is interrupted while waiting. The requests in flight are still completed
+     * @throws RuntimeException     if reading the {@code items} fails. The requests in flight are still completed
+     */
+    public <T> BatchStats execute(Iterator<T> items, Function<? super T, ? extends SafechargeBaseRequest> requestFactory,
+            ResultHandler<? super T> resultHandler) throws InterruptedException {
+        Batch<T> batch = new Batch<>(resultHandler);
+        long startedAt = System.nanoTime();
+        long nextSendAt = startedAt;
+
+        while (items.hasNext()) {
+            batch.slots.acquire();
+            boolean isSent = false;
+            try {
+                T item = items.next();
+                if (sendIntervalNanos > 0) {
+                    long delay = nextSendAt - System.nanoTime();
+                    if (delay > 0) {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    }
+                    nextSendAt = Math.max(nextSendAt, System.nanoTime() - sendIntervalNanos) + sendIntervalNanos;
+                }
+                send(batch, item, requestFactory);
+                isSent = true;
+            } finally {
+                if (!isSent) {
+                    // the slot is released by the completion of the sent item only
+                    batch.slots.release();
+                }
+            }
+        }
+
+        // all of the slots are free once the last response is handled
+        batch.slots.acquire(concurrency);
+        batch.slots.release(concurrency);
+        return new BatchStats(batch.successCount.sum(), batch.errorCount.sum(), batch.failureCount.sum(), System.nanoTime() - startedAt);
+    }
+
+    private <T> void send(final Batch<T> batch, final T item, Function<? super T, ? extends SafechargeBaseRequest> requestFactory) {
+        try {
+            requestExecutor.executeAsync(requestFactory.apply(item))
+                    .whenComplete(new BiConsumer<SafechargeResponse, Throwable>() {
+                        @Override
+                        public void accept(SafechargeResponse response, Throwable throwable) {
+                            batch.complete(item, response, throwable);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            // e.g. the request of the item is not valid
+            batch.complete(item, null, e);
+        }
+    }
+
+    /**
+     * Receives the result of an item of a batch. It's called by the I/O threads of the asynchronous client, possibly concurrently,
+     * so it should be thread-safe and should not block.
+     *
+     * @param <T> the type of the items
+     */
+    public interface ResultHandler<T> {
+
+        /**
+         * @param item     the item of the batch
+         * @param response the response of the item's request, null if it failed
+         * @param failure  the reason of the failure of the item's request, null if it got a response
+         */
+        void onResult(T item, SafechargeResponse response, Throwable failure);
+    }
+
+    /**
+     * The totals of an executed batch.
+     */
+    public static final class BatchStats {
+
+        private final long successCount;
+        private final long errorCount;
+        private final long failureCount;
+        private final long elapsedNanos;
+
+        private BatchStats(long successCount, long errorCount, long failureCount, long elapsedNanos) {
+            this.successCount = successCount;
+            this.errorCount = errorCount;
+            this.failureCount = failureCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return the number of the requests with a {@link Constants.APIResponseStatus#SUCCESS} response
+         */
+        public long getSuccessCount() {
+            return successCount;
+        }
+
+        /**
+         * @return the number of the requests with an {@link Constants.APIResponseStatus#ERROR} or a missing response status
+         */
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * @return the number of the requests which weren't built, sent or answered
+         */
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        public long getTotalCount() {
+            return successCount + errorCount + failureCount;
+        }
+
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("BatchStats{");
+            sb.append("successCount=")
+                    .append(successCount);
+            sb.append(", errorCount=")
+                    .append(errorCount);
+            sb.append(", failureCount=")
+                    .append(failureCount);
+            sb.append(", elapsedMillis=")
+                    .append(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+
+    private final class Batch<T> {
+
+        private final ResultHandler<? super T> resultHandler;
+        private final Semaphore slots = new Semaphore(concurrency);
+        private final LongAdder successCount = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+
+        private Batch(ResultHandler<? super T> resultHandler) {
+            this.resultHandler = resultHandler;
+        }
+
+        private void complete(T item, SafechargeResponse response, Throwable failure) {
+            try {
+                if (failure != null || response == null) {
+                    failureCount.increment();
+                } else if (Constants.APIResponseStatus.SUCCESS.equals(response.getStatus())) {
+                    successCount.increment();
+                } else {
+                    errorCount.increment();
+                }
+
+                if (resultHandler != null) {
+                    resultHandler.onResult(item, response, failure);
+                }
+            } catch (RuntimeException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Failed to handle the result of a batch item: " + e.getMessage());
+                }
+            } finally {
+                slots.release();
+            }
+        }
+    }
+
+    public static class Builder {
+
+        private SafechargeRequestExecutor requestExecutor;
+        private int concurrency = DEFAULT_CONCURRENCY;
+        private double maxRequestsPerSecond = 0;
+
+        /**
+         * Sets the executor to send the requests with, e.g. {@link SafechargeClient#getRequestExecutor()}. Mandatory.
+         *
+         * @param requestExecutor the {@link SafechargeRequestExecutor} to send the requests with
+         * @return this object
+         */
+        public Builder setRequestExecutor(SafechargeRequestExecutor requestExecutor) {
+            this.requestExecutor = requestExecutor;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of the requests in flight. Defaults to {@link #DEFAULT_CONCURRENCY}. It should not exceed
+         * the connection pool limits of the asynchronous client, see {@link SafechargeClient.Builder#setConnectionPoolLimits(int, int)}.
+         *
+         * @param concurrency the maximum number of the requests in flight
+         * @return this object
+         */
+        public Builder setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Caps the rate of the sent requests. Not capped by default.
+         *
+         * @param maxRequestsPerSecond the maximum number of the requests sent per second or 0 for no cap
+         * @return this object
+         */
+        public Builder setMaxRequestsPerSecond(double maxRequestsPerSecond) {
+            this.maxRequestsPerSecond = maxRequestsPerSecond;
+            return this;
+        }
+
+        /**
+         * Builds the batch executor.
+         *
+         * @return new {@link BatchRequestExecutor}
+         * @throws SafechargeConfigurationException if the request executor is missing
+         * @throws IllegalArgumentException         if the concurrency is not positive or the rate cap is negative
+         */
+        public BatchRequestExecutor build() {
+            if (requestExecutor == null) {
+                throw new SafechargeConfigurationException("Missing mandatory request executor for the creation of a batch executor!");
+            }
+            if (concurrency < 1 || maxRequestsPerSecond < 0) {
+                throw new IllegalArgumentException("The concurrency must be positive and the rate cap can't be negative!");
+            }
+            return new BatchRequestExecutor(this);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import com.safecharge.biz.pool.AdaptiveConnectionManager;
+
+/**
+ * Opens connections of a {@link PoolingHttpClientConnectionManager} ahead of the first requests, so the DNS lookup,
+ * the TCP connect and the TLS handshake are not paid by them.
+ */
+final class ConnectionPoolWarmer {
+
+    private static final Log logger = LogFactory.getLog(ConnectionPoolWarmer.class);
+
+    private ConnectionPoolWarmer() {
+    }
+
+    /**
+     * Leases up to {@code connections} connections of the route to the host of the {@code serverUrl} at once, opens the ones
+     * which are not open yet and releases all of them back to the pool. The connections are opened one after another, so all
+     * but the first resume the TLS session of the first one.
+     *
+     * @param connectionManager the pool to open the connections in
+     * @param serverUrl         the URL of the API, e.g. {@link com.safecharge.util.APIConstants.Environment#getUrl()}
+     * @param connections       the number of the open connections to have in the pool, capped by its per-route limit
+     * @param timeoutMillis     the timeout of leasing and of connecting each connection
+     * @return the number of the newly opened connections
+     * @throws IOException if opening a connection fails or the thread is interrupted
+     */
+    static int warmUp(PoolingHttpClientConnectionManager connectionManager, String serverUrl, int connections, int timeoutMillis)
+            throws IOException {
+        URI uri = URI.create(serverUrl);
+        boolean isSecure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : (isSecure ? 443 : 80);
+        HttpRoute route = new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, isSecure);
+        int count = Math.min(connections, connectionManager.getMaxPerRoute(route));
+
+        List<HttpClientConnection> leased = new ArrayList<>(count);
+        int opened = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                // the warm-up leases are not the load the adaptive pool is sized for
+                ConnectionRequest request = connectionManager instanceof AdaptiveConnectionManager
+                        ? ((AdaptiveConnectionManager) connectionManager).requestUntrackedConnection(route)
+                        : connectionManager.requestConnection(route, null);
+                HttpClientConnection connection = request.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+                if (!connection.isOpen()) {
+                    HttpClientContext context = HttpClientContext.create();
+                    connectionManager.connect(connection, route, timeoutMillis, context);
+                    connectionManager.routeComplete(connection, route, context);
+                    opened++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new InterruptedIOException("Interrupted while warming up the connection pool!");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getMessage(), e.getCause());
+        } finally {
+            for (HttpClientConnection connection : leased) {
+                connectionManager.releaseConnection(connection, null, SafechargeClientBuilder.CONNECTION_TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Opened " + opened + " connections to " + route.getTargetHost() + ", " + leased.size() + " are open in the pool");
+        }
+        return opened;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import org.apache.http.client.config.RequestConfig;
+
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.SafechargeResponse;
+
+/**
+ * An API endpoint of an {@link EndpointRegistry}: the request type it's called with, the response type it answers with,
+ * its URL relative to the server host and its {@link EndpointPolicy}. Instances are immutable.
+ */
+public final class Endpoint {
+
+    private final Class<? extends SafechargeBaseRequest> requestType;
+    private final Class<? extends SafechargeResponse> responseType;
+    private final String url;
+    private final EndpointPolicy policy;
+
+    Endpoint(Class<? extends SafechargeBaseRequest> requestType, Class<? extends SafechargeResponse> responseType, String url,
+            EndpointPolicy policy) {
+        this.requestType = requestType;
+        this.responseType = responseType;
+        this.url = url;
+        this.policy = policy;
+    }
+
+    public Class<? extends SafechargeBaseRequest> getRequestType() {
+        return requestType;
+    }
+
+    public Class<? extends SafechargeResponse> getResponseType() {
+        return responseType;
+    }
+
+    /**
+     * @return the URL of the endpoint relative to the server host, e.g. {@link com.safecharge.util.APIConstants#PAYMENT_URL}
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    public EndpointPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * A request config replaces the one of the HTTP client as a whole, so it's derived from the client's config, only
+     * overriding its timeouts.
+     *
+     * @param clientConfig the default request config of the HTTP client
+     * @return the {@code clientConfig} with the timeouts of the policy, null if the endpoint uses the timeouts of the HTTP client
+     */
+    RequestConfig getRequestConfig(RequestConfig clientConfig) {
+        if (policy.getSocketTimeoutMillis() == EndpointPolicy.CLIENT_TIMEOUT) {
+            return null;
+        }
+        return RequestConfig.copy(clientConfig)
+                .setConnectTimeout(policy.getConnectTimeoutMillis())
+                .setConnectionRequestTimeout(policy.getConnectTimeoutMillis())
+                .setSocketTimeout(policy.getSocketTimeoutMillis())
+                .build();
+    }
+
+    Endpoint withPolicy(EndpointPolicy policy) {
+        return new Endpoint(requestType, responseType, url, policy);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("Endpoint{");
+        sb.append("requestType=")
+                .append(requestType.getSimpleName());
+        sb.append(", url=")
+                .append(url);
+        sb.append('}');
+        return sb.toString();
+    }
+}
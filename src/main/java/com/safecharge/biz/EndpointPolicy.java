@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.concurrent.TimeUnit;
+
+import com.safecharge.util.Constants;
+
+/**
+ * <p>
+ * Execution policy of an API endpoint: its timeouts, how many times a failed request is sent again and its priority.
+ * </p>
+ * <p>
+ * A request which failed to connect was not sent, so it's sent again if the endpoint has any retries left. A request of
+ * an idempotent endpoint is also sent again when its connection was reset or closed without a response, since sending
+ * it twice has no side effect. A timed out request is never sent again.
+ * </p>
+ *
+ * @see EndpointRegistry#setPolicy(Class, EndpointPolicy)
+ */
+public final class EndpointPolicy {
+
+    /**
+     * The value of the timeouts of a policy using the timeouts of the HTTP client.
+     */
+    public static final int CLIENT_TIMEOUT = -1;
+
+    private final int connectTimeoutMillis;
+    private final int socketTimeoutMillis;
+    private final int retries;
+    private final boolean isIdempotent;
+    private final Constants.EndpointPriority priority;
+
+    private EndpointPolicy(Builder builder) {
+        this.connectTimeoutMillis = builder.connectTimeoutMillis;
+        this.socketTimeoutMillis = builder.socketTimeoutMillis;
+        this.retries = builder.retries;
+        this.isIdempotent = builder.isIdempotent;
+        this.priority = builder.priority;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the connect timeout in milliseconds or {@link #CLIENT_TIMEOUT}
+     */
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * @return the timeout of waiting for the response data in milliseconds or {@link #CLIENT_TIMEOUT}
+     */
+    public int getSocketTimeoutMillis() {
+        return socketTimeoutMillis;
+    }
+
+    /**
+     * @return the maximum number of the times a failed request is sent again
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    public boolean isRetryable() {
+        return retries > 0;
+    }
+
+    public boolean isIdempotent() {
+        return isIdempotent;
+    }
+
+    /**
+     * @return the priority of the endpoint, a hint for the callers ordering or shedding the requests under load. The executor
+     * sends the requests of all of the priorities alike
+     */
+    public Constants.EndpointPriority getPriority() {
+        return priority;
+    }
+
+    public static class Builder {
+
+        private int connectTimeoutMillis = CLIENT_TIMEOUT;
+        private int socketTimeoutMillis = CLIENT_TIMEOUT;
+        private int retries = 0;
+        private boolean isIdempotent = false;
+        private Constants.EndpointPriority priority = Constants.EndpointPriority.NORMAL;
+
+        /**
+         * Sets the timeouts of the endpoint's requests, in place of the ones of the HTTP client. Sub-second timeouts suit
+         * the lookups like {@link com.safecharge.request.CardDetailsRequest}, so a slow response doesn't hold a pooled connection
+         * for long. Default to the timeouts of the HTTP client.
+         *
+         * @param connectTimeout the timeout of establishing a connection
+         * @param socketTimeout  the timeout of waiting for the response data
+         * @param unit           the {@link TimeUnit} of the timeouts
+         * @return this object
+         */
+        public Builder setTimeouts(long connectTimeout, long socketTimeout, TimeUnit unit) {
+            this.connectTimeoutMillis = (int) unit.toMillis(connectTimeout);
+            this.socketTimeoutMillis = (int) unit.toMillis(socketTimeout);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of the times a failed request is sent again. Defaults to 0.
+         *
+         * @param retries the maximum number of the retries
+         * @return this object
+         */
+        public Builder setRetries(int retries) {
+            this.retries = retries;
+            return this;
+        }
+
+        /**
+         * Marks the endpoint as idempotent, i.e. sending its request more than once has no side effect. Defaults to false.
+         *
+         * @param isIdempotent true if the endpoint is idempotent
+         * @return this object
+         */
+        public Builder setIdempotent(boolean isIdempotent) {
+            this.isIdempotent = isIdempotent;
+            return this;
+        }
+
+        /**
+         * Sets the priority of the endpoint. Defaults to {@link Constants.EndpointPriority#NORMAL}.
+         *
+         * @param priority the {@link Constants.EndpointPriority} of the endpoint
+         * @return this object
+         */
+        public Builder setPriority(Constants.EndpointPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * Builds the policy.
+         *
+         * @return new {@link EndpointPolicy}
+         * @throws IllegalArgumentException if the timeouts are not positive, the retries are negative or the priority is missing
+         */
+        public EndpointPolicy build() {
+            if ((connectTimeoutMillis != CLIENT_TIMEOUT || socketTimeoutMillis != CLIENT_TIMEOUT) && (connectTimeoutMillis <= 0 || socketTimeoutMillis <= 0)) {
+                throw new IllegalArgumentException("The timeouts must be positive!");
+            }
+            if (retries < 0 || priority == null) {
+                throw new IllegalArgumentException("The retries can't be negative and the priority is mandatory!");
+            }
+            return new EndpointPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.safecharge.request.*;
+import com.safecharge.response.*;
+import com.safecharge.util.APIConstants;
+import com.safecharge.util.Constants;
+
+/**
+ * <p>
+ * The API endpoints called by a {@link SafechargeRequestExecutor}, by request type. A new registry holds all of the SDK's
+ * endpoints with their default policies:
+ * </p>
+ * <ul>
+ * <li>the money movements, e.g. payments, settles, refunds and payouts, have a {@link Constants.EndpointPriority#HIGH} priority
+ * and use the timeouts of the HTTP client,</li>
+ * <li>the reads, e.g. {@link GetOrderDetailsRequest} and {@link GetPaymentStatusRequest}, are idempotent with a
+ * {@link Constants.EndpointPriority#LOW} priority and time out after 10 seconds,</li>
+ * <li>the lookups {@link CardDetailsRequest}, {@link DccDetailsRequest} and {@link McpRatesRequest} are idempotent with a
+ * {@link Constants.EndpointPriority#LOW} priority and time out after 5 seconds,</li>
+ * <li>the other requests use the timeouts of the HTTP client.</li>
+ * </ul>
+ * <p>
+ * A request of any endpoint is sent once more if it fails to connect. The lookups are lock-free reads of an immutable map,
+ * which {@link #setPolicy(Class, EndpointPolicy)} replaces with an updated copy.
+ * </p>
+ */
+public class EndpointRegistry {
+
+    private static final EndpointPolicy MONEY_MOVEMENT_POLICY = EndpointPolicy.builder()
+            .setRetries(1)
+            .setPriority(Constants.EndpointPriority.HIGH)
+            .build();
+    private static final EndpointPolicy DEFAULT_POLICY = EndpointPolicy.builder()
+            .setRetries(1)
+            .build();
+    private static final EndpointPolicy READ_POLICY = EndpointPolicy.builder()
+            .setTimeouts(5, 10, TimeUnit.SECONDS)
+            .setRetries(1)
+            .setIdempotent(true)
+            .setPriority(Constants.EndpointPriority.LOW)
+            .build();
+    private static final EndpointPolicy LOOKUP_POLICY = EndpointPolicy.builder()
+            .setTimeouts(2, 5, TimeUnit.SECONDS)
+            .setRetries(1)
+            .setIdempotent(true)
+            .setPriority(Constants.EndpointPriority.LOW)
+            .build();
+
+    private volatile Map<Class<? extends SafechargeBaseRequest>, Endpoint> endpoints;
+
+    /**
+     * Creates a registry of all of the SDK's endpoints with their default policies.
+     */
+    public EndpointRegistry() {
+        Map<Class<? extends SafechargeBaseRequest>, Endpoint> endpoints = new LinkedHashMap<>();
+        add(endpoints, GetSessionTokenRequest.class, GetSessionTokenResponse.class, APIConstants.GET_SESSION_TOKEN_URL, DEFAULT_POLICY);
+        add(endpoints, OpenOrderRequest.class, OpenOrderResponse.class, APIConstants.OPEN_ORDER_URL, DEFAULT_POLICY);
+        add(endpoints, UpdateOrderRequest.class, UpdateOrderResponse.class, APIConstants.UPDATE_ORDER_URL, DEFAULT_POLICY);
+        add(endpoints, GetOrderDetailsRequest.class, GetOrderDetailsResponse.class, APIConstants.GET_ORDER_DETAILS_URL, READ_POLICY);
+        add(endpoints, PaymentCCRequest.class, PaymentCCResponse.class, APIConstants.PAYMENT_CC_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, PaymentAPMRequest.class, PaymentAPMResponse.class, APIConstants.PAYMENT_APM_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, Authorization3DRequest.class, Authorization3DResponse.class, APIConstants.AUTHORIZATION_3D_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, Dynamic3DRequest.class, Dynamic3DResponse.class, APIConstants.DYNAMIC_3D_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, CardTokenizationRequest.class, CardTokenizationResponse.class, APIConstants.CARD_TOKENIZATION_URL, DEFAULT_POLICY);
+        add(endpoints, Payment3DRequest.class, Payment3DResponse.class, APIConstants.PAYMENT_3D_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, AddUPOCreditCardByTempTokenRequest.class, AddUPOCreditCardByTempTokenResponse.class,
+                APIConstants.ADD_UPO_CREDIT_CARD_BY_TEMP_TOKEN_URL, DEFAULT_POLICY);
+        add(endpoints, SettleTransactionRequest.class, SettleTransactionResponse.class, APIConstants.SETTLE_TRANSACTION_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, VoidTransactionRequest.class, VoidTransactionResponse.class, APIConstants.VOID_TRANSACTION_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, RefundTransactionRequest.class, RefundTransactionResponse.class, APIConstants.REFUND_TRANSACTION_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, AddUPOCreditCardRequest.class, AddUPOCreditCardResponse.class, APIConstants.ADD_UPO_CREDIT_CARD_URL, DEFAULT_POLICY);
+        add(endpoints, AddUPOAPMRequest.class, AddUPOAPMResponse.class, APIConstants.ADD_UPO_APM_URL, DEFAULT_POLICY);
+        add(endpoints, GetMerchantPaymentMethodsRequest.class, GetMerchantPaymentMethodsResponse.class,
+                APIConstants.GET_MERCHANT_PAYMENT_METHODS_REQUEST_URL, READ_POLICY);
+        add(endpoints, CancelSubscriptionRequest.class, CancelSubscriptionResponse.class, APIConstants.CANCEL_SUBSCRIPTION_REQUEST_URL, DEFAULT_POLICY);
+        add(endpoints, CreateSubscriptionRequest.class, CreateSubscriptionResponse.class, APIConstants.CREATE_SUBSCRIPTION_REQUEST_URL, DEFAULT_POLICY);
+        add(endpoints, GetSubscriptionsListRequest.class, GetSubscriptionsListResponse.class, APIConstants.GET_SUBSCRIPTION_LIST_REQUEST_URL, READ_POLICY);
+        add(endpoints, GetSubscriptionPlansRequest.class, GetSubscriptionPlansResponse.class, APIConstants.GET_SUBSCRIPTION_PLANS_REQUEST_URL, READ_POLICY);
+        add(endpoints, PayoutRequest.class, PayoutResponse.class, APIConstants.PAYOUT_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, CreateUserRequest.class, UserResponse.class, APIConstants.CREATE_USER_URL, DEFAULT_POLICY);
+        add(endpoints, UpdateUserRequest.class, UserResponse.class, APIConstants.UPDATE_USER_URL, DEFAULT_POLICY);
+        add(endpoints, GetUserDetailsRequest.class, GetUserDetailsResponse.class, APIConstants.GET_USER_DETAILS_URL, READ_POLICY);
+        add(endpoints, AddUPOCreditCardByTokenRequest.class, AddUPOCreditCardByTokenResponse.class, APIConstants.ADD_UPO_CREDIT_CARD_BY_TOKEN_URL,
+                DEFAULT_POLICY);
+        add(endpoints, GetUserUPOsRequest.class, GetUserUPOsResponse.class, APIConstants.GET_USER_UPOS_REQUEST, READ_POLICY);
+        add(endpoints, EditUPOCreditCardRequest.class, EditUPOCreditCardResponse.class, APIConstants.EDIT_UPO_CREDIT_CARD_URL, DEFAULT_POLICY);
+        add(endpoints, EditUPOAPMRequest.class, EditUPOAPMResponse.class, APIConstants.EDIT_UPO_APM_URL, DEFAULT_POLICY);
+        add(endpoints, EnableUPORequest.class, EnableUPOResponse.class, APIConstants.ENABLE_UPO_URL, DEFAULT_POLICY);
+        add(endpoints, DeleteUPORequest.class, DeleteUPOResponse.class, APIConstants.DELETE_UPO_APM_URL, DEFAULT_POLICY);
+        add(endpoints, SuspendUPORequest.class, SuspendUPOResponse.class, APIConstants.SUSPEND_UPO_APM_URL, DEFAULT_POLICY);
+        add(endpoints, PaymentRequest.class, PaymentResponse.class, APIConstants.PAYMENT_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, InitPaymentRequest.class, InitPaymentResponse.class, APIConstants.INIT_PAYMENT_URL, DEFAULT_POLICY);
+        add(endpoints, GetPaymentStatusRequest.class, GetPaymentStatusResponse.class, APIConstants.GET_PAYMENT_STATUS_URL, READ_POLICY);
+        add(endpoints, Verify3dRequest.class, Verify3dResponse.class, APIConstants.VERIFY3D_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, Authorize3dRequest.class, Authorize3dResponse.class, APIConstants.AUTHORIZE3D_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, CardDetailsRequest.class, CardDetailsResponse.class, APIConstants.GET_CARD_DETAILS_URL, LOOKUP_POLICY);
+        add(endpoints, DccDetailsRequest.class, DccDetailsResponse.class, APIConstants.DCC_DETAILS_URL, LOOKUP_POLICY);
+        add(endpoints, McpRatesRequest.class, McpRatesResponse.class, APIConstants.MCP_RATES_URL, LOOKUP_POLICY);
+        add(endpoints, AccountCaptureRequest.class, AccountCaptureResponse.class, APIConstants.ACCOUNT_CAPTURE_URL, MONEY_MOVEMENT_POLICY);
+        add(endpoints, GetPayoutStatusRequest.class, GetPayoutStatusResponse.class, APIConstants.GET_PAYOUT_STATUS_URL, READ_POLICY);
+        this.endpoints = Collections.unmodifiableMap(endpoints);
+    }
+
+    /**
+     * @param requestType the type of the request
+     * @return the endpoint called with the request type, null if there is no such endpoint
+     */
+    public Endpoint get(Class<? extends SafechargeBaseRequest> requestType) {
+        return endpoints.get(requestType);
+    }
+
+    /**
+     * @return all of the endpoints
+     */
+    public Collection<Endpoint> getEndpoints() {
+        return endpoints.values();
+    }
+
+    /**
+     * Replaces the policy of an endpoint, e.g. to give {@link CardDetailsRequest} a sub-second timeout. The requests already
+     * sent keep the previous policy.
+     *
+     * @param requestType the type of the request the endpoint is called with
+     * @param policy      the new {@link EndpointPolicy} of the endpoint
+     * @throws IllegalArgumentException if there is no endpoint for the request type
+     */
+    public synchronized void setPolicy(Class<? extends SafechargeBaseRequest> requestType, EndpointPolicy policy) {
+        Endpoint endpoint = endpoints.get(requestType);
+        if (endpoint == null || policy == null) {
+            throw new IllegalArgumentException("No endpoint for " + requestType + " or missing policy!");
+        }
+
+        Map<Class<? extends SafechargeBaseRequest>, Endpoint> updatedEndpoints = new LinkedHashMap<>(endpoints);
+        updatedEndpoints.put(requestType, endpoint.withPolicy(policy));
+        this.endpoints = Collections.unmodifiableMap(updatedEndpoints);
+    }
+
+    private static void add(Map<Class<? extends SafechargeBaseRequest>, Endpoint> endpoints, Class<? extends SafechargeBaseRequest> requestType,
+            Class<? extends SafechargeResponse> responseType, String url, EndpointPolicy policy) {
+        endpoints.put(requestType, new Endpoint(requestType, responseType, url, policy));
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.ssl.TLS;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.util.EntityUtils;
+
+import com.safecharge.model.Proxy;
+
+/**
+ * <p>
+ * {@link SafechargeTransport} multiplexing the requests as HTTP/2 streams over a few connections per host, so a high number
+ * of concurrent requests neither queues for a pooled connection nor opens a TLS connection of its own. The HTTP/2 protocol is
+ * negotiated with ALPN during the TLS handshake and a server or JVM without HTTP/2 support is served over HTTP/1.1
+ * by the same transport.
+ * </p>
+ * <p>
+ * The transport is built on the Apache HttpClient 5, an optional dependency of the SDK which must be added to the classpath
+ * to use it.
+ * </p>
+ *
+ * @see SafechargeClient.Builder#setHttpTransport(com.safecharge.util.Constants.HttpTransport)
+ */
+public class Http2Transport implements SafechargeTransport {
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 2;
+    public static final int DEFAULT_MAX_CONCURRENT_STREAMS = 100;
+    private static final long DEFAULT_TIMEOUT_MILLISECONDS = TimeUnit.SECONDS.toMillis(30);
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    /**
+     * The connection-specific headers, not allowed in HTTP/2 requests.
+     */
+    private static final Set<String> CONNECTION_HEADERS = new HashSet<>(Arrays.asList("connection", "keep-alive", "proxy-connection",
+            "transfer-encoding", "upgrade", "host", "content-length"));
+
+    private final CloseableHttpAsyncClient httpAsyncClient;
+    private final RequestConfig defaultRequestConfig;
+    private final long connectTimeoutMillis;
+
+    private Http2Transport(Builder builder) {
+        Timeout timeout = Timeout.ofMilliseconds(builder.timeoutMillis);
+        this.connectTimeoutMillis = builder.timeoutMillis;
+        this.defaultRequestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(timeout)
+                .setResponseTimeout(timeout)
+                .build();
+        HttpAsyncClientBuilder clientBuilder = HttpAsyncClients.custom()
+                .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(builder.maxTotalConnections)
+                        .setMaxConnPerRoute(builder.maxConnectionsPerRoute)
+                        .setDefaultTlsConfig(TlsConfig.custom()
+                                .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                                .setSupportedProtocols(TLS.V_1_3, TLS.V_1_2)
+                                .build())
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(timeout)
+                                .setSocketTimeout(timeout)
+                                .build())
+                        .build())
+                .setH2Config(H2Config.custom()
+                        .setMaxConcurrentStreams(builder.maxConcurrentStreams)
+                        .build())
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(Runtime.getRuntime()
+                                .availableProcessors())
+                        .setSoKeepAlive(true)
+                        .build())
+                .setDefaultRequestConfig(defaultRequestConfig);
+        if (builder.proxy != null) {
+            clientBuilder.setProxy(new HttpHost(builder.proxy.getProtocol(), builder.proxy.getHost(), builder.proxy.getPort()));
+        }
+        this.httpAsyncClient = clientBuilder.build();
+        this.httpAsyncClient.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Sends the request and waits for its response. Since the response timeout only limits the inactivity of the connection,
+     * the wait is bounded by the connection request, connect and response timeouts of the request combined as well.
+     *
+     * @throws SocketTimeoutException if no complete response is received within the bound
+     */
+    @Override
+    public HttpResponse execute(HttpPost httpPost) throws IOException {
+        SimpleHttpRequest request = createRequest(httpPost, defaultRequestConfig);
+        long maxWaitMillis = getMaxWaitMillis(request.getConfig() != null ? request.getConfig() : defaultRequestConfig, connectTimeoutMillis);
+        Future<SimpleHttpResponse> response = httpAsyncClient.execute(request, null);
+        try {
+            return toHttpResponse(response.get(maxWaitMillis, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            throw new SocketTimeoutException("No response within " + maxWaitMillis + " ms!");
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread()
+                    .interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response!");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    @Override
+    public void execute(HttpPost httpPost, final FutureCallback<HttpResponse> callback) {
+        SimpleHttpRequest request;
+        try {
+            request = createRequest(httpPost, defaultRequestConfig);
+        } catch (IOException e) {
+            callback.failed(e);
+            return;
+        }
+
+        httpAsyncClient.execute(request, new org.apache.hc.core5.concurrent.FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                callback.completed(toHttpResponse(response));
+            }
+
+            @Override
+            public void failed(Exception e) {
+                callback.failed(e);
+            }
+
+            @Override
+            public void cancelled() {
+                callback.cancelled();
+            }
+        });
+    }
+
+    /**
+     * Closes the connections, waiting up to a few seconds for the requests in flight.
+     */
+    @Override
+    public void close() {
+        httpAsyncClient.close(CloseMode.GRACEFUL);
+    }
+
+    /**
+     * @param httpPost             the request to convert
+     * @param defaultRequestConfig the request config of the transport, whose timeouts are replaced by the ones of the
+     *                             {@code httpPost}'s config, set for the endpoints with own timeouts
+     * @return the request to send with the HttpClient 5
+     * @throws IOException if the entity of the {@code httpPost} can't be read
+     */
+    static SimpleHttpRequest createRequest(HttpPost httpPost, RequestConfig defaultRequestConfig) throws IOException {
+        SimpleRequestBuilder requestBuilder = SimpleRequestBuilder.post(httpPost.getURI());
+        org.apache.http.client.config.RequestConfig config = httpPost.getConfig();
+        if (config != null && config.getSocketTimeout() > 0) {
+            requestBuilder.setRequestConfig(RequestConfig.copy(defaultRequestConfig)
+                    .setResponseTimeout(Timeout.ofMilliseconds(config.getSocketTimeout()))
+                    .setConnectionRequestTimeout(config.getConnectionRequestTimeout() > 0 ? Timeout.ofMilliseconds(
+                            config.getConnectionRequestTimeout()) : defaultRequestConfig.getConnectionRequestTimeout())
+                    .build());
+        }
+        for (Header header : httpPost.getAllHeaders()) {
+            if (header.getValue() != null && !CONNECTION_HEADERS.contains(header.getName()
+                    .toLowerCase(Locale.ROOT))) {
+                requestBuilder.addHeader(header.getName(), header.getValue());
+            }
+        }
+
+        HttpEntity entity = httpPost.getEntity();
+        if (entity != null) {
+            Header contentType = entity.getContentType();
+            requestBuilder.setBody(EntityUtils.toByteArray(entity), contentType != null ? ContentType.parse(contentType.getValue())
+                    : ContentType.APPLICATION_JSON);
+        }
+        return requestBuilder.build();
+    }
+
+    /**
+     * @return the longest wait for a response to a request with the {@code requestConfig}
+     */
+    static long getMaxWaitMillis(RequestConfig requestConfig, long connectTimeoutMillis) {
+        return requestConfig.getConnectionRequestTimeout()
+                .toMilliseconds() + connectTimeoutMillis + requestConfig.getResponseTimeout()
+                .toMilliseconds();
+    }
+
+    static HttpResponse toHttpResponse(SimpleHttpResponse response) {
+        ProtocolVersion version = response.getVersion() != null ? new ProtocolVersion("HTTP", response.getVersion()
+                .getMajor(), response.getVersion()
+                .getMinor()) : HTTP_2;
+        BasicHttpResponse httpResponse = new BasicHttpResponse(new BasicStatusLine(version, response.getCode(), response.getReasonPhrase()));
+        byte[] body = response.getBodyBytes();
+        if (body != null) {
+            ByteArrayEntity entity = new ByteArrayEntity(body);
+            if (response.getContentType() != null) {
+                entity.setContentType(response.getContentType()
+                        .toString());
+            }
+            httpResponse.setEntity(entity);
+        }
+        return httpResponse;
+    }
+
+    public static class Builder {
+
+        private Proxy proxy;
+        private int maxTotalConnections = SafechargeClientBuilder.DEFAULT_MAX_TOTAL_CONNECTIONS;
+        private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        private int maxConcurrentStreams = DEFAULT_MAX_CONCURRENT_STREAMS;
+        private long timeoutMillis = DEFAULT_TIMEOUT_MILLISECONDS;
+
+        /**
+         * Adds proxy to the transport.
+         *
+         * @param proxy A {@link Proxy} object to get the connection info from
+         * @return this object
+         */
+        public Builder setProxy(Proxy proxy) {
+            this.proxy = proxy;
+            return this;
+        }
+
+        /**
+         * Sets the connection pool limits. Each HTTP/2 connection carries as many requests at a time as the server's
+         * SETTINGS_MAX_CONCURRENT_STREAMS allows, typically 100 or more, so a couple of connections per route are enough. The limits apply to the HTTP/1.1 connections as well, when HTTP/2
+         * is not negotiated. Defaults to {@link SafechargeClientBuilder#DEFAULT_MAX_TOTAL_CONNECTIONS} and
+         * {@link #DEFAULT_MAX_CONNECTIONS_PER_ROUTE}.
+         *
+         * @param maxTotalConnections    the maximum number of the connections
+         * @param maxConnectionsPerRoute the maximum number of the connections per host
+         * @return this object
+         */
+        public Builder setConnectionPoolLimits(int maxTotalConnections, int maxConnectionsPerRoute) {
+            this.maxTotalConnections = maxTotalConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Sets the SETTINGS_MAX_CONCURRENT_STREAMS the transport advertises to the server, i.e. the number of the streams the
+         * server may open towards the client at a time. It doesn't limit the requests sent over a connection, which only the
+         * server's own setting does. Defaults to {@link #DEFAULT_MAX_CONCURRENT_STREAMS}.
+         *
+         * @param maxConcurrentStreams the maximum number of the concurrent streams opened by the server
+         * @return this object
+         */
+        public Builder setMaxConcurrentStreams(int maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            return this;
+        }
+
+        /**
+         * Sets the connect, socket, connection request and response timeouts, with a millisecond precision. Defaults to 30 seconds.
+         *
+         * @param timeout the timeout, positive
+         * @param unit    the {@link TimeUnit} of the {@code timeout}
+         * @return this object
+         * @throws IllegalArgumentException if the timeout is less than a millisecond, which the HttpClient 5 would take as no timeout
+         */
+        public Builder setTimeout(long timeout, TimeUnit unit) {
+            long timeoutMillis = unit.toMillis(timeout);
+            if (timeoutMillis <= 0) {
+                throw new IllegalArgumentException("The timeout must be at least a millisecond!");
+            }
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        /**
+         * Builds and starts the transport.
+         *
+         * @return new {@link Http2Transport}
+         */
+        public Http2Transport build() {
+            return new Http2Transport(this);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.safecharge.exception.SafechargeException;
+import com.safecharge.response.McpRatesResponse;
+import com.safecharge.util.Constants;
+
+/**
+ * <p>
+ * Keeps an in-process {@link McpRateTable} of the rates from a list of source currencies, so prices can be converted locally
+ * with {@link #convert(BigDecimal, String, String, String)} instead of calling {@link Safecharge#getMcpRates(String, String, String, List, List)}
+ * for each of them.
+ * </p>
+ * <p>
+ * The table is fetched by the first conversion and fetched again by the first conversion after its max age. It can also be
+ * refreshed on a schedule with {@link #scheduleRefresh(long, TimeUnit)}, in which case the conversions don't wait for it.
+ * A refresh rebuilds the table only if the mcpTimestamp of any of the source currencies changed. Instances are thread-safe.
+ * </p>
+ */
+public class McpRateCache {
+
+    private static final Log logger = LogFactory.getLog(McpRateCache.class);
+
+    private final Safecharge safecharge;
+    private final List<String> fromCurrencies;
+    private final List<String> paymentMethods;
+    private final long maxAgeNanos;
+    private volatile McpRateTable rateTable;
+    private volatile long fetchedAt;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param safecharge     the initialized {@link Safecharge} facade to fetch the rates with
+     * @param fromCurrencies the 3-letter ISO codes of the source currencies to fetch the rates from
+     * @param paymentMethods the payment methods to fetch the rates for, null for all of the merchant's payment methods
+     * @param maxAge         the age after which the table is fetched again before a conversion
+     * @param unit           the {@link TimeUnit} of the {@code maxAge}
+     */
+    public McpRateCache(Safecharge safecharge, List<String> fromCurrencies, List<String> paymentMethods, long maxAge, TimeUnit unit) {
+        if (fromCurrencies == null || fromCurrencies.isEmpty()) {
+            throw new IllegalArgumentException("At least one source currency is required!");
+        }
+        this.safecharge = safecharge;
+        this.fromCurrencies = new ArrayList<>(fromCurrencies);
+        this.paymentMethods = paymentMethods != null ? new ArrayList<>(paymentMethods) : null;
+        this.maxAgeNanos = unit.toNanos(maxAge);
+    }
+
+    /**
+     * Converts an amount with the current rates, see {@link McpRateTable#convert(BigDecimal, String, String, String)}.
+     *
+     * @param amount        the amount in the {@code fromCurrency}
+     * @param fromCurrency  the 3-letter ISO currency code of the amount
+     * @param toCurrency    the 3-letter ISO currency code to convert to
+     * @param paymentMethod the payment method of the rate
+     * @return the amount in the {@code toCurrency}
+     * @throws SafechargeException      if the table is missing or expired and fetching it fails
+     * @throws IllegalArgumentException if there is no rate for the currencies and the payment method
+     */
+    public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency, String paymentMethod) throws SafechargeException {
+        return getRateTable().convert(amount, fromCurrency, toCurrency, paymentMethod);
+    }
+
+    /**
+     * @return the current rate table, fetched first if it's missing or expired
+     * @throws SafechargeException if the table is missing or expired and fetching it fails
+     */
+    public McpRateTable getRateTable() throws SafechargeException {
+        McpRateTable current = rateTable;
+        if (current != null && System.nanoTime() - fetchedAt < maxAgeNanos) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = rateTable;
+            if (current != null && System.nanoTime() - fetchedAt < maxAgeNanos) {
+                // refreshed by another thread
+                return current;
+            }
+            return refresh();
+        }
+    }
+
+    /**
+     * Fetches the rates of all of the source currencies and replaces the table if any of their mcpTimestamps changed.
+     *
+     * @return the current rate table
+     * @throws SafechargeException if fetching the rates fails
+     */
+    public synchronized McpRateTable refresh() throws SafechargeException {
+        long refreshStartedAt = System.nanoTime();
+        List<McpRatesResponse> responses = new ArrayList<>(fromCurrencies.size());
+        boolean isChanged = rateTable == null;
+        for (String fromCurrency : fromCurrencies) {
+            McpRatesResponse response = safecharge.getMcpRates(null, null, fromCurrency, null, paymentMethods);
+            if (response == null || !Constants.APIResponseStatus.SUCCESS.equals(response.getStatus())) {
+                throw new SafechargeException(response != null ? response.getReason() : "Missing MCP rates response!");
+            }
+            responses.add(response);
+            isChanged = isChanged || response.getMcpTimestamp() == null || !response.getMcpTimestamp()
+                    .equals(rateTable.getMcpTimestamp(fromCurrency));
+        }
+
+        if (isChanged) {
+            McpRateTable.Builder builder = McpRateTable.builder();
+            for (int i = 0; i < fromCurrencies.size(); i++) {
+                builder.addRates(fromCurrencies.get(i), responses.get(i));
+            }
+            rateTable = builder.build();
+            if (logger.isDebugEnabled()) {
+                logger.debug("MCP rate table rebuilt for " + rateTable.getMcpTimestamps());
+            }
+        }
+        fetchedAt = refreshStartedAt;
+        return rateTable;
+    }
+
+    /**
+     * Starts refreshing the table periodically on a background thread, in addition to the refreshing on expiry.
+     * A failed refresh keeps the current table until the next one.
+     *
+     * @param period the time between the refreshes, should be shorter than the max age
+     * @param unit   the {@link TimeUnit} of the {@code period}
+     */
+    public synchronized void scheduleRefresh(long period, TimeUnit unit) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "safecharge-mcp-rates-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh();
+                } catch (SafechargeException | RuntimeException e) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Failed to refresh the MCP rate table: " + e.getMessage());
+                    }
+                }
+            }
+        }, 0, period, unit);
+    }
+
+    /**
+     * Stops the scheduled refreshing, if any.
+     */
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.safecharge.model.Rate;
+import com.safecharge.model.RateByCurrency;
+import com.safecharge.response.McpRatesResponse;
+
+/**
+ * <p>
+ * Immutable snapshot of the multi-currency pricing rates returned by {@link Safecharge#getMcpRates(String, String, String, java.util.List, java.util.List)}
+ * for one or more source currencies. The rates of each payment method are kept in a currency by currency matrix,
+ * so a conversion is two index lookups and a multiplication, without calling the API. The rates keep the exact decimal values
+ * returned by the API.
+ * </p>
+ * <p>
+ * Only the pairs returned by the API are available. The rates include the markup, so no inverse or cross rates are derived from them.
+ * </p>
+ *
+ * @see McpRateCache
+ */
+public final class McpRateTable {
+
+    private final Map<String, Integer> currencyIndexes;
+    private final Map<String, BigDecimal[]> ratesByPaymentMethod;
+    private final Map<String, String> mcpTimestamps;
+
+    private McpRateTable(Builder builder) {
+        this.currencyIndexes = Collections.unmodifiableMap(new LinkedHashMap<>(builder.currencyIndexes));
+        this.mcpTimestamps = Collections.unmodifiableMap(new LinkedHashMap<>(builder.mcpTimestamps));
+
+        int currencyCount = currencyIndexes.size();
+        Map<String, BigDecimal[]> ratesByPaymentMethod = new HashMap<>();
+        for (Map.Entry<String, Map<Long, BigDecimal>> paymentMethodRates : builder.rates.entrySet()) {
+            BigDecimal[] matrix = new BigDecimal[currencyCount * currencyCount];
+            for (Map.Entry<Long, BigDecimal> rate : paymentMethodRates.getValue()
+                    .entrySet()) {
+                int from = (int) (rate.getKey() >>> 32);
+                int to = (int) rate.getKey()
+                        .longValue();
+                matrix[from * currencyCount + to] = rate.getValue();
+            }
+            ratesByPaymentMethod.put(paymentMethodRates.getKey(), matrix);
+        }
+        this.ratesByPaymentMethod = ratesByPaymentMethod;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Converts an amount with the rate of a payment method. The result is not rounded to the precision of the target currency.
+     *
+     * @param amount        the amount in the {@code fromCurrency}
+     * @param fromCurrency  the 3-letter ISO currency code of the amount
+     * @param toCurrency    the 3-letter ISO currency code to convert to
+     * @param paymentMethod the payment method of the rate
+     * @return the amount in the {@code toCurrency}, the same {@code amount} if the currencies are the same
+     * @throws IllegalArgumentException if the table has no rate for the currencies and the payment method
+     */
+    public BigDecimal convert(BigDecimal amount, String fromCurrency, String toCurrency, String paymentMethod) {
+        if (fromCurrency.equals(toCurrency)) {
+            return amount;
+        }
+
+        BigDecimal rate = getRate(fromCurrency, toCurrency, paymentMethod);
+        if (rate == null) {
+            throw new IllegalArgumentException("No MCP rate from " + fromCurrency + " to " + toCurrency + " for " + paymentMethod + "!");
+        }
+        return amount.multiply(rate);
+    }
+
+    /**
+     * @param fromCurrency  the 3-letter ISO source currency code
+     * @param toCurrency    the 3-letter ISO target currency code
+     * @param paymentMethod the payment method of the rate
+     * @return the rate, null if the table has no rate for the currencies and the payment method
+     */
+    public BigDecimal getRate(String fromCurrency, String toCurrency, String paymentMethod) {
+        Integer from = currencyIndexes.get(fromCurrency);
+        Integer to = currencyIndexes.get(toCurrency);
+        BigDecimal[] matrix = ratesByPaymentMethod.get(paymentMethod);
+        if (from == null || to == null || matrix == null) {
+            return null;
+        }
+        return matrix[from * currencyIndexes.size() + to];
+    }
+
+    /**
+     * @param fromCurrency  the 3-letter ISO source currency code
+     * @param toCurrency    the 3-letter ISO target currency code
+     * @param paymentMethod the payment method of the rate
+     * @return true if the table has a rate for the currencies and the payment method
+     */
+    public boolean hasRate(String fromCurrency, String toCurrency, String paymentMethod) {
+        return getRate(fromCurrency, toCurrency, paymentMethod) != null;
+    }
+
+    /**
+     * @param fromCurrency the 3-letter ISO source currency code
+     * @return the mcpTimestamp of the rates of the {@code fromCurrency}, null if the table has no rates for it
+     */
+    public String getMcpTimestamp(String fromCurrency) {
+        return mcpTimestamps.get(fromCurrency);
+    }
+
+    /**
+     * @return the mcpTimestamps of the rates by source currency
+     */
+    public Map<String, String> getMcpTimestamps() {
+        return mcpTimestamps;
+    }
+
+    public Set<String> getCurrencies() {
+        return currencyIndexes.keySet();
+    }
+
+    public Set<String> getPaymentMethods() {
+        return Collections.unmodifiableSet(ratesByPaymentMethod.keySet());
+    }
+
+    public static class Builder {
+
+        private final Map<String, Integer> currencyIndexes = new LinkedHashMap<>();
+        private final Map<String, Map<Long, BigDecimal>> rates = new HashMap<>();
+        private final Map<String, String> mcpTimestamps = new LinkedHashMap<>();
+
+        /**
+         * Adds the rates of a {@link McpRatesResponse}. A response without rates adds none.
+         *
+         * @param fromCurrency the source currency the rates were requested for
+         * @param response     the response with the rates from the {@code fromCurrency}
+         * @return this object
+         * @throws IllegalArgumentException if a rate is not a number
+         */
+        public Builder addRates(String fromCurrency, McpRatesResponse response) {
+            mcpTimestamps.put(fromCurrency, response.getMcpTimestamp());
+            if (response.getRates() == null) {
+                return this;
+            }
+            for (Rate rate : response.getRates()) {
+                if (rate.getPaymentMethod() == null || rate.getRatesByCurrencies() == null) {
+                    continue;
+                }
+                for (RateByCurrency rateByCurrency : rate.getRatesByCurrencies()) {
+                    if (rateByCurrency.getCurrency() != null && rateByCurrency.getRate() != null) {
+                        addRate(fromCurrency, rateByCurrency.getCurrency(), rate.getPaymentMethod(), new BigDecimal(rateByCurrency.getRate()));
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds a single rate.
+         *
+         * @param fromCurrency  the 3-letter ISO source currency code
+         * @param toCurrency    the 3-letter ISO target currency code
+         * @param paymentMethod the payment method of the rate
+         * @param rate          the rate
+         * @return this object
+         */
+        public Builder addRate(String fromCurrency, String toCurrency, String paymentMethod, BigDecimal rate) {
+            Map<Long, BigDecimal> paymentMethodRates = rates.get(paymentMethod);
+            if (paymentMethodRates == null) {
+                paymentMethodRates = new HashMap<>();
+                rates.put(paymentMethod, paymentMethodRates);
+            }
+            paymentMethodRates.put((long) indexOf(fromCurrency) << 32 | indexOf(toCurrency), rate);
+            return this;
+        }
+
+        public McpRateTable build() {
+            return new McpRateTable(this);
+        }
+
+        private int indexOf(String currency) {
+            Integer index = currencyIndexes.get(currency);
+            if (index == null) {
+                index = currencyIndexes.size();
+                currencyIndexes.put(currency, index);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.concurrent.ExecutorService;
+
+import com.safecharge.exception.SafechargeConfigurationException;
+import com.safecharge.model.Proxy;
+
+/**
+ * <p>
+ * Access to the features of the newer Java runtimes. This is the baseline implementation, used on the runtimes older than
+ * Java 21, which supports none of them.
+ * </p>
+ * <p>
+ * The SDK jar is a multi-release jar and on Java 21 and newer this class is replaced by its version in {@code META-INF/versions/21},
+ * built from {@code src/main/java21}. Both versions must keep the same methods.
+ * </p>
+ */
+final class RuntimeSupport {
+
+    private RuntimeSupport() {
+    }
+
+    /**
+     * @return true if the virtual threads and the {@link java.net.http.HttpClient} transport are supported
+     */
+    static boolean isJava21Supported() {
+        return false;
+    }
+
+    /**
+     * @return a new executor starting a virtual thread for each task
+     * @throws SafechargeConfigurationException on the runtimes older than Java 21
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        throw new SafechargeConfigurationException("The virtual threads require Java 21 or newer!");
+    }
+
+    /**
+     * @param proxy          the {@link Proxy} to connect through, may be null
+     * @param timeoutSeconds the connect and response timeout
+     * @return a new transport sending the requests with a {@link java.net.http.HttpClient}
+     * @throws SafechargeConfigurationException on the runtimes older than Java 21
+     */
+    static SafechargeTransport createJdkHttpTransport(Proxy proxy, long timeoutSeconds) {
+        throw new SafechargeConfigurationException("The JDK HTTP client transport requires Java 21 or newer!");
+    }
+}
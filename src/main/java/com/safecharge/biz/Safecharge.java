@@ -4,15 +4,20 @@
 
 package com.safecharge.biz;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import com.safecharge.biz.cache.CacheConfig;
+import com.safecharge.biz.cache.RefreshingCache;
 import com.safecharge.exception.SafechargeConfigurationException;
 import com.safecharge.exception.SafechargeException;
 import com.safecharge.model.*;
 import com.safecharge.request.*;
 import com.safecharge.response.*;
 import com.safecharge.util.Constants;
+import com.safecharge.util.RequestUtils;
 
 /**
  * <p>
@@ -20,6 +25,11 @@ import com.safecharge.util.Constants;
  * initPayment and createPayment requests. First you have to invoke initialize method and then choose the corresponding request
  * method.
  * </p>
+ * <p>
+ * Once initialized, an instance is safe to be shared by the request threads, e.g. one per merchant site. The session token
+ * is refreshed in the background before it expires, and a request rejected due to an expired or invalid session
+ * is executed once more with a new session token.
+ * </p>
  *
  * @author <a mailto:vasiln@safecharge.com>Vassil Nikov</a>
  */
@@ -27,14 +37,30 @@ public class Safecharge {
 
     private final ServiceFactory serviceFactory;
     private SafechargeRequestExecutor requestExecutor;
-    private MerchantInfo merchantInfo;
-    private String sessionToken;
+    private volatile MerchantInfo merchantInfo;
+    private volatile SessionManager sessionManager;
+    private volatile RefreshingCache<List<Object>, GetMerchantPaymentMethodsResponse> merchantPaymentMethodsCache;
+    private volatile RefreshingCache<List<Object>, CardDetailsResponse> cardDetailsCache;
+    private long sessionRefreshAgeMillis = SessionManager.DEFAULT_REFRESH_AGE_MILLIS;
+    private long sessionMaxAgeMillis = SessionManager.DEFAULT_MAX_AGE_MILLIS;
 
     public Safecharge() {
         this.serviceFactory = new ServiceFactory();
         this.requestExecutor = SafechargeRequestExecutor.getInstance();
     }
 
+    /**
+     * Creates a facade which sends its requests through the given per-merchant {@link SafechargeClient}
+     * instead of the shared {@link SafechargeRequestExecutor#getInstance()}. Use {@link #initialize()} to obtain the session token.
+     *
+     * @param client A {@link SafechargeClient} to get the merchant info and the request executor from
+     */
+    public Safecharge(SafechargeClient client) {
+        this.serviceFactory = new ServiceFactory();
+        this.requestExecutor = client.getRequestExecutor();
+        this.merchantInfo = client.getMerchantInfo();
+    }
+
     /**
      * <p>
      * This method should always be invoked before any other method from this class. It takes care of setting up MerchantInfo
@@ -51,22 +77,50 @@ public class Safecharge {
      */
     public void initialize(String merchantId, String siteId, String merchantKey, String serverHost, Constants.HashAlgorithm algorithm) throws SafechargeException {
         merchantInfo = createMerchantInfo(merchantId, siteId, merchantKey, serverHost, algorithm);
-        sessionToken = getSessionToken();
+        sessionManager = createSessionManager(merchantInfo);
+    }
+
+    /**
+     * <p>
+     * Obtains the mandatory sessionToken for the merchant info of the {@link SafechargeClient} this object is created with.
+     * This method should always be invoked before any other method from this class.
+     * </p>
+     *
+     * @throws SafechargeConfigurationException if getting a session token isn't successful or there is no merchant info.
+     * @throws SafechargeException              if there are request related problems.
+     */
+    public void initialize() throws SafechargeException {
+        if (merchantInfo == null) {
+            throw new SafechargeConfigurationException("Missing merchant info! Please use the initialization method with merchant details.");
+        }
+        sessionManager = createSessionManager(merchantInfo);
+    }
+
+    /**
+     * <p>
+     * Sets the ages of the session token, after which it is refreshed. Once the token is older than {@code refreshAge},
+     * a new one is fetched in the background while the current one is still used. A token older than {@code maxAge} is not used
+     * anymore, the requests wait for a new one. Applies to the sessions obtained by the following initializations.
+     * </p>
+     *
+     * @param refreshAge the age to refresh the session token in the background at
+     * @param maxAge     the age to stop using the session token at
+     * @param unit       the {@link TimeUnit} of the ages
+     */
+    public void setSessionTokenAges(long refreshAge, long maxAge, TimeUnit unit) {
+        this.sessionRefreshAgeMillis = unit.toMillis(refreshAge);
+        this.sessionMaxAgeMillis = unit.toMillis(maxAge);
     }
 
     private MerchantInfo createMerchantInfo(String merchantId, String siteId, String merchantKey, String serverHost, Constants.HashAlgorithm algorithm) {
         return new MerchantInfo(merchantKey, merchantId, siteId, serverHost, algorithm);
     }
 
-    private String getSessionToken() throws SafechargeException {
-        RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
-        SafechargeBaseRequest request = requestBuilder.getSessionTokenRequest(merchantInfo);
-        SafechargeResponse response = requestExecutor.execute(request);
-        if (Constants.APIResponseStatus.ERROR.equals(response.getStatus())) {
-            throw new SafechargeConfigurationException(response.getReason());
-        }
-
-        return response.getSessionToken();
+    private SessionManager createSessionManager(MerchantInfo merchantInfo) throws SafechargeException {
+        SessionManager sessionManager = new SessionManager(requestExecutor, serviceFactory.getRequestBuilder(), merchantInfo,
+                sessionRefreshAgeMillis, sessionMaxAgeMillis);
+        sessionManager.initialize();
+        return sessionManager;
     }
 
     /**
@@ -136,7 +190,7 @@ public class Safecharge {
                                    ExternalSchemeDetails externalSchemeDetails, CurrencyConversion currencyConversion, String isPartialApproval, String paymentFlow,
                                    String redirectFlowUITheme, String aftOverride, RecipientDetails recipientDetails, CompanyDetails companyDetails, ShippingTrackingDetails shippingTrackingDetails,
                                    String cvvNotUsed, String serviceDueDate, String digitalAssetType) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getPaymentRequest(merchantInfo, sessionToken, userTokenId, clientUniqueId, clientRequestId, paymentOption,
@@ -145,13 +199,33 @@ public class Safecharge {
                 transactionType, autoPayment3D, isMoto, subMerchant, rebillingType, authenticationOnlyType, userId, externalSchemeDetails, currencyConversion, isPartialApproval, paymentFlow,
                 redirectFlowUITheme, aftOverride, recipientDetails, companyDetails, shippingTrackingDetails, cvvNotUsed, serviceDueDate, digitalAssetType);
 
-        return (PaymentResponse) requestExecutor.execute(request);
+        return (PaymentResponse) execute(request);
     }
 
-    private void ensureMerchantInfoAndSessionTokenNotNull() {
+    private String ensureMerchantInfoAndSessionTokenNotNull() throws SafechargeException {
+        SessionManager sessionManager = this.sessionManager;
+        String sessionToken = sessionManager != null ? sessionManager.getSessionToken() : null;
         if (merchantInfo == null || sessionToken == null) {
             throw new SafechargeConfigurationException("Missing mandatory info for execution of payments! Please run initialization method before creating payments.");
         }
+        return sessionToken;
+    }
+
+    /**
+     * Executes a request with a session token. If the token is rejected as expired or invalid, the request is executed
+     * once more with a new session token.
+     */
+    private SafechargeResponse execute(SafechargeBaseRequest request) throws SafechargeException {
+        String serverHost = request.getServerHost();
+        SafechargeResponse response = requestExecutor.execute(request);
+        if (response != null && (Constants.ErrorType.SESSION_EXPIRED.equals(response.getErrorType())
+                || Constants.ErrorType.INVALID_TOKEN.equals(response.getErrorType()))) {
+            // the executor removes the API url from the sent request
+            request.setServerHost(serverHost);
+            request.setSessionToken(sessionManager.renewSessionToken(request.getSessionToken()));
+            response = requestExecutor.execute(request);
+        }
+        return response;
     }
 
     /**
@@ -184,14 +258,14 @@ public class Safecharge {
                                            DeviceDetails deviceDetails, InitPaymentPaymentOption paymentOption, UrlDetails urlDetails, String customData,
                                            UserAddress billingAddress, String userId, String aftOverride,
                                            RecipientDetails recipientDetails, String relatedTransactionId) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getInitPaymentRequest(sessionToken, userTokenId, clientUniqueId, clientRequestId, currency,
                 amount, deviceDetails, paymentOption, urlDetails, customData, billingAddress, merchantInfo, userId, aftOverride,
                  recipientDetails, relatedTransactionId);
 
-        return (InitPaymentResponse) requestExecutor.execute(request);
+        return (InitPaymentResponse) execute(request);
     }
 
     /**
@@ -257,7 +331,7 @@ public class Safecharge {
                                        String isPartialApproval, ExternalSchemeDetails externalSchemeDetails, CurrencyConversion currencyConversion,
                                        OpenAmount openAmount, String aftOverride, CompanyDetails companyDetails, ShippingTrackingDetails shippingTrackingDetails,
                                        String digitalAssetType) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getOpenOrderRequest(merchantInfo, sessionToken, clientRequestId, customSiteName, productId,
@@ -267,7 +341,7 @@ public class Safecharge {
                 preventOverride, userId, isPartialApproval, externalSchemeDetails, currencyConversion, openAmount, aftOverride, companyDetails,
                 shippingTrackingDetails, digitalAssetType);
 
-        return (OpenOrderResponse) requestExecutor.execute(request);
+        return (OpenOrderResponse) execute(request);
     }
 
     /**
@@ -275,6 +349,11 @@ public class Safecharge {
      * This method should be used to create request for getPaymentStatus endpoint in Safecharge's REST API. This method retrieves
      * the status of a payment recently performed. It receives the session ID and queries if a payment was performed.
      * </p>
+     * <p>
+     * The status is queried in the current session of this object, so it's only the status of a payment performed in the same
+     * session: once the session token is renewed, e.g. by the refresh ahead of its expiry or after an expired or invalid token,
+     * this method queries the new session. Use {@link #getPaymentStatus(String)} with the session token of the payment instead.
+     * </p>
      *
      * @return Passes through the response from Safecharge's REST API.
      * @throws SafechargeConfigurationException If the {@link Safecharge#initialize(String, String, String, String, Constants.HashAlgorithm)}
@@ -282,11 +361,34 @@ public class Safecharge {
      * @throws SafechargeException              if there are request related problems.
      */
     public GetPaymentStatusResponse getPaymentStatus() throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        return getPaymentStatus(ensureMerchantInfoAndSessionTokenNotNull());
+    }
+
+    /**
+     * <p>
+     * This method should be used to create request for getPaymentStatus endpoint in Safecharge's REST API. This method retrieves
+     * the status of the payment performed in the session of the given session token.
+     * </p>
+     * <p>
+     * The request is not executed again with a new session token if the given one is expired or invalid, since the new session
+     * has no payment. The error response is returned instead.
+     * </p>
+     *
+     * @param sessionToken the session token of the payment, e.g. {@link PaymentResponse#getSessionToken()}
+     * @return Passes through the response from Safecharge's REST API.
+     * @throws SafechargeConfigurationException If the {@link Safecharge#initialize(String, String, String, String, Constants.HashAlgorithm)}
+     *                                          method is not invoked beforehand SafechargeConfigurationException exception will be thrown.
+     * @throws SafechargeException              if there are request related problems.
+     */
+    public GetPaymentStatusResponse getPaymentStatus(String sessionToken) throws SafechargeException {
+        if (merchantInfo == null || sessionToken == null) {
+            throw new SafechargeConfigurationException("Missing mandatory info for execution of payments! Please run initialization method before creating payments.");
+        }
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getPaymentStatusRequest(sessionToken, merchantInfo);
 
+        // bound to the session of the payment, so it's not replayed with a new session token
         return (GetPaymentStatusResponse) requestExecutor.execute(request);
     }
 
@@ -321,13 +423,13 @@ public class Safecharge {
     public VoidTransactionResponse voidTransaction(String clientRequestId, String relatedTransactionId, String amount, String currency,
                                                    String authCode, String clientUniqueId, UrlDetails urlDetails, String customSiteName,
                                                    String productId, String customData, String comment, SubMerchant subMerchant) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getVoidTransactionRequest(sessionToken, clientRequestId, merchantInfo, relatedTransactionId,
                 amount, currency, authCode, clientUniqueId, urlDetails, customSiteName, productId, customData, comment, subMerchant);
 
-        return (VoidTransactionResponse) requestExecutor.execute(request);
+        return (VoidTransactionResponse) execute(request);
     }
 
     /**
@@ -367,14 +469,14 @@ public class Safecharge {
                                                        UrlDetails urlDetails, String amount, String authCode, String customData,
                                                        String comment, String currency, String customSiteName, String productId,
                                                        String relatedTransactionId, SubMerchant subMerchant, ShippingTrackingDetails shippingTrackingDetails) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getSettleTransactionRequest(sessionToken, merchantInfo, clientUniqueId, clientRequestId, addendums,
                 descriptorMerchantName, descriptorMerchantPhone, urlDetails, amount, authCode, customData, comment, currency,
                 customSiteName, productId, relatedTransactionId, subMerchant, shippingTrackingDetails);
 
-        return (SettleTransactionResponse) requestExecutor.execute(request);
+        return (SettleTransactionResponse) execute(request);
     }
 
     /**
@@ -411,7 +513,7 @@ public class Safecharge {
             String amount, String authCode, String comment, String currency, String customData,
             String customSiteName, String productId, String relatedTransactionId, SubMerchant subMerchant,
             CompanyDetails companyDetails, RefundPaymentOption refundPaymentOption, String userTokenId) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getRefundTransactionRequest(sessionToken, merchantInfo,
@@ -419,7 +521,7 @@ public class Safecharge {
                 clientRequestId, urlDetails, amount, authCode, comment, currency, customData, customSiteName, productId,
                 relatedTransactionId, subMerchant, companyDetails, refundPaymentOption, userTokenId);
 
-        return (RefundTransactionResponse) requestExecutor.execute(request);
+        return (RefundTransactionResponse) execute(request);
     }
 
     /**
@@ -456,14 +558,14 @@ public class Safecharge {
                                      String customData, String customSiteName, MerchantDetails merchantDetails, String relatedTransactionId,
                                      SubMerchant subMerchant, String userId, String userTokenId, Verify3dPaymentOption paymentOption,
                                      String digitalAssetType) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getVerify3dRequest(sessionToken, merchantInfo, clientUniqueId, clientRequestId, amount,
                 currency, billingAddress, customData, customSiteName, merchantDetails, relatedTransactionId, subMerchant, userId,
                 userTokenId, paymentOption, digitalAssetType);
 
-        return (Verify3dResponse) requestExecutor.execute(request);
+        return (Verify3dResponse) execute(request);
     }
 
     /**
@@ -528,7 +630,7 @@ public class Safecharge {
                                            Constants.TransactionType transactionType, Boolean autoPayment3D, SubMerchant subMerchant,
                                            String userId, ExternalSchemeDetails externalSchemeDetails, CurrencyConversion currencyConversion,
                                            String isPartialApproval, String digitalAssetType) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getAuthorize3dRequest(merchantInfo, sessionToken, userTokenId, clientUniqueId,
@@ -537,7 +639,7 @@ public class Safecharge {
                 productId, customData, relatedTransactionId, transactionType, autoPayment3D, subMerchant, userId, externalSchemeDetails,
                 currencyConversion, isPartialApproval, digitalAssetType);
 
-        return (Authorize3dResponse) requestExecutor.execute(request);
+        return (Authorize3dResponse) execute(request);
     }
 
     /**
@@ -548,20 +650,56 @@ public class Safecharge {
      *
      * @param clientUniqueId  This ID identifies the transaction in your system. Optionally, you can pass this value to us
      *                        and we will store it with the transaction record created in our system for your future reference.
-     * @param clientRequestId The ID of the API request in the merchant’s system. This value must be unique.
+     * @param clientRequestId The ID of the API request in the merchant’s system. This value must be unique. Not used when
+     *                        the responses are cached, see {@link #setCardDetailsCache(CacheConfig)}.
      * @param cardNumber      This field can accept both cardNumber and card BIN number.
      * @return Passes through the response from Safecharge's REST API.
      * @throws SafechargeConfigurationException If the {@link Safecharge#initialize(String, String, String, String, Constants.HashAlgorithm)}
      *                                          method is not invoked beforehand SafechargeConfigurationException exception will be thrown.
      * @throws SafechargeException              if there are request related problems.
      */
-    public CardDetailsResponse getCardDetails(String clientUniqueId, String clientRequestId, String cardNumber) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+    public CardDetailsResponse getCardDetails(final String clientUniqueId, String clientRequestId, String cardNumber) throws SafechargeException {
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
+
+        RefreshingCache<List<Object>, CardDetailsResponse> cache = cardDetailsCache;
+        String bin = getBin(cardNumber);
+        if (cache == null || bin == null) {
+            return requestCardDetails(sessionToken, clientUniqueId, clientRequestId, cardNumber);
+        }
+
+        // only the BIN is kept in the key and sent by the loader, which may run in the background, so the card number is never stored
+        List<Object> key = Arrays.<Object>asList(merchantInfo.getMerchantSiteId(), bin);
+        return cache.get(key, new RefreshingCache.Loader<List<Object>, CardDetailsResponse>() {
+            @Override
+            public CardDetailsResponse load(List<Object> key) throws SafechargeException {
+                return requestCardDetails(ensureMerchantInfoAndSessionTokenNotNull(), clientUniqueId, RequestUtils.generateClientRequestId(),
+                        (String) key.get(1));
+            }
+        });
+    }
 
+    private CardDetailsResponse requestCardDetails(String sessionToken, String clientUniqueId, String clientRequestId, String cardNumber)
+            throws SafechargeException {
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         CardDetailsRequest request = requestBuilder.getCardDetailsRequest(sessionToken, merchantInfo, clientUniqueId, clientRequestId, cardNumber);
 
-        return (CardDetailsResponse) requestExecutor.execute(request);
+        return (CardDetailsResponse) execute(request);
+    }
+
+    /**
+     * @return the first 8 digits of the card number, or all of them for a shorter BIN, null if it's not a 6 to 19 digit number
+     */
+    private static String getBin(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 6 || cardNumber.length() > 19) {
+            return null;
+        }
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        return cardNumber.substring(0, Math.min(cardNumber.length(), 8));
     }
 
     /**
@@ -585,13 +723,13 @@ public class Safecharge {
      */
     public DccDetailsResponse getDccDetails(String clientUniqueId, String clientRequestId, String cardNumber, String apm, String originalAmount,
                                             String originalCurrency, String currency, String country) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         DccDetailsRequest request = requestBuilder.getDccDetailsRequest(sessionToken, merchantInfo, clientUniqueId, clientRequestId, cardNumber,
                 apm, originalAmount, originalCurrency, currency, country);
 
-        return (DccDetailsResponse) requestExecutor.execute(request);
+        return (DccDetailsResponse) execute(request);
     }
 
     /**
@@ -609,13 +747,13 @@ public class Safecharge {
      * @throws SafechargeException
      */
     public McpRatesResponse getMcpRates(String clientUniqueId, String clientRequestId, String fromCurrency, List<String> toCurrency, List<String> paymentMethods) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         McpRatesRequest request = requestBuilder.getMcpRatesRequest(sessionToken, merchantInfo, clientUniqueId, clientRequestId, fromCurrency,
                 toCurrency, paymentMethods);
 
-        return (McpRatesResponse) requestExecutor.execute(request);
+        return (McpRatesResponse) execute(request);
     }
 
     /**
@@ -640,13 +778,13 @@ public class Safecharge {
      */
     public AccountCaptureResponse accountCapture(String clientRequestId, String userTokenId, String paymentMethod, String currencyCode,
                                                  String country, String languageCode, String amount, String notificationUrl, DeviceDetails deviceDetails, UserDetails userDetails, UrlDetails urlDetails) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         AccountCaptureRequest request = requestBuilder.getAccountCaptureRequest(sessionToken, merchantInfo, clientRequestId,
                 userTokenId, paymentMethod, currencyCode, country, languageCode, amount, notificationUrl, deviceDetails, userDetails, urlDetails);
 
-        return (AccountCaptureResponse) requestExecutor.execute(request);
+        return (AccountCaptureResponse) execute(request);
     }
 
 
@@ -680,7 +818,7 @@ public class Safecharge {
                                  CurrencyConversion currencyConversion, String digitalAssetType)
             throws SafechargeException {
 
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         PayoutRequest request = requestBuilder.getPayoutRequest(sessionToken, merchantInfo,
@@ -688,7 +826,7 @@ public class Safecharge {
                 merchantDetails, urlDetails, subMethodDetails, cardData, deviceDetails, userDetails, companyDetails,
                 currencyConversion, digitalAssetType);
 
-        return (PayoutResponse) requestExecutor.execute(request);
+        return (PayoutResponse) execute(request);
     }
 
     /**
@@ -704,13 +842,13 @@ public class Safecharge {
      * @throws SafechargeException
      */
     public AddUPOAPMResponse addUpoApm(String userTokenId, String paymentMethodName, Map<String, String> apmData, UserDetailsCashier billingAddress) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getAddUpoApmRequest(sessionToken, merchantInfo,
                 userTokenId, paymentMethodName, billingAddress, apmData);
 
-        return (AddUPOAPMResponse) requestExecutor.execute(request);
+        return (AddUPOAPMResponse) execute(request);
     }
 
     /**
@@ -720,19 +858,20 @@ public class Safecharge {
      * @throws SafechargeException
      */
     public GetPayoutStatusResponse getPayoutStatus(String clientRequestId) throws SafechargeException {
-        ensureMerchantInfoAndSessionTokenNotNull();
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
 
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getPayoutStatusRequest(sessionToken, merchantInfo, clientRequestId);
 
-        return (GetPayoutStatusResponse) requestExecutor.execute(request);
+        return (GetPayoutStatusResponse) execute(request);
     }
 
     /**
      * Allows the merchant view the names, IDs and other information regarding the enabled payment methods,
      * which may be filtered based on country, currency and language.
      *
-     * @param clientRequestId   ID of the API request in merchant system.
+     * @param clientRequestId   ID of the API request in merchant system. Not used when the responses are cached,
+     *                          see {@link #setMerchantPaymentMethodsCache(CacheConfig)}.
      * @param currencyCode      The three character ISO currency code.
      * @param countryCode       The country the transaction is to be completed in.
      * @param languageCode      The language the transaction is to be completed in.
@@ -740,13 +879,77 @@ public class Safecharge {
      * @return Passes through the response from Safecharge's REST API.
      * @throws SafechargeException
      */
-    public GetMerchantPaymentMethodsResponse getMerchantPaymentMethods(String clientRequestId, String currencyCode, String countryCode, String languageCode, String type) throws SafechargeException  {
-        ensureMerchantInfoAndSessionTokenNotNull();
+    public GetMerchantPaymentMethodsResponse getMerchantPaymentMethods(String clientRequestId, final String currencyCode, final String countryCode,
+                                                                       final String languageCode, final String type) throws SafechargeException  {
+        String sessionToken = ensureMerchantInfoAndSessionTokenNotNull();
+
+        RefreshingCache<List<Object>, GetMerchantPaymentMethodsResponse> cache = merchantPaymentMethodsCache;
+        if (cache == null) {
+            return requestMerchantPaymentMethods(sessionToken, clientRequestId, currencyCode, countryCode, languageCode, type);
+        }
+
+        List<Object> key = Arrays.<Object>asList(merchantInfo.getMerchantSiteId(), currencyCode, countryCode, languageCode, type);
+        return cache.get(key, new RefreshingCache.Loader<List<Object>, GetMerchantPaymentMethodsResponse>() {
+            @Override
+            public GetMerchantPaymentMethodsResponse load(List<Object> key) throws SafechargeException {
+                // may be a background refresh, long after the request, so the load is a request of its own
+                return requestMerchantPaymentMethods(ensureMerchantInfoAndSessionTokenNotNull(), RequestUtils.generateClientRequestId(),
+                        currencyCode, countryCode, languageCode, type);
+            }
+        });
+    }
 
+    private GetMerchantPaymentMethodsResponse requestMerchantPaymentMethods(String sessionToken, String clientRequestId, String currencyCode,
+                                                                            String countryCode, String languageCode, String type) throws SafechargeException {
         RequestBuilder requestBuilder = serviceFactory.getRequestBuilder();
         SafechargeBaseRequest request = requestBuilder.getGetMerchantPaymentMethodsRequest(sessionToken, merchantInfo,
                 clientRequestId, currencyCode, countryCode, languageCode, type);
 
-        return (GetMerchantPaymentMethodsResponse) requestExecutor.execute(request);
+        return (GetMerchantPaymentMethodsResponse) execute(request);
+    }
+
+    /**
+     * <p>
+     * Enables caching of the {@link #getMerchantPaymentMethods(String, String, String, String, String)} responses, keyed by
+     * the merchant site, currency, country, language and type of the request. The clientRequestId is not a part of the key,
+     * each request loading a response into the cache gets a generated clientRequestId instead of the one of the caller.
+     * Only the successful responses are cached. The cached responses are shared by the callers and must not be modified.
+     * </p>
+     *
+     * @param config the {@link CacheConfig} of the cache or null to disable it
+     */
+    public void setMerchantPaymentMethodsCache(CacheConfig config) {
+        this.merchantPaymentMethodsCache = config != null ? new RefreshingCache<List<Object>, GetMerchantPaymentMethodsResponse>(config,
+                SafechargeRequestExecutor.SUCCESSFUL_RESPONSE, null) : null;
+    }
+
+    /**
+     * @return the cache of the {@link #getMerchantPaymentMethods(String, String, String, String, String)} responses with its hit and miss counters,
+     * null if it's not enabled
+     */
+    public RefreshingCache<List<Object>, GetMerchantPaymentMethodsResponse> getMerchantPaymentMethodsCache() {
+        return merchantPaymentMethodsCache;
+    }
+
+    /**
+     * <p>
+     * Enables caching of the {@link #getCardDetails(String, String, String)} responses, keyed by the merchant site and the BIN,
+     * i.e. the first 8 digits of the card number. The card numbers themselves are never stored. Values which aren't 6 to 19 digit
+     * numbers are not cached. Only the BIN is sent in the requests loading the responses into the cache, each with a generated
+     * clientRequestId instead of the one of the caller. Only the successful responses are cached. The cached responses are shared
+     * by the callers and must not be modified.
+     * </p>
+     *
+     * @param config the {@link CacheConfig} of the cache or null to disable it
+     */
+    public void setCardDetailsCache(CacheConfig config) {
+        this.cardDetailsCache = config != null ? new RefreshingCache<List<Object>, CardDetailsResponse>(config, SafechargeRequestExecutor.SUCCESSFUL_RESPONSE, null) : null;
+    }
+
+    /**
+     * @return the cache of the {@link #getCardDetails(String, String, String)} responses with its hit and miss counters, null if it's not enabled
+     */
+    public RefreshingCache<List<Object>, CardDetailsResponse> getCardDetailsCache() {
+        return cardDetailsCache;
     }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+
+import com.safecharge.model.Proxy;
+
+/**
+ * <p>
+ * Builder for a non-blocking {@link CloseableHttpAsyncClient} for communicating with the Safecharge's servers.
+ * All of the requests sent through the built client are multiplexed over a small, fixed number of I/O dispatcher threads.
+ * </p>
+ *
+ * @see SafechargeClientBuilder
+ */
+public class SafechargeAsyncClientBuilder {
+
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = SafechargeClientBuilder.DEFAULT_MAX_TOTAL_CONNECTIONS;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = SafechargeClientBuilder.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private static final int DEFAULT_TIMEOUT_SECONDS = 30;
+    private static final int DEFAULT_TIMEOUT_MILLISECONDS = DEFAULT_TIMEOUT_SECONDS * 1000;
+    private static final String[] SERVER_SUPPORTED_SSL_PROTOCOLS = new String[]{"TLSv1.1", "TLSv1.2", "TLSv1.3"};
+
+    private HttpHost proxyHost = null;
+    private RequestConfig requestConfig = null;
+    private IOReactorConfig ioReactorConfig = null;
+    private SchemeIOSessionStrategy sslStrategy = null;
+    private int maxTotalConnections = DEFAULT_MAX_TOTAL_CONNECTIONS;
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
+    /**
+     * Adds proxy to the {@link CloseableHttpAsyncClient} created by this builder
+     *
+     * @param proxy A {@link Proxy} object to get the connection info from
+     * @return this object
+     */
+    public SafechargeAsyncClientBuilder setProxy(Proxy proxy) {
+
+        if (proxy != null) {
+            this.proxyHost = new HttpHost(proxy.getHost(), proxy.getPort(), proxy.getProtocol());
+        }
+
+        return this;
+    }
+
+    /* Custom */
+
+    /**
+     * Sets a {@link RequestConfig} object to set connection properties like timeout, etc.
+     *
+     * @param requestConfig A {@link RequestConfig} object to get the connection properties from
+     * @return this object
+     */
+    public SafechargeAsyncClientBuilder setRequestConfig(RequestConfig requestConfig) {
+        this.requestConfig = requestConfig;
+        return this;
+    }
+
+    /**
+     * Sets an {@link IOReactorConfig} object to set the I/O reactor properties like number of the I/O dispatcher threads,
+     * socket timeout, etc.
+     *
+     * @param ioReactorConfig An {@link IOReactorConfig} object to get the I/O reactor properties from
+     * @return this object
+     */
+    public SafechargeAsyncClientBuilder setIOReactorConfig(IOReactorConfig ioReactorConfig) {
+        this.ioReactorConfig = ioReactorConfig;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the pooled connections in total and per route.
+     *
+     * @param maxTotalConnections    the maximum number of the connections in the pool
+     * @param maxConnectionsPerRoute the maximum number of the connections to a single host
+     * @return this object
+     */
+    public SafechargeAsyncClientBuilder setConnectionPoolLimits(int maxTotalConnections, int maxConnectionsPerRoute) {
+        this.maxTotalConnections = maxTotalConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /**
+     * Sets a {@link SchemeIOSessionStrategy} object to set connection properties,
+     * such as supported SSL Protocols, hostname verifier, etc(needed to create a https connection).
+     *
+     * @param sslStrategy A {@link SchemeIOSessionStrategy} object to get the connection properties from
+     * @return this object
+     */
+    public SafechargeAsyncClientBuilder setSSLStrategy(SchemeIOSessionStrategy sslStrategy) {
+        this.sslStrategy = sslStrategy;
+        return this;
+    }
+
+    /**/
+
+    /* Default methods */
+
+    /**
+     * Sets a Safecharge's default {@link RequestConfig} object to set connection properties like timeout, etc.
+     *
+     * @return this object
+     */
+    public SafechargeAsyncClientBuilder setDefaultRequestConfig() {
+        this.requestConfig = RequestConfig.custom()
+                .setSocketTimeout(DEFAULT_TIMEOUT_MILLISECONDS)
+                .setConnectTimeout(DEFAULT_TIMEOUT_MILLISECONDS)
+                .setConnectionRequestTimeout(DEFAULT_TIMEOUT_MILLISECONDS)
+                .setCookieSpec(CookieSpecs.IGNORE_COOKIES)
+                .build();
+        return this;
+    }
+
+    /**
+     * Sets a Safecharge's default {@link IOReactorConfig} object - one I/O dispatcher thread per available processor.
+     *
+     * @return this object
+     */
+    public SafechargeAsyncClientBuilder setDefaultIOReactorConfig() {
+        this.ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(Runtime.getRuntime()
+                        .availableProcessors())
+                .setConnectTimeout(DEFAULT_TIMEOUT_MILLISECONDS)
+                .setSoTimeout(DEFAULT_TIMEOUT_MILLISECONDS)
+                .setSoKeepAlive(true)
+                .build();
+        return this;
+    }
+
+    /**
+     * Sets a Safecharge's default {@link SchemeIOSessionStrategy} object to set connection properties,
+     * such as supported SSL Protocols, hostname verifier, etc(needed to create a https connection).
+     * The strategy uses the shared SSL context of {@link SafechargeClientBuilder#getDefaultSSLContext()}.
+     *
+     * @return this object
+     */
+    public SafechargeAsyncClientBuilder setDefaultSSLStrategy() {
+        SSLContext sslContext = SafechargeClientBuilder.getDefaultSSLContext();
+        String[] javaSupportedProtocols = sslContext.getSupportedSSLParameters()
+                .getProtocols();
+
+        List<String> supportedProtocols = new ArrayList<>();
+        for (String serverSupportedProtocol : SERVER_SUPPORTED_SSL_PROTOCOLS) {
+            for (String javaSupportedProtocol : javaSupportedProtocols) {
+                if (serverSupportedProtocol.equals(javaSupportedProtocol)) {
+                    supportedProtocols.add(serverSupportedProtocol);
+                }
+            }
+        }
+
+        if (!supportedProtocols.isEmpty()) {
+            sslStrategy = new SSLIOSessionStrategy(sslContext, supportedProtocols.toArray(new String[]{}), null, new DefaultHostnameVerifier());
+        } else {
+            throw new UnsupportedOperationException("Your Java version doesn't support any of the server supported SSL protocols: " + Arrays.toString(
+                    SERVER_SUPPORTED_SSL_PROTOCOLS));
+        }
+        return this;
+    }
+
+    /**/
+
+    /**
+     * Creates the {@link CloseableHttpAsyncClient} with the properties set by the builder's methods.
+     * Note that the returned client is not started yet.
+     *
+     * @return new {@link CloseableHttpAsyncClient}
+     */
+    public CloseableHttpAsyncClient build() {
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setDefaultRequestConfig(requestConfig)
+                .setMaxConnTotal(maxTotalConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute);
+
+        if (proxyHost != null) {
+            builder.setProxy(proxyHost);
+        }
+        if (ioReactorConfig != null) {
+            builder.setDefaultIOReactorConfig(ioReactorConfig);
+        }
+        if (sslStrategy != null) {
+            builder.setSSLStrategy(sslStrategy);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,475 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+
+import com.google.gson.Gson;
+import com.safecharge.biz.cache.CacheConfig;
+import com.safecharge.biz.pool.AdaptiveConnectionManager;
+import com.safecharge.biz.pool.AdaptivePoolConfig;
+import com.safecharge.exception.SafechargeConfigurationException;
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.model.Proxy;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.Constants;
+
+/**
+ * <p>
+ * A per-merchant client. Unlike the shared {@link SafechargeRequestExecutor#getInstance()}, every {@link SafechargeClient}
+ * carries its own {@link MerchantInfo} and HTTP clients with separately sized connection pools,
+ * so a high-volume merchant site can not starve the others running in the same JVM.
+ * </p>
+ * <p>
+ * Instances are thread-safe and are meant to be created once per merchant site and shared. Call {@link #close()}
+ * to release the connection pools when the client is no longer needed.
+ * </p>
+ *
+ * @see Safecharge#Safecharge(SafechargeClient)
+ */
+public class SafechargeClient implements Closeable {
+
+    private static final Log logger = LogFactory.getLog(SafechargeClient.class);
+    private static final int WARM_UP_TIMEOUT_MILLISECONDS = 10000;
+
+    private final MerchantInfo merchantInfo;
+    private final HttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final boolean isProxied;
+    private final CloseableHttpAsyncClient httpAsyncClient;
+    // the clients set on the builder belong to the caller, so only the ones created here are closed
+    private final boolean isHttpClientOwned;
+    private final boolean isHttpAsyncClientOwned;
+    private final SafechargeRequestExecutor requestExecutor;
+    private final SessionTokenPool sessionTokenPool;
+    private final SafechargeTransport transport;
+    private final ExecutorService asyncExecutor;
+
+    private SafechargeClient(Builder builder) {
+        this.merchantInfo = builder.merchantInfo;
+        this.isProxied = builder.proxy != null;
+        // an alternative transport sends both the blocking and the asynchronous requests, and the virtual threads send the
+        // asynchronous ones as blocking requests, so the HTTP/1.1 clients they replace are not created
+        boolean isHttp11 = builder.httpTransport == Constants.HttpTransport.HTTP_1_1;
+        this.isHttpClientOwned = builder.httpClient == null && isHttp11;
+        this.isHttpAsyncClientOwned = builder.httpAsyncClient == null && isHttp11 && !builder.isVirtualThreadsEnabled;
+        if (!isHttpClientOwned) {
+            this.httpClient = builder.httpClient;
+            this.connectionManager = null;
+        } else {
+            SafechargeClientBuilder httpClientBuilder = SafechargeHttpClient.custom()
+                    .setProxy(builder.proxy)
+                    .setDefaultConnectionManager(builder.maxTotalConnections, builder.maxConnectionsPerRoute)
+                    .setDefaultConnectionTTL()
+                    .setDefaultRequestConfig()
+                    .setDefaultSSLSocketFactory();
+            if (builder.adaptivePoolConfig != null) {
+                httpClientBuilder.setAdaptiveConnectionManager(builder.adaptivePoolConfig);
+            }
+            this.httpClient = httpClientBuilder.build();
+            this.connectionManager = (PoolingHttpClientConnectionManager) httpClientBuilder.getConnectionManager();
+        }
+        // the clients created so far are closed if the client can't be completed, e.g. when its transport is not available
+        try {
+            this.httpAsyncClient = !isHttpAsyncClientOwned ? builder.httpAsyncClient : SafechargeHttpClient.customAsync()
+                    .setProxy(builder.proxy)
+                    .setConnectionPoolLimits(builder.maxTotalConnections, builder.maxConnectionsPerRoute)
+                    .setDefaultRequestConfig()
+                    .setDefaultIOReactorConfig()
+                    .setDefaultSSLStrategy()
+                    .build();
+            this.requestExecutor = new SafechargeRequestExecutor(httpClient, httpAsyncClient, builder.gson, builder.jsonRetention);
+            this.requestExecutor.setUserUPOsCache(builder.userUPOsCacheConfig);
+            this.requestExecutor.setReadCoalescingEnabled(builder.isReadCoalescingEnabled);
+            if (builder.httpTransport == Constants.HttpTransport.HTTP_2) {
+                this.transport = Http2Transport.builder()
+                        .setProxy(builder.proxy)
+                        .setConnectionPoolLimits(builder.maxTotalConnections, Http2Transport.DEFAULT_MAX_CONNECTIONS_PER_ROUTE)
+                        .build();
+            } else if (builder.httpTransport == Constants.HttpTransport.JDK_HTTP_CLIENT) {
+                this.transport = RuntimeSupport.createJdkHttpTransport(builder.proxy, SafechargeClientBuilder.DEFAULT_TIMEOUT_SECONDS);
+            } else {
+                this.transport = null;
+            }
+            this.requestExecutor.setTransport(transport);
+            this.asyncExecutor = builder.isVirtualThreadsEnabled ? RuntimeSupport.newVirtualThreadPerTaskExecutor() : null;
+            this.requestExecutor.setAsyncExecutor(asyncExecutor);
+            if (builder.warmUpConnections > 0) {
+                try {
+                    warmUp(builder.warmUpConnections);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Failed to warm up the connection pool of " + merchantInfo.getServerHost() + ": " + e.getMessage());
+                }
+            }
+            if (builder.sessionTokenPoolSize > 0) {
+                this.sessionTokenPool = new SessionTokenPool(requestExecutor, merchantInfo, builder.sessionTokenPoolSize,
+                        builder.sessionTokenMaxAgeMillis, TimeUnit.MILLISECONDS);
+                this.sessionTokenPool.refill();
+            } else {
+                this.sessionTokenPool = null;
+            }
+        } catch (RuntimeException | Error e) {
+            closeAfterFailure(e);
+            throw e;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public MerchantInfo getMerchantInfo() {
+        return merchantInfo;
+    }
+
+    /**
+     * @return the {@link SafechargeRequestExecutor} bound to this client's connection pools
+     */
+    public SafechargeRequestExecutor getRequestExecutor() {
+        return requestExecutor;
+    }
+
+    /**
+     * <p>
+     * Opens connections to the server host of the merchant info in the connection pool of the blocking requests, so they are
+     * ready for the first requests. Only the missing connections are opened and all but the first resume its TLS session.
+     * </p>
+     * <p>
+     * A connection expires {@value SafechargeClientBuilder#CONNECTION_TIME_TO_LIVE_SECONDS} seconds after it's opened, whether
+     * it's used or not, and the {@link AdaptiveConnectionManager} closes the connections idle for longer than the idle timeout of
+     * its {@link AdaptivePoolConfig} even sooner. So the warmed connections only serve the requests sent shortly after this call.
+     * The client doesn't re-warm the pool by itself; to keep connections ready for sporadic requests, call this method more often
+     * than the connections expire or are evicted. Every call after an expiry pays the TCP connect and the abbreviated TLS handshake
+     * again.
+     * </p>
+     * <p>
+     * Nothing is opened if the client is built with its own {@link HttpClient}, a proxy or an alternative
+     * {@link Constants.HttpTransport}.
+     * </p>
+     *
+     * @param connections the number of the open connections to have in the pool, capped by the per-route connection limit
+     * @return the number of the newly opened connections
+     * @throws IOException if opening a connection fails
+     * @see Builder#setWarmUpConnections(int)
+     */
+    public int warmUp(int connections) throws IOException {
+        // the connections through a proxy are tunnelled by the client itself, so they can't be opened ahead
+        if (connectionManager == null || isProxied || transport != null) {
+            return 0;
+        }
+        return ConnectionPoolWarmer.warmUp(connectionManager, merchantInfo.getServerHost(), connections, WARM_UP_TIMEOUT_MILLISECONDS);
+    }
+
+    /**
+     * @return the connection manager of the blocking requests with its sizing metrics, null if the client is built without
+     * an {@link AdaptivePoolConfig}
+     * @see Builder#setAdaptiveConnectionPool(AdaptivePoolConfig)
+     */
+    public AdaptiveConnectionManager getAdaptiveConnectionManager() {
+        return connectionManager instanceof AdaptiveConnectionManager ? (AdaptiveConnectionManager) connectionManager : null;
+    }
+
+    /**
+     * @return the client of the blocking requests, null if an alternative transport replaces it
+     */
+    HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * @return the client of the asynchronous requests, null if an alternative transport or the virtual threads replace it
+     */
+    CloseableHttpAsyncClient getHttpAsyncClient() {
+        return httpAsyncClient;
+    }
+
+    /**
+     * @return the {@link SessionTokenPool} of this client or null if it is built without one
+     * @see Builder#setSessionTokenPoolSize(int)
+     */
+    public SessionTokenPool getSessionTokenPool() {
+        return sessionTokenPool;
+    }
+
+    /**
+     * Closes the HTTP clients created by this client and releases their connection pools. The clients set by
+     * {@link Builder#setHttpClient(HttpClient)} and {@link Builder#setHttpAsyncClient(CloseableHttpAsyncClient)} are not closed.
+     *
+     * @throws IOException if any of the clients fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        if (sessionTokenPool != null) {
+            sessionTokenPool.close();
+        }
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+        }
+        try {
+            if (transport != null) {
+                transport.close();
+            }
+        } finally {
+            try {
+                if (isHttpAsyncClientOwned && httpAsyncClient != null) {
+                    httpAsyncClient.close();
+                }
+            } finally {
+                if (isHttpClientOwned && httpClient instanceof Closeable) {
+                    ((Closeable) httpClient).close();
+                }
+            }
+        }
+    }
+
+    private void closeAfterFailure(Throwable failure) {
+        try {
+            close();
+        } catch (IOException | RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    public static class Builder {
+
+        private MerchantInfo merchantInfo;
+        private Proxy proxy;
+        private int maxTotalConnections = SafechargeClientBuilder.DEFAULT_MAX_TOTAL_CONNECTIONS;
+        private int maxConnectionsPerRoute = SafechargeClientBuilder.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        private HttpClient httpClient;
+        private CloseableHttpAsyncClient httpAsyncClient;
+        private Gson gson;
+        private Constants.ResponseJsonRetention jsonRetention = Constants.ResponseJsonRetention.STRING;
+        private int sessionTokenPoolSize = 0;
+        private long sessionTokenMaxAgeMillis = SessionTokenPool.DEFAULT_MAX_TOKEN_AGE_MILLIS;
+        private CacheConfig userUPOsCacheConfig;
+        private boolean isReadCoalescingEnabled = false;
+        private Constants.HttpTransport httpTransport = Constants.HttpTransport.HTTP_1_1;
+        private boolean isVirtualThreadsEnabled = false;
+        private int warmUpConnections = 0;
+        private AdaptivePoolConfig adaptivePoolConfig;
+
+        /**
+         * Sets the merchant info used by all of the requests sent through the client.
+         *
+         * @param merchantInfo (required) A {@link MerchantInfo} object containing info needed to create a request to Safecharge
+         * @return this object
+         */
+        public Builder setMerchantInfo(MerchantInfo merchantInfo) {
+            this.merchantInfo = merchantInfo;
+            return this;
+        }
+
+        /**
+         * Routes the client's connections through a {@link Proxy}. Ignored for the clients set by
+         * {@link #setHttpClient(HttpClient)} and {@link #setHttpAsyncClient(CloseableHttpAsyncClient)}.
+         *
+         * @param proxy A {@link Proxy} object to get the connection info from
+         * @return this object
+         */
+        public Builder setProxy(Proxy proxy) {
+            this.proxy = proxy;
+            return this;
+        }
+
+        /**
+         * Sets the limits of this client's own connection pools. Ignored for the clients set by
+         * {@link #setHttpClient(HttpClient)} and {@link #setHttpAsyncClient(CloseableHttpAsyncClient)}.
+         *
+         * @param maxTotalConnections    the maximum number of the connections in the pool
+         * @param maxConnectionsPerRoute the maximum number of the connections to a single host
+         * @return this object
+         */
+        public Builder setConnectionPoolLimits(int maxTotalConnections, int maxConnectionsPerRoute) {
+            this.maxTotalConnections = maxTotalConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Sets a custom configured {@link HttpClient}, e.g. built by {@link SafechargeHttpClient#custom()}. The caller keeps
+         * owning it, so it's not closed by {@link SafechargeClient#close()} or when the building of the client fails.
+         *
+         * @param httpClient the {@link HttpClient} to send the blocking requests through
+         * @return this object
+         */
+        public Builder setHttpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Sets a custom configured {@link CloseableHttpAsyncClient}, e.g. built by {@link SafechargeHttpClient#customAsync()}.
+         * The caller keeps owning it, so it's not closed by {@link SafechargeClient#close()} or when the building of the client fails.
+         *
+         * @param httpAsyncClient the {@link CloseableHttpAsyncClient} to send the asynchronous requests through
+         * @return this object
+         */
+        public Builder setHttpAsyncClient(CloseableHttpAsyncClient httpAsyncClient) {
+            this.httpAsyncClient = httpAsyncClient;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Gson} used to serialize the requests and to parse the responses. If not set, the default
+         * configuration shared by all of the clients is used.
+         *
+         * @param gson A {@link Gson} instance
+         * @return this object
+         */
+        public Builder setGson(Gson gson) {
+            this.gson = gson;
+            return this;
+        }
+
+        /**
+         * Sets how the raw JSON of the responses is kept, see {@link Constants.ResponseJsonRetention}. Defaults to
+         * {@link Constants.ResponseJsonRetention#STRING}. Clients which don't use {@link SafechargeResponse#getJson()} should
+         * prefer {@link Constants.ResponseJsonRetention#NONE}. {@link Constants.ResponseJsonRetention#BYTES} only saves memory
+         * on Java 8 or for JSON outside of Latin-1.
+         *
+         * @param jsonRetention the retention of the responses' JSON
+         * @return this object
+         */
+        public Builder setResponseJsonRetention(Constants.ResponseJsonRetention jsonRetention) {
+            this.jsonRetention = jsonRetention;
+            return this;
+        }
+
+        /**
+         * Enables a {@link SessionTokenPool}, which keeps the given number of session tokens pre-fetched for the requests
+         * consuming their token, e.g. the payments of {@link com.safecharge.biz.simple.payment.SimpleCreditCardPayment}.
+         * The pool is disabled by default.
+         *
+         * @param sessionTokenPoolSize the number of the tokens to keep pre-fetched or 0 to disable the pool
+         * @return this object
+         */
+        public Builder setSessionTokenPoolSize(int sessionTokenPoolSize) {
+            this.sessionTokenPoolSize = sessionTokenPoolSize;
+            return this;
+        }
+
+        /**
+         * Sets the age after which a pre-fetched session token is discarded instead of used. Defaults to
+         * {@link SessionTokenPool#DEFAULT_MAX_TOKEN_AGE_MILLIS}.
+         *
+         * @param maxAge the max age of a pooled session token
+         * @param unit   the {@link TimeUnit} of the {@code maxAge}
+         * @return this object
+         */
+        public Builder setSessionTokenMaxAge(long maxAge, TimeUnit unit) {
+            this.sessionTokenMaxAgeMillis = unit.toMillis(maxAge);
+            return this;
+        }
+
+        /**
+         * Enables caching of the users' UPO lists, invalidated whenever a UPO of the user is changed through this client.
+         * The cache is disabled by default.
+         *
+         * @param userUPOsCacheConfig the {@link CacheConfig} of the cache or null to disable it
+         * @return this object
+         * @see SafechargeRequestExecutor#setUserUPOsCache(CacheConfig)
+         */
+        public Builder setUserUPOsCache(CacheConfig userUPOsCacheConfig) {
+            this.userUPOsCacheConfig = userUPOsCacheConfig;
+            return this;
+        }
+
+        /**
+         * Enables sharing a single upstream call among the identical read-only requests executed concurrently by this client.
+         * The coalescing is disabled by default.
+         *
+         * @param isReadCoalescingEnabled true to enable the coalescing
+         * @return this object
+         * @see SafechargeRequestExecutor#setReadCoalescingEnabled(boolean)
+         */
+        public Builder setReadCoalescingEnabled(boolean isReadCoalescingEnabled) {
+            this.isReadCoalescingEnabled = isReadCoalescingEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the HTTP protocol the requests are sent with. With {@link Constants.HttpTransport#HTTP_2} the requests are
+         * multiplexed by an {@link Http2Transport} over a couple of connections, falling back to HTTP/1.1 when the server
+         * doesn't negotiate HTTP/2, and the HTTP clients of the builder are not used. The client doesn't create its own HTTP/1.1
+         * clients and connection pools for the other transports. Defaults to {@link Constants.HttpTransport#HTTP_1_1}.
+         *
+         * @param httpTransport the {@link Constants.HttpTransport} of the client
+         * @return this object
+         */
+        public Builder setHttpTransport(Constants.HttpTransport httpTransport) {
+            this.httpTransport = httpTransport;
+            return this;
+        }
+
+        /**
+         * Runs each asynchronous request of the client as a blocking request on a virtual thread of its own, instead of
+         * sending it with the non-blocking client. Requires Java 21 or newer and is disabled by default. The virtual threads
+         * don't hold a connection each when combined with the multiplexing {@link Constants.HttpTransport#JDK_HTTP_CLIENT}
+         * transport, otherwise their concurrency is bounded by the connection pool limits. The client doesn't create its own
+         * non-blocking client then.
+         *
+         * @param isVirtualThreadsEnabled true to run the asynchronous requests on virtual threads
+         * @return this object
+         * @see SafechargeRequestExecutor#setAsyncExecutor(java.util.concurrent.Executor)
+         */
+        public Builder setVirtualThreadsEnabled(boolean isVirtualThreadsEnabled) {
+            this.isVirtualThreadsEnabled = isVirtualThreadsEnabled;
+            return this;
+        }
+
+        /**
+         * Sizes the connection pool of the blocking requests adaptively, see {@link AdaptiveConnectionManager}, instead of
+         * with the fixed limits of {@link #setConnectionPoolLimits(int, int)}. Ignored for the client set by
+         * {@link #setHttpClient(HttpClient)}.
+         *
+         * @param adaptivePoolConfig the {@link AdaptivePoolConfig} of the pool or null for the fixed limits
+         * @return this object
+         */
+        public Builder setAdaptiveConnectionPool(AdaptivePoolConfig adaptivePoolConfig) {
+            this.adaptivePoolConfig = adaptivePoolConfig;
+            return this;
+        }
+
+        /**
+         * Opens connections to the server host when the client is built, see {@link SafechargeClient#warmUp(int)}.
+         * The connections are opened once: they expire {@value SafechargeClientBuilder#CONNECTION_TIME_TO_LIVE_SECONDS} seconds
+         * later, or are evicted sooner when idle in an adaptive pool, so they only speed up the requests sent right after the build.
+         * A failed warm-up is logged as a warning and doesn't fail the building of the client. None are opened by default.
+         *
+         * @param warmUpConnections the number of the connections to open
+         * @return this object
+         */
+        public Builder setWarmUpConnections(int warmUpConnections) {
+            this.warmUpConnections = warmUpConnections;
+            return this;
+        }
+
+        /**
+         * Builds the client.
+         *
+         * @return new {@link SafechargeClient}
+         * @throws SafechargeConfigurationException if the merchant info is missing or a Java 21 feature is enabled on an older runtime
+         */
+        public SafechargeClient build() {
+            if (merchantInfo == null) {
+                throw new SafechargeConfigurationException("Missing mandatory merchant info for the creation of a client!");
+            }
+            if ((isVirtualThreadsEnabled || httpTransport == Constants.HttpTransport.JDK_HTTP_CLIENT) && !RuntimeSupport.isJava21Supported()) {
+                throw new SafechargeConfigurationException("The virtual threads and the JDK HTTP client transport require Java 21 or newer!");
+            }
+            return new SafechargeClient(this);
+        }
+    }
+}
@@ -15,8 +15,12 @@ import org.apache.http.HttpHost;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.HttpClients;
@@ -24,6 +28,8 @@ import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.SSLContexts;
 
+import com.safecharge.biz.pool.AdaptiveConnectionManager;
+import com.safecharge.biz.pool.AdaptivePoolConfig;
 import com.safecharge.model.Proxy;
 
 /**
@@ -38,9 +44,11 @@ public class SafechargeClientBuilder {
     public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
     public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
     public static final int CONNECTION_TIME_TO_LIVE_SECONDS = 30;
-    private static final int DEFAULT_TIMEOUT_SECONDS = 30;
+    static final int DEFAULT_TIMEOUT_SECONDS = 30;
     private static final int DEFAULT_TIMEOUT_MILLISECONDS = DEFAULT_TIMEOUT_SECONDS * 1000;
-    private static final String[] SERVER_SUPPORTED_SSL_PROTOCOLS = new String[]{"TLSv1.1", "TLSv1.2"};
+    public static final int TLS_SESSION_CACHE_SIZE = 1000;
+    public static final int TLS_SESSION_TIMEOUT_SECONDS = 3600;
+    private static final String[] SERVER_SUPPORTED_SSL_PROTOCOLS = new String[]{"TLSv1.1", "TLSv1.2", "TLSv1.3"};
 
     private int timeToLive;
     private TimeUnit timeToLiveTimeUnit;
@@ -48,6 +56,9 @@ public class SafechargeClientBuilder {
     private DefaultProxyRoutePlanner routePlanner = null;
     private HttpClientConnectionManager connectionManager = null;
     private LayeredConnectionSocketFactory sslSocketFactory = null;
+    private int maxTotalConnections = 0;
+    private int maxConnectionsPerRoute = 0;
+    private AdaptivePoolConfig adaptivePoolConfig = null;
 
     /**
      * Adds proxy to the {@link HttpClient} created by this builder
@@ -87,6 +98,8 @@ public class SafechargeClientBuilder {
      */
     public SafechargeClientBuilder setConnectionManager(HttpClientConnectionManager connectionManager) {
         this.connectionManager = connectionManager;
+        this.maxTotalConnections = 0;
+        this.adaptivePoolConfig = null;
         return this;
     }
 
@@ -143,9 +156,37 @@ public class SafechargeClientBuilder {
      * @return this object
      */
     public SafechargeClientBuilder setDefaultConnectionManager() {
-        this.connectionManager = new PoolingHttpClientConnectionManager(CONNECTION_TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS);
-        ((PoolingHttpClientConnectionManager) this.connectionManager).setMaxTotal(DEFAULT_MAX_TOTAL_CONNECTIONS);
-        ((PoolingHttpClientConnectionManager) this.connectionManager).setDefaultMaxPerRoute(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+        return setDefaultConnectionManager(DEFAULT_MAX_TOTAL_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+    /**
+     * Sets a Safecharge's default {@link HttpClientConnectionManager} object with custom pool limits.
+     *
+     * @param maxTotalConnections    the maximum number of the connections in the pool
+     * @param maxConnectionsPerRoute the maximum number of the connections to a single host
+     * @return this object
+     */
+    public SafechargeClientBuilder setDefaultConnectionManager(int maxTotalConnections, int maxConnectionsPerRoute) {
+        // created by build(), so its connections are opened with the SSL socket factory of the builder
+        this.connectionManager = null;
+        this.maxTotalConnections = maxTotalConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.adaptivePoolConfig = null;
+        return this;
+    }
+
+    /**
+     * Sets an {@link AdaptiveConnectionManager}, which adjusts the per-route connection limits to the observed load and evicts
+     * the idle connections in the background, instead of the fixed-size default one. The stale connection check of the
+     * request config is disabled for it, since the manager validates the connections after inactivity.
+     *
+     * @param adaptivePoolConfig the {@link AdaptivePoolConfig} of the connection manager
+     * @return this object
+     */
+    public SafechargeClientBuilder setAdaptiveConnectionManager(AdaptivePoolConfig adaptivePoolConfig) {
+        this.connectionManager = null;
+        this.maxTotalConnections = 0;
+        this.adaptivePoolConfig = adaptivePoolConfig;
         return this;
     }
 
@@ -163,11 +204,36 @@ public class SafechargeClientBuilder {
     /**
      * Sets a Safecharge's default  {@link LayeredConnectionSocketFactory} object to set connection properties,
      * such as supported SSL Protocols, hostname verifier, etc(needed to create a https connection).
+     * The factory uses the SSL context of {@link #getDefaultSSLContext()}, so its TLS sessions are resumed by the other
+     * clients of the SDK.
      *
      * @return this object
      */
     public SafechargeClientBuilder setDefaultSSLSocketFactory() {
-        SSLContext sslContext = SSLContexts.createDefault();
+        sslSocketFactory = new SSLConnectionSocketFactory(getDefaultSSLContext(), getSupportedSSLProtocols(getDefaultSSLContext()), null,
+                new DefaultHostnameVerifier());
+        return this;
+    }
+
+    /**
+     * Returns the SSL context shared by the default SSL socket factories and strategies of the SDK. Its client session cache
+     * keeps up to {@value TLS_SESSION_CACHE_SIZE} TLS sessions for {@value TLS_SESSION_TIMEOUT_SECONDS} seconds, so the new
+     * connections to a host already connected to by any client resume the TLS session with an abbreviated handshake.
+     *
+     * @return the default {@link SSLContext}
+     */
+    public static SSLContext getDefaultSSLContext() {
+        return DefaultSSLContextHolder.SSL_CONTEXT;
+    }
+
+    /**/
+
+    /**
+     * @param sslContext the {@link SSLContext} to create the connections with
+     * @return the SSL protocols supported by both the server and the {@code sslContext}
+     * @throws UnsupportedOperationException if the {@code sslContext} supports none of the server supported SSL protocols
+     */
+    static String[] getSupportedSSLProtocols(SSLContext sslContext) {
         String[] javaSupportedProtocols = sslContext.getSupportedSSLParameters()
                 .getProtocols();
 
@@ -180,17 +246,19 @@ public class SafechargeClientBuilder {
             }
         }
 
-        if (!supportedProtocols.isEmpty()) {
-            sslSocketFactory =
-                    new SSLConnectionSocketFactory(sslContext, supportedProtocols.toArray(new String[]{}), null, new DefaultHostnameVerifier());
-        } else {
+        if (supportedProtocols.isEmpty()) {
             throw new UnsupportedOperationException("Your Java version doesn't support any of the server supported SSL protocols: " + Arrays.toString(
                     SERVER_SUPPORTED_SSL_PROTOCOLS));
         }
-        return this;
+        return supportedProtocols.toArray(new String[]{});
     }
 
-    /**/
+    /**
+     * @return the connection manager of the last built client, null if none is built yet
+     */
+    HttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
 
     /**
      * Creates the {@link HttpClient} with the properties set by the builder's methods.
@@ -198,13 +266,49 @@ public class SafechargeClientBuilder {
      * @return new {@link HttpClient}
      */
     public HttpClient build() {
+        RequestConfig clientRequestConfig = requestConfig;
+        if (maxTotalConnections > 0) {
+            PoolingHttpClientConnectionManager poolingConnectionManager = new PoolingHttpClientConnectionManager(createSocketFactoryRegistry(), null,
+                    null, null, CONNECTION_TIME_TO_LIVE_SECONDS, TimeUnit.SECONDS);
+            poolingConnectionManager.setMaxTotal(maxTotalConnections);
+            poolingConnectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            this.connectionManager = poolingConnectionManager;
+        } else if (adaptivePoolConfig != null) {
+            this.connectionManager = new AdaptiveConnectionManager(createSocketFactoryRegistry(), adaptivePoolConfig, CONNECTION_TIME_TO_LIVE_SECONDS,
+                    TimeUnit.SECONDS);
+            if (clientRequestConfig != null) {
+                clientRequestConfig = RequestConfig.copy(clientRequestConfig)
+                        .setStaleConnectionCheckEnabled(false)
+                        .build();
+            }
+        }
         return HttpClients.custom()
                 .setRoutePlanner(routePlanner)
-                .setDefaultRequestConfig(requestConfig)
+                .setDefaultRequestConfig(clientRequestConfig)
                 .setConnectionManager(connectionManager)
                 .setConnectionTimeToLive(timeToLive, timeToLiveTimeUnit)
                 .setSSLSocketFactory(sslSocketFactory)
                 .build();
     }
 
+    private Registry<ConnectionSocketFactory> createSocketFactoryRegistry() {
+        return RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslSocketFactory != null ? sslSocketFactory : SSLConnectionSocketFactory.getSocketFactory())
+                .build();
+    }
+
+    private static final class DefaultSSLContextHolder {
+
+        private static final SSLContext SSL_CONTEXT = createDefaultSSLContext();
+
+        private static SSLContext createDefaultSSLContext() {
+            SSLContext sslContext = SSLContexts.createDefault();
+            sslContext.getClientSessionContext()
+                    .setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+            sslContext.getClientSessionContext()
+                    .setSessionTimeout(TLS_SESSION_TIMEOUT_SECONDS);
+            return sslContext;
+        }
+    }
 }
@@ -5,6 +5,7 @@
 package com.safecharge.biz;
 
 import org.apache.http.client.HttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 
 import com.safecharge.model.Proxy;
 
@@ -54,4 +55,40 @@ public class SafechargeHttpClient {
         return new SafechargeClientBuilder();
     }
 
+    /**
+     * Creates a pre-configured non-blocking {@link CloseableHttpAsyncClient} instance. The client has to be started before use.
+     *
+     * @return {@link CloseableHttpAsyncClient} with specific Safecharge's default properties
+     */
+    public static CloseableHttpAsyncClient createDefaultAsync() {
+        return new SafechargeAsyncClientBuilder().setDefaultRequestConfig()
+                .setDefaultIOReactorConfig()
+                .setDefaultSSLStrategy()
+                .build();
+    }
+
+    /**
+     * Creates a pre-configured non-blocking {@link CloseableHttpAsyncClient} instance which connects to SafeCharge's API via {@link Proxy}.
+     * The client has to be started before use.
+     *
+     * @param proxy A {@link Proxy} object to get the connection info from
+     * @return {@link CloseableHttpAsyncClient} with specific Safecharge's default properties and the proxy properties defined by the {@code proxy}
+     */
+    public static CloseableHttpAsyncClient createDefaultAsync(Proxy proxy) {
+        return new SafechargeAsyncClientBuilder().setProxy(proxy)
+                .setDefaultRequestConfig()
+                .setDefaultIOReactorConfig()
+                .setDefaultSSLStrategy()
+                .build();
+    }
+
+    /**
+     * Provides custom {@link CloseableHttpAsyncClient} configuration.
+     *
+     * @return {@link SafechargeAsyncClientBuilder} instance
+     */
+    public static SafechargeAsyncClientBuilder customAsync() {
+        return new SafechargeAsyncClientBuilder();
+    }
+
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.safecharge.json.SafechargeTypeAdapterFactory;
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.SafechargeResponse;
+
+/**
+ * <p>
+ * Thread-safe JSON codec of a {@link SafechargeRequestExecutor}. Wraps a single {@link Gson} instance, whose type adapters
+ * for all of the API request and response types are resolved when the codec is created, so the reflective inspection
+ * of the model classes is done once instead of on the first request of each type.
+ * </p>
+ * <p>
+ * The default codec serializes the API classes with the {@link SafechargeTypeAdapterFactory}'s adapters generated at build time.
+ * A codec of a custom {@link Gson} uses the adapters of that {@link Gson}, i.e. its own configuration.
+ * </p>
+ */
+final class SafechargeJsonCodec {
+
+    private final Gson gson;
+
+    /**
+     * @param gson  the {@link Gson} to serialize the requests and parse the responses with
+     * @param types the request and response types to resolve the type adapters of in advance
+     */
+    SafechargeJsonCodec(Gson gson, Iterable<? extends Class<?>> types) {
+        this.gson = gson;
+        for (Class<?> type : types) {
+            gson.getAdapter(type);
+        }
+    }
+
+    /**
+     * @return the codec shared by the executors using the default {@link Gson} configuration
+     */
+    static SafechargeJsonCodec getDefault() {
+        return DefaultCodecHolder.INSTANCE;
+    }
+
+    Gson getGson() {
+        return gson;
+    }
+
+    String toJson(SafechargeBaseRequest request) {
+        return gson.toJson(request);
+    }
+
+    /**
+     * Serializes the {@code request} into the {@code writer}, producing the same JSON as {@link #toJson(SafechargeBaseRequest)}.
+     */
+    void writeJson(SafechargeBaseRequest request, Writer writer) throws IOException {
+        gson.toJson(request, request.getClass(), gson.newJsonWriter(writer));
+    }
+
+    <T extends SafechargeResponse> T fromJson(String json, Class<T> responseClass) {
+        return gson.fromJson(json, responseClass);
+    }
+
+    /**
+     * Parses a response from the {@code reader} as it is read, without buffering its whole content.
+     */
+    <T extends SafechargeResponse> T fromJson(Reader reader, Class<T> responseClass) {
+        return gson.fromJson(reader, responseClass);
+    }
+
+    private static final class DefaultCodecHolder {
+
+        private static final SafechargeJsonCodec INSTANCE = new SafechargeJsonCodec(new GsonBuilder()
+                .registerTypeAdapterFactory(new SafechargeTypeAdapterFactory())
+                .create(), SafechargeRequestExecutor.getApiTypes());
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+import com.safecharge.request.SafechargeBaseRequest;
+
+/**
+ * <p>
+ * Repeatable {@link HttpEntity} of a request serialized as UTF-8 JSON straight into a byte buffer, without an intermediate
+ * {@code String} and its copy into bytes. The entity has an exact Content-Length.
+ * </p>
+ * <p>
+ * The buffer is reused by the requests executed on the same thread, so the entity must be {@link #release() released}
+ * once the request is sent and must not be used afterwards. Use {@link #toByteArrayEntity()} for requests sent from another thread.
+ * </p>
+ */
+final class SafechargeJsonEntity extends AbstractHttpEntity {
+
+    private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+    private static final ThreadLocal<JsonBuffer> BUFFERS = new ThreadLocal<JsonBuffer>() {
+        @Override
+        protected JsonBuffer initialValue() {
+            return new JsonBuffer();
+        }
+    };
+
+    private final JsonBuffer buffer;
+
+    private SafechargeJsonEntity(JsonBuffer buffer) {
+        this.buffer = buffer;
+        setContentType(ContentType.APPLICATION_JSON.toString());
+    }
+
+    /**
+     * Serializes the {@code request} into the buffer of the current thread.
+     *
+     * @param codec   the codec to serialize the {@code request} with
+     * @param request the request to send
+     * @return new {@link SafechargeJsonEntity} to be {@link #release() released} after the request is sent
+     * @throws IOException if the serialization fails
+     */
+    static SafechargeJsonEntity create(SafechargeJsonCodec codec, SafechargeBaseRequest request) throws IOException {
+        JsonBuffer buffer = BUFFERS.get();
+        if (buffer.isInUse) {
+            // a request serialized while another one is being sent on the same thread
+            buffer = new JsonBuffer();
+        }
+        buffer.isInUse = true;
+
+        SafechargeJsonEntity entity = new SafechargeJsonEntity(buffer);
+        try {
+            codec.writeJson(request, buffer.writer);
+            buffer.writer.flush();
+        } catch (IOException | RuntimeException e) {
+            // the writer may still hold a part of the failed request
+            entity.release(true);
+            throw e;
+        }
+        return entity;
+    }
+
+    /**
+     * Copies the content into a new entity not bound to the buffer and releases this entity.
+     *
+     * @return new {@link HttpEntity} with the same content, safe to be sent from any thread
+     */
+    HttpEntity toByteArrayEntity() {
+        try {
+            return new ByteArrayEntity(Arrays.copyOf(buffer.array(), buffer.size()), ContentType.APPLICATION_JSON);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Returns the buffer to the current thread for the next request.
+     */
+    void release() {
+        // don't hold on to the buffer of an exceptionally large request
+        release(buffer.array().length > MAX_RETAINED_BUFFER_SIZE);
+    }
+
+    private void release(boolean isDiscarded) {
+        if (!buffer.isInUse) {
+            return;
+        }
+        if (isDiscarded && BUFFERS.get() == buffer) {
+            BUFFERS.remove();
+        }
+        buffer.reset();
+        buffer.isInUse = false;
+    }
+
+    boolean isReleased() {
+        return !buffer.isInUse;
+    }
+
+    boolean sharesBufferWith(SafechargeJsonEntity entity) {
+        return buffer == entity.buffer;
+    }
+
+    /**
+     * @return the JSON content, for logging
+     */
+    String getContentAsString() {
+        return new String(buffer.array(), 0, buffer.size(), UTF8_CHARSET);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return buffer.size();
+    }
+
+    @Override
+    public InputStream getContent() {
+        return new ByteArrayInputStream(buffer.array(), 0, buffer.size());
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        outStream.write(buffer.array(), 0, buffer.size());
+        outStream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    private static final class JsonBuffer extends ByteArrayOutputStream {
+
+        private final Writer writer = new OutputStreamWriter(this, UTF8_CHARSET);
+        private boolean isInUse = false;
+
+        private JsonBuffer() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -4,26 +4,56 @@
 
 package com.safecharge.biz;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.ConnectException;
+import java.net.SocketException;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
+import com.safecharge.biz.cache.CacheConfig;
+import com.safecharge.biz.cache.RefreshingCache;
 import com.safecharge.exception.SafechargeException;
 import com.safecharge.request.*;
+import com.safecharge.request.basic.EditUPOBasicRequest;
 import com.safecharge.response.*;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.Configurable;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.util.EntityUtils;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.safecharge.util.APIConstants;
+import com.safecharge.util.Constants;
 
 /**
  * <p>
@@ -35,111 +65,96 @@ import com.safecharge.util.APIConstants;
 public class SafechargeRequestExecutor {
 
     private static final Log logger = LogFactory.getLog(SafechargeRequestExecutor.class);
-    private static final Map<Class<? extends SafechargeBaseRequest>, Class<? extends SafechargeResponse>> RESPONSE_TYPE_BY_REQUEST_TYPE =
-            new HashMap<Class<? extends SafechargeBaseRequest>, Class<? extends SafechargeResponse>>() {
-                private static final long serialVersionUID = -5429154998138428048L;
-
-                {
-                    put(GetSessionTokenRequest.class, GetSessionTokenResponse.class);
-                    put(OpenOrderRequest.class, OpenOrderResponse.class);
-                    put(UpdateOrderRequest.class, UpdateOrderResponse.class);
-                    put(GetOrderDetailsRequest.class, GetOrderDetailsResponse.class);
-                    put(PaymentCCRequest.class, PaymentCCResponse.class);
-                    put(PaymentAPMRequest.class, PaymentAPMResponse.class);
-                    put(Authorization3DRequest.class, Authorization3DResponse.class);
-                    put(Dynamic3DRequest.class, Dynamic3DResponse.class);
-                    put(CardTokenizationRequest.class, CardTokenizationResponse.class);
-                    put(Payment3DRequest.class, Payment3DResponse.class);
-                    put(AddUPOCreditCardByTempTokenRequest.class, AddUPOCreditCardByTempTokenResponse.class);
-                    put(SettleTransactionRequest.class, SettleTransactionResponse.class);
-                    put(VoidTransactionRequest.class, VoidTransactionResponse.class);
-                    put(RefundTransactionRequest.class, RefundTransactionResponse.class);
-                    put(AddUPOCreditCardRequest.class, AddUPOCreditCardResponse.class);
-                    put(AddUPOAPMRequest.class, AddUPOAPMResponse.class);
-                    put(GetMerchantPaymentMethodsRequest.class, GetMerchantPaymentMethodsResponse.class);
-                    put(CancelSubscriptionRequest.class, CancelSubscriptionResponse.class);
-                    put(CreateSubscriptionRequest.class, CreateSubscriptionResponse.class);
-                    put(GetSubscriptionsListRequest.class, GetSubscriptionsListResponse.class);
-                    put(GetSubscriptionPlansRequest.class, GetSubscriptionPlansResponse.class);
-                    put(PayoutRequest.class, PayoutResponse.class);
-                    put(CreateUserRequest.class, UserResponse.class);
-                    put(UpdateUserRequest.class, UserResponse.class);
-                    put(GetUserDetailsRequest.class, GetUserDetailsResponse.class);
-                    put(AddUPOCreditCardByTokenRequest.class, AddUPOCreditCardByTokenResponse.class);
-                    put(GetUserUPOsRequest.class, GetUserUPOsResponse.class);
-                    put(EditUPOCreditCardRequest.class, EditUPOCreditCardResponse.class);
-                    put(EditUPOAPMRequest.class, EditUPOAPMResponse.class);
-                    put(EnableUPORequest.class, EnableUPOResponse.class);
-                    put(DeleteUPORequest.class, DeleteUPOResponse.class);
-                    put(SuspendUPORequest.class, SuspendUPOResponse.class);
-                    put(PaymentRequest.class, PaymentResponse.class);
-                    put(InitPaymentRequest.class, InitPaymentResponse.class);
-                    put(GetPaymentStatusRequest.class, GetPaymentStatusResponse.class);
-                    put(Verify3dRequest.class, Verify3dResponse.class);
-                    put(Authorize3dRequest.class, Authorize3dResponse.class);
-                    put(CardDetailsRequest.class, CardDetailsResponse.class);
-                    put(DccDetailsRequest.class, DccDetailsResponse.class);
-                    put(McpRatesRequest.class, McpRatesResponse.class);
-                    put(AccountCaptureRequest.class, AccountCaptureResponse.class);
-                    put(GetPayoutStatusRequest.class, GetPayoutStatusResponse.class);
-                }
-            };
-    private static final Map<Class<? extends SafechargeBaseRequest>, String> REQUEST_URL_BY_REQUEST_TYPE =
-            new HashMap<Class<? extends SafechargeBaseRequest>, String>() {
-                private static final long serialVersionUID = -6533247180543051173L;
+    /**
+     * The read-only requests which may be coalesced, with the fields identifying what they read.
+     */
+    private static final Map<Class<? extends SafechargeBaseRequest>, Function<SafechargeBaseRequest, String>> READ_ID_BY_REQUEST_TYPE =
+            new HashMap<Class<? extends SafechargeBaseRequest>, Function<SafechargeBaseRequest, String>>() {
+                private static final long serialVersionUID = 2841187425310478315L;
 
                 {
-                    put(GetSessionTokenRequest.class, APIConstants.GET_SESSION_TOKEN_URL);
-                    put(OpenOrderRequest.class, APIConstants.OPEN_ORDER_URL);
-                    put(UpdateOrderRequest.class, APIConstants.UPDATE_ORDER_URL);
-                    put(GetOrderDetailsRequest.class, APIConstants.GET_ORDER_DETAILS_URL);
-                    put(PaymentCCRequest.class, APIConstants.PAYMENT_CC_URL);
-                    put(PaymentAPMRequest.class, APIConstants.PAYMENT_APM_URL);
-                    put(Authorization3DRequest.class, APIConstants.AUTHORIZATION_3D_URL);
-                    put(Dynamic3DRequest.class, APIConstants.DYNAMIC_3D_URL);
-                    put(CardTokenizationRequest.class, APIConstants.CARD_TOKENIZATION_URL);
-                    put(Payment3DRequest.class, APIConstants.PAYMENT_3D_URL);
-                    put(AddUPOCreditCardByTempTokenRequest.class, APIConstants.ADD_UPO_CREDIT_CARD_BY_TEMP_TOKEN_URL);
-                    put(SettleTransactionRequest.class, APIConstants.SETTLE_TRANSACTION_URL);
-                    put(VoidTransactionRequest.class, APIConstants.VOID_TRANSACTION_URL);
-                    put(RefundTransactionRequest.class, APIConstants.REFUND_TRANSACTION_URL);
-                    put(AddUPOCreditCardRequest.class, APIConstants.ADD_UPO_CREDIT_CARD_URL);
-                    put(AddUPOAPMRequest.class, APIConstants.ADD_UPO_APM_URL);
-                    put(GetMerchantPaymentMethodsRequest.class, APIConstants.GET_MERCHANT_PAYMENT_METHODS_REQUEST_URL);
-                    put(CancelSubscriptionRequest.class, APIConstants.CANCEL_SUBSCRIPTION_REQUEST_URL);
-                    put(CreateSubscriptionRequest.class, APIConstants.CREATE_SUBSCRIPTION_REQUEST_URL);
-                    put(GetSubscriptionsListRequest.class, APIConstants.GET_SUBSCRIPTION_LIST_REQUEST_URL);
-                    put(GetSubscriptionPlansRequest.class, APIConstants.GET_SUBSCRIPTION_PLANS_REQUEST_URL);
-                    put(PayoutRequest.class, APIConstants.PAYOUT_URL);
-                    put(CreateUserRequest.class, APIConstants.CREATE_USER_URL);
-                    put(UpdateUserRequest.class, APIConstants.UPDATE_USER_URL);
-                    put(GetUserDetailsRequest.class, APIConstants.GET_USER_DETAILS_URL);
-                    put(AddUPOCreditCardByTokenRequest.class, APIConstants.ADD_UPO_CREDIT_CARD_BY_TOKEN_URL);
-                    put(GetUserUPOsRequest.class, APIConstants.GET_USER_UPOS_REQUEST);
-                    put(EditUPOCreditCardRequest.class, APIConstants.EDIT_UPO_CREDIT_CARD_URL);
-                    put(EditUPOAPMRequest.class, APIConstants.EDIT_UPO_APM_URL);
-                    put(EnableUPORequest.class, APIConstants.ENABLE_UPO_URL);
-                    put(DeleteUPORequest.class, APIConstants.DELETE_UPO_APM_URL);
-                    put(SuspendUPORequest.class, APIConstants.SUSPEND_UPO_APM_URL);
-                    put(PaymentRequest.class, APIConstants.PAYMENT_URL);
-                    put(InitPaymentRequest.class, APIConstants.INIT_PAYMENT_URL);
-                    put(GetPaymentStatusRequest.class, APIConstants.GET_PAYMENT_STATUS_URL);
-                    put(Verify3dRequest.class, APIConstants.VERIFY3D_URL);
-                    put(Authorize3dRequest.class, APIConstants.AUTHORIZE3D_URL);
-                    put(CardDetailsRequest.class, APIConstants.GET_CARD_DETAILS_URL);
-                    put(DccDetailsRequest.class, APIConstants.DCC_DETAILS_URL);
-                    put(McpRatesRequest.class, APIConstants.MCP_RATES_URL);
-                    put(AccountCaptureRequest.class, APIConstants.ACCOUNT_CAPTURE_URL);
-                    put(GetPayoutStatusRequest.class, APIConstants.GET_PAYOUT_STATUS_URL);
+                    put(GetOrderDetailsRequest.class, new Function<SafechargeBaseRequest, String>() {
+                        @Override
+                        public String apply(SafechargeBaseRequest request) {
+                            return ((GetOrderDetailsRequest) request).getOrderId();
+                        }
+                    });
+                    put(GetPaymentStatusRequest.class, new Function<SafechargeBaseRequest, String>() {
+                        @Override
+                        public String apply(SafechargeBaseRequest request) {
+                            return request.getSessionToken();
+                        }
+                    });
+                    put(GetUserDetailsRequest.class, new Function<SafechargeBaseRequest, String>() {
+                        @Override
+                        public String apply(SafechargeBaseRequest request) {
+                            return ((GetUserDetailsRequest) request).getUserTokenId();
+                        }
+                    });
                 }
             };
 
     private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
+    static final Predicate<SafechargeResponse> SUCCESSFUL_RESPONSE = new Predicate<SafechargeResponse>() {
+        @Override
+        public boolean test(SafechargeResponse response) {
+            return response != null && Constants.APIResponseStatus.SUCCESS.equals(response.getStatus());
+        }
+    };
     private static SafechargeRequestExecutor instance = null;
-    private static HttpClient httpClient;
-    private static boolean isInitialized = false;
+    private final SafechargeJsonCodec codec;
+    private final Constants.ResponseJsonRetention jsonRetention;
+    private HttpClient httpClient;
+    private RequestConfig clientRequestConfig = RequestConfig.DEFAULT;
+    private volatile CloseableHttpAsyncClient httpAsyncClient;
+    private volatile boolean isAsyncClientStarted = false;
+    private volatile boolean isInitialized = false;
+    private volatile RefreshingCache<List<Object>, SafechargeResponse> userUPOsCache;
+    private volatile boolean isReadCoalescingEnabled = false;
+    private volatile SafechargeTransport transport;
+    private volatile Executor asyncExecutor;
+    private final EndpointRegistry endpointRegistry = new EndpointRegistry();
+    private final ConcurrentMap<List<Object>, CompletableFuture<SafechargeResponse>> inFlightReads = new ConcurrentHashMap<>();
 
     private SafechargeRequestExecutor() {
+        this.codec = SafechargeJsonCodec.getDefault();
+        this.jsonRetention = Constants.ResponseJsonRetention.STRING;
+    }
+
+    /**
+     * Creates a new {@link SafechargeRequestExecutor}, independent from the one obtained by {@link #getInstance()}.
+     * <p>
+     * Each instance sends its requests through its own clients, so instances created with separately built clients
+     * do not share connection pools. See {@link SafechargeClient} for a per-merchant setup of the executor and its clients.
+     *
+     * @param httpClient      the {@link HttpClient} to send the blocking requests through
+     * @param httpAsyncClient the non-blocking {@link CloseableHttpAsyncClient} to send the asynchronous requests through.
+     *                        It is started on the first asynchronous request. If null, a default one is created on demand
+     * @param gson            the {@link Gson} to serialize the requests and parse the responses with.
+     *                        If null, the codec with the default {@link Gson} configuration shared by the executors is used
+     */
+    public SafechargeRequestExecutor(HttpClient httpClient, CloseableHttpAsyncClient httpAsyncClient, Gson gson) {
+        this(httpClient, httpAsyncClient, gson, Constants.ResponseJsonRetention.STRING);
+    }
+
+    /**
+     * Creates a new {@link SafechargeRequestExecutor}, independent from the one obtained by {@link #getInstance()}.
+     *
+     * @param httpClient      the {@link HttpClient} to send the blocking requests through
+     * @param httpAsyncClient the non-blocking {@link CloseableHttpAsyncClient} to send the asynchronous requests through.
+     *                        It is started on the first asynchronous request. If null, a default one is created on demand
+     * @param gson            the {@link Gson} to serialize the requests and parse the responses with.
+     *                        If null, the codec with the default {@link Gson} configuration shared by the executors is used
+     * @param jsonRetention   how the raw JSON of the responses is kept by {@link SafechargeResponse#getJson()}.
+     *                        {@link Constants.ResponseJsonRetention#NONE} parses the responses straight from the HTTP stream
+     * @see #SafechargeRequestExecutor(HttpClient, CloseableHttpAsyncClient, Gson)
+     */
+    public SafechargeRequestExecutor(HttpClient httpClient, CloseableHttpAsyncClient httpAsyncClient, Gson gson,
+            Constants.ResponseJsonRetention jsonRetention) {
+        this.codec = gson != null ? new SafechargeJsonCodec(gson, getApiTypes()) : SafechargeJsonCodec.getDefault();
+        this.jsonRetention = jsonRetention != null ? jsonRetention : Constants.ResponseJsonRetention.STRING;
+        this.httpAsyncClient = httpAsyncClient;
+        init(httpClient);
     }
 
     /**
@@ -147,13 +162,25 @@ public class SafechargeRequestExecutor {
      *
      * @return the single instance of {@link SafechargeRequestExecutor}
      */
-    public static SafechargeRequestExecutor getInstance() {
+    public static synchronized SafechargeRequestExecutor getInstance() {
         if (instance == null) {
             instance = new SafechargeRequestExecutor();
         }
         return instance;
     }
 
+    /**
+     * @return all of the request and response types handled by the executor
+     */
+    static Set<Class<?>> getApiTypes() {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (Endpoint endpoint : new EndpointRegistry().getEndpoints()) {
+            types.add(endpoint.getRequestType());
+            types.add(endpoint.getResponseType());
+        }
+        return types;
+    }
+
     /**
      * This method initiates the {@link SafechargeRequestExecutor} with a default Safecharge's {@link HttpClient} and server information.
      */
@@ -163,10 +190,13 @@ public class SafechargeRequestExecutor {
 
     /**
      * This method initiates the {@link SafechargeRequestExecutor} with a configured {@link HttpClient} and server information.
+     * The requests of the endpoints with own timeouts, see {@link EndpointPolicy}, are sent with the default request config
+     * of the {@code httpClient} and the timeouts of their policy, including the asynchronous ones, so the non-blocking client
+     * should be configured alike, e.g. with the same proxy.
      *
      * @param httpClient to get the client's properties from
      */
-    public void init(HttpClient httpClient) {
+    public synchronized void init(HttpClient httpClient) {
 
         if (isInitialized) {
             // already initialized
@@ -176,11 +206,55 @@ public class SafechargeRequestExecutor {
             return;
         }
 
-        SafechargeRequestExecutor.httpClient = httpClient;
+        this.httpClient = httpClient;
+        // the request configs of the endpoints with own timeouts are derived from the client's default one, which they replace
+        if (httpClient instanceof Configurable && ((Configurable) httpClient).getConfig() != null) {
+            this.clientRequestConfig = ((Configurable) httpClient).getConfig();
+        }
 
         isInitialized = true;
     }
 
+    /**
+     * This method initiates the {@link SafechargeRequestExecutor} with a configured {@link HttpClient} and a configured
+     * non-blocking {@link CloseableHttpAsyncClient}, used by {@link #executeAsync(SafechargeBaseRequest)}.
+     * The {@code httpAsyncClient} is started on the first asynchronous request if it is not running already.
+     *
+     * @param httpClient      to get the client's properties from
+     * @param httpAsyncClient to get the non-blocking client's properties from
+     */
+    public void init(HttpClient httpClient, CloseableHttpAsyncClient httpAsyncClient) {
+        init(httpClient);
+        initAsync(httpAsyncClient);
+    }
+
+    private synchronized void initAsync(CloseableHttpAsyncClient httpAsyncClient) {
+        if (this.httpAsyncClient != null) {
+            // already initialized
+            if (logger.isDebugEnabled()) {
+                logger.debug(SafechargeRequestExecutor.class.getSimpleName() + " async client is already initialized!");
+            }
+            return;
+        }
+
+        this.httpAsyncClient = httpAsyncClient;
+    }
+
+    private CloseableHttpAsyncClient getStartedHttpAsyncClient() {
+        if (!isAsyncClientStarted) {
+            synchronized (this) {
+                if (httpAsyncClient == null) {
+                    httpAsyncClient = SafechargeHttpClient.createDefaultAsync();
+                }
+                if (!httpAsyncClient.isRunning()) {
+                    httpAsyncClient.start();
+                }
+                isAsyncClientStarted = true;
+            }
+        }
+        return httpAsyncClient;
+    }
+
     /**
      * Sends a {@link SafechargeRequest} to SafeCharge's API via HTTP POST method.
      *
@@ -201,26 +275,60 @@ public class SafechargeRequestExecutor {
      * @param request {@link SafechargeRequest} API request object
      * @return {@link SafechargeResponse} API response object.
      * @throws SafechargeException If the request execution throws IOException it is wrapped and rethrown in {@link SafechargeException}
+     * @see #setUserUPOsCache(CacheConfig)
      */
-    public SafechargeResponse execute(SafechargeBaseRequest request) throws SafechargeException {
+    public SafechargeResponse execute(final SafechargeBaseRequest request) throws SafechargeException {
+        List<Object> readKey = isReadCoalescingEnabled ? getReadKey(request) : null;
+        if (readKey != null) {
+            return executeCoalesced(readKey, request);
+        }
+
+        RefreshingCache<List<Object>, SafechargeResponse> cache = userUPOsCache;
+        List<Object> userUPOsKey = cache != null ? getUserUPOsKey(request) : null;
+        if (userUPOsKey == null) {
+            return send(request);
+        }
+
+        if (request instanceof GetUserUPOsRequest) {
+            return cache.get(userUPOsKey, new RefreshingCache.Loader<List<Object>, SafechargeResponse>() {
+                @Override
+                public SafechargeResponse load(List<Object> key) throws SafechargeException {
+                    return send(request);
+                }
+            });
+        }
+
+        try {
+            return send(request);
+        } finally {
+            cache.invalidate(userUPOsKey);
+        }
+    }
+
+    private SafechargeResponse send(SafechargeBaseRequest request) throws SafechargeException {
         if (!isInitialized) {
             init();
         }
 
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        Gson gson = gsonBuilder.create();
-
+        Class<? extends SafechargeBaseRequest> requestClass = request.getClass();
+        Endpoint endpoint = getEndpoint(requestClass);
         try {
-            Class<? extends SafechargeBaseRequest> requestClass = request.getClass();
-            String serviceUrl = request.getServerHost() + REQUEST_URL_BY_REQUEST_TYPE.get(requestClass);
+            String serviceUrl = request.getServerHost() + endpoint.getUrl();
             request.setServerHost(null); // remove API url from request
 
-            String requestJSON = gson.toJson(request);
-            String responseJSON = executeJsonRequest(requestJSON, serviceUrl, requestClass);
+            // the request is serialized straight into the bytes to be sent, without an intermediate String
+            SafechargeJsonEntity entity = SafechargeJsonEntity.create(codec, request);
+            try {
+                if (logger.isDebugEnabled()) {
+                    logRequest(entity.getContentAsString(), requestClass);
+                }
+                HttpPost httpPost = createHttpPost(entity, serviceUrl, APIConstants.REQUEST_HEADERS, endpoint);
+                HttpResponse response = sendHttpPost(httpPost, endpoint.getPolicy());
 
-            SafechargeResponse response = gson.fromJson(responseJSON, RESPONSE_TYPE_BY_REQUEST_TYPE.get(requestClass));
-            response.setJson(responseJSON);
-            return response;
+                return parseResponse(response, endpoint);
+            } finally {
+                entity.release();
+            }
 
         } catch (IOException e) {
 
@@ -231,6 +339,418 @@ public class SafechargeRequestExecutor {
         }
     }
 
+    /**
+     * Sends a {@link SafechargeRequest} to SafeCharge's API via HTTP POST method without blocking the calling thread.
+     * <p>
+     * The request is executed by a non-blocking {@link CloseableHttpAsyncClient}, so a large number of requests can be in flight
+     * at the same time while being served by a handful of I/O threads. The returned {@link CompletableFuture} is completed with the
+     * {@link SafechargeResponse} or completed exceptionally with {@link SafechargeException} if the request execution fails.
+     * <p>
+     * Note that dependent stages which are not explicitly asynchronous are executed on the I/O threads, so they should not block.
+     *
+     * @param request {@link SafechargeRequest} API request object
+     * @return {@link CompletableFuture} which is completed with the {@link SafechargeResponse} API response object
+     */
+    public CompletableFuture<SafechargeResponse> executeAsync(SafechargeBaseRequest request) {
+        List<Object> readKey = isReadCoalescingEnabled ? getReadKey(request) : null;
+        if (readKey != null) {
+            return executeCoalescedAsync(readKey, request);
+        }
+
+        final RefreshingCache<List<Object>, SafechargeResponse> cache = userUPOsCache;
+        final List<Object> userUPOsKey = cache != null && !(request instanceof GetUserUPOsRequest) ? getUserUPOsKey(request) : null;
+        if (userUPOsKey == null) {
+            return sendAsync(request);
+        }
+
+        // invalidated before the dependent stages of the caller are run
+        return sendAsync(request).whenComplete(new BiConsumer<SafechargeResponse, Throwable>() {
+            @Override
+            public void accept(SafechargeResponse response, Throwable throwable) {
+                cache.invalidate(userUPOsKey);
+            }
+        });
+    }
+
+    private CompletableFuture<SafechargeResponse> sendAsync(final SafechargeBaseRequest request) {
+        Executor asyncExecutor = this.asyncExecutor;
+        if (asyncExecutor != null) {
+            return sendBlockingAsync(asyncExecutor, request);
+        }
+
+        final CompletableFuture<SafechargeResponse> result = new CompletableFuture<>();
+        final Class<? extends SafechargeBaseRequest> requestClass = request.getClass();
+        final Endpoint endpoint;
+        try {
+            endpoint = getEndpoint(requestClass);
+        } catch (SafechargeException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        String serviceUrl = request.getServerHost() + endpoint.getUrl();
+        request.setServerHost(null); // remove API url from request
+
+        final HttpPost httpPost;
+        try {
+            // the buffer of the entity is bound to this thread, so the I/O threads get a copy of its content
+            SafechargeJsonEntity entity = SafechargeJsonEntity.create(codec, request);
+            if (logger.isDebugEnabled()) {
+                logRequest(entity.getContentAsString(), requestClass);
+            }
+            httpPost = createHttpPost(entity.toByteArrayEntity(), serviceUrl, APIConstants.REQUEST_HEADERS, endpoint);
+        } catch (IOException | RuntimeException e) {
+            // e.g. the service URL is not a valid URI
+            if (logger.isDebugEnabled()) {
+                logger.debug(e.getMessage());
+            }
+            result.completeExceptionally(new SafechargeException(e.getMessage(), e));
+            return result;
+        }
+        FutureCallback<HttpResponse> callback = new FutureCallback<HttpResponse>() {
+
+            private int retries = 0;
+
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    result.complete(parseResponse(response, endpoint));
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                if (retries < endpoint.getPolicy()
+                        .getRetries() && isRetryable(e, endpoint.getPolicy())) {
+                    retries++;
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Retrying " + requestClass.getSimpleName() + " after: " + e.getMessage());
+                    }
+                    try {
+                        sendHttpPost(httpPost, this);
+                    } catch (RuntimeException retryFailure) {
+                        fail(retryFailure);
+                    }
+                    return;
+                }
+                fail(e);
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+
+            private void fail(Exception e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(e.getMessage());
+                }
+                result.completeExceptionally(new SafechargeException(e.getMessage(), e));
+            }
+        };
+        try {
+            sendHttpPost(httpPost, callback);
+        } catch (RuntimeException e) {
+            // e.g. the I/O reactor of the client is shut down
+            if (logger.isDebugEnabled()) {
+                logger.debug(e.getMessage());
+            }
+            result.completeExceptionally(new SafechargeException(e.getMessage(), e));
+        }
+
+        return result;
+    }
+
+    private HttpResponse sendHttpPost(HttpPost httpPost, EndpointPolicy policy) throws IOException {
+        SafechargeTransport transport = this.transport;
+        for (int retries = 0; ; retries++) {
+            try {
+                return transport != null ? transport.execute(httpPost) : httpClient.execute(httpPost);
+            } catch (IOException e) {
+                if (retries >= policy.getRetries() || !isRetryable(e, policy)) {
+                    throw e;
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Retrying the request after: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void sendHttpPost(HttpPost httpPost, FutureCallback<HttpResponse> callback) {
+        SafechargeTransport transport = this.transport;
+        if (transport != null) {
+            transport.execute(httpPost, callback);
+        } else {
+            getStartedHttpAsyncClient().execute(httpPost, callback);
+        }
+    }
+
+    /**
+     * @return true if the failed request may be sent again: it failed to connect, so it was not sent, or its endpoint is
+     * idempotent and the connection was reset or closed without a response. A timed out request is not sent again
+     */
+    static boolean isRetryable(Exception e, EndpointPolicy policy) {
+        if (e instanceof ConnectException || e instanceof ConnectTimeoutException) {
+            return true;
+        }
+        return policy.isIdempotent() && (e instanceof NoHttpResponseException || e instanceof SocketException);
+    }
+
+    private Endpoint getEndpoint(Class<? extends SafechargeBaseRequest> requestClass) throws SafechargeException {
+        Endpoint endpoint = endpointRegistry.get(requestClass);
+        if (endpoint == null) {
+            throw new SafechargeException("No API endpoint for " + requestClass.getSimpleName() + "!");
+        }
+        return endpoint;
+    }
+
+    /**
+     * @return the endpoints called by this executor, whose policies can be changed
+     */
+    public EndpointRegistry getEndpointRegistry() {
+        return endpointRegistry;
+    }
+
+    private CompletableFuture<SafechargeResponse> sendBlockingAsync(Executor asyncExecutor, final SafechargeBaseRequest request) {
+        final CompletableFuture<SafechargeResponse> result = new CompletableFuture<>();
+        try {
+            asyncExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        result.complete(send(request));
+                    } catch (SafechargeException e) {
+                        result.completeExceptionally(e);
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(new SafechargeException(e.getMessage(), e));
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new SafechargeException(e.getMessage(), e));
+        }
+        return result;
+    }
+
+    /**
+     * Runs each asynchronous request of this executor as a blocking request on a task of the {@code asyncExecutor}, instead of
+     * sending it with the non-blocking client. Meant for an executor starting a virtual thread per task on Java 21, see
+     * {@link SafechargeClient.Builder#setVirtualThreadsEnabled(boolean)}, where the blocked threads are cheap. The dependent
+     * stages of the returned futures are executed on the tasks of the executor. The executor is not shut down by this executor.
+     *
+     * @param asyncExecutor the {@link Executor} to run the asynchronous requests on or null to send them with the non-blocking client
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Sends the blocking and the asynchronous requests of this executor through a {@link SafechargeTransport}, e.g. an
+     * {@link Http2Transport}, instead of its own HTTP/1.1 clients. The transport is not closed by the executor.
+     *
+     * @param transport the {@link SafechargeTransport} to send the requests through or null to use the executor's own clients
+     */
+    public void setTransport(SafechargeTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * <p>
+     * Enables caching of the {@link GetUserUPOsResponse}s executed by this executor, keyed by the merchant site and the userTokenId.
+     * A user's cached list is invalidated whenever this executor executes a request adding, editing, deleting, suspending or enabling
+     * a UPO of the user, so the cache stays correct as long as the UPOs are changed only through this executor, e.g. by a single
+     * {@link SafechargeClient}. Only the successful responses are cached and they are shared by the callers, so they must not be modified.
+     * </p>
+     * <p>
+     * A cached response is never refreshed in the background, since it is loaded with the session token of the request,
+     * so the stale-while-revalidate time of the {@code config} is not used.
+     * </p>
+     *
+     * @param config the {@link CacheConfig} of the cache or null to disable it
+     */
+    public void setUserUPOsCache(CacheConfig config) {
+        this.userUPOsCache = config != null ? new RefreshingCache<List<Object>, SafechargeResponse>(CacheConfig.builder()
+                .setTimeToLive(config.getTimeToLiveNanos(), TimeUnit.NANOSECONDS)
+                .setMaximumSize(config.getMaximumSize())
+                .build(), SUCCESSFUL_RESPONSE, null) : null;
+    }
+
+    /**
+     * @return the cache of the {@link GetUserUPOsResponse}s with its hit and miss counters, null if it's not enabled
+     */
+    public RefreshingCache<List<Object>, SafechargeResponse> getUserUPOsCache() {
+        return userUPOsCache;
+    }
+
+    /**
+     * <p>
+     * Enables coalescing of the identical read-only requests executed concurrently by this executor: {@link GetOrderDetailsRequest}s
+     * of the same order, {@link GetPaymentStatusRequest}s of the same session and {@link GetUserDetailsRequest}s of the same user.
+     * A request arriving while an identical one is in flight is not sent, but gets the response of the in-flight one.
+     * Payments and all other requests are always sent. The coalescing is disabled by default.
+     * </p>
+     * <p>
+     * The response of a coalesced request is shared by all of its callers, so it must not be modified.
+     * </p>
+     *
+     * @param isReadCoalescingEnabled true to enable the coalescing
+     */
+    public void setReadCoalescingEnabled(boolean isReadCoalescingEnabled) {
+        this.isReadCoalescingEnabled = isReadCoalescingEnabled;
+    }
+
+    private SafechargeResponse executeCoalesced(List<Object> readKey, SafechargeBaseRequest request) throws SafechargeException {
+        CompletableFuture<SafechargeResponse> read = new CompletableFuture<>();
+        CompletableFuture<SafechargeResponse> inFlightRead = inFlightReads.putIfAbsent(readKey, read);
+        if (inFlightRead != null) {
+            return await(inFlightRead);
+        }
+
+        try {
+            SafechargeResponse response = send(request);
+            read.complete(response);
+            return response;
+        } catch (SafechargeException | RuntimeException | Error e) {
+            // the waiting callers fail as well, whatever the failure is
+            read.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightReads.remove(readKey, read);
+        }
+    }
+
+    private CompletableFuture<SafechargeResponse> executeCoalescedAsync(final List<Object> readKey, SafechargeBaseRequest request) {
+        final CompletableFuture<SafechargeResponse> read = new CompletableFuture<>();
+        CompletableFuture<SafechargeResponse> inFlightRead = inFlightReads.putIfAbsent(readKey, read);
+        if (inFlightRead == null) {
+            CompletableFuture<SafechargeResponse> sent;
+            try {
+                sent = sendAsync(request);
+            } catch (RuntimeException | Error e) {
+                // nothing is in flight, so the read is not left for the identical requests to wait on
+                inFlightReads.remove(readKey, read);
+                read.completeExceptionally(e);
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+                CompletableFuture<SafechargeResponse> result = new CompletableFuture<>();
+                result.completeExceptionally(new SafechargeException(e.getMessage(), e));
+                return result;
+            }
+            sent.whenComplete(new BiConsumer<SafechargeResponse, Throwable>() {
+                @Override
+                public void accept(SafechargeResponse response, Throwable throwable) {
+                    inFlightReads.remove(readKey, read);
+                    if (throwable != null) {
+                        read.completeExceptionally(throwable);
+                    } else {
+                        read.complete(response);
+                    }
+                }
+            });
+            inFlightRead = read;
+        }
+
+        // a separate stage for every caller, so a cancelling caller doesn't cancel the others
+        return inFlightRead.thenApply(Function.<SafechargeResponse>identity());
+    }
+
+    private static SafechargeResponse await(CompletableFuture<SafechargeResponse> read) throws SafechargeException {
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new SafechargeException("Interrupted while waiting for an identical request!", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SafechargeException) {
+                throw (SafechargeException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SafechargeException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * @return the key identifying what the read-only request reads, null if the request can't be coalesced
+     */
+    private static List<Object> getReadKey(SafechargeBaseRequest request) {
+        Function<SafechargeBaseRequest, String> readId = READ_ID_BY_REQUEST_TYPE.get(request.getClass());
+        String id = readId != null ? readId.apply(request) : null;
+        if (id == null) {
+            return null;
+        }
+        return Arrays.<Object>asList(request.getClass(), ((SafechargeRequest) request).getMerchantSiteId(), id);
+    }
+
+    /**
+     * @return the key of the cached UPOs read or changed by the request, null if it's not a UPO request
+     */
+    private static List<Object> getUserUPOsKey(SafechargeBaseRequest request) {
+        String userTokenId;
+        if (request instanceof GetUserUPOsRequest) {
+            userTokenId = ((GetUserUPOsRequest) request).getUserTokenId();
+        } else if (request instanceof EditUPOBasicRequest) {
+            userTokenId = ((EditUPOBasicRequest) request).getUserTokenId();
+        } else if (request instanceof AddUPOCreditCardRequest) {
+            userTokenId = ((AddUPOCreditCardRequest) request).getUserTokenId();
+        } else if (request instanceof AddUPOCreditCardByTempTokenRequest) {
+            userTokenId = ((AddUPOCreditCardByTempTokenRequest) request).getUserTokenId();
+        } else if (request instanceof AddUPOCreditCardByTokenRequest) {
+            userTokenId = ((AddUPOCreditCardByTokenRequest) request).getUserTokenId();
+        } else if (request instanceof AddUPOAPMRequest) {
+            userTokenId = ((AddUPOAPMRequest) request).getUserTokenId();
+        } else {
+            return null;
+        }
+        return Arrays.<Object>asList(((SafechargeRequest) request).getMerchantSiteId(), userTokenId);
+    }
+
+    private SafechargeResponse parseResponse(HttpResponse httpResponse, Endpoint endpoint) throws IOException {
+        Class<? extends SafechargeBaseRequest> requestClass = endpoint.getRequestType();
+        Class<? extends SafechargeResponse> responseClass = endpoint.getResponseType();
+        HttpEntity entity = httpResponse.getEntity();
+        if (jsonRetention == Constants.ResponseJsonRetention.NONE && !logger.isDebugEnabled()) {
+            // nothing needs the whole JSON, so the response is parsed as it arrives
+            try (Reader reader = new InputStreamReader(entity.getContent(), getCharset(entity))) {
+                return codec.fromJson(reader, responseClass);
+            }
+        }
+
+        if (jsonRetention == Constants.ResponseJsonRetention.STRING || jsonRetention == Constants.ResponseJsonRetention.NONE) {
+            String responseJSON = readResponse(httpResponse, requestClass);
+            SafechargeResponse response = codec.fromJson(responseJSON, responseClass);
+            if (jsonRetention == Constants.ResponseJsonRetention.STRING) {
+                response.setJson(responseJSON);
+            }
+            return response;
+        }
+
+        byte[] responseJSON = EntityUtils.toByteArray(entity);
+        Charset charset = getCharset(entity);
+        if (!UTF8_CHARSET.equals(charset)) {
+            responseJSON = new String(responseJSON, charset).getBytes(UTF8_CHARSET);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(responseClass.getSimpleName() + " Received " + new String(responseJSON, UTF8_CHARSET));
+        }
+
+        SafechargeResponse response = codec.fromJson(new InputStreamReader(new ByteArrayInputStream(responseJSON), UTF8_CHARSET), responseClass);
+        response.setJsonBytes(responseJSON, jsonRetention == Constants.ResponseJsonRetention.LAZY);
+        return response;
+    }
+
+    private static Charset getCharset(HttpEntity entity) {
+        ContentType contentType = ContentType.get(entity);
+        Charset charset = contentType != null ? contentType.getCharset() : null;
+        return charset != null ? charset : UTF8_CHARSET;
+    }
+
     /**
      * Sends a POST request to the service at {@code serviceUrl} with a payload of {@code requestJSON}.
      *
@@ -255,20 +775,39 @@ public class SafechargeRequestExecutor {
      * @throws IOException if the connection is interrupted or the response is unparsable
      */
     public String executeRequest(String request, String serviceUrl, Header[] headers, Class<? extends SafechargeBaseRequest> requestClass) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logRequest(request, requestClass);
+        }
+        HttpPost httpPost = createHttpPost(new StringEntity(request, UTF8_CHARSET), serviceUrl, headers, endpointRegistry.get(requestClass));
+
+        SafechargeTransport transport = this.transport;
+        HttpResponse response = transport != null ? transport.execute(httpPost) : httpClient.execute(httpPost);
+
+        return readResponse(response, requestClass);
+    }
+
+    private HttpPost createHttpPost(HttpEntity entity, String serviceUrl, Header[] headers, Endpoint endpoint) {
         HttpPost httpPost = new HttpPost(serviceUrl);
         httpPost.setHeaders(headers);
-        httpPost.setEntity(new StringEntity(request, Charset.forName("UTF-8")));
-
-        if (logger.isDebugEnabled()) {
-            logger.debug(requestClass.getSimpleName() + " Sent " + System.lineSeparator() + request);
+        httpPost.setEntity(entity);
+        RequestConfig requestConfig = endpoint != null ? endpoint.getRequestConfig(clientRequestConfig) : null;
+        if (requestConfig != null) {
+            httpPost.setConfig(requestConfig);
         }
+        return httpPost;
+    }
 
-        HttpResponse response = httpClient.execute(httpPost);
+    private void logRequest(String request, Class<? extends SafechargeBaseRequest> requestClass) {
+        logger.debug(requestClass.getSimpleName() + " Sent " + System.lineSeparator() + request);
+    }
 
+    private String readResponse(HttpResponse response, Class<? extends SafechargeBaseRequest> requestClass) throws IOException {
         String responseJSON = EntityUtils.toString(response.getEntity(), UTF8_CHARSET);
         if (logger.isDebugEnabled()) {
-            Class<? extends SafechargeResponse> responseClass = RESPONSE_TYPE_BY_REQUEST_TYPE.get(requestClass);
-            logger.debug(responseClass.getSimpleName() + " Received " + responseJSON);
+            Endpoint endpoint = endpointRegistry.get(requestClass);
+            String responseName = endpoint != null ? endpoint.getResponseType()
+                    .getSimpleName() : requestClass.getSimpleName();
+            logger.debug(responseName + " Received " + responseJSON);
         }
 
         return responseJSON;
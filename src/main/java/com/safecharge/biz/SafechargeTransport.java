@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+
+/**
+ * <p>
+ * Transport sending the requests of a {@link SafechargeRequestExecutor} in place of its HTTP/1.1 {@link org.apache.http.client.HttpClient}
+ * and {@link org.apache.http.impl.nio.client.CloseableHttpAsyncClient}, e.g. the multiplexed {@link Http2Transport}.
+ * Implementations must be thread-safe.
+ * </p>
+ * <p>
+ * The requests of the endpoints with own timeouts, see {@link EndpointPolicy}, carry them in their {@link HttpPost#getConfig()}
+ * and implementations must connect within its connect timeout and wait for their responses up to its socket timeout instead of
+ * their own timeouts. A failure to connect is only retried by the executor if it is reported as a {@link java.net.ConnectException}
+ * or an {@link org.apache.http.conn.ConnectTimeoutException}.
+ * </p>
+ *
+ * @see SafechargeRequestExecutor#setTransport(SafechargeTransport)
+ */
+public interface SafechargeTransport extends Closeable {
+
+    /**
+     * Sends the request and waits for its response.
+     *
+     * @param httpPost the request to send
+     * @return the response with its entity fully read, so it doesn't need to be consumed
+     * @throws IOException if the request fails
+     */
+    HttpResponse execute(HttpPost httpPost) throws IOException;
+
+    /**
+     * Sends the request without blocking the calling thread.
+     *
+     * @param httpPost the request to send
+     * @param callback notified of the response with its entity fully read or of the failure
+     */
+    void execute(HttpPost httpPost, FutureCallback<HttpResponse> callback);
+}
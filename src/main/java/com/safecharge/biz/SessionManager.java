@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.safecharge.exception.SafechargeConfigurationException;
+import com.safecharge.exception.SafechargeException;
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.Constants;
+
+/**
+ * <p>
+ * Thread-safe holder of the session token of a {@link Safecharge} facade. A token older than the refresh age is still handed out,
+ * but its replacement is fetched asynchronously in the background, so the requests don't wait for a new session
+ * as long as the facade is in use. A token older than the max age is replaced synchronously.
+ * </p>
+ * <p>
+ * A token rejected by the API is replaced by {@link #renewSessionToken(String)}. The concurrent renewals of the same token
+ * fetch a single new one.
+ * </p>
+ */
+final class SessionManager {
+
+    static final long DEFAULT_REFRESH_AGE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(14);
+
+    private static final Log logger = LogFactory.getLog(SessionManager.class);
+
+    private final SafechargeRequestExecutor requestExecutor;
+    private final RequestBuilder requestBuilder;
+    private final MerchantInfo merchantInfo;
+    private final long refreshAgeNanos;
+    private final long maxAgeNanos;
+    private final AtomicBoolean isRefreshing = new AtomicBoolean();
+    private volatile Session session;
+
+    SessionManager(SafechargeRequestExecutor requestExecutor, RequestBuilder requestBuilder, MerchantInfo merchantInfo, long refreshAgeMillis,
+            long maxAgeMillis) {
+        this.requestExecutor = requestExecutor;
+        this.requestBuilder = requestBuilder;
+        this.merchantInfo = merchantInfo;
+        this.refreshAgeNanos = TimeUnit.MILLISECONDS.toNanos(refreshAgeMillis);
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+    }
+
+    MerchantInfo getMerchantInfo() {
+        return merchantInfo;
+    }
+
+    /**
+     * Fetches the first session token synchronously.
+     *
+     * @throws SafechargeConfigurationException if getting a session token isn't successful
+     * @throws SafechargeException              if there are request related problems
+     */
+    void initialize() throws SafechargeException {
+        long fetchedAt = System.nanoTime();
+        session = new Session(fetchSessionToken(), fetchedAt);
+    }
+
+    /**
+     * @return the current session token, null if the API returned none
+     * @throws SafechargeException if the token is expired and getting a new one fails
+     */
+    String getSessionToken() throws SafechargeException {
+        Session current = session;
+        long age = System.nanoTime() - current.fetchedAt;
+        if (age >= maxAgeNanos) {
+            return renewSessionToken(current.sessionToken);
+        }
+        if (age >= refreshAgeNanos) {
+            refreshAsync(current);
+        }
+        return current.sessionToken;
+    }
+
+    /**
+     * Replaces the {@code rejectedSessionToken} with a new one, unless it's already replaced.
+     *
+     * @param rejectedSessionToken the token rejected by the API
+     * @return the session token replacing the rejected one
+     * @throws SafechargeConfigurationException if getting a session token isn't successful
+     * @throws SafechargeException              if there are request related problems
+     */
+    synchronized String renewSessionToken(String rejectedSessionToken) throws SafechargeException {
+        Session current = session;
+        if (current.sessionToken != null && !current.sessionToken.equals(rejectedSessionToken)) {
+            // already renewed by another thread
+            return current.sessionToken;
+        }
+        long fetchedAt = System.nanoTime();
+        session = new Session(fetchSessionToken(), fetchedAt);
+        return session.sessionToken;
+    }
+
+    private String fetchSessionToken() throws SafechargeException {
+        SafechargeBaseRequest request = requestBuilder.getSessionTokenRequest(merchantInfo);
+        SafechargeResponse response = requestExecutor.execute(request);
+        if (Constants.APIResponseStatus.ERROR.equals(response.getStatus())) {
+            throw new SafechargeConfigurationException(response.getReason());
+        }
+
+        return response.getSessionToken();
+    }
+
+    private void refreshAsync(final Session expiring) {
+        if (!isRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        final long fetchedAt = System.nanoTime();
+        try {
+            requestExecutor.executeAsync(requestBuilder.getSessionTokenRequest(merchantInfo))
+                    .whenComplete(new BiConsumer<SafechargeResponse, Throwable>() {
+                        @Override
+                        public void accept(SafechargeResponse response, Throwable throwable) {
+                            try {
+                                if (throwable == null && response != null && Constants.APIResponseStatus.SUCCESS.equals(response.getStatus())
+                                        && response.getSessionToken() != null) {
+                                    replace(expiring, new Session(response.getSessionToken(), fetchedAt));
+                                } else if (logger.isDebugEnabled()) {
+                                    logger.debug("Failed to refresh the session token: " + (throwable != null ? throwable.getMessage()
+                                            : response != null ? response.getReason() : null));
+                                }
+                            } finally {
+                                isRefreshing.set(false);
+                            }
+                        }
+                    });
+        } catch (RuntimeException e) {
+            // the token is renewed synchronously once expired
+            isRefreshing.set(false);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to refresh the session token: " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void replace(Session expiring, Session refreshed) {
+        // not if the token was meanwhile renewed synchronously
+        if (session == expiring) {
+            session = refreshed;
+        }
+    }
+
+    private static final class Session {
+
+        private final String sessionToken;
+        private final long fetchedAt;
+
+        private Session(String sessionToken, long fetchedAt) {
+            this.sessionToken = sessionToken;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
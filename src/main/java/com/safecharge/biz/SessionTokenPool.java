@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.safecharge.exception.SafechargeException;
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.request.GetSessionTokenRequest;
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.Constants;
+
+/**
+ * <p>
+ * A per-merchant pool of pre-fetched session tokens for the requests which consume their session token, e.g.
+ * {@link com.safecharge.request.PaymentCCRequest} and {@link com.safecharge.request.PaymentAPMRequest}. Such a request
+ * takes a token from the pool instead of waiting for a {@link GetSessionTokenRequest} of its own, and the pool is
+ * refilled in the background by asynchronous {@link GetSessionTokenRequest}s.
+ * </p>
+ * <p>
+ * The tokens are handed out oldest first. Tokens older than the max token age are discarded when taken, and a request
+ * finding the pool empty fetches its token synchronously. Instances are thread-safe.
+ * </p>
+ *
+ * @see SafechargeClient.Builder#setSessionTokenPoolSize(int)
+ */
+public class SessionTokenPool {
+
+    /**
+     * The default age after which a pooled token is not handed out anymore.
+     */
+    public static final long DEFAULT_MAX_TOKEN_AGE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Log logger = LogFactory.getLog(SessionTokenPool.class);
+
+    private final SafechargeRequestExecutor requestExecutor;
+    private final MerchantInfo merchantInfo;
+    private final int size;
+    private final long maxTokenAgeNanos;
+    private final Deque<PooledToken> tokens = new ConcurrentLinkedDeque<>();
+
+    /**
+     * The number of the pooled tokens and the tokens being fetched for the pool.
+     */
+    private final AtomicInteger reserved = new AtomicInteger();
+    private volatile boolean isClosed = false;
+
+    /**
+     * @param requestExecutor the {@link SafechargeRequestExecutor} to fetch the tokens and execute the requests with
+     * @param merchantInfo    the {@link MerchantInfo} to fetch the tokens for
+     * @param size            the number of the tokens to keep pre-fetched
+     */
+    public SessionTokenPool(SafechargeRequestExecutor requestExecutor, MerchantInfo merchantInfo, int size) {
+        this(requestExecutor, merchantInfo, size, DEFAULT_MAX_TOKEN_AGE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param requestExecutor the {@link SafechargeRequestExecutor} to fetch the tokens and execute the requests with
+     * @param merchantInfo    the {@link MerchantInfo} to fetch the tokens for
+     * @param size            the number of the tokens to keep pre-fetched
+     * @param maxTokenAge     the age after which a pooled token is not handed out anymore.
+     *                        It should be shorter than the lifetime of the sessions
+     * @param unit            the {@link TimeUnit} of the {@code maxTokenAge}
+     */
+    public SessionTokenPool(SafechargeRequestExecutor requestExecutor, MerchantInfo merchantInfo, int size, long maxTokenAge, TimeUnit unit) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The size of the session token pool must be positive!");
+        }
+        this.requestExecutor = requestExecutor;
+        this.merchantInfo = merchantInfo;
+        this.size = size;
+        this.maxTokenAgeNanos = unit.toNanos(maxTokenAge);
+    }
+
+    /**
+     * Takes a session token out of the pool and starts fetching a replacement of it. If the pool has no fresh token,
+     * a new one is fetched synchronously.
+     *
+     * @return a session token, to be used by a single request
+     * @throws SafechargeException if there is no pooled token and the fetching of a new one fails
+     */
+    public String takeSessionToken() throws SafechargeException {
+        PooledToken token;
+        while ((token = tokens.pollFirst()) != null) {
+            reserved.decrementAndGet();
+            if (System.nanoTime() - token.fetchedAt < maxTokenAgeNanos) {
+                refill();
+                return token.sessionToken;
+            }
+        }
+
+        refill();
+        return fetchSessionToken();
+    }
+
+    /**
+     * Executes a request with a session token from the pool. If the token is rejected as expired or already used, the request
+     * is executed once more with a newly fetched token. An expired token also discards the pooled ones, as likely to be expired too.
+     *
+     * @param requestFactory creates the request to execute for the given session token
+     * @return the response of the request
+     * @throws SafechargeException if the fetching of a session token or the request execution fails
+     */
+    public SafechargeResponse execute(Function<String, ? extends SafechargeBaseRequest> requestFactory) throws SafechargeException {
+        SafechargeResponse response = requestExecutor.execute(requestFactory.apply(takeSessionToken()));
+        if (isSessionTokenRejected(response)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Session token rejected with " + response.getErrorType() + ", retrying with a new one");
+            }
+            if (Constants.ErrorType.SESSION_EXPIRED.equals(response.getErrorType())) {
+                clear();
+            }
+            response = requestExecutor.execute(requestFactory.apply(fetchSessionToken()));
+            refill();
+        }
+        return response;
+    }
+
+    /**
+     * Starts fetching tokens until the pool is full. Called by {@link #takeSessionToken()}, it can also be called in advance
+     * to fill the pool before the first request.
+     */
+    public void refill() {
+        int current;
+        while (!isClosed && (current = reserved.get()) < size) {
+            if (reserved.compareAndSet(current, current + 1) && !fetchSessionTokenAsync()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Discards all of the pooled tokens.
+     */
+    public void clear() {
+        while (tokens.pollFirst() != null) {
+            reserved.decrementAndGet();
+        }
+    }
+
+    /**
+     * Discards all of the pooled tokens and stops refilling the pool.
+     */
+    public void close() {
+        isClosed = true;
+        clear();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of the tokens currently in the pool, including the not yet discarded expired ones
+     */
+    public int getPooledTokenCount() {
+        return tokens.size();
+    }
+
+    private String fetchSessionToken() throws SafechargeException {
+        SafechargeResponse response = requestExecutor.execute(createSessionTokenRequest());
+        if (!Constants.APIResponseStatus.SUCCESS.equals(response.getStatus())) {
+            throw new SafechargeException(response.getReason());
+        }
+        return response.getSessionToken();
+    }
+
+    private boolean fetchSessionTokenAsync() {
+        final long fetchedAt = System.nanoTime();
+        try {
+            requestExecutor.executeAsync(createSessionTokenRequest())
+                    .whenComplete(new BiConsumer<SafechargeResponse, Throwable>() {
+                        @Override
+                        public void accept(SafechargeResponse response, Throwable throwable) {
+                            if (throwable == null && !isClosed && response != null
+                                    && Constants.APIResponseStatus.SUCCESS.equals(response.getStatus()) && response.getSessionToken() != null) {
+                                tokens.offerLast(new PooledToken(response.getSessionToken(), fetchedAt));
+                                return;
+                            }
+
+                            // the failed fetch is not retried until the next token is taken
+                            reserved.decrementAndGet();
+                            if (logger.isDebugEnabled()) {
+                                logger.debug("Failed to pre-fetch a session token: " + (throwable != null ? throwable.getMessage() : response != null ? response.getReason() : null));
+                            }
+                        }
+                    });
+        } catch (RuntimeException e) {
+            // the request can't be sent at all, the next request will get the error from the synchronous fetching
+            reserved.decrementAndGet();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Failed to pre-fetch a session token: " + e.getMessage());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private SafechargeBaseRequest createSessionTokenRequest() {
+        return GetSessionTokenRequest.builder()
+                .addMerchantInfo(merchantInfo)
+                .build();
+    }
+
+    private static boolean isSessionTokenRejected(SafechargeResponse response) {
+        return response != null && (Constants.ErrorType.SESSION_EXPIRED.equals(response.getErrorType())
+                || Constants.ErrorType.ERR_CODE_USED_SESSION_TOKEN.equals(response.getErrorType()));
+    }
+
+    private static final class PooledToken {
+
+        private final String sessionToken;
+        private final long fetchedAt;
+
+        private PooledToken(String sessionToken, long fetchedAt) {
+            this.sessionToken = sessionToken;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.safecharge.exception.SafechargeException;
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.model.SubscriptionPlan;
+import com.safecharge.request.GetSubscriptionPlansRequest;
+import com.safecharge.response.GetSubscriptionPlansResponse;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.Constants;
+
+/**
+ * <p>
+ * In-memory catalog of the subscription plans of a merchant site, as returned by {@link GetSubscriptionPlansRequest}.
+ * The plans are fetched by the first lookup and then refreshed only by {@link #refresh()} or periodically in the background,
+ * see {@link #scheduleRefresh(long, TimeUnit)}.
+ * </p>
+ * <p>
+ * A refresh builds a new immutable snapshot of the plans and swaps it in atomically, so the lookups never wait for a refresh
+ * and never see a partially updated catalog. A failed refresh keeps the current snapshot. Instances are thread-safe.
+ * The returned plans are shared by the callers and must not be modified.
+ * </p>
+ */
+public class SubscriptionPlanCatalog {
+
+    private static final Log logger = LogFactory.getLog(SubscriptionPlanCatalog.class);
+
+    private final SafechargeRequestExecutor requestExecutor;
+    private final MerchantInfo merchantInfo;
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param client the {@link SafechargeClient} of the merchant site to fetch the plans with
+     */
+    public SubscriptionPlanCatalog(SafechargeClient client) {
+        this(client.getRequestExecutor(), client.getMerchantInfo());
+    }
+
+    /**
+     * @param requestExecutor the {@link SafechargeRequestExecutor} to fetch the plans with
+     * @param merchantInfo    the {@link MerchantInfo} of the merchant site to fetch the plans for
+     */
+    public SubscriptionPlanCatalog(SafechargeRequestExecutor requestExecutor, MerchantInfo merchantInfo) {
+        this.requestExecutor = requestExecutor;
+        this.merchantInfo = merchantInfo;
+    }
+
+    /**
+     * @return all of the subscription plans of the merchant site
+     * @throws SafechargeException if the plans are not fetched yet and fetching them fails
+     */
+    public List<SubscriptionPlan> getSubscriptionPlans() throws SafechargeException {
+        return getSnapshot().subscriptionPlans;
+    }
+
+    /**
+     * @param subscriptionPlanId the id of the plan
+     * @return the subscription plan with the id, null if there is no such plan
+     * @throws SafechargeException if the plans are not fetched yet and fetching them fails
+     */
+    public SubscriptionPlan getSubscriptionPlan(long subscriptionPlanId) throws SafechargeException {
+        return getSnapshot().subscriptionPlansById.get(subscriptionPlanId);
+    }
+
+    /**
+     * Fetches the subscription plans and replaces the current snapshot with them.
+     *
+     * @throws SafechargeException if fetching the plans fails
+     */
+    public void refresh() throws SafechargeException {
+        SafechargeResponse response = requestExecutor.execute(GetSubscriptionPlansRequest.builder()
+                .addMerchantInfo(merchantInfo)
+                .build());
+        if (response == null || !Constants.APIResponseStatus.SUCCESS.equals(response.getStatus())) {
+            throw new SafechargeException(response != null ? response.getReason() : "Missing subscription plans response!");
+        }
+
+        List<SubscriptionPlan> subscriptionPlans = ((GetSubscriptionPlansResponse) response).getSubscriptionPlans();
+        snapshot = new Snapshot(subscriptionPlans != null ? subscriptionPlans : Collections.<SubscriptionPlan>emptyList());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Subscription plan catalog refreshed with " + snapshot.subscriptionPlans.size() + " plans");
+        }
+    }
+
+    /**
+     * Starts refreshing the catalog periodically on a background thread, beginning immediately.
+     *
+     * @param period the time between the refreshes
+     * @param unit   the {@link TimeUnit} of the {@code period}
+     */
+    public synchronized void scheduleRefresh(long period, TimeUnit unit) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "safecharge-subscription-plans-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh();
+                } catch (SafechargeException | RuntimeException e) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Failed to refresh the subscription plan catalog: " + e.getMessage());
+                    }
+                }
+            }
+        }, 0, period, unit);
+    }
+
+    /**
+     * Stops the scheduled refreshing, if any.
+     */
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private Snapshot getSnapshot() throws SafechargeException {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (snapshot == null) {
+                refresh();
+            }
+            return snapshot;
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final List<SubscriptionPlan> subscriptionPlans;
+        private final Map<Long, SubscriptionPlan> subscriptionPlansById;
+
+        private Snapshot(List<SubscriptionPlan> subscriptionPlans) {
+            this.subscriptionPlans = Collections.unmodifiableList(new ArrayList<>(subscriptionPlans));
+            Map<Long, SubscriptionPlan> subscriptionPlansById = new HashMap<>();
+            for (SubscriptionPlan subscriptionPlan : subscriptionPlans) {
+                if (subscriptionPlan.getSubscriptionPlanId() != null) {
+                    subscriptionPlansById.put(subscriptionPlan.getSubscriptionPlanId(), subscriptionPlan);
+                }
+            }
+            this.subscriptionPlansById = subscriptionPlansById;
+        }
+    }
+}
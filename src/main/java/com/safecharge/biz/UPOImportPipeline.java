@@ -0,0 +1,537 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.safecharge.exception.SafechargeConfigurationException;
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.model.UserDetailsCashier;
+import com.safecharge.request.AddUPOCreditCardByTokenRequest;
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.AddUPOCreditCardByTokenResponse;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.Constants;
+
+/**
+ * <p>
+ * Imports stored cards, e.g. migrated from another acquirer, as UPOs with {@link AddUPOCreditCardByTokenRequest}s read from
+ * a {@link Constants.ImportFileFormat#JSONL} or {@link Constants.ImportFileFormat#CSV} file. The records have the fields of the request:
+ * ccToken, brand, uniqueCC, bin, last4Digits, ccExpMonth, ccExpYear, userTokenId and optionally ccNameOnCard, expiryDate,
+ * registrationDate, lastDepositUse, lastDepositSuccess, lastWithdrawalUse, lastWithdrawalSuccess, and in JSONL a billingAddress object.
+ * </p>
+ * <p>
+ * The file is read incrementally and the requests are executed by a {@link BatchRequestExecutor}, so only the records in flight
+ * are held in memory. A CSV value in quotes may span lines, and such a record has the line number of its first line. The result of every
+ * record is appended to the output file as a JSON line with the line number of the record by a writer thread of the run, so the file
+ * writes don't hold up the I/O threads completing the requests.
+ * The failed records are done as well, so they are to be retried from the output file rather than by resuming the import.
+ * The pipeline records in the checkpoint file the line before which all of the records are done, and a run with an existing checkpoint
+ * file resumes from it. As the records complete out of order, up to the concurrency of the records after the checkpoint may be
+ * sent again after a crash.
+ * </p>
+ */
+public class UPOImportPipeline {
+
+    private static final Log logger = LogFactory.getLog(UPOImportPipeline.class);
+    private static final Gson GSON = new Gson();
+    private static final int CHECKPOINT_INTERVAL = 100;
+
+    private final SafechargeRequestExecutor requestExecutor;
+    private final MerchantInfo merchantInfo;
+    private final Path inputFile;
+    private final Constants.ImportFileFormat format;
+    private final Path outputFile;
+    private final Path checkpointFile;
+    private final int concurrency;
+    private final double maxRequestsPerSecond;
+
+    private UPOImportPipeline(Builder builder) {
+        this.requestExecutor = builder.requestExecutor;
+        this.merchantInfo = builder.merchantInfo;
+        this.inputFile = builder.inputFile;
+        this.format = builder.format;
+        this.outputFile = builder.outputFile;
+        this.checkpointFile = builder.checkpointFile;
+        this.concurrency = builder.concurrency;
+        this.maxRequestsPerSecond = builder.maxRequestsPerSecond;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Imports the records of the input file after the checkpoint, if any.
+     *
+     * @return the totals of the records imported by this run
+     * @throws IOException          if reading the input file, e.g. a CSV value with an unterminated quote, or writing the output or
+     *                              the checkpoint file fails
+     * @throws InterruptedException if the thread is interrupted while waiting. The checkpoint is kept at the last written value
+     */
+    public BatchRequestExecutor.BatchStats run() throws IOException, InterruptedException {
+        long resumeLine = readCheckpoint();
+        try (BufferedReader reader = Files.newBufferedReader(inputFile, StandardCharsets.UTF_8);
+                Writer writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            final Progress progress = new Progress(writer, resumeLine);
+            RecordIterator records = new RecordIterator(reader, progress);
+
+            BatchRequestExecutor.BatchStats stats;
+            try {
+                stats = BatchRequestExecutor.builder()
+                        .setRequestExecutor(requestExecutor)
+                        .setConcurrency(concurrency)
+                        .setMaxRequestsPerSecond(maxRequestsPerSecond)
+                        .build()
+                        .execute(records, new Function<Record, SafechargeBaseRequest>() {
+                            @Override
+                            public SafechargeBaseRequest apply(Record record) {
+                                return createRequest(record, records.header);
+                            }
+                        }, new BatchRequestExecutor.ResultHandler<Record>() {
+                            @Override
+                            public void onResult(Record record, SafechargeResponse response, Throwable failure) {
+                                progress.complete(record.line, createResult(record, response, failure));
+                            }
+                        });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                progress.close();
+            }
+
+            progress.writeCheckpoint();
+            if (logger.isDebugEnabled()) {
+                logger.debug("UPO import of " + inputFile + " done: " + stats);
+            }
+            return stats;
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 1;
+        }
+        String checkpoint = new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8).trim();
+        try {
+            return Math.max(Long.parseLong(checkpoint), 1);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid checkpoint in " + checkpointFile + ": " + checkpoint, e);
+        }
+    }
+
+    private SafechargeBaseRequest createRequest(Record record, List<String> header) {
+        JsonObject fields;
+        if (format == Constants.ImportFileFormat.CSV) {
+            fields = new JsonObject();
+            List<String> values = parseCsvLine(record.text);
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                if (!values.get(i)
+                        .isEmpty()) {
+                    fields.addProperty(header.get(i), values.get(i));
+                }
+            }
+        } else {
+            fields = GSON.fromJson(record.text, JsonObject.class);
+        }
+
+        record.userTokenId = getString(fields, "userTokenId");
+        JsonElement billingAddress = fields.get("billingAddress");
+        return AddUPOCreditCardByTokenRequest.builder()
+                .addMerchantInfo(merchantInfo)
+                .addUserTokenId(record.userTokenId)
+                .addCcToken(getString(fields, "ccToken"))
+                .addBrand(getString(fields, "brand"))
+                .addUniqueCC(getString(fields, "uniqueCC"))
+                .addBin(getString(fields, "bin"))
+                .addLast4Digits(getString(fields, "last4Digits"))
+                .addCcExpMonth(getString(fields, "ccExpMonth"))
+                .addCCExpYear(getString(fields, "ccExpYear"))
+                .addCcNameOnCard(getString(fields, "ccNameOnCard"))
+                .addExpiryDate(getString(fields, "expiryDate"))
+                .addRegistrationDate(getString(fields, "registrationDate"))
+                .addLastDepositUse(getString(fields, "lastDepositUse"))
+                .addLastDepositSuccess(getString(fields, "lastDepositSuccess"))
+                .addLastWithdrawalUse(getString(fields, "lastWithdrawalUse"))
+                .addLastWithdrawalSuccess(getString(fields, "lastWithdrawalSuccess"))
+                .addBillingAddress(billingAddress != null && billingAddress.isJsonObject() ? GSON.fromJson(billingAddress, UserDetailsCashier.class) : null)
+                .build();
+    }
+
+    private static JsonObject createResult(Record record, SafechargeResponse response, Throwable failure) {
+        JsonObject result = new JsonObject();
+        result.addProperty("line", record.line);
+        result.addProperty("userTokenId", record.userTokenId);
+        if (response != null) {
+            result.addProperty("status", String.valueOf(response.getStatus()));
+            if (response instanceof AddUPOCreditCardByTokenResponse) {
+                result.addProperty("userPaymentOptionId", ((AddUPOCreditCardByTokenResponse) response).getUserPaymentOptionId());
+            }
+            result.addProperty("errCode", response.getErrCode());
+            result.addProperty("reason", response.getReason());
+        } else {
+            result.addProperty("status", "FAILED");
+            result.addProperty("reason", failure != null ? failure.getMessage() : null);
+        }
+        return result;
+    }
+
+    private static String getString(JsonObject fields, String name) {
+        JsonElement value = fields.get(name);
+        return value != null && !value.isJsonNull() ? value.getAsString() : null;
+    }
+
+    /**
+     * Splits a CSV record, which may span lines in a quoted value.
+     *
+     * @param line the text of the record
+     * @return the unquoted values
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (isQuoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    isQuoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                isQuoted = true;
+            } else if (c == ',') {
+                values.add(value.toString()
+                        .trim());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString()
+                .trim());
+        return values;
+    }
+
+    private static final class Record {
+
+        private final long line;
+        private final String text;
+        private volatile String userTokenId;
+
+        private Record(long line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+    }
+
+    private static boolean hasOddQuoteCount(String text) {
+        boolean isOdd = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                isOdd = !isOdd;
+            }
+        }
+        return isOdd;
+    }
+
+    /**
+     * Reads the records after the checkpoint one by one. The header, the blank lines and the further lines of a CSV record are completed
+     * right away.
+     */
+    private final class RecordIterator implements Iterator<Record> {
+
+        private final BufferedReader reader;
+        private final Progress progress;
+        private List<String> header;
+        private long lineNumber = 0;
+        private long recordLine;
+        private Record next;
+
+        private RecordIterator(BufferedReader reader, Progress progress) {
+            this.reader = reader;
+            this.progress = progress;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            try {
+                String text;
+                while ((text = readRecordText()) != null) {
+                    if (format == Constants.ImportFileFormat.CSV && header == null) {
+                        header = parseCsvLine(text);
+                        progress.skip(recordLine, lineNumber);
+                    } else if (recordLine < progress.resumeLine) {
+                        // done by a previous run
+                    } else if (text.trim()
+                            .isEmpty()) {
+                        progress.skip(recordLine, lineNumber);
+                    } else {
+                        progress.skip(recordLine + 1, lineNumber);
+                        next = new Record(recordLine, text);
+                        return true;
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private String readRecordText() throws IOException {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            recordLine = ++lineNumber;
+            if (format != Constants.ImportFileFormat.CSV || !hasOddQuoteCount(text)) {
+                return text;
+            }
+            StringBuilder record = new StringBuilder(text);
+            boolean isQuoted = true;
+            while (isQuoted) {
+                String line = reader.readLine();
+                if (line == null) {
+                    throw new IOException("Unterminated quote in the record at line " + recordLine + " of " + inputFile);
+                }
+                lineNumber++;
+                record.append('\n')
+                        .append(line);
+                isQuoted = hasOddQuoteCount(line) != isQuoted;
+            }
+            return record.toString();
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Record record = next;
+            next = null;
+            return record;
+        }
+    }
+
+    /**
+     * Writes the results and tracks the line before which all of the records are done. The state is confined to the writer thread,
+     * which the reading thread and the I/O threads hand the lines and the results to.
+     */
+    private final class Progress {
+
+        private final Writer output;
+        private final long resumeLine;
+        private final ExecutorService writerThread;
+        private final Set<Long> doneLines = new HashSet<>();
+        private long nextLine;
+        private int uncheckpointedCount = 0;
+
+        private Progress(Writer output, long resumeLine) {
+            this.output = output;
+            this.resumeLine = resumeLine;
+            this.nextLine = resumeLine;
+            // the results completing after an interrupted run is closed are dropped, and their records are sent again on resuming
+            this.writerThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "safecharge-upo-import-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }, new ThreadPoolExecutor.DiscardPolicy());
+        }
+
+        private void skip(final long fromLine, final long toLine) {
+            if (fromLine > toLine) {
+                return;
+            }
+            writerThread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (long line = fromLine; line <= toLine; line++) {
+                        if (line >= nextLine) {
+                            markDone(line);
+                        }
+                    }
+                }
+            });
+        }
+
+        private void complete(final long line, final JsonObject result) {
+            writerThread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        output.write(result.toString());
+                        output.write('\n');
+                        markDone(line);
+                        if (++uncheckpointedCount >= CHECKPOINT_INTERVAL) {
+                            writeCheckpoint();
+                        }
+                    } catch (IOException e) {
+                        logger.error("Failed to record the result of line " + line + " of " + inputFile + ": " + e.getMessage());
+                    }
+                }
+            });
+        }
+
+        private void markDone(long line) {
+            doneLines.add(line);
+            while (doneLines.remove(nextLine)) {
+                nextLine++;
+            }
+        }
+
+        /**
+         * Waits for the writer thread to write the pending results, after which the state is read by the calling thread.
+         */
+        private void close() throws InterruptedException {
+            writerThread.shutdown();
+            while (!writerThread.awaitTermination(1, TimeUnit.MINUTES)) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Waiting for the results of " + inputFile + " to be written");
+                }
+            }
+        }
+
+        private void writeCheckpoint() throws IOException {
+            // the results are on disk before the checkpoint passes them
+            output.flush();
+            Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+            Files.write(temporaryFile, Long.toString(nextLine)
+                    .getBytes(StandardCharsets.UTF_8));
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            uncheckpointedCount = 0;
+        }
+    }
+
+    public static class Builder {
+
+        private SafechargeRequestExecutor requestExecutor;
+        private MerchantInfo merchantInfo;
+        private Path inputFile;
+        private Constants.ImportFileFormat format = Constants.ImportFileFormat.JSONL;
+        private Path outputFile;
+        private Path checkpointFile;
+        private int concurrency = BatchRequestExecutor.DEFAULT_CONCURRENCY;
+        private double maxRequestsPerSecond = 0;
+
+        /**
+         * Sets the executor and the merchant info of a client to import the UPOs with.
+         *
+         * @param client the {@link SafechargeClient} of the merchant site
+         * @return this object
+         */
+        public Builder setClient(SafechargeClient client) {
+            this.requestExecutor = client.getRequestExecutor();
+            this.merchantInfo = client.getMerchantInfo();
+            return this;
+        }
+
+        public Builder setRequestExecutor(SafechargeRequestExecutor requestExecutor) {
+            this.requestExecutor = requestExecutor;
+            return this;
+        }
+
+        public Builder setMerchantInfo(MerchantInfo merchantInfo) {
+            this.merchantInfo = merchantInfo;
+            return this;
+        }
+
+        /**
+         * @param inputFile the file with the records to import
+         * @param format    the {@link Constants.ImportFileFormat} of the file. Defaults to {@link Constants.ImportFileFormat#JSONL}
+         * @return this object
+         */
+        public Builder setInputFile(Path inputFile, Constants.ImportFileFormat format) {
+            this.inputFile = inputFile;
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * @param outputFile the file to append the results to, created if missing
+         * @return this object
+         */
+        public Builder setOutputFile(Path outputFile) {
+            this.outputFile = outputFile;
+            return this;
+        }
+
+        /**
+         * @param checkpointFile the file to record the progress in and resume from, created if missing
+         * @return this object
+         */
+        public Builder setCheckpointFile(Path checkpointFile) {
+            this.checkpointFile = checkpointFile;
+            return this;
+        }
+
+        /**
+         * @param concurrency the maximum number of the requests in flight. Defaults to {@link BatchRequestExecutor#DEFAULT_CONCURRENCY}
+         * @return this object
+         */
+        public Builder setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * @param maxRequestsPerSecond the maximum number of the requests sent per second or 0 for no cap
+         * @return this object
+         */
+        public Builder setMaxRequestsPerSecond(double maxRequestsPerSecond) {
+            this.maxRequestsPerSecond = maxRequestsPerSecond;
+            return this;
+        }
+
+        /**
+         * Builds the pipeline.
+         *
+         * @return new {@link UPOImportPipeline}
+         * @throws SafechargeConfigurationException if any of the executor, the merchant info or the files is missing
+         */
+        public UPOImportPipeline build() {
+            if (requestExecutor == null || merchantInfo == null || inputFile == null || format == null || outputFile == null
+                    || checkpointFile == null) {
+                throw new SafechargeConfigurationException("Missing mandatory client, input, output or checkpoint file for the creation of a UPO import!");
+            }
+            return new UPOImportPipeline(this);
+        }
+    }
+}
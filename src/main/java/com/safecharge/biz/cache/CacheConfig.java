@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz.cache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Configuration of a {@link RefreshingCache}: how long its entries are fresh, how long a stale entry may still be served
+ * while it's being refreshed in the background, and how many entries the cache holds.
+ * </p>
+ *
+ * @see RefreshingCache
+ */
+public final class CacheConfig {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private final long timeToLiveNanos;
+    private final long staleWhileRevalidateNanos;
+    private final int maximumSize;
+
+    private CacheConfig(Builder builder) {
+        this.timeToLiveNanos = builder.timeToLiveNanos;
+        this.staleWhileRevalidateNanos = builder.staleWhileRevalidateNanos;
+        this.maximumSize = builder.maximumSize;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public long getTimeToLiveNanos() {
+        return timeToLiveNanos;
+    }
+
+    public long getStaleWhileRevalidateNanos() {
+        return staleWhileRevalidateNanos;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public static class Builder {
+
+        private long timeToLiveNanos = TimeUnit.MINUTES.toNanos(5);
+        private long staleWhileRevalidateNanos = 0;
+        private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+        /**
+         * Sets how long a loaded entry is served without a refresh. Defaults to 5 minutes.
+         *
+         * @param timeToLive the time to live of an entry
+         * @param unit       the {@link TimeUnit} of the {@code timeToLive}
+         * @return this object
+         */
+        public Builder setTimeToLive(long timeToLive, TimeUnit unit) {
+            this.timeToLiveNanos = unit.toNanos(timeToLive);
+            return this;
+        }
+
+        /**
+         * Sets how long an entry is still served after its time to live, while it's being refreshed in the background.
+         * Defaults to 0, i.e. an expired entry is reloaded by the request needing it.
+         *
+         * @param staleWhileRevalidate the time a stale entry is served for after the time to live
+         * @param unit                 the {@link TimeUnit} of the {@code staleWhileRevalidate}
+         * @return this object
+         */
+        public Builder setStaleWhileRevalidate(long staleWhileRevalidate, TimeUnit unit) {
+            this.staleWhileRevalidateNanos = unit.toNanos(staleWhileRevalidate);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of the entries. The least recently used entries are evicted over it.
+         * Defaults to {@link #DEFAULT_MAXIMUM_SIZE}.
+         *
+         * @param maximumSize the maximum number of the entries
+         * @return this object
+         */
+        public Builder setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Builds the configuration.
+         *
+         * @return new {@link CacheConfig}
+         * @throws IllegalArgumentException if any of the values is out of range
+         */
+        public CacheConfig build() {
+            if (timeToLiveNanos <= 0 || staleWhileRevalidateNanos < 0 || maximumSize < 1) {
+                throw new IllegalArgumentException("The time to live and the maximum size must be positive, the stale-while-revalidate time can't be negative!");
+            }
+            return new CacheConfig(this);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.safecharge.exception.SafechargeException;
+
+/**
+ * <p>
+ * Thread-safe, size-bounded cache of API responses with a time to live and stale-while-revalidate refreshing, as set by its
+ * {@link CacheConfig}. An entry is served as is for its time to live. For the following stale-while-revalidate time it's still
+ * served, but refreshed in the background by the first request finding it stale. Afterwards, it's reloaded by the request needing it.
+ * </p>
+ * <p>
+ * The concurrent loads of the same key, whether due to a miss or a refresh, are collapsed into a single call of the {@link Loader}.
+ * Only the values accepted by the cacheable predicate are stored, e.g. the successful responses. The cached values are shared
+ * by all of the callers and must not be modified.
+ * </p>
+ *
+ * @param <K> the type of the keys, with value based {@code equals} and {@code hashCode}
+ * @param <V> the type of the cached values
+ */
+public final class RefreshingCache<K, V> {
+
+    private static final Log logger = LogFactory.getLog(RefreshingCache.class);
+
+    private final long timeToLiveNanos;
+    private final long staleWhileRevalidateNanos;
+    private final Predicate<? super V> isCacheable;
+    private final Executor refreshExecutor;
+    private final LongSupplier nanoTime;
+    private final Map<K, CacheEntry<V>> entries;
+    private final ConcurrentMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder staleHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Creates a cache storing all of the loaded values and refreshing them on a shared background thread pool.
+     *
+     * @param config the {@link CacheConfig} of the cache
+     */
+    public RefreshingCache(CacheConfig config) {
+        this(config, null, null);
+    }
+
+    /**
+     * @param config          the {@link CacheConfig} of the cache
+     * @param isCacheable     accepts the loaded values to be stored, e.g. the successful responses. If null, all of the values are stored
+     * @param refreshExecutor the {@link Executor} to refresh the stale entries on. If null, a shared background thread pool is used
+     */
+    public RefreshingCache(CacheConfig config, Predicate<? super V> isCacheable, Executor refreshExecutor) {
+        this(config, isCacheable, refreshExecutor, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return System.nanoTime();
+            }
+        });
+    }
+
+    RefreshingCache(CacheConfig config, Predicate<? super V> isCacheable, Executor refreshExecutor, LongSupplier nanoTime) {
+        this.timeToLiveNanos = config.getTimeToLiveNanos();
+        this.staleWhileRevalidateNanos = config.getStaleWhileRevalidateNanos();
+        this.isCacheable = isCacheable;
+        this.refreshExecutor = refreshExecutor != null ? refreshExecutor : RefreshExecutorHolder.INSTANCE;
+        this.nanoTime = nanoTime;
+        final int maximumSize = config.getMaximumSize();
+        this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 4722839466217349012L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value of the {@code key}, loading it if it's missing or expired.
+     *
+     * @param key    the key of the value
+     * @param loader loads the value of the {@code key} on a miss or a refresh
+     * @return the cached or the loaded value
+     * @throws SafechargeException if the value is not cached and its loading fails
+     */
+    public V get(K key, Loader<? super K, ? extends V> loader) throws SafechargeException {
+        CacheEntry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null) {
+            long age = nanoTime.getAsLong() - entry.loadedAt;
+            if (age < timeToLiveNanos) {
+                hitCount.increment();
+                return entry.value;
+            }
+            if (age - timeToLiveNanos < staleWhileRevalidateNanos) {
+                staleHitCount.increment();
+                refreshAsync(key, entry, loader);
+                return entry.value;
+            }
+        }
+
+        missCount.increment();
+        return load(key, loader);
+    }
+
+    /**
+     * Removes the cached value of the {@code key}, so the next request for it loads it again. A load of the {@code key}
+     * in progress is not stored, as it may have been started before the change which caused the invalidation.
+     *
+     * @param key the key of the value
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+            loads.remove(key);
+        }
+    }
+
+    /**
+     * Removes all of the cached values. The loads in progress are not stored.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            loads.clear();
+        }
+    }
+
+    /**
+     * @return the number of the cached values, including the expired ones
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the number of the requests served by a fresh value
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return the number of the requests served by a stale value, while refreshing it
+     */
+    public long getStaleHitCount() {
+        return staleHitCount.sum();
+    }
+
+    /**
+     * @return the number of the requests which waited for the value to be loaded
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    private V load(K key, Loader<? super K, ? extends V> loader) throws SafechargeException {
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> inFlightLoad = loads.putIfAbsent(key, load);
+        if (inFlightLoad != null) {
+            return await(inFlightLoad);
+        }
+
+        try {
+            V value = loader.load(key);
+            if (isCacheable == null || isCacheable.test(value)) {
+                CacheEntry<V> entry = new CacheEntry<>(value, nanoTime.getAsLong());
+                synchronized (entries) {
+                    // not if the key was invalidated during the load
+                    if (loads.remove(key, load)) {
+                        entries.put(key, entry);
+                    }
+                }
+            }
+            load.complete(value);
+            return value;
+        } catch (SafechargeException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    private V await(CompletableFuture<V> load) throws SafechargeException {
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new SafechargeException("Interrupted while waiting for a cache load!", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SafechargeException) {
+                throw (SafechargeException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SafechargeException(cause.getMessage(), cause);
+        }
+    }
+
+    private void refreshAsync(final K key, final CacheEntry<V> entry, final Loader<? super K, ? extends V> loader) {
+        if (!entry.isRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        load(key, loader);
+                    } catch (SafechargeException | RuntimeException e) {
+                        // the stale value is served until its stale-while-revalidate time is over
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Failed to refresh a cache entry: " + e.getMessage());
+                        }
+                    } finally {
+                        entry.isRefreshing.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.isRefreshing.set(false);
+        }
+    }
+
+    /**
+     * Loads the value of a key from the API.
+     *
+     * @param <K> the type of the key
+     * @param <V> the type of the value
+     */
+    public interface Loader<K, V> {
+
+        V load(K key) throws SafechargeException;
+    }
+
+    private static final class CacheEntry<V> {
+
+        private final V value;
+        private final long loadedAt;
+        private final AtomicBoolean isRefreshing = new AtomicBoolean();
+
+        private CacheEntry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static final class RefreshExecutorHolder {
+
+        private static final Executor INSTANCE = new ThreadPoolExecutor(0, 4, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "safecharge-cache-refresh-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+}
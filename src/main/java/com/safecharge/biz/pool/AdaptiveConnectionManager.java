@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz.pool;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import com.safecharge.util.Constants;
+
+/**
+ * <p>
+ * {@link PoolingHttpClientConnectionManager} sizing the connection limit of each route from its observed load, so the pool
+ * follows the daily traffic without hand tuning. Every adjustment period a background thread:
+ * </p>
+ * <ul>
+ * <li>closes the expired connections and the ones idle for longer than the idle timeout,</li>
+ * <li>raises the limit of a route by a half if its leases waited for a connection longer than the threshold on average,
+ * timed out or are still waiting,</li>
+ * <li>lowers the limit of a route by up to a quarter, towards its peak number of leased connections, once the peak stayed
+ * below three quarters of the limit for several periods.</li>
+ * </ul>
+ * <p>
+ * Since the idle connections are evicted in the background, the connections are validated before a lease only after
+ * a couple of seconds of inactivity and the clients using this manager should not enable the stale connection check
+ * of the {@link org.apache.http.client.config.RequestConfig}. The decisions are exposed as {@link RouteMetrics} and counters.
+ * The background thread is stopped by {@link #shutdown()}, which is called when the client using the manager is closed.
+ * </p>
+ */
+public class AdaptiveConnectionManager extends PoolingHttpClientConnectionManager {
+
+    private static final Log logger = LogFactory.getLog(AdaptiveConnectionManager.class);
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLISECONDS = 2000;
+
+    private final AdaptivePoolConfig config;
+    private final ConcurrentMap<HttpRoute, RouteState> routeStates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<HttpClientConnection, RouteState> leasedConnections = new ConcurrentHashMap<>();
+    private final LongAdder growCount = new LongAdder();
+    private final LongAdder shrinkCount = new LongAdder();
+    private final ScheduledExecutorService scheduler;
+    private volatile Map<HttpRoute, RouteMetrics> routeMetrics = Collections.emptyMap();
+
+    /**
+     * Creates the manager and starts its background thread.
+     *
+     * @param socketFactoryRegistry the socket factories of the connection schemes
+     * @param config                the {@link AdaptivePoolConfig} of the manager
+     * @param timeToLive            the maximum lifetime of a connection
+     * @param unit                  the {@link TimeUnit} of the {@code timeToLive}
+     */
+    public AdaptiveConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry, AdaptivePoolConfig config, long timeToLive,
+            TimeUnit unit) {
+        super(socketFactoryRegistry, null, null, null, timeToLive, unit);
+        this.config = config;
+        setMaxTotal(config.getMaxTotalConnections());
+        setDefaultMaxPerRoute(config.getInitialConnectionsPerRoute());
+        setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLISECONDS);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "safecharge-connection-pool-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    maintain();
+                } catch (RuntimeException e) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Failed to maintain the connection pool: " + e.getMessage());
+                    }
+                }
+            }
+        }, config.getAdjustmentPeriodNanos(), config.getAdjustmentPeriodNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        final RouteState routeState = getRouteState(route);
+        final ConnectionRequest request = super.requestConnection(route, state);
+        final long requestedAt = System.nanoTime();
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+                    ConnectionPoolTimeoutException {
+                HttpClientConnection connection;
+                try {
+                    connection = request.get(timeout, unit);
+                } catch (ConnectionPoolTimeoutException e) {
+                    routeState.leaseTimeoutCount.increment();
+                    throw e;
+                }
+                routeState.leased(System.nanoTime() - requestedAt);
+                leasedConnections.put(connection, routeState);
+                return connection;
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    /**
+     * Requests a connection which is not counted in the lease metrics of its route, so leasing it doesn't affect the sizing of
+     * the route limit, e.g. to open connections ahead of the traffic. The connection is released by
+     * {@link #releaseConnection(HttpClientConnection, Object, long, TimeUnit)} as usual.
+     *
+     * @param route the route of the connection
+     * @return the {@link ConnectionRequest} of the connection
+     */
+    public ConnectionRequest requestUntrackedConnection(HttpRoute route) {
+        return super.requestConnection(route, null);
+    }
+
+    @Override
+    public void releaseConnection(HttpClientConnection managedConn, Object state, long keepalive, TimeUnit timeUnit) {
+        RouteState routeState = leasedConnections.remove(managedConn);
+        if (routeState != null) {
+            routeState.inFlight.decrementAndGet();
+        }
+        super.releaseConnection(managedConn, state, keepalive, timeUnit);
+    }
+
+    /**
+     * Stops the background thread and closes all of the connections.
+     */
+    @Override
+    public void shutdown() {
+        scheduler.shutdownNow();
+        super.shutdown();
+    }
+
+    /**
+     * @return the metrics of the routes from the last adjustment period
+     */
+    public Map<HttpRoute, RouteMetrics> getRouteMetrics() {
+        return routeMetrics;
+    }
+
+    /**
+     * @return the number of the raises of the route limits
+     */
+    public long getGrowCount() {
+        return growCount.sum();
+    }
+
+    /**
+     * @return the number of the reductions of the route limits
+     */
+    public long getShrinkCount() {
+        return shrinkCount.sum();
+    }
+
+    /**
+     * Evicts the idle connections and adjusts the route limits from the load observed since the previous call.
+     * Called by the background thread every adjustment period.
+     */
+    synchronized void maintain() {
+        closeExpiredConnections();
+        closeIdleConnections(config.getIdleTimeoutNanos(), TimeUnit.NANOSECONDS);
+
+        Map<HttpRoute, RouteMetrics> metrics = new HashMap<>();
+        for (Map.Entry<HttpRoute, RouteState> entry : routeStates.entrySet()) {
+            metrics.put(entry.getKey(), adjust(entry.getKey(), entry.getValue()));
+        }
+        this.routeMetrics = Collections.unmodifiableMap(metrics);
+    }
+
+    private RouteMetrics adjust(HttpRoute route, RouteState routeState) {
+        long leaseCount = routeState.leaseCount.sumThenReset();
+        long leaseWaitNanos = routeState.leaseWaitNanos.sumThenReset();
+        long leaseTimeoutCount = routeState.leaseTimeoutCount.sumThenReset();
+        int peakLeased = routeState.peakInFlight.getAndSet(routeState.inFlight.get());
+        long averageLeaseWaitNanos = leaseCount > 0 ? leaseWaitNanos / leaseCount : 0;
+        PoolStats stats = getStats(route);
+        int limit = getMaxPerRoute(route);
+
+        int newLimit = limit;
+        if (stats.getPending() > 0 || leaseTimeoutCount > 0 || averageLeaseWaitNanos > config.getLeaseWaitThresholdNanos()) {
+            routeState.underusedPeriods = 0;
+            newLimit = Math.min(config.getMaxConnectionsPerRoute(), Math.max(limit + 1, limit + limit / 2));
+        } else if (peakLeased * 4 < limit * 3) {
+            if (++routeState.underusedPeriods >= config.getShrinkAfterPeriods()) {
+                routeState.underusedPeriods = 0;
+                int target = peakLeased + Math.max(1, peakLeased / 4);
+                newLimit = Math.max(config.getMinConnectionsPerRoute(), Math.max(target, limit - Math.max(1, limit / 4)));
+            }
+        } else {
+            routeState.underusedPeriods = 0;
+        }
+
+        Constants.PoolSizingDecision decision = Constants.PoolSizingDecision.KEEP;
+        if (newLimit != limit) {
+            setMaxPerRoute(route, newLimit);
+            if (newLimit > limit) {
+                decision = Constants.PoolSizingDecision.GROW;
+                growCount.increment();
+            } else {
+                decision = Constants.PoolSizingDecision.SHRINK;
+                shrinkCount.increment();
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Connection limit of " + route + " changed from " + limit + " to " + newLimit + ", peak leased " + peakLeased
+                        + ", average lease wait " + TimeUnit.NANOSECONDS.toMicros(averageLeaseWaitNanos) + " us, pending " + stats.getPending());
+            }
+        }
+        return new RouteMetrics(newLimit, decision, leaseCount, leaseTimeoutCount, averageLeaseWaitNanos, peakLeased, stats.getLeased(),
+                stats.getPending(), stats.getAvailable());
+    }
+
+    private RouteState getRouteState(HttpRoute route) {
+        RouteState routeState = routeStates.get(route);
+        if (routeState == null) {
+            RouteState newRouteState = new RouteState();
+            routeState = routeStates.putIfAbsent(route, newRouteState);
+            if (routeState == null) {
+                routeState = newRouteState;
+            }
+        }
+        return routeState;
+    }
+
+    private static final class RouteState {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+        private final LongAdder leaseCount = new LongAdder();
+        private final LongAdder leaseWaitNanos = new LongAdder();
+        private final LongAdder leaseTimeoutCount = new LongAdder();
+        // accessed only by the synchronized maintain()
+        private int underusedPeriods;
+
+        private void leased(long waitNanos) {
+            int current = inFlight.incrementAndGet();
+            int peak = peakInFlight.get();
+            while (current > peak && !peakInFlight.compareAndSet(peak, current)) {
+                peak = peakInFlight.get();
+            }
+            leaseCount.increment();
+            leaseWaitNanos.add(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz.pool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Configuration of an {@link AdaptiveConnectionManager}: the bounds of the per-route connection limits, how the limits
+ * react to the observed load, and how long the idle connections are kept.
+ * </p>
+ *
+ * @see AdaptiveConnectionManager
+ */
+public final class AdaptivePoolConfig {
+
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 200;
+    public static final int DEFAULT_MIN_CONNECTIONS_PER_ROUTE = 2;
+    public static final int DEFAULT_INITIAL_CONNECTIONS_PER_ROUTE = 10;
+    public static final int DEFAULT_SHRINK_AFTER_PERIODS = 6;
+
+    private final int maxTotalConnections;
+    private final int minConnectionsPerRoute;
+    private final int initialConnectionsPerRoute;
+    private final int maxConnectionsPerRoute;
+    private final long adjustmentPeriodNanos;
+    private final long leaseWaitThresholdNanos;
+    private final int shrinkAfterPeriods;
+    private final long idleTimeoutNanos;
+
+    private AdaptivePoolConfig(Builder builder) {
+        this.maxTotalConnections = builder.maxTotalConnections;
+        this.minConnectionsPerRoute = builder.minConnectionsPerRoute;
+        this.initialConnectionsPerRoute = builder.initialConnectionsPerRoute;
+        this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute > 0 ? builder.maxConnectionsPerRoute : builder.maxTotalConnections;
+        this.adjustmentPeriodNanos = builder.adjustmentPeriodNanos;
+        this.leaseWaitThresholdNanos = builder.leaseWaitThresholdNanos;
+        this.shrinkAfterPeriods = builder.shrinkAfterPeriods;
+        this.idleTimeoutNanos = builder.idleTimeoutNanos;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }
+
+    public int getMinConnectionsPerRoute() {
+        return minConnectionsPerRoute;
+    }
+
+    public int getInitialConnectionsPerRoute() {
+        return initialConnectionsPerRoute;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public long getAdjustmentPeriodNanos() {
+        return adjustmentPeriodNanos;
+    }
+
+    public long getLeaseWaitThresholdNanos() {
+        return leaseWaitThresholdNanos;
+    }
+
+    public int getShrinkAfterPeriods() {
+        return shrinkAfterPeriods;
+    }
+
+    public long getIdleTimeoutNanos() {
+        return idleTimeoutNanos;
+    }
+
+    public static class Builder {
+
+        private int maxTotalConnections = DEFAULT_MAX_TOTAL_CONNECTIONS;
+        private int minConnectionsPerRoute = DEFAULT_MIN_CONNECTIONS_PER_ROUTE;
+        private int initialConnectionsPerRoute = DEFAULT_INITIAL_CONNECTIONS_PER_ROUTE;
+        private int maxConnectionsPerRoute = 0;
+        private long adjustmentPeriodNanos = TimeUnit.SECONDS.toNanos(5);
+        private long leaseWaitThresholdNanos = TimeUnit.MILLISECONDS.toNanos(5);
+        private int shrinkAfterPeriods = DEFAULT_SHRINK_AFTER_PERIODS;
+        private long idleTimeoutNanos = TimeUnit.SECONDS.toNanos(10);
+
+        /**
+         * Sets the maximum number of the connections of all of the routes, the hard cap of the pool.
+         * Defaults to {@link #DEFAULT_MAX_TOTAL_CONNECTIONS}.
+         *
+         * @param maxTotalConnections the maximum number of the connections
+         * @return this object
+         */
+        public Builder setMaxTotalConnections(int maxTotalConnections) {
+            this.maxTotalConnections = maxTotalConnections;
+            return this;
+        }
+
+        /**
+         * Sets the bounds of the per-route connection limit. The limit of a new route starts at the {@code initial} one and
+         * is then adjusted between the {@code min} and the {@code max} ones. Default to {@link #DEFAULT_MIN_CONNECTIONS_PER_ROUTE},
+         * {@link #DEFAULT_INITIAL_CONNECTIONS_PER_ROUTE} and the maximum total connections.
+         *
+         * @param min     the lowest per-route limit
+         * @param initial the per-route limit of a new route
+         * @param max     the highest per-route limit
+         * @return this object
+         */
+        public Builder setConnectionsPerRoute(int min, int initial, int max) {
+            this.minConnectionsPerRoute = min;
+            this.initialConnectionsPerRoute = initial;
+            this.maxConnectionsPerRoute = max;
+            return this;
+        }
+
+        /**
+         * Sets how often the limits are adjusted and the idle connections are evicted. Defaults to 5 seconds.
+         *
+         * @param adjustmentPeriod the time between the adjustments
+         * @param unit             the {@link TimeUnit} of the {@code adjustmentPeriod}
+         * @return this object
+         */
+        public Builder setAdjustmentPeriod(long adjustmentPeriod, TimeUnit unit) {
+            this.adjustmentPeriodNanos = unit.toNanos(adjustmentPeriod);
+            return this;
+        }
+
+        /**
+         * Sets the average time the leases of a route may wait for a connection before its limit is raised. A route with
+         * requests waiting for a connection at the adjustment or with timed out leases is raised regardless. Defaults to 5 milliseconds.
+         *
+         * @param leaseWaitThreshold the average lease wait time tolerated
+         * @param unit               the {@link TimeUnit} of the {@code leaseWaitThreshold}
+         * @return this object
+         */
+        public Builder setLeaseWaitThreshold(long leaseWaitThreshold, TimeUnit unit) {
+            this.leaseWaitThresholdNanos = unit.toNanos(leaseWaitThreshold);
+            return this;
+        }
+
+        /**
+         * Sets the number of the consecutive adjustment periods the peak number of the leased connections of a route must stay
+         * below three quarters of its limit before the limit is lowered. Defaults to {@link #DEFAULT_SHRINK_AFTER_PERIODS}.
+         *
+         * @param shrinkAfterPeriods the number of the underused periods
+         * @return this object
+         */
+        public Builder setShrinkAfterPeriods(int shrinkAfterPeriods) {
+            this.shrinkAfterPeriods = shrinkAfterPeriods;
+            return this;
+        }
+
+        /**
+         * Sets how long a connection may stay idle in the pool before it's closed in the background. Defaults to 10 seconds.
+         *
+         * @param idleTimeout the time an idle connection is kept for
+         * @param unit        the {@link TimeUnit} of the {@code idleTimeout}
+         * @return this object
+         */
+        public Builder setIdleTimeout(long idleTimeout, TimeUnit unit) {
+            this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+            return this;
+        }
+
+        /**
+         * Builds the configuration.
+         *
+         * @return new {@link AdaptivePoolConfig}
+         * @throws IllegalArgumentException if any of the values is out of range
+         */
+        public AdaptivePoolConfig build() {
+            int max = maxConnectionsPerRoute > 0 ? maxConnectionsPerRoute : maxTotalConnections;
+            if (minConnectionsPerRoute < 1 || initialConnectionsPerRoute < minConnectionsPerRoute || max < initialConnectionsPerRoute
+                    || maxTotalConnections < max) {
+                throw new IllegalArgumentException("The per-route limits must be positive and ordered, and can't exceed the total limit!");
+            }
+            if (adjustmentPeriodNanos <= 0 || leaseWaitThresholdNanos < 0 || shrinkAfterPeriods < 1 || idleTimeoutNanos <= 0) {
+                throw new IllegalArgumentException("The periods and the timeouts must be positive, the lease wait threshold can't be negative!");
+            }
+            return new AdaptivePoolConfig(this);
+        }
+    }
+}
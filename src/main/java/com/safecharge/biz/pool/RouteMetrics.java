@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz.pool;
+
+import java.util.concurrent.TimeUnit;
+
+import com.safecharge.util.Constants;
+
+/**
+ * The load of a route of an {@link AdaptiveConnectionManager} observed over an adjustment period and the decision about
+ * its connection limit taken at the end of it.
+ */
+public final class RouteMetrics {
+
+    private final int connectionLimit;
+    private final Constants.PoolSizingDecision decision;
+    private final long leaseCount;
+    private final long leaseTimeoutCount;
+    private final long averageLeaseWaitNanos;
+    private final int peakLeased;
+    private final int leased;
+    private final int pending;
+    private final int available;
+
+    RouteMetrics(int connectionLimit, Constants.PoolSizingDecision decision, long leaseCount, long leaseTimeoutCount, long averageLeaseWaitNanos,
+            int peakLeased, int leased, int pending, int available) {
+        this.connectionLimit = connectionLimit;
+        this.decision = decision;
+        this.leaseCount = leaseCount;
+        this.leaseTimeoutCount = leaseTimeoutCount;
+        this.averageLeaseWaitNanos = averageLeaseWaitNanos;
+        this.peakLeased = peakLeased;
+        this.leased = leased;
+        this.pending = pending;
+        this.available = available;
+    }
+
+    /**
+     * @return the connection limit of the route after the decision
+     */
+    public int getConnectionLimit() {
+        return connectionLimit;
+    }
+
+    public Constants.PoolSizingDecision getDecision() {
+        return decision;
+    }
+
+    /**
+     * @return the number of the connections leased during the period
+     */
+    public long getLeaseCount() {
+        return leaseCount;
+    }
+
+    /**
+     * @return the number of the leases which timed out waiting for a connection during the period
+     */
+    public long getLeaseTimeoutCount() {
+        return leaseTimeoutCount;
+    }
+
+    /**
+     * @param unit the {@link TimeUnit} of the result
+     * @return the average time the leases of the period waited for a connection
+     */
+    public long getAverageLeaseWait(TimeUnit unit) {
+        return unit.convert(averageLeaseWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the highest number of the connections leased at the same time during the period
+     */
+    public int getPeakLeased() {
+        return peakLeased;
+    }
+
+    /**
+     * @return the number of the leased connections at the end of the period
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * @return the number of the requests waiting for a connection at the end of the period
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * @return the number of the idle connections in the pool at the end of the period, after the eviction
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("RouteMetrics{");
+        sb.append("connectionLimit=")
+                .append(connectionLimit);
+        sb.append(", decision=")
+                .append(decision);
+        sb.append(", leaseCount=")
+                .append(leaseCount);
+        sb.append(", leaseTimeoutCount=")
+                .append(leaseTimeoutCount);
+        sb.append(", averageLeaseWaitMicros=")
+                .append(TimeUnit.NANOSECONDS.toMicros(averageLeaseWaitNanos));
+        sb.append(", peakLeased=")
+                .append(peakLeased);
+        sb.append(", leased=")
+                .append(leased);
+        sb.append(", pending=")
+                .append(pending);
+        sb.append(", available=")
+                .append(available);
+        sb.append('}');
+        return sb.toString();
+    }
+}
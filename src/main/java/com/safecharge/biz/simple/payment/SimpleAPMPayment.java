@@ -5,8 +5,12 @@
 package com.safecharge.biz.simple.payment;
 
 import java.util.Map;
+import java.util.function.Function;
 
+import com.safecharge.biz.SafechargeClient;
 import com.safecharge.biz.SafechargeRequestExecutor;
+import com.safecharge.biz.SessionTokenPool;
+import com.safecharge.exception.SafechargeException;
 import com.safecharge.model.MerchantInfo;
 import com.safecharge.request.GetSessionTokenRequest;
 import com.safecharge.request.PaymentAPMRequest;
@@ -25,9 +29,11 @@ import com.safecharge.util.Constants;
  */
 public class SimpleAPMPayment {
 
-    private MerchantInfo merchantInfo;
+    private final MerchantInfo merchantInfo;
 
-    private SafechargeRequestExecutor requestExecutor = SafechargeRequestExecutor.getInstance();
+    private final SafechargeRequestExecutor requestExecutor;
+
+    private final SessionTokenPool sessionTokenPool;
 
     /**
      * Even if this constructor allows the {@code merchantInfo} to be null, the payment request will fail due to missing parameters
@@ -35,7 +41,33 @@ public class SimpleAPMPayment {
      * @param merchantInfo (required) A {@link MerchantInfo} object containing info needed to create a request to Safecharge
      */
     public SimpleAPMPayment(MerchantInfo merchantInfo) {
+        this(merchantInfo, SafechargeRequestExecutor.getInstance());
+    }
+
+    /**
+     * Even if this constructor allows the {@code merchantInfo} to be null, the payment request will fail due to missing parameters
+     *
+     * @param merchantInfo    (required) A {@link MerchantInfo} object containing info needed to create a request to Safecharge
+     * @param requestExecutor (required) The {@link SafechargeRequestExecutor} to send the requests with
+     */
+    public SimpleAPMPayment(MerchantInfo merchantInfo, SafechargeRequestExecutor requestExecutor) {
+        this(merchantInfo, requestExecutor, null);
+    }
+
+    /**
+     * Creates a payment which uses the merchant info and the connection pools of the given per-merchant client.
+     * If the client has a {@link SessionTokenPool}, the payments take their session tokens from it.
+     *
+     * @param client (required) A {@link SafechargeClient} to get the merchant info and the request executor from
+     */
+    public SimpleAPMPayment(SafechargeClient client) {
+        this(client.getMerchantInfo(), client.getRequestExecutor(), client.getSessionTokenPool());
+    }
+
+    private SimpleAPMPayment(MerchantInfo merchantInfo, SafechargeRequestExecutor requestExecutor, SessionTokenPool sessionTokenPool) {
         this.merchantInfo = merchantInfo;
+        this.requestExecutor = requestExecutor;
+        this.sessionTokenPool = sessionTokenPool;
     }
 
     /**
@@ -49,24 +81,44 @@ public class SimpleAPMPayment {
      * @param countryCode        The two-letter ISO country code of the origin of the request (most payment methods have some kind of restriction)
      * @return PaymentsResponse object(containing the transaction result) or null if the obtaining of a session is unsuccessful
      */
-    public PaymentsResponse executePayment(String paymentMethod, Map<String, String> userAccountDetails, String amount, String currency, String countryCode) {
+    public PaymentsResponse executePayment(final String paymentMethod, final Map<String, String> userAccountDetails, final String amount,
+            final String currency, String countryCode) {
+        if (sessionTokenPool != null) {
+            try {
+                return (PaymentsResponse) sessionTokenPool.execute(new Function<String, SafechargeBaseRequest>() {
+                    @Override
+                    public SafechargeBaseRequest apply(String sessionToken) {
+                        return createPaymentAPMRequest(sessionToken, paymentMethod, userAccountDetails, amount, currency);
+                    }
+                });
+            } catch (SafechargeException e) {
+                return null;
+            }
+        }
+
         SafechargeResponse getSessionTokenResponse = requestExecutor.executeRequest(GetSessionTokenRequest.builder()
                 .addMerchantInfo(merchantInfo)
                 .build());
 
         if (getSessionTokenResponse != null && Constants.APIResponseStatus.SUCCESS.equals(getSessionTokenResponse.getStatus())) {
-            SafechargeBaseRequest paymentAPMRequest = PaymentAPMRequest.builder()
-                    .addSessionToken(getSessionTokenResponse.getSessionToken())
-                    .addMerchantInfo(merchantInfo)
-                    .addCurrency(currency)
-                    .addAmount(amount)
-                    .addPaymentMethod(paymentMethod)
-                    .addUserAccountDetails(userAccountDetails)
-                    .addItem("fast-payment-apm", amount, "1")
-                    .build();
+            SafechargeBaseRequest paymentAPMRequest = createPaymentAPMRequest(getSessionTokenResponse.getSessionToken(), paymentMethod,
+                    userAccountDetails, amount, currency);
             return (PaymentsResponse) requestExecutor.executeRequest(paymentAPMRequest);
         } else {
             return null;
         }
     }
+
+    private SafechargeBaseRequest createPaymentAPMRequest(String sessionToken, String paymentMethod, Map<String, String> userAccountDetails,
+            String amount, String currency) {
+        return PaymentAPMRequest.builder()
+                .addSessionToken(sessionToken)
+                .addMerchantInfo(merchantInfo)
+                .addCurrency(currency)
+                .addAmount(amount)
+                .addPaymentMethod(paymentMethod)
+                .addUserAccountDetails(userAccountDetails)
+                .addItem("fast-payment-apm", amount, "1")
+                .build();
+    }
 }
@@ -4,7 +4,12 @@
 
 package com.safecharge.biz.simple.payment;
 
+import java.util.function.Function;
+
+import com.safecharge.biz.SafechargeClient;
 import com.safecharge.biz.SafechargeRequestExecutor;
+import com.safecharge.biz.SessionTokenPool;
+import com.safecharge.exception.SafechargeException;
 import com.safecharge.model.CardData;
 import com.safecharge.model.ExternalMpi;
 import com.safecharge.model.MerchantInfo;
@@ -24,9 +29,11 @@ import com.safecharge.util.Constants;
  */
 public class SimpleCreditCardPayment {
 
-    private MerchantInfo merchantInfo;
+    private final MerchantInfo merchantInfo;
+
+    private final SafechargeRequestExecutor requestExecutor;
 
-    private SafechargeRequestExecutor requestExecutor = SafechargeRequestExecutor.getInstance();
+    private final SessionTokenPool sessionTokenPool;
 
     /**
      * Even if this constructor allows the {@code merchantInfo} to be null, the payment request will fail due to missing parameters
@@ -34,7 +41,33 @@ public class SimpleCreditCardPayment {
      * @param merchantInfo (required) A {@link MerchantInfo} object containing info needed to create a request to Safecharge
      */
     public SimpleCreditCardPayment(MerchantInfo merchantInfo) {
+        this(merchantInfo, SafechargeRequestExecutor.getInstance());
+    }
+
+    /**
+     * Even if this constructor allows the {@code merchantInfo} to be null, the payment request will fail due to missing parameters
+     *
+     * @param merchantInfo    (required) A {@link MerchantInfo} object containing info needed to create a request to Safecharge
+     * @param requestExecutor (required) The {@link SafechargeRequestExecutor} to send the requests with
+     */
+    public SimpleCreditCardPayment(MerchantInfo merchantInfo, SafechargeRequestExecutor requestExecutor) {
+        this(merchantInfo, requestExecutor, null);
+    }
+
+    /**
+     * Creates a payment which uses the merchant info and the connection pools of the given per-merchant client.
+     * If the client has a {@link SessionTokenPool}, the payments take their session tokens from it.
+     *
+     * @param client (required) A {@link SafechargeClient} to get the merchant info and the request executor from
+     */
+    public SimpleCreditCardPayment(SafechargeClient client) {
+        this(client.getMerchantInfo(), client.getRequestExecutor(), client.getSessionTokenPool());
+    }
+
+    private SimpleCreditCardPayment(MerchantInfo merchantInfo, SafechargeRequestExecutor requestExecutor, SessionTokenPool sessionTokenPool) {
         this.merchantInfo = merchantInfo;
+        this.requestExecutor = requestExecutor;
+        this.sessionTokenPool = sessionTokenPool;
     }
 
     /**
@@ -65,27 +98,46 @@ public class SimpleCreditCardPayment {
         return executePayment(cardData, amount, currency, Constants.TransactionType.Sale, isPartialApproval, externalMpi);
     }
 
-    private PaymentsResponse executePayment(CardData cardData, String amount, String currency,
-            Constants.TransactionType transactionType, String isPartialApproval, ExternalMpi externalMpi) {
+    private PaymentsResponse executePayment(final CardData cardData, final String amount, final String currency,
+            final Constants.TransactionType transactionType, final String isPartialApproval, final ExternalMpi externalMpi) {
+        if (sessionTokenPool != null) {
+            try {
+                return (PaymentsResponse) sessionTokenPool.execute(new Function<String, SafechargeBaseRequest>() {
+                    @Override
+                    public SafechargeBaseRequest apply(String sessionToken) {
+                        return createPaymentCCRequest(sessionToken, cardData, amount, currency, transactionType, isPartialApproval, externalMpi);
+                    }
+                });
+            } catch (SafechargeException e) {
+                return null;
+            }
+        }
+
         SafechargeResponse getSessionTokenResponse = requestExecutor
                 .executeRequest(GetSessionTokenRequest.builder().addMerchantInfo(merchantInfo).build());
 
         if (getSessionTokenResponse != null
                 && Constants.APIResponseStatus.SUCCESS.equals(getSessionTokenResponse.getStatus())) {
-            SafechargeBaseRequest paymentCCRequest = PaymentCCRequest.builder()
-                    .addSessionToken(getSessionTokenResponse.getSessionToken())
-                    .addMerchantInfo(merchantInfo)
-                    .addCurrency(currency)
-                    .addAmount(amount)
-                    .addCardData(cardData)
-                    .addTransactionType(transactionType)
-                    .addItem("fast-payment-cc", amount, "1")
-                    .addIsPartialApproval(isPartialApproval)
-                    .addExternalMpi(externalMpi)
-                    .build();
+            SafechargeBaseRequest paymentCCRequest = createPaymentCCRequest(getSessionTokenResponse.getSessionToken(), cardData, amount, currency,
+                    transactionType, isPartialApproval, externalMpi);
             return (PaymentsResponse) requestExecutor.executeRequest(paymentCCRequest);
         } else {
             return null;
         }
     }
+
+    private SafechargeBaseRequest createPaymentCCRequest(String sessionToken, CardData cardData, String amount, String currency,
+            Constants.TransactionType transactionType, String isPartialApproval, ExternalMpi externalMpi) {
+        return PaymentCCRequest.builder()
+                .addSessionToken(sessionToken)
+                .addMerchantInfo(merchantInfo)
+                .addCurrency(currency)
+                .addAmount(amount)
+                .addCardData(cardData)
+                .addTransactionType(transactionType)
+                .addItem("fast-payment-cc", amount, "1")
+                .addIsPartialApproval(isPartialApproval)
+                .addExternalMpi(externalMpi)
+                .build();
+    }
 }
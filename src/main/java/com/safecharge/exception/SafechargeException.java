@@ -12,4 +12,8 @@ public class SafechargeException extends Exception {
     public SafechargeException(String message) {
         super(message);
     }
+
+    public SafechargeException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
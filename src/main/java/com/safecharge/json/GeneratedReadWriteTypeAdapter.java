@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.json;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Base class of the generated adapters that also read the objects, generated for the classes with a public no-arg constructor.
+ *
+ * @param <T> the type of the adapted class
+ */
+public abstract class GeneratedReadWriteTypeAdapter<T> extends GeneratedTypeAdapter<T> {
+
+    private static final MethodType FIELD_SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * @param gson the {@link Gson} to obtain the adapters of the field types from
+     */
+    protected GeneratedReadWriteTypeAdapter(Gson gson) {
+        super(gson);
+    }
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        T instance = newInstance();
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!readField(in, in.nextName(), instance)) {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+        return instance;
+    }
+
+    /**
+     * @return a new instance of the adapted class
+     */
+    protected abstract T newInstance();
+
+    /**
+     * Reads the value of the field named {@code name} into {@code instance}.
+     *
+     * @param in       the {@link JsonReader} positioned at the value of the field
+     * @param name     the name of the field
+     * @param instance the object to set the field of
+     * @return false if the class has no field named {@code name}. The value is not consumed in that case
+     * @throws IOException if reading fails
+     */
+    protected abstract boolean readField(JsonReader in, String name, T instance) throws IOException;
+
+    /**
+     * @return a handle setting the field named {@code name} of the {@code type} or of its superclasses, invoked by
+     * {@link #setField(MethodHandle, Object, Object)}
+     */
+    protected static MethodHandle fieldSetter(Class<?> type, String name) {
+        try {
+            return MethodHandles.lookup()
+                    .unreflectSetter(findField(type, name))
+                    .asType(FIELD_SETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected static void setField(MethodHandle setter, Object instance, Object value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads a {@code String} field the way Gson's built-in {@code String} adapter does.
+     */
+    protected static String readString(JsonReader in) throws IOException {
+        JsonToken peek = in.peek();
+        if (peek == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (peek == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.json;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * <p>
+ * Base class of the {@link TypeAdapter}s generated at build time for the API request, response and model classes.
+ * The generated adapters read and write the fields in the same order and with the same names as Gson's reflective adapter does,
+ * so the JSON is identical while no reflection is used per call. The fields are accessed through the classes' plain accessors,
+ * which only return or assign the field, or else through field handles created once by {@link #fieldGetter(Class, String)}
+ * and {@link GeneratedReadWriteTypeAdapter#fieldSetter(Class, String)}, so no accessor with side effects is ever called.
+ * </p>
+ * <p>
+ * The objects are read by the subclasses: a {@link GeneratedReadWriteTypeAdapter} reads them with generated code, while a
+ * {@link GeneratedWriteOnlyTypeAdapter}, generated for a class without a public no-arg constructor, reads them with Gson's
+ * reflective adapter.
+ * </p>
+ *
+ * @param <T> the type of the adapted class
+ * @see SafechargeTypeAdapterFactory
+ */
+public abstract class GeneratedTypeAdapter<T> extends TypeAdapter<T> {
+
+    private static final MethodType FIELD_GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    protected final Gson gson;
+
+    /**
+     * @param gson the {@link Gson} to obtain the adapters of the field types from
+     */
+    GeneratedTypeAdapter(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        writeFields(out, value);
+        out.endObject();
+    }
+
+    /**
+     * Writes the name and the value of each field of {@code value}.
+     *
+     * @param out   the {@link JsonWriter} to write to
+     * @param value the object to write the fields of
+     * @throws IOException if writing fails
+     */
+    protected abstract void writeFields(JsonWriter out, T value) throws IOException;
+
+    /**
+     * @return a handle reading the field named {@code name} of the {@code type} or of its superclasses, invoked by {@link #getField(MethodHandle, Object)}
+     */
+    protected static MethodHandle fieldGetter(Class<?> type, String name) {
+        try {
+            return MethodHandles.lookup()
+                    .unreflectGetter(findField(type, name))
+                    .asType(FIELD_GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    protected static Object getField(MethodHandle getter, Object instance) {
+        try {
+            return getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Field findField(Class<?> type, String name) {
+        for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+            try {
+                Field field = clazz.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                // declared by a superclass
+            }
+        }
+        throw new IllegalStateException("No field " + name + " in " + type.getName());
+    }
+
+    /**
+     * Writes {@code value} of a field declared as {@code declaredType}. Like Gson's reflective adapter does, an instance of a subclass
+     * is written by the adapter of its runtime type.
+     */
+    @SuppressWarnings("unchecked")
+    protected final <V> void writeValue(JsonWriter out, TypeAdapter<V> adapter, Class<V> declaredType, V value) throws IOException {
+        if (value != null && value.getClass() != declaredType) {
+            ((TypeAdapter<Object>) gson.getAdapter(value.getClass())).write(out, value);
+        } else {
+            adapter.write(out, value);
+        }
+    }
+}
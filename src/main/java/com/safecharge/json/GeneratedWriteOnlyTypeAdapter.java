@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.json;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Base class of the generated adapters of the classes without a public no-arg constructor. They only write the objects,
+ * which are read by Gson's reflective adapter.
+ *
+ * @param <T> the type of the adapted class
+ */
+public abstract class GeneratedWriteOnlyTypeAdapter<T> extends GeneratedTypeAdapter<T> {
+
+    private final TypeAdapter<T> reflectiveAdapter;
+
+    /**
+     * @param gson              the {@link Gson} to obtain the adapters of the field types from
+     * @param reflectiveAdapter Gson's reflective adapter of the class, reading the objects
+     */
+    protected GeneratedWriteOnlyTypeAdapter(Gson gson, TypeAdapter<T> reflectiveAdapter) {
+        super(gson);
+        this.reflectiveAdapter = reflectiveAdapter;
+    }
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        return reflectiveAdapter.read(in);
+    }
+}
@@ -0,0 +1,672 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.util.Trees;
+
+/**
+ * <p>
+ * Build-time annotation processor generating the Gson {@code TypeAdapter}s of the API request, response and model classes
+ * (see {@code com.safecharge.json.GeneratedTypeAdapter}) and the {@code com.safecharge.json.SafechargeTypeAdapterFactory}
+ * registering them. It runs over every class of the model packages, no annotations are needed.
+ * </p>
+ * <p>
+ * The generated adapters mirror Gson's reflective adapter: the same fields (all but the static and transient ones),
+ * written subclass fields first, under the field names, with the values read from and set to the fields themselves.
+ * A field with a plain accessor declared next to it - a getter only returning the field, a setter only assigning it, optionally
+ * returning {@code this} - is accessed through the accessor. Any other field, e.g. one whose getter creates an empty list on first
+ * use or returns another field, is accessed through a field {@code MethodHandle} created once per class, since calling such an
+ * accessor would change the JSON and the object. Classes without a public no-arg constructor get a write-only adapter
+ * ({@code com.safecharge.json.GeneratedWriteOnlyTypeAdapter}) and are deserialized by the reflective adapter. Classes using Gson annotations, generic classes and abstract classes are left to the reflective adapter.
+ * </p>
+ * <p>
+ * The processor is a build tool only and is not part of the SDK's jar.
+ * </p>
+ */
+@SupportedAnnotationTypes("*")
+public class JsonAdapterProcessor extends AbstractProcessor {
+
+    static final String ADAPTER_PACKAGE = "com.safecharge.json";
+    static final String FACTORY_NAME = "SafechargeTypeAdapterFactory";
+    private static final String ADAPTER_SUFFIX = "JsonAdapter";
+    private static final String[] MODEL_PACKAGES = {"com.safecharge.request", "com.safecharge.response", "com.safecharge.model"};
+    private static final String EXCLUDED_PACKAGE = "com.safecharge.request.builder";
+    private static final String GSON_ANNOTATIONS_PACKAGE = "com.google.gson.annotations.";
+    private static final String HEADER = "/*\n * Generated by " + JsonAdapterProcessor.class.getName() + ". Do not edit.\n */\n\n";
+
+    private boolean isProcessed = false;
+    private Trees trees;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        try {
+            this.trees = Trees.instance(processingEnv);
+        } catch (IllegalArgumentException e) {
+            // not javac, the accessors can not be inspected so all of the fields are accessed through field handles
+            this.trees = null;
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (isProcessed) {
+            return false;
+        }
+        isProcessed = true;
+
+        Map<String, AdapterModel> adapters = new LinkedHashMap<>();
+        for (Element element : roundEnv.getRootElements()) {
+            if (element.getKind() != ElementKind.CLASS || !isModelPackage(element)) {
+                continue;
+            }
+
+            AdapterModel adapter = analyze((TypeElement) element);
+            if (adapter == null) {
+                continue;
+            }
+
+            AdapterModel existing = adapters.put(adapter.adapterName, adapter);
+            if (existing != null) {
+                processingEnv.getMessager()
+                        .printMessage(Diagnostic.Kind.ERROR, "Duplicate JSON adapter name " + adapter.adapterName + " for " + existing.typeName
+                                + " and " + adapter.typeName, element);
+                return false;
+            }
+        }
+
+        try {
+            for (AdapterModel adapter : adapters.values()) {
+                write(ADAPTER_PACKAGE + "." + adapter.adapterName, generateAdapter(adapter), adapter.type);
+            }
+            write(ADAPTER_PACKAGE + "." + FACTORY_NAME, generateFactory(adapters.values()));
+        } catch (IOException e) {
+            processingEnv.getMessager()
+                    .printMessage(Diagnostic.Kind.ERROR, "Cannot write the generated JSON adapters: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private boolean isModelPackage(Element element) {
+        String packageName = processingEnv.getElementUtils()
+                .getPackageOf(element)
+                .getQualifiedName()
+                .toString();
+        if (packageName.equals(EXCLUDED_PACKAGE)) {
+            return false;
+        }
+        for (String modelPackage : MODEL_PACKAGES) {
+            if (packageName.equals(modelPackage) || packageName.startsWith(modelPackage + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AdapterModel analyze(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT) || type.getNestingKind() != NestingKind.TOP_LEVEL
+                || !type.getTypeParameters()
+                .isEmpty() || hasGsonAnnotation(type)) {
+            return null;
+        }
+
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils()
+                .getAllMembers(type))) {
+            if (method.getModifiers()
+                    .contains(Modifier.PUBLIC) && !method.getModifiers()
+                    .contains(Modifier.STATIC)) {
+                methods.add(method);
+            }
+        }
+
+        AdapterModel adapter = new AdapterModel(type);
+        adapter.isReadGenerated = hasPublicNoArgConstructor(type);
+
+        Set<String> fieldNames = new HashSet<>();
+        for (TypeElement current = type; current != null; current = superclassOf(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getModifiers()
+                        .contains(Modifier.STATIC) || field.getModifiers()
+                        .contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                if (!fieldNames.add(field.getSimpleName()
+                        .toString()) || hasGsonAnnotation(field) || !isSupported(field.asType())) {
+                    // duplicate JSON names or an unsupported declaration, left to the reflective adapter
+                    return null;
+                }
+
+                // null if the field has no plain accessor, its value is then read and set through a field handle
+                FieldModel fieldModel = new FieldModel(field);
+                fieldModel.getter = findGetter(field, methods);
+                fieldModel.setter = findSetter(field, methods);
+                adapter.fields.add(fieldModel);
+            }
+        }
+        return adapter;
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+        return superElement.getQualifiedName()
+                .contentEquals(Object.class.getName()) ? null : superElement;
+    }
+
+    private boolean hasGsonAnnotation(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (annotation.getAnnotationType()
+                    .toString()
+                    .startsWith(GSON_ANNOTATIONS_PACKAGE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasPublicNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters()
+                    .isEmpty() && constructor.getModifiers()
+                    .contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSupported(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case CHAR:
+            case FLOAT:
+            case DOUBLE:
+                return true;
+            case ARRAY:
+                TypeMirror componentType = ((ArrayType) type).getComponentType();
+                return componentType.getKind()
+                        .isPrimitive() || componentType.getKind() == TypeKind.DECLARED && ((DeclaredType) componentType).getTypeArguments()
+                        .isEmpty();
+            case DECLARED:
+                for (TypeMirror typeArgument : ((DeclaredType) type).getTypeArguments()) {
+                    if (typeArgument.getKind() != TypeKind.DECLARED || !isSupported(typeArgument)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private ExecutableElement findGetter(VariableElement field, List<ExecutableElement> methods) {
+        TypeMirror fieldType = field.asType();
+        boolean isBoolean = fieldType.getKind() == TypeKind.BOOLEAN || fieldType.toString()
+                .equals(Boolean.class.getName());
+
+        for (String property : propertyNames(field)) {
+            for (ExecutableElement method : methods) {
+                String name = method.getSimpleName()
+                        .toString();
+                if (method.getParameters()
+                        .isEmpty() && (name.equals("get" + property) || isBoolean && name.equals("is" + property))
+                        && isCompatible(method.getReturnType(), fieldType, true) && isPlainGetter(method, field)) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private ExecutableElement findSetter(VariableElement field, List<ExecutableElement> methods) {
+        for (String property : propertyNames(field)) {
+            for (ExecutableElement method : methods) {
+                if (method.getParameters()
+                        .size() == 1 && method.getSimpleName()
+                        .contentEquals("set" + property) && isCompatible(method.getParameters()
+                        .get(0)
+                        .asType(), field.asType(), false) && isPlainSetter(method, field)) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the {@code method} is declared in the class of the {@code field} and only returns the field
+     */
+    private boolean isPlainGetter(ExecutableElement method, VariableElement field) {
+        List<? extends StatementTree> statements = statementsOf(method, field);
+        return statements != null && statements.size() == 1 && statements.get(0) instanceof ReturnTree
+                && isFieldReference(((ReturnTree) statements.get(0)).getExpression(), field, true);
+    }
+
+    /**
+     * @return true if the {@code method} is declared in the class of the {@code field} and only assigns its parameter to the field,
+     * optionally returning {@code this}
+     */
+    private boolean isPlainSetter(ExecutableElement method, VariableElement field) {
+        List<? extends StatementTree> statements = statementsOf(method, field);
+        if (statements == null || statements.isEmpty() || statements.size() > 2 || !(statements.get(0) instanceof ExpressionStatementTree)) {
+            return false;
+        }
+        if (statements.size() == 2 && !(statements.get(1) instanceof ReturnTree && isThis(((ReturnTree) statements.get(1))
+                .getExpression()))) {
+            return false;
+        }
+
+        ExpressionTree expression = ((ExpressionStatementTree) statements.get(0)).getExpression();
+        if (!(expression instanceof AssignmentTree)) {
+            return false;
+        }
+        AssignmentTree assignment = (AssignmentTree) expression;
+        String parameterName = method.getParameters()
+                .get(0)
+                .getSimpleName()
+                .toString();
+        // a bare field name is the parameter if the parameter is named as the field
+        return isFieldReference(assignment.getVariable(), field, !parameterName.contentEquals(field.getSimpleName()))
+                && assignment.getExpression() instanceof IdentifierTree && ((IdentifierTree) assignment.getExpression()).getName()
+                .contentEquals(parameterName);
+    }
+
+    private List<? extends StatementTree> statementsOf(ExecutableElement method, VariableElement field) {
+        if (trees == null || !method.getEnclosingElement()
+                .equals(field.getEnclosingElement())) {
+            return null;
+        }
+        MethodTree tree = trees.getTree(method);
+        return tree == null || tree.getBody() == null ? null : tree.getBody()
+                .getStatements();
+    }
+
+    private static boolean isFieldReference(ExpressionTree expression, VariableElement field, boolean isBareNameAllowed) {
+        if (expression instanceof IdentifierTree) {
+            return isBareNameAllowed && ((IdentifierTree) expression).getName()
+                    .contentEquals(field.getSimpleName());
+        }
+        return expression instanceof MemberSelectTree && isThis(((MemberSelectTree) expression).getExpression())
+                && ((MemberSelectTree) expression).getIdentifier()
+                .contentEquals(field.getSimpleName());
+    }
+
+    private static boolean isThis(ExpressionTree expression) {
+        return expression instanceof IdentifierTree && ((IdentifierTree) expression).getName()
+                .contentEquals("this");
+    }
+
+    /**
+     * @return the capitalized property names the accessors of the {@code field} can use, e.g. {@code CReq} and {@code cReq}
+     * for {@code cReq} or {@code IsVerified} and {@code Verified} for {@code isVerified}
+     */
+    private static List<String> propertyNames(VariableElement field) {
+        String name = field.getSimpleName()
+                .toString();
+        List<String> propertyNames = new ArrayList<>();
+        propertyNames.add(Character.toUpperCase(name.charAt(0)) + name.substring(1));
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1))) {
+            propertyNames.add(name);
+        }
+        if (name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2))) {
+            propertyNames.add(name.substring(2));
+        }
+        return propertyNames;
+    }
+
+    /**
+     * @return true if the accessor's type is the field's type. A getter may also return the boxed type of a primitive field.
+     * A setter taking the primitive of a boxed field, e.g. an int for an Integer field, can not set a JSON null and a getter
+     * returning a primitive fails for a null value, so neither is used for a boxed field.
+     */
+    private boolean isCompatible(TypeMirror accessorType, TypeMirror fieldType, boolean isBoxingAllowed) {
+        if (processingEnv.getTypeUtils()
+                .isSameType(accessorType, fieldType)) {
+            return true;
+        }
+        if (isBoxingAllowed && accessorType.getKind()
+                .isPrimitive() != fieldType.getKind()
+                .isPrimitive() && fieldType.getKind()
+                .isPrimitive()) {
+            TypeMirror primitiveType = accessorType.getKind()
+                    .isPrimitive() ? accessorType : fieldType;
+            TypeMirror boxedType = accessorType.getKind()
+                    .isPrimitive() ? fieldType : accessorType;
+            return processingEnv.getTypeUtils()
+                    .isSameType(processingEnv.getTypeUtils()
+                            .boxedClass((PrimitiveType) primitiveType)
+                            .asType(), boxedType);
+        }
+        return false;
+    }
+
+    private String generateAdapter(AdapterModel adapter) {
+        StringBuilder sb = new StringBuilder(HEADER);
+        sb.append("package ").append(ADAPTER_PACKAGE).append(";\n\n")
+                .append("import java.io.IOException;\n")
+                .append("import java.lang.invoke.MethodHandle;\n\n")
+                .append("import com.google.gson.Gson;\n")
+                .append("import com.google.gson.TypeAdapter;\n")
+                .append("import com.google.gson.reflect.TypeToken;\n");
+        if (adapter.isReadGenerated) {
+            sb.append("import com.google.gson.stream.JsonReader;\n");
+        }
+        sb.append("import com.google.gson.stream.JsonWriter;\n\n")
+                .append("public final class ").append(adapter.adapterName).append(" extends ")
+                .append(adapter.isReadGenerated ? "GeneratedReadWriteTypeAdapter<" : "GeneratedWriteOnlyTypeAdapter<").append(adapter.typeName)
+                .append("> {\n\n");
+
+        for (FieldModel field : adapter.fields) {
+            if (field.getter == null) {
+                sb.append("    private static final MethodHandle ").append(field.handleName("GETTER")).append(" = fieldGetter(")
+                        .append(adapter.typeName).append(".class, \"").append(field.name).append("\");\n");
+            }
+            if (field.setter == null && adapter.isReadGenerated) {
+                sb.append("    private static final MethodHandle ").append(field.handleName("SETTER")).append(" = fieldSetter(")
+                        .append(adapter.typeName).append(".class, \"").append(field.name).append("\");\n");
+            }
+        }
+        sb.append('\n');
+        for (FieldModel field : adapter.fields) {
+            if (!field.isString()) {
+                sb.append("    private final TypeAdapter<").append(render(boxed(field.type))).append("> ").append(field.adapterName()).append(";\n");
+            }
+        }
+
+        sb.append("\n    @SuppressWarnings(\"unchecked\")\n")
+                .append("    public ").append(adapter.adapterName);
+        if (adapter.isReadGenerated) {
+            sb.append("(Gson gson) {\n")
+                    .append("        super(gson);\n");
+        } else {
+            sb.append("(Gson gson, TypeAdapter<").append(adapter.typeName).append("> reflectiveAdapter) {\n")
+                    .append("        super(gson, reflectiveAdapter);\n");
+        }
+        for (FieldModel field : adapter.fields) {
+            if (field.isString()) {
+                continue;
+            }
+            sb.append("        this.").append(field.adapterName()).append(" = ");
+            if (isParameterized(field.type)) {
+                sb.append("(TypeAdapter<").append(render(field.type)).append(">) gson.getAdapter(").append(typeToken(field.type)).append(");\n");
+            } else {
+                sb.append("gson.getAdapter(").append(render(field.type)).append(".class);\n");
+            }
+        }
+        sb.append("    }\n");
+
+        sb.append("\n    @Override\n");
+        for (FieldModel field : adapter.fields) {
+            if (field.getter == null && isParameterized(field.type)) {
+                sb.append("    @SuppressWarnings(\"unchecked\")\n");
+                break;
+            }
+        }
+        sb.append("    protected void writeFields(JsonWriter out, ").append(adapter.typeName).append(" value) throws IOException {\n");
+        for (FieldModel field : adapter.fields) {
+            String getter = field.getter != null ? "value." + field.getter.getSimpleName() + "()"
+                    : "(" + render(boxed(field.type)) + ") getField(" + field.handleName("GETTER") + ", value)";
+            sb.append("        out.name(\"").append(field.name).append("\");\n");
+            if (field.isString()) {
+                sb.append("        out.value(").append(getter).append(");\n");
+            } else if (isRuntimeTypeDependent(field.type)) {
+                sb.append("        writeValue(out, ").append(field.adapterName()).append(", ").append(render(field.type)).append(".class, ")
+                        .append(getter).append(");\n");
+            } else {
+                sb.append("        ").append(field.adapterName()).append(".write(out, ").append(getter).append(");\n");
+            }
+        }
+        sb.append("    }\n");
+        if (adapter.isReadGenerated) {
+            generateRead(sb, adapter);
+        }
+
+        return sb.append("}\n").toString();
+    }
+
+    private void generateRead(StringBuilder sb, AdapterModel adapter) {
+
+        sb.append("\n    @Override\n")
+                .append("    protected ").append(adapter.typeName).append(" newInstance() {\n")
+                .append("        return new ").append(adapter.typeName).append("();\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    protected boolean readField(JsonReader in, String name, ").append(adapter.typeName)
+                .append(" instance) throws IOException {\n")
+                .append("        switch (name) {\n");
+        for (FieldModel field : adapter.fields) {
+            String setter = field.setter != null ? "instance." + field.setter.getSimpleName() + "(" : "setField(" + field.handleName("SETTER")
+                    + ", instance, ";
+            sb.append("            case \"").append(field.name).append("\": {\n");
+            if (field.isString()) {
+                sb.append("                ").append(setter).append("readString(in));\n");
+            } else if (field.type.getKind()
+                    .isPrimitive()) {
+                // like Gson, a JSON null leaves a primitive field unchanged
+                sb.append("                ").append(render(boxed(field.type))).append(" fieldValue = ").append(field.adapterName())
+                        .append(".read(in);\n")
+                        .append("                if (fieldValue != null) {\n")
+                        .append("                    ").append(setter).append("fieldValue);\n")
+                        .append("                }\n");
+            } else {
+                sb.append("                ").append(setter).append(field.adapterName()).append(".read(in));\n");
+            }
+            sb.append("                return true;\n")
+                    .append("            }\n");
+        }
+        sb.append("            default:\n")
+                .append("                return false;\n")
+                .append("        }\n")
+                .append("    }\n");
+    }
+
+    private String generateFactory(Iterable<AdapterModel> adapters) {
+        StringBuilder sb = new StringBuilder(HEADER);
+        sb.append("package ").append(ADAPTER_PACKAGE).append(";\n\n")
+                .append("import com.google.gson.Gson;\n")
+                .append("import com.google.gson.TypeAdapter;\n")
+                .append("import com.google.gson.TypeAdapterFactory;\n")
+                .append("import com.google.gson.reflect.TypeToken;\n\n")
+                .append("/**\n")
+                .append(" * Creates the generated {@link GeneratedTypeAdapter}s of the API request, response and model classes.\n")
+                .append(" */\n")
+                .append("public final class ").append(FACTORY_NAME).append(" implements TypeAdapterFactory {\n\n")
+                .append("    @Override\n")
+                .append("    @SuppressWarnings(\"unchecked\")\n")
+                .append("    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {\n")
+                .append("        Class<? super T> rawType = type.getRawType();\n");
+        for (AdapterModel adapter : adapters) {
+            sb.append("        if (rawType == ").append(adapter.typeName).append(".class) {\n")
+                    .append("            return (TypeAdapter<T>) (TypeAdapter<?>) new ").append(adapter.adapterName).append("(gson");
+            if (!adapter.isReadGenerated) {
+                sb.append(", gson.getDelegateAdapter(this, TypeToken.get(").append(adapter.typeName).append(".class))");
+            }
+            sb.append(");\n")
+                    .append("        }\n");
+        }
+        return sb.append("        return null;\n")
+                .append("    }\n")
+                .append("}\n")
+                .toString();
+    }
+
+    private void write(String className, String source, Element... originatingElements) throws IOException {
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile(className, originatingElements)
+                .openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    private TypeMirror boxed(TypeMirror type) {
+        return type.getKind()
+                .isPrimitive() ? processingEnv.getTypeUtils()
+                .boxedClass((PrimitiveType) type)
+                .asType() : type;
+    }
+
+    private static boolean isParameterized(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments()
+                .isEmpty();
+    }
+
+    /**
+     * @return true if Gson would write a value of a field of {@code type} by the adapter of the value's runtime type
+     */
+    private static boolean isRuntimeTypeDependent(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED || isParameterized(type)) {
+            return false;
+        }
+        Element element = ((DeclaredType) type).asElement();
+        return element.getKind() != ElementKind.ENUM && !element.getModifiers()
+                .contains(Modifier.FINAL);
+    }
+
+    private static String render(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return render(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                DeclaredType declaredType = (DeclaredType) type;
+                StringBuilder sb = new StringBuilder(((TypeElement) declaredType.asElement()).getQualifiedName());
+                if (!declaredType.getTypeArguments()
+                        .isEmpty()) {
+                    sb.append('<');
+                    for (int i = 0; i < declaredType.getTypeArguments()
+                            .size(); i++) {
+                        sb.append(i > 0 ? ", " : "")
+                                .append(render(declaredType.getTypeArguments()
+                                        .get(i)));
+                    }
+                    sb.append('>');
+                }
+                return sb.toString();
+            default:
+                return type.getKind()
+                        .name()
+                        .toLowerCase();
+        }
+    }
+
+    private static String typeToken(TypeMirror type) {
+        DeclaredType declaredType = (DeclaredType) type;
+        StringBuilder sb = new StringBuilder("TypeToken.getParameterized(").append(((TypeElement) declaredType.asElement()).getQualifiedName())
+                .append(".class");
+        for (TypeMirror typeArgument : declaredType.getTypeArguments()) {
+            sb.append(", ")
+                    .append(isParameterized(typeArgument) ? typeToken(typeArgument) + ".getType()" : render(typeArgument) + ".class");
+        }
+        return sb.append(')')
+                .toString();
+    }
+
+    private static final class AdapterModel {
+
+        private final TypeElement type;
+        private final String typeName;
+        private final String adapterName;
+        private final List<FieldModel> fields = new ArrayList<>();
+        private boolean isReadGenerated;
+
+        private AdapterModel(TypeElement type) {
+            this.type = type;
+            this.typeName = type.getQualifiedName()
+                    .toString();
+            this.adapterName = type.getSimpleName() + ADAPTER_SUFFIX;
+        }
+    }
+
+    private static final class FieldModel {
+
+        private final String name;
+        private final TypeMirror type;
+        private ExecutableElement getter;
+        private ExecutableElement setter;
+
+        private FieldModel(VariableElement field) {
+            this.name = field.getSimpleName()
+                    .toString();
+            this.type = field.asType();
+        }
+
+        private boolean isString() {
+            return type.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName()
+                    .contentEquals(String.class.getName());
+        }
+
+        private String adapterName() {
+            return name + "Adapter";
+        }
+
+        /**
+         * @return the name of a field handle constant, e.g. {@code C_REQ_GETTER} for the getter of {@code cReq}
+         */
+        private String handleName(String suffix) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (i > 0 && Character.isUpperCase(c)) {
+                    sb.append('_');
+                }
+                sb.append(Character.toUpperCase(c));
+            }
+            return sb.append('_')
+                    .append(suffix)
+                    .toString();
+        }
+    }
+}
@@ -90,8 +90,9 @@ public class McpRatesRequest extends SafechargeRequest {
 
         private String clientUniqueId;
         private String fromCurrency;
-        private List<String> toCurrency = new ArrayList<>();
-        private List<String> paymentMethods = new ArrayList<>();
+        // stay null unless added, so that the API returns the rates of all currencies and payment methods
+        private List<String> toCurrency;
+        private List<String> paymentMethods;
 
         public Builder addClientUniqueId(String clientUniqueId) {
             this.clientUniqueId = clientUniqueId;
@@ -105,6 +106,9 @@ public class McpRatesRequest extends SafechargeRequest {
 
         public Builder addToCurrency(List<String> toCurrency) {
             if (toCurrency != null) {
+                if (this.toCurrency == null) {
+                    this.toCurrency = new ArrayList<>();
+                }
                 this.toCurrency.addAll(toCurrency);
             }
             return this;
@@ -112,6 +116,9 @@ public class McpRatesRequest extends SafechargeRequest {
 
         public Builder addPaymentMethods(List<String> paymentMethods) {
             if (paymentMethods != null) {
+                if (this.paymentMethods == null) {
+                    this.paymentMethods = new ArrayList<>();
+                }
                 this.paymentMethods.addAll(paymentMethods);
             }
             return this;
@@ -43,6 +43,7 @@ public abstract class SafechargeBaseBuilder<T extends SafechargeBaseBuilder<T>>
 
     /**
      * Adds a client request id to the request. It is used to track the different client requests.
+     * If not added, a unique one is generated by {@link RequestUtils#generateClientRequestId()}.
      *
      * @param clientRequestId id used to track the request
      * @return this object
@@ -104,7 +105,7 @@ public abstract class SafechargeBaseBuilder<T extends SafechargeBaseBuilder<T>>
         safechargeBaseRequest.setServerHost(merchantInfo != null ? merchantInfo.getServerHost() : null);
         safechargeBaseRequest.setSessionToken(sessionToken);
         safechargeBaseRequest.setTimeStamp(timestamp);
-        safechargeBaseRequest.setClientRequestId(clientRequestId);
+        safechargeBaseRequest.setClientRequestId(clientRequestId != null ? clientRequestId : RequestUtils.generateClientRequestId());
         safechargeBaseRequest.setInternalRequestId(internalRequestId);
         safechargeBaseRequest.setChecksum(
                 ChecksumUtils.calculateChecksum(safechargeBaseRequest, merchantInfo != null ? merchantInfo.getMerchantKey() : "", Constants.CHARSET_UTF8,
@@ -44,6 +44,7 @@ public abstract class SafechargeBuilder<T extends SafechargeBuilder<T>> {
 
     /**
      * Adds a client request id to the request. It is used to track the different client requests.
+     * If not added, a unique one is generated by {@link RequestUtils#generateClientRequestId()}.
      *
      * @param clientRequestId id used to track the request
      * @return this object
@@ -109,7 +110,7 @@ public abstract class SafechargeBuilder<T extends SafechargeBuilder<T>> {
         safechargeRequest.setServerHost(merchantInfo != null ? merchantInfo.getServerHost() : null);
         safechargeRequest.setSessionToken(sessionToken);
         safechargeRequest.setTimeStamp(timestamp);
-        safechargeRequest.setClientRequestId(clientRequestId);
+        safechargeRequest.setClientRequestId(clientRequestId != null ? clientRequestId : RequestUtils.generateClientRequestId());
         safechargeRequest.setInternalRequestId(internalRequestId);
         safechargeRequest.setChecksum(
                 ChecksumUtils.calculateChecksum(safechargeRequest, merchantInfo != null ? merchantInfo.getMerchantKey() : "", Constants.CHARSET_UTF8,
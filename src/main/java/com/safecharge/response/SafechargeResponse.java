@@ -4,6 +4,8 @@
 
 package com.safecharge.response;
 
+import java.nio.charset.Charset;
+
 import com.safecharge.util.Constants;
 
 /**
@@ -16,6 +18,7 @@ import com.safecharge.util.Constants;
 public abstract class SafechargeResponse {
 
     private static final long serialVersionUID = 4104056768008786142L;
+    private static final Charset UTF8_CHARSET = Charset.forName("UTF-8");
 
     /**
      * SafeCharge Internal unique request id (used for reconciliation purpose etc.).
@@ -85,7 +88,14 @@ public abstract class SafechargeResponse {
     /**
      * Full json representation of the response
      */
-    private String json;
+    private volatile String json;
+
+    /**
+     * UTF-8 encoded json representation of the response, decoded by {@link #getJson()}
+     */
+    private transient volatile byte[] jsonBytes;
+
+    private transient boolean isJsonBytesReplaced;
 
     public SafechargeResponse() {
     }
@@ -195,11 +205,38 @@ public abstract class SafechargeResponse {
     }
 
     public String getJson() {
-        return json;
+        byte[] jsonBytes = this.jsonBytes;
+        if (jsonBytes == null) {
+            return json;
+        }
+
+        String decodedJson = new String(jsonBytes, UTF8_CHARSET);
+        if (isJsonBytesReplaced) {
+            // json is written first, so whoever sees the bytes cleared sees the decoded json too
+            this.json = decodedJson;
+            this.jsonBytes = null;
+        }
+        return decodedJson;
     }
 
     public void setJson(String json) {
         this.json = json;
+        this.jsonBytes = null;
+    }
+
+    /**
+     * Sets the json representation of the response as UTF-8 bytes, decoded by {@link #getJson()}. The bytes only save memory
+     * over the same {@link String} on Java 8, whose strings take two bytes per character, or for content outside of Latin-1 on
+     * Java 9+, whose compact strings already take one byte per Latin-1 character.
+     *
+     * @param jsonBytes           UTF-8 encoded json, not to be modified afterwards
+     * @param isJsonBytesReplaced true to replace the bytes by the {@link String} decoded by the first {@link #getJson()},
+     *                            false to keep the bytes and decode them on every call
+     */
+    public void setJsonBytes(byte[] jsonBytes, boolean isJsonBytesReplaced) {
+        this.json = null;
+        this.isJsonBytesReplaced = isJsonBytesReplaced;
+        this.jsonBytes = jsonBytes;
     }
 
     @Override
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.MalformedInputException;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * <p>
+ * Checksum engine used by {@link ChecksumUtils}. The checksum parameters are streamed straight into a per-thread, reusable
+ * {@link MessageDigest} and are encoded as UTF-8 on the fly, so no concatenated {@code String} and no intermediate byte arrays
+ * are created for a checksum. Surrogate pairs split between two parameters are encoded as one character and unpaired surrogates
+ * fail the checksum, exactly as encoding the concatenated parameters would.
+ * <p>
+ * Encodings other than UTF-8 are supported by concatenating the parameters and encoding them at the end.
+ */
+final class ChecksumDigest {
+
+    static final Charset UTF8_CHARSET = Charset.forName(Constants.CHARSET_UTF8);
+    private static final int BUFFER_SIZE = 512;
+    private static final int MAX_BYTES_PER_CHAR = 4;
+    private static final Constants.HashAlgorithm[] HASH_ALGORITHMS = Constants.HashAlgorithm.values();
+    private static final ThreadLocal<ChecksumDigest> DIGESTS = new ThreadLocal<ChecksumDigest>() {
+        @Override
+        protected ChecksumDigest initialValue() {
+            return new ChecksumDigest();
+        }
+    };
+
+    private final MessageDigest[] messageDigests = new MessageDigest[HASH_ALGORITHMS.length];
+    private final byte[][] digestBytes = new byte[HASH_ALGORITHMS.length][];
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private MessageDigest messageDigest;
+    private byte[] digest;
+    private Charset charset;
+    private StringBuilder text;
+    private int position;
+    private char highSurrogate;
+    private boolean malformed;
+    private boolean inUse;
+
+    private ChecksumDigest() {
+    }
+
+    /**
+     * Obtains the digest of the current thread, ready to calculate a new checksum.
+     *
+     * @param algorithm the hash algorithm to use
+     * @param charset   the character encoding of the checksum parameters
+     * @return a reset {@link ChecksumDigest}
+     * @throws NoSuchAlgorithmException if the {@code algorithm} is not supported by the JVM
+     */
+    static ChecksumDigest start(Constants.HashAlgorithm algorithm, Charset charset) throws NoSuchAlgorithmException {
+        ChecksumDigest checksumDigest = DIGESTS.get();
+        if (checksumDigest.inUse) {
+            // re-entrant calculation, e.g. from a toString() of a checksum parameter
+            checksumDigest = new ChecksumDigest();
+        }
+        checksumDigest.reset(algorithm, charset);
+        return checksumDigest;
+    }
+
+    private void reset(Constants.HashAlgorithm algorithm, Charset charset) throws NoSuchAlgorithmException {
+        int index = algorithm.ordinal();
+        if (messageDigests[index] == null) {
+            MessageDigest newDigest = MessageDigest.getInstance(algorithm.getAlgorithm());
+            digestBytes[index] = new byte[newDigest.getDigestLength()];
+            messageDigests[index] = newDigest;
+        }
+
+        this.messageDigest = messageDigests[index];
+        this.digest = digestBytes[index];
+        this.messageDigest.reset();
+        this.charset = charset;
+        this.text = UTF8_CHARSET.equals(charset) ? null : new StringBuilder();
+        this.position = 0;
+        this.highSurrogate = 0;
+        this.malformed = false;
+        this.inUse = true;
+    }
+
+    /**
+     * Appends the {@code String} representation of the {@code value} to the checksum.
+     *
+     * @param value the checksum parameter
+     */
+    void append(Object value) {
+        append(String.valueOf(value));
+    }
+
+    /**
+     * Appends the {@code value} to the checksum. A null {@code value} is appended as {@code "null"}, as a
+     * {@link StringBuilder} would.
+     *
+     * @param value the checksum parameter
+     */
+    void append(String value) {
+        if (value == null) {
+            value = "null";
+        }
+        if (text != null) {
+            text.append(value);
+            return;
+        }
+
+        for (int i = 0, length = value.length(); i < length && !malformed; i++) {
+            char c = value.charAt(i);
+
+            if (position > BUFFER_SIZE - MAX_BYTES_PER_CHAR) {
+                flush();
+            }
+
+            if (highSurrogate != 0) {
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(highSurrogate, c);
+                    highSurrogate = 0;
+                    buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else {
+                    malformed = true;
+                }
+            } else if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                malformed = true;
+            } else {
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private void flush() {
+        messageDigest.update(buffer, 0, position);
+        position = 0;
+    }
+
+    /**
+     * Completes the checksum calculation. The digest must still be {@link #release() released} afterwards.
+     *
+     * @return the checksum as a lowercase hexadecimal {@code String}
+     * @throws CharacterCodingException if the checksum parameters can not be encoded with the requested character encoding
+     */
+    String finish() throws CharacterCodingException {
+        try {
+            if (text != null) {
+                ByteBuffer encoded = charset.newEncoder()
+                        .encode(CharBuffer.wrap(text));
+                messageDigest.update(encoded);
+            } else {
+                if (malformed || highSurrogate != 0) {
+                    throw new MalformedInputException(1);
+                }
+                flush();
+            }
+
+            messageDigest.digest(digest, 0, digest.length);
+            return toHex(digest);
+
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Makes the digest of the current thread available to the next {@link #start(Constants.HashAlgorithm, Charset)}.
+     * Called in a finally block, so a checksum parameter failing mid-calculation doesn't leave the digest marked as in use.
+     */
+    void release() {
+        text = null;
+        inUse = false;
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[2 * bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = Constants.HEXADECIMAL[(bytes[i] & 0xf0) >> 4];
+            hex[2 * i + 1] = Constants.HEXADECIMAL[bytes[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+}
@@ -4,14 +4,14 @@
 
 package com.safecharge.util;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetEncoder;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -122,166 +122,186 @@ public class ChecksumUtils {
      */
     public static String calculateChecksum(Object apiRequest, String key, String encoding, Constants.HashAlgorithm hashAlgorithm) {
 
-        ValidChecksum annotation = apiRequest.getClass()
-                .getAnnotation(ValidChecksum.class);
-        if (annotation == null) {
+        ChecksumPlan plan = ChecksumPlan.of(apiRequest.getClass());
+        if (plan == null) {
             return null;
         }
 
-        Constants.ChecksumOrderMapping mappingName = annotation.orderMappingName();
-        List<String> paramsOrder = requestChecksumOrder.get(mappingName.name());
+        ChecksumDigest digest;
+        try {
+            digest = ChecksumDigest.start(hashAlgorithm, toCharset(encoding));
 
-        StringBuilder sb = new StringBuilder();
+        } catch (NoSuchAlgorithmException nsae) {
+            logger.error("Implementation of " + hashAlgorithm + " not found. " + nsae);
+            return null;
+        }
 
-        for (String parameterName : paramsOrder) {
-            Object fieldValue = getObject(apiRequest, parameterName);
-            if (fieldValue != null) {
-                ValidChecksum innerObjectAnnotation = fieldValue.getClass()
-                        .getAnnotation(ValidChecksum.class);
+        try {
+            for (MethodHandle accessor : plan.accessors) {
+                Object fieldValue = ChecksumPlan.get(accessor, apiRequest);
+                if (fieldValue != null) {
+                    ChecksumPlan innerObjectPlan = ChecksumPlan.of(fieldValue.getClass());
 
-                if (innerObjectAnnotation != null) {
-                    sb.append(appendInnerObjectParams(fieldValue, innerObjectAnnotation));
+                    if (innerObjectPlan != null) {
+                        appendInnerObjectParams(digest, fieldValue, innerObjectPlan);
 
-                } else if (fieldValue instanceof List) {
-                    sb.append(appendInnerObjectListValues(((List) fieldValue)));
+                    } else if (fieldValue instanceof List) {
+                        appendInnerObjectListValues(digest, (List) fieldValue);
 
-                } else if (fieldValue instanceof Map) {
-                    sb.append(appendInnerObjectListValues(((Map<Object, Object>) fieldValue)));
+                    } else if (fieldValue instanceof Map) {
+                        appendInnerObjectListValues(digest, (Map<Object, Object>) fieldValue);
 
-                } else {
-                    sb.append(fieldValue);
+                    } else {
+                        digest.append(fieldValue);
+                    }
                 }
             }
-        }
 
-        sb.append(key);
-        return getHash(sb.toString(), encoding, hashAlgorithm);
+            digest.append(key);
+            return digest.finish();
+        } catch (CharacterCodingException e) {
+            logger.error("Cannot encode text into bytes using charset " + encoding + ": " + e.getMessage());
+            return null;
+        } finally {
+            digest.release();
+        }
     }
 
-    private static String appendInnerObjectListValues(List fieldValues) {
+    private static Charset toCharset(String encoding) {
+        // skips the charset lookup for the default encoding
+        return Constants.CHARSET_UTF8.equals(encoding) ? ChecksumDigest.UTF8_CHARSET : Charset.forName(encoding);
+    }
 
-        StringBuilder sb = new StringBuilder();
+    private static void appendInnerObjectListValues(ChecksumDigest digest, List fieldValues) {
 
         for (Object object : fieldValues) {
-            List<String> paramsOrder = null;
+            ChecksumPlan plan = ChecksumPlan.of(object.getClass());
 
-            ValidChecksum annotation = object.getClass()
-                    .getAnnotation(ValidChecksum.class);
-            if (annotation != null) {
-                paramsOrder = requestChecksumOrder.get(annotation.orderMappingName()
-                        .name());
-            }
-
-            if (paramsOrder != null && !paramsOrder.isEmpty()) {
+            if (plan != null) {
 
-                for (String parameterName : paramsOrder) {
-                    Object value = getObject(object, parameterName);
+                for (MethodHandle accessor : plan.accessors) {
+                    Object value = ChecksumPlan.get(accessor, object);
 
                     if (value instanceof Map) {
-                        sb.append(appendInnerObjectListValues((Map<Object, Object>) value));
+                        appendInnerObjectListValues(digest, (Map<Object, Object>) value);
 
                     } else if (value != null) {
-                        sb.append(value);
+                        digest.append(value);
                     }
                 }
 
             } else {
-                sb.append(object.toString());
+                digest.append(object.toString());
             }
         }
-        return sb.toString();
     }
 
-    private static String appendInnerObjectListValues(Map<Object, Object> data) {
-
-        StringBuilder str = new StringBuilder();
+    private static void appendInnerObjectListValues(ChecksumDigest digest, Map<Object, Object> data) {
 
         for (Object key : data.keySet()) {
             Object value = data.get(key);
 
             if (value instanceof List) {
-                str.append(appendInnerObjectListValues(((List) value)));
+                appendInnerObjectListValues(digest, (List) value);
 
             } else if (value instanceof Map) {
-                str.append(appendInnerObjectListValues((Map) value));
+                appendInnerObjectListValues(digest, (Map) value);
 
             } else if (value != null) {
-                str.append(value);
+                digest.append(value);
             }
         }
-        return str.toString();
     }
 
-    private static String appendInnerObjectParams(Object fieldValue, ValidChecksum innerObjectAnnotation) {
+    private static void appendInnerObjectParams(ChecksumDigest digest, Object fieldValue, ChecksumPlan innerObjectPlan) {
 
-        Constants.ChecksumOrderMapping innerMappingName = innerObjectAnnotation.orderMappingName();
-        List<String> innerObjectParamsOrder = requestChecksumOrder.get(innerMappingName.name());
-
-        StringBuilder sb = new StringBuilder();
-        for (String parameterName : innerObjectParamsOrder) {
-            Object innerFieldValue = getObject(fieldValue, parameterName);
+        for (MethodHandle accessor : innerObjectPlan.accessors) {
+            Object innerFieldValue = ChecksumPlan.get(accessor, fieldValue);
             if (innerFieldValue != null) {
-                sb.append(innerFieldValue);
+                digest.append(innerFieldValue);
             }
         }
-
-        return sb.toString();
     }
 
-    private static Object getObject(Object object, String fieldName) {
-        Class<?> clazz = object.getClass();
-        while (clazz != null) {
-            try {
-                Field field = clazz.getDeclaredField(fieldName);
-                field.setAccessible(true);
-                return field.get(object);
-            } catch (NoSuchFieldException e) {
-                clazz = clazz.getSuperclass();
-            } catch (Exception e) {
-                throw new IllegalStateException(e);
+    /**
+     * The compiled checksum calculation of a {@link ValidChecksum} annotated class - the accessors of its checksum fields,
+     * in the order defined by the class's {@link Constants.ChecksumOrderMapping}. Each plan is compiled once per class,
+     * so the annotation, the field order and the class hierarchy are not inspected again for every checksum.
+     */
+    private static final class ChecksumPlan {
+
+        private static final ChecksumPlan NONE = new ChecksumPlan(new MethodHandle[0]);
+        private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final ClassValue<ChecksumPlan> PLANS = new ClassValue<ChecksumPlan>() {
+            @Override
+            protected ChecksumPlan computeValue(Class<?> type) {
+                return compile(type);
             }
-        }
-        return null;
-    }
+        };
 
-    private static String getHash(String text, String charset, Constants.HashAlgorithm algorithm) {
-        MessageDigest md;
-        try {
-            md = MessageDigest.getInstance(algorithm.getAlgorithm());
+        private final MethodHandle[] accessors;
 
-        } catch (NoSuchAlgorithmException nsae) {
-            logger.error("Implementation of " + algorithm + " not found. " + nsae);
-            return null;
+        private ChecksumPlan(MethodHandle[] accessors) {
+            this.accessors = accessors;
         }
 
-        CharsetEncoder encoder = Charset.forName(charset)
-                .newEncoder();
-
-        ByteBuffer encoded;
-        try {
-            encoded = encoder.encode(CharBuffer.wrap(text));
-        } catch (CharacterCodingException e) {
-            logger.error("Cannot encode text into bytes using charset " + charset + ": " + e.getMessage());
-            return null;
+        /**
+         * @return the plan of the {@code type} or null if it is not annotated with {@link ValidChecksum}
+         */
+        private static ChecksumPlan of(Class<?> type) {
+            ChecksumPlan plan = PLANS.get(type);
+            return plan != NONE ? plan : null;
         }
 
-        byte[] inbytes;
+        private static Object get(MethodHandle accessor, Object object) {
+            try {
+                return accessor.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
 
-        inbytes = new byte[encoded.remaining()];
+        private static ChecksumPlan compile(Class<?> type) {
+            ValidChecksum annotation = type.getAnnotation(ValidChecksum.class);
+            if (annotation == null) {
+                return NONE;
+            }
 
-        encoded.get(inbytes, 0, inbytes.length);
+            List<String> paramsOrder = requestChecksumOrder.get(annotation.orderMappingName()
+                    .name());
+            List<MethodHandle> accessors = new ArrayList<>(paramsOrder.size());
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
 
-        byte[] bytes = md.digest(inbytes);
+            for (String parameterName : paramsOrder) {
+                Field field = findField(type, parameterName);
+                if (field == null) {
+                    // a missing field never contributes to the checksum
+                    continue;
+                }
 
-        // Output the bytes of the hash as a String (text/plain)
-        StringBuilder sb = new StringBuilder(2 * bytes.length);
-        for (int i = 0; i < bytes.length; i++) {
-            int low = bytes[i] & 0x0f;
-            int high = (bytes[i] & 0xf0) >> 4;
-            sb.append(Constants.HEXADECIMAL[high]);
-            sb.append(Constants.HEXADECIMAL[low]);
+                try {
+                    field.setAccessible(true);
+                    accessors.add(lookup.unreflectGetter(field)
+                            .asType(ACCESSOR_TYPE));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return new ChecksumPlan(accessors.toArray(new MethodHandle[0]));
         }
 
-        return sb.toString();
+        private static Field findField(Class<?> type, String fieldName) {
+            Class<?> clazz = type;
+            while (clazz != null) {
+                try {
+                    return clazz.getDeclaredField(fieldName);
+                } catch (NoSuchFieldException e) {
+                    clazz = clazz.getSuperclass();
+                }
+            }
+            return null;
+        }
     }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.util;
+
+import java.time.Clock;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Lock-free generator of unique, increasing clientRequestIds. Each id is a positive 63-bit number composed of the milliseconds
+ * since 2023-01-01T00:00:00Z (41 bits), the node id of the generator (10 bits) and a sequence within the millisecond (12 bits).
+ * </p>
+ * <p>
+ * A generator creates up to 4096 ids per millisecond. When they run out, the following ids are taken from the next millisecond
+ * in advance instead of waiting for it, so the ids are never blocked on the clock and stay unique and increasing even if
+ * the clock goes back. The ids of generators with different node ids never collide, so every JVM of a cluster sending requests
+ * for the same merchant site should have a generator with its own node id, see {@link RequestUtils#setClientRequestIdGenerator(ClientRequestIdGenerator)}.
+ * </p>
+ */
+public final class ClientRequestIdGenerator {
+
+    /**
+     * The highest node id of a generator.
+     */
+    public static final int MAX_NODE_ID = 1023;
+
+    private static final long EPOCH_MILLIS = 1672531200000L;
+    private static final int NODE_ID_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final int nodeId;
+    private final Clock clock;
+
+    /**
+     * The millis since the epoch and the sequence of the last generated id.
+     */
+    private final AtomicLong lastTick = new AtomicLong();
+
+    /**
+     * Creates a generator with a random node id. It is enough for a single JVM, but two random node ids may collide.
+     */
+    public ClientRequestIdGenerator() {
+        this(new Random().nextInt(MAX_NODE_ID + 1));
+    }
+
+    /**
+     * @param nodeId the id of this generator, unique within the cluster, between 0 and {@link #MAX_NODE_ID}
+     * @throws IllegalArgumentException if the {@code nodeId} is out of range
+     */
+    public ClientRequestIdGenerator(int nodeId) {
+        this(nodeId, Clock.systemUTC());
+    }
+
+    /**
+     * @param nodeId the id of this generator, unique within the cluster, between 0 and {@link #MAX_NODE_ID}
+     * @param clock  the {@link Clock} to take the time of the ids from
+     * @throws IllegalArgumentException if the {@code nodeId} is out of range
+     */
+    public ClientRequestIdGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ", but was " + nodeId + "!");
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return the next unique id, greater than all of the ids generated by this generator before
+     */
+    public long nextId() {
+        long currentTick = Math.max(clock.millis() - EPOCH_MILLIS, 0L) << SEQUENCE_BITS;
+
+        long last;
+        long next;
+        do {
+            last = lastTick.get();
+            // a sequence overflow carries into the millis
+            next = currentTick > last ? currentTick : last + 1;
+        } while (!lastTick.compareAndSet(last, next));
+
+        long millis = next >>> SEQUENCE_BITS;
+        return millis << (NODE_ID_BITS + SEQUENCE_BITS) | (long) nodeId << SEQUENCE_BITS | next & SEQUENCE_MASK;
+    }
+
+    /**
+     * @return the next unique id as a clientRequestId
+     */
+    public String nextClientRequestId() {
+        return Long.toString(nextId());
+    }
+}
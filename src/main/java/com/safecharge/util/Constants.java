@@ -127,6 +127,100 @@ public interface Constants {
         }
     }
 
+    /**
+     * How the raw JSON of a response is kept on the {@link com.safecharge.response.SafechargeResponse} returned by its request,
+     * i.e. what {@link com.safecharge.response.SafechargeResponse#getJson()} costs and returns.
+     */
+    enum ResponseJsonRetention {
+        /**
+         * The response is parsed straight from the HTTP stream and its JSON is not kept, {@code getJson()} returns null.
+         */
+        NONE,
+        /**
+         * The JSON is kept as UTF-8 bytes and replaced by a {@code String} on the first {@code getJson()}.
+         */
+        LAZY,
+        /**
+         * The JSON is kept as UTF-8 bytes only and decoded on every {@code getJson()}. This only takes less memory than
+         * {@link #STRING} on Java 8 or for JSON outside of Latin-1, since the compact strings of Java 9+ already take one byte per
+         * Latin-1 character.
+         */
+        BYTES,
+        /**
+         * The JSON is kept as a {@code String}.
+         */
+        STRING
+    }
+
+    /**
+     * Formats of the record files read by {@link com.safecharge.biz.UPOImportPipeline}.
+     */
+    enum ImportFileFormat {
+        /**
+         * A JSON object per line.
+         */
+        JSONL,
+        /**
+         * Comma-separated values with a header line of the field names. Values containing commas or quotes are quoted with
+         * double quotes, and the quotes within them are doubled.
+         */
+        CSV
+    }
+
+    /**
+     * HTTP protocols of the transport of a {@link com.safecharge.biz.SafechargeClient}.
+     */
+    enum HttpTransport {
+        /**
+         * HTTP/1.1 over the pooled connections of the Apache HttpClient 4, one request per connection at a time.
+         */
+        HTTP_1_1,
+        /**
+         * HTTP/2 multiplexing the requests over a few connections, negotiated with ALPN and falling back to HTTP/1.1.
+         * Requires the Apache HttpClient 5 on the classpath, see {@link com.safecharge.biz.Http2Transport}.
+         */
+        HTTP_2,
+        /**
+         * HTTP/2 with the {@link java.net.http.HttpClient} of the JDK, negotiated with ALPN and falling back to HTTP/1.1.
+         * Requires Java 21 or newer, the transport is provided by the Java 21 layer of the multi-release SDK jar. Supports only
+         * the HTTP proxies.
+         */
+        JDK_HTTP_CLIENT
+    }
+
+    /**
+     * Decisions of a {@link com.safecharge.biz.pool.AdaptiveConnectionManager} about the connection limit of a route.
+     */
+    enum PoolSizingDecision {
+        /**
+         * The limit is raised, since the leases waited for a connection.
+         */
+        GROW,
+        /**
+         * The limit is lowered, since the route was underused for a while.
+         */
+        SHRINK,
+        /**
+         * The limit is kept.
+         */
+        KEEP
+    }
+
+    /**
+     * Priorities of the API endpoints, see {@link com.safecharge.biz.EndpointPolicy#getPriority()}.
+     */
+    enum EndpointPriority {
+        /**
+         * Money movements, e.g. payments, settles, refunds and payouts.
+         */
+        HIGH,
+        NORMAL,
+        /**
+         * Reads and lookups which can be deferred or shed under load.
+         */
+        LOW
+    }
+
     /**
      * All possible Credit/Debit card transaction types.
      */
@@ -6,8 +6,7 @@ package com.safecharge.util;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import java.time.Clock;
 
 /**
  * <p>
@@ -19,7 +18,15 @@ import java.util.GregorianCalendar;
 
 public class RequestUtils {
 
-    private static final SimpleDateFormat sdf = new SimpleDateFormat("yyyyMMddHHmmss");
+    private static final ThreadLocal<SimpleDateFormat> sdf = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyyMMddHHmmss");
+        }
+    };
+
+    private static volatile TimestampSource timestampSource = new TimestampSource(Clock.systemDefaultZone());
+    private static volatile ClientRequestIdGenerator clientRequestIdGenerator = new ClientRequestIdGenerator();
 
     private RequestUtils() {
     }
@@ -27,14 +34,54 @@ public class RequestUtils {
     /**
      * This method is used to calculate the current timestamp of a request.
      * <p>
-     * The format of the returned String is "yyyyMMddHHmmss".
+     * The format of the returned String is "yyyyMMddHHmmss". The timestamp is formatted once per second and shared by the requests
+     * built within that second, the method is thread-safe.
      *
      * @return the current time as a String
+     * @see #setTimestampClock(Clock)
      */
     public static String calculateTimestamp() {
-        Calendar cal = new GregorianCalendar();
-        sdf.setTimeZone(cal.getTimeZone());
-        return sdf.format(cal.getTime());
+        return timestampSource.getTimestamp();
+    }
+
+    /**
+     * Sets the {@link Clock}, whose time and time zone are used by {@link #calculateTimestamp()}, e.g. a fixed one in tests.
+     *
+     * @param clock the {@link Clock} to calculate the timestamps with or null to use the system clock in the default time zone
+     */
+    public static void setTimestampClock(Clock clock) {
+        timestampSource = new TimestampSource(clock != null ? clock : Clock.systemDefaultZone());
+    }
+
+    /**
+     * @return the {@link Clock} used by {@link #calculateTimestamp()}
+     */
+    public static Clock getTimestampClock() {
+        return timestampSource.getClock();
+    }
+
+    /**
+     * This method is used to generate a unique clientRequestId parameter of a request. Used by the request builders
+     * for the requests without an explicitly added clientRequestId.
+     *
+     * @return new clientRequestId
+     * @see #setClientRequestIdGenerator(ClientRequestIdGenerator)
+     */
+    public static String generateClientRequestId() {
+        return clientRequestIdGenerator.nextClientRequestId();
+    }
+
+    /**
+     * Sets the generator of the clientRequestIds. The default one has a random node id, so the JVMs of a cluster should set
+     * generators with distinct node ids to guarantee that their clientRequestIds never collide.
+     *
+     * @param generator the {@link ClientRequestIdGenerator} used by {@link #generateClientRequestId()}
+     */
+    public static void setClientRequestIdGenerator(ClientRequestIdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("The clientRequestId generator can not be null!");
+        }
+        clientRequestIdGenerator = generator;
     }
 
     /**
@@ -42,10 +89,13 @@ public class RequestUtils {
      *
      * @param timestamp the timestamp to generate clientRequestId from. It should be in "yyyyMMddHHmmss" format
      * @return the clientRequestId or -1 if it can't be calculated
+     * @deprecated all of the requests built within the same second get the same id, use {@link #generateClientRequestId()} instead
      */
+    @Deprecated
     public static String calculateClientRequestId(String timestamp) {
         try {
-            return String.valueOf(sdf.parse(timestamp)
+            return String.valueOf(sdf.get()
+                    .parse(timestamp)
                     .getTime());
         } catch (ParseException e) {
             return "-1";
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * <p>
+ * Thread-safe source of the "yyyyMMddHHmmss" request timestamps. The timestamp of the current second is formatted once
+ * per second and time zone of the {@link Clock}, all of the requests built within the same second get the cached String.
+ * </p>
+ * <p>
+ * The cache is a single immutable entry replaced without locking. Threads racing on a new second may format it more than once,
+ * but always return a correct timestamp.
+ * </p>
+ */
+final class TimestampSource {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final Clock clock;
+    private volatile Timestamp cached;
+
+    TimestampSource(Clock clock) {
+        this.clock = clock;
+        this.cached = new Timestamp(Long.MIN_VALUE, clock.getZone(), null);
+    }
+
+    Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return the current time of the {@link Clock} as a String in "yyyyMMddHHmmss" format
+     */
+    String getTimestamp() {
+        long epochSecond = Math.floorDiv(clock.millis(), 1000L);
+        ZoneId zone = clock.getZone();
+
+        Timestamp timestamp = cached;
+        if (timestamp.epochSecond != epochSecond || !timestamp.zone.equals(zone)) {
+            timestamp = new Timestamp(epochSecond, zone, TIMESTAMP_FORMATTER.format(Instant.ofEpochSecond(epochSecond)
+                    .atZone(zone)));
+            cached = timestamp;
+        }
+        return timestamp.formatted;
+    }
+
+    private static final class Timestamp {
+
+        private final long epochSecond;
+        private final ZoneId zone;
+        private final String formatted;
+
+        private Timestamp(long epochSecond, ZoneId zone, String formatted) {
+            this.epochSecond = epochSecond;
+            this.zone = zone;
+            this.formatted = formatted;
+        }
+    }
+}
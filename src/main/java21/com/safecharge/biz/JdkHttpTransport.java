@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.util.EntityUtils;
+
+import com.safecharge.exception.SafechargeConfigurationException;
+import com.safecharge.model.Proxy;
+
+/**
+ * <p>
+ * {@link SafechargeTransport} sending the requests with the {@link HttpClient} of the JDK. HTTP/2 is negotiated with ALPN,
+ * so the concurrent requests to a host are multiplexed over a single connection, and a server without HTTP/2 support is
+ * served over HTTP/1.1. The blocking requests only park the calling virtual threads while waiting for the responses.
+ * </p>
+ * <p>
+ * The connections use the shared {@link SafechargeClientBuilder#getDefaultSSLContext()} and the same TLS protocols as the
+ * default SSL socket factory of {@link SafechargeClientBuilder}, so their TLS sessions are resumed by the other clients of the SDK.
+ * Only the HTTP proxies are supported, the HTTPS requests are tunneled through them.
+ * </p>
+ * <p>
+ * The connect timeout of the JDK's client can't be set per request, so the requests of the endpoints with an own connect
+ * timeout are sent by a client created for that timeout, with its own connections. A connect timeout is reported as the
+ * {@link ConnectTimeoutException} of the HttpClient, so the executor retries it like it does for the other transports.
+ * </p>
+ * <p>
+ * Available on Java 21 and newer only, see {@link RuntimeSupport#createJdkHttpTransport(Proxy, long)}.
+ * </p>
+ */
+final class JdkHttpTransport implements SafechargeTransport {
+
+    private static final ProtocolVersion HTTP_1_1 = new ProtocolVersion("HTTP", 1, 1);
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    /**
+     * The headers set by the {@link HttpClient} itself, which it doesn't allow to be set on a request.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade",
+            "keep-alive", "transfer-encoding");
+
+    private final HttpClient httpClient;
+    private final Map<Duration, HttpClient> connectTimeoutHttpClients = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final ProxySelector proxySelector;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param proxy          the {@link Proxy} to connect through, may be null
+     * @param timeoutSeconds the connect and response timeout
+     * @throws SafechargeConfigurationException if the {@code proxy} is not an HTTP proxy
+     */
+    JdkHttpTransport(Proxy proxy, long timeoutSeconds) {
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+        if (proxy != null) {
+            if (proxy.getProtocol() != null && !"http".equalsIgnoreCase(proxy.getProtocol())) {
+                throw new SafechargeConfigurationException("The JDK HTTP client transport supports only HTTP proxies, not " + proxy.getProtocol() + "!");
+            }
+            this.proxySelector = ProxySelector.of(new InetSocketAddress(proxy.getHost(), proxy.getPort()));
+        } else {
+            this.proxySelector = null;
+        }
+        this.httpClient = createHttpClient(timeout);
+    }
+
+    /**
+     * @return the {@link HttpClient} sending the requests
+     */
+    HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * @return the {@link HttpClient} sending the {@code httpPost}, the one of its connect timeout if its endpoint has an own one
+     */
+    HttpClient getHttpClient(HttpPost httpPost) {
+        org.apache.http.client.config.RequestConfig config = httpPost.getConfig();
+        if (config == null || config.getConnectTimeout() <= 0) {
+            return httpClient;
+        }
+        Duration connectTimeout = Duration.ofMillis(config.getConnectTimeout());
+        if (connectTimeout.equals(timeout)) {
+            return httpClient;
+        }
+        return connectTimeoutHttpClients.computeIfAbsent(connectTimeout, this::createHttpClient);
+    }
+
+    @Override
+    public HttpResponse execute(HttpPost httpPost) throws IOException {
+        try {
+            return toHttpResponse(getHttpClient(httpPost).send(createRequest(httpPost), BodyHandlers.ofByteArray()));
+        } catch (HttpConnectTimeoutException e) {
+            throw toConnectTimeoutException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response!");
+        }
+    }
+
+    @Override
+    public void execute(HttpPost httpPost, FutureCallback<HttpResponse> callback) {
+        HttpRequest request;
+        try {
+            request = createRequest(httpPost);
+        } catch (IOException e) {
+            callback.failed(e);
+            return;
+        }
+
+        getHttpClient(httpPost).sendAsync(request, BodyHandlers.ofByteArray())
+                .whenComplete((response, throwable) -> {
+                    if (throwable == null) {
+                        callback.completed(toHttpResponse(response));
+                    } else {
+                        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                        if (cause instanceof HttpConnectTimeoutException connectTimeout) {
+                            callback.failed(toConnectTimeoutException(connectTimeout));
+                        } else {
+                            callback.failed(cause instanceof Exception ? (Exception) cause : new IOException(cause));
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Closes the client, waiting for the requests in flight.
+     */
+    @Override
+    public void close() {
+        httpClient.close();
+        for (HttpClient connectTimeoutHttpClient : connectTimeoutHttpClients.values()) {
+            connectTimeoutHttpClient.close();
+        }
+    }
+
+    private HttpClient createHttpClient(Duration connectTimeout) {
+        SSLContext sslContext = SafechargeClientBuilder.getDefaultSSLContext();
+        SSLParameters sslParameters = sslContext.getDefaultSSLParameters();
+        sslParameters.setProtocols(SafechargeClientBuilder.getSupportedSSLProtocols(sslContext));
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .sslContext(sslContext)
+                .sslParameters(sslParameters)
+                .executor(executor);
+        if (proxySelector != null) {
+            builder.proxy(proxySelector);
+        }
+        return builder.build();
+    }
+
+    private static ConnectTimeoutException toConnectTimeoutException(HttpConnectTimeoutException e) {
+        ConnectTimeoutException connectTimeoutException = new ConnectTimeoutException(e.getMessage());
+        connectTimeoutException.initCause(e);
+        return connectTimeoutException;
+    }
+
+    HttpRequest createRequest(HttpPost httpPost) throws IOException {
+        // the endpoints with own timeouts set them in the request config
+        org.apache.http.client.config.RequestConfig config = httpPost.getConfig();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(httpPost.getURI())
+                .timeout(config != null && config.getSocketTimeout() > 0 ? Duration.ofMillis(config.getSocketTimeout()) : timeout);
+        for (Header header : httpPost.getAllHeaders()) {
+            if (header.getValue() != null && !RESTRICTED_HEADERS.contains(header.getName()
+                    .toLowerCase(Locale.ROOT))) {
+                builder.header(header.getName(), header.getValue());
+            }
+        }
+
+        HttpEntity entity = httpPost.getEntity();
+        if (entity == null) {
+            return builder.POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+        }
+        if (entity.getContentType() != null && httpPost.getFirstHeader(entity.getContentType()
+                .getName()) == null) {
+            builder.header(entity.getContentType()
+                    .getName(), entity.getContentType()
+                    .getValue());
+        }
+        return builder.POST(HttpRequest.BodyPublishers.ofByteArray(EntityUtils.toByteArray(entity)))
+                .build();
+    }
+
+    static HttpResponse toHttpResponse(java.net.http.HttpResponse<byte[]> response) {
+        ProtocolVersion version = response.version() == HttpClient.Version.HTTP_2 ? HTTP_2 : HTTP_1_1;
+        BasicHttpResponse httpResponse = new BasicHttpResponse(new BasicStatusLine(version, response.statusCode(), null));
+        for (var header : response.headers()
+                .map()
+                .entrySet()) {
+            for (String value : header.getValue()) {
+                httpResponse.addHeader(header.getKey(), value);
+            }
+        }
+
+        ByteArrayEntity entity = new ByteArrayEntity(response.body());
+        Optional<String> contentType = response.headers()
+                .firstValue("Content-Type");
+        contentType.ifPresent(entity::setContentType);
+        httpResponse.setEntity(entity);
+        return httpResponse;
+    }
+}
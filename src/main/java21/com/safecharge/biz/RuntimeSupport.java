@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.safecharge.model.Proxy;
+
+/**
+ * <p>
+ * Access to the features of the newer Java runtimes. This is the Java 21 implementation, packaged in {@code META-INF/versions/21}
+ * of the multi-release jar in place of the baseline one.
+ * </p>
+ */
+final class RuntimeSupport {
+
+    private RuntimeSupport() {
+    }
+
+    /**
+     * @return true if the virtual threads and the {@link java.net.http.HttpClient} transport are supported
+     */
+    static boolean isJava21Supported() {
+        return true;
+    }
+
+    /**
+     * @return a new executor starting a virtual thread for each task
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name("safecharge-request-", 0)
+                .factory());
+    }
+
+    /**
+     * @param proxy          the {@link Proxy} to connect through, may be null
+     * @param timeoutSeconds the connect and response timeout
+     * @return a new transport sending the requests with a {@link java.net.http.HttpClient}
+     * @throws com.safecharge.exception.SafechargeConfigurationException if the {@code proxy} is not an HTTP proxy
+     */
+    static SafechargeTransport createJdkHttpTransport(Proxy proxy, long timeoutSeconds) {
+        return new JdkHttpTransport(proxy, timeoutSeconds);
+    }
+}
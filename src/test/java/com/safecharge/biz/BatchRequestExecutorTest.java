@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.request.SettleTransactionRequest;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.response.SettleTransactionResponse;
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchRequestExecutorTest {
+
+    private final DelayedExecutor executor = new DelayedExecutor();
+
+    @After
+    public void tearDown() {
+        executor.ioThreads.shutdownNow();
+    }
+
+    @Test
+    public void shouldExecuteAllItemsWithBoundedConcurrency() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 1; i <= 60; i++) {
+            items.add(i);
+        }
+        final AtomicInteger handledCount = new AtomicInteger();
+
+        BatchRequestExecutor.BatchStats stats = BatchRequestExecutor.builder()
+                .setRequestExecutor(executor)
+                .setConcurrency(4)
+                .build()
+                .execute(items, new Function<Integer, SafechargeBaseRequest>() {
+                    @Override
+                    public SafechargeBaseRequest apply(Integer item) {
+                        if (item == 60) {
+                            throw new IllegalArgumentException("Invalid item");
+                        }
+                        SettleTransactionRequest request = new SettleTransactionRequest();
+                        request.setClientRequestId(String.valueOf(item));
+                        return request;
+                    }
+                }, new BatchRequestExecutor.ResultHandler<Integer>() {
+                    @Override
+                    public void onResult(Integer item, SafechargeResponse response, Throwable failure) {
+                        handledCount.incrementAndGet();
+                    }
+                });
+
+        assertEquals(60, handledCount.get());
+        assertEquals(54, stats.getSuccessCount());
+        assertEquals(5, stats.getErrorCount());
+        assertEquals(1, stats.getFailureCount());
+        assertEquals(60, stats.getTotalCount());
+        assertTrue(executor.maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void shouldCapRequestRate() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 1; i <= 11; i++) {
+            items.add(i);
+        }
+
+        BatchRequestExecutor.BatchStats stats = BatchRequestExecutor.builder()
+                .setRequestExecutor(executor)
+                .setConcurrency(16)
+                .setMaxRequestsPerSecond(20)
+                .build()
+                .execute(items, new SettleRequestFactory(), null);
+
+        assertEquals(11, stats.getTotalCount());
+        assertTrue(stats.getElapsed(TimeUnit.MILLISECONDS) >= 500);
+        long firstSentAt = executor.sentAt.get(0);
+        for (int i = 1; i < executor.sentAt.size(); i++) {
+            // a request every 50 ms at most, with some slack for sending the first one
+            assertTrue("Request " + i + " was sent too early", executor.sentAt.get(i) - firstSentAt >= TimeUnit.MILLISECONDS.toNanos(i * 50 - 5));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldThrowFailureOfItemsAfterReleasingSlot() throws Exception {
+        final Iterator<Integer> items = new Iterator<Integer>() {
+            private int next = 1;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (next > 2) {
+                    throw new IllegalStateException("Failed to read the item");
+                }
+                return next++;
+            }
+        };
+        final CountDownLatch handled = new CountDownLatch(2);
+        BatchRequestExecutor batchExecutor = BatchRequestExecutor.builder()
+                .setRequestExecutor(executor)
+                .setConcurrency(1)
+                .build();
+
+        try {
+            batchExecutor.execute(items, new SettleRequestFactory(), new BatchRequestExecutor.ResultHandler<Integer>() {
+                @Override
+                public void onResult(Integer item, SafechargeResponse response, Throwable failure) {
+                    handled.countDown();
+                }
+            });
+            fail("Reading the items should fail");
+        } catch (IllegalStateException e) {
+            assertEquals("Failed to read the item", e.getMessage());
+        }
+
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        assertEquals(2, executor.sentAt.size());
+    }
+
+    private static final class SettleRequestFactory implements Function<Integer, SafechargeBaseRequest> {
+
+        @Override
+        public SafechargeBaseRequest apply(Integer item) {
+            SettleTransactionRequest request = new SettleTransactionRequest();
+            request.setClientRequestId(String.valueOf(item));
+            return request;
+        }
+    }
+
+    private static final class DelayedExecutor extends SafechargeRequestExecutor {
+
+        private final ExecutorService ioThreads = Executors.newFixedThreadPool(8);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final List<Long> sentAt = new CopyOnWriteArrayList<>();
+
+        private DelayedExecutor() {
+            super(null, null, null);
+        }
+
+        @Override
+        public CompletableFuture<SafechargeResponse> executeAsync(final SafechargeBaseRequest request) {
+            sentAt.add(System.nanoTime());
+            final CompletableFuture<SafechargeResponse> result = new CompletableFuture<>();
+            int current = inFlight.incrementAndGet();
+            int max;
+            while ((max = maxInFlight.get()) < current && !maxInFlight.compareAndSet(max, current)) {
+                // retry
+            }
+            ioThreads.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread()
+                                .interrupt();
+                    }
+                    SafechargeResponse response = new SettleTransactionResponse();
+                    response.setStatus(Integer.parseInt(request.getClientRequestId()) % 10 == 0 ? Constants.APIResponseStatus.ERROR
+                            : Constants.APIResponseStatus.SUCCESS);
+                    inFlight.decrementAndGet();
+                    result.complete(response);
+                }
+            });
+            return result;
+        }
+    }
+}
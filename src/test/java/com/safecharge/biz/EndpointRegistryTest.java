@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
+import org.junit.Test;
+
+import com.safecharge.request.CardDetailsRequest;
+import com.safecharge.request.GetPaymentStatusRequest;
+import com.safecharge.request.PaymentRequest;
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.CardDetailsResponse;
+import com.safecharge.util.APIConstants;
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointRegistryTest {
+
+    private final EndpointRegistry endpointRegistry = new EndpointRegistry();
+
+    @Test
+    public void shouldApplyDefaultPolicies() {
+        Endpoint payment = endpointRegistry.get(PaymentRequest.class);
+        assertEquals(APIConstants.PAYMENT_URL, payment.getUrl());
+        assertEquals(Constants.EndpointPriority.HIGH, payment.getPolicy()
+                .getPriority());
+        assertFalse(payment.getPolicy()
+                .isIdempotent());
+        assertNull(payment.getRequestConfig(RequestConfig.DEFAULT));
+
+        Endpoint cardDetails = endpointRegistry.get(CardDetailsRequest.class);
+        assertEquals(CardDetailsResponse.class, cardDetails.getResponseType());
+        assertTrue(cardDetails.getPolicy()
+                .isIdempotent());
+        assertEquals(5000, cardDetails.getRequestConfig(RequestConfig.DEFAULT)
+                .getSocketTimeout());
+        assertNull(endpointRegistry.get(SafechargeBaseRequest.class));
+    }
+
+    @Test
+    public void shouldReplacePolicy() {
+        Endpoint previous = endpointRegistry.get(CardDetailsRequest.class);
+        endpointRegistry.setPolicy(CardDetailsRequest.class, EndpointPolicy.builder()
+                .setTimeouts(300, 800, TimeUnit.MILLISECONDS)
+                .setIdempotent(true)
+                .build());
+
+        Endpoint endpoint = endpointRegistry.get(CardDetailsRequest.class);
+        assertNotSame(previous, endpoint);
+        assertEquals(800, endpoint.getRequestConfig(RequestConfig.DEFAULT)
+                .getSocketTimeout());
+        assertEquals(5000, previous.getRequestConfig(RequestConfig.DEFAULT)
+                .getSocketTimeout());
+    }
+
+    @Test
+    public void shouldKeepClientConfigExceptTimeouts() {
+        HttpHost proxy = new HttpHost("proxy.example.com", 8080);
+        RequestConfig clientConfig = RequestConfig.custom()
+                .setProxy(proxy)
+                .setRedirectsEnabled(false)
+                .setAuthenticationEnabled(false)
+                .setCookieSpec(CookieSpecs.STANDARD)
+                .setStaleConnectionCheckEnabled(true)
+                .setSocketTimeout(30000)
+                .build();
+
+        RequestConfig requestConfig = endpointRegistry.get(CardDetailsRequest.class)
+                .getRequestConfig(clientConfig);
+
+        assertEquals(proxy, requestConfig.getProxy());
+        assertFalse(requestConfig.isRedirectsEnabled());
+        assertFalse(requestConfig.isAuthenticationEnabled());
+        assertEquals(CookieSpecs.STANDARD, requestConfig.getCookieSpec());
+        assertTrue(requestConfig.isStaleConnectionCheckEnabled());
+        assertEquals(2000, requestConfig.getConnectTimeout());
+        assertEquals(5000, requestConfig.getSocketTimeout());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPolicyOfUnknownEndpoint() {
+        endpointRegistry.setPolicy(SafechargeBaseRequest.class, EndpointPolicy.builder()
+                .build());
+    }
+
+    @Test
+    public void shouldRetryOnlySafeFailures() {
+        EndpointPolicy payment = endpointRegistry.get(PaymentRequest.class)
+                .getPolicy();
+        EndpointPolicy read = endpointRegistry.get(GetPaymentStatusRequest.class)
+                .getPolicy();
+
+        assertTrue(SafechargeRequestExecutor.isRetryable(new ConnectException(), payment));
+        assertFalse(SafechargeRequestExecutor.isRetryable(new NoHttpResponseException("closed"), payment));
+        assertTrue(SafechargeRequestExecutor.isRetryable(new NoHttpResponseException("closed"), read));
+        assertTrue(SafechargeRequestExecutor.isRetryable(new SocketException("reset"), read));
+        assertFalse(SafechargeRequestExecutor.isRetryable(new SocketTimeoutException(), read));
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpVersion;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class Http2TransportTest {
+
+    private static final String BODY = "{\"sessionToken\":\"token\"}";
+
+    private HttpServer server;
+    private String serverUrl;
+    private volatile String receivedKeepAlive;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = readAll(exchange.getRequestBody());
+                exchange.getResponseHeaders()
+                        .add("Content-Type", exchange.getRequestHeaders()
+                                .getFirst("Content-Type"));
+                receivedKeepAlive = exchange.getRequestHeaders()
+                        .getFirst("Keep-Alive");
+                exchange.sendResponseHeaders(201, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread()
+                            .interrupt();
+                }
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.createContext("/trickle", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    // a byte within every response timeout, for 3 seconds
+                    for (int i = 0; i < 30; i++) {
+                        out.write(' ');
+                        out.flush();
+                        Thread.sleep(100);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread()
+                            .interrupt();
+                }
+            }
+        });
+        server.start();
+        serverUrl = "http://localhost:" + server.getAddress()
+                .getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldCopyBodyAndDropConnectionHeaders() throws IOException {
+        HttpPost httpPost = new HttpPost(serverUrl + "/echo");
+        httpPost.addHeader("Connection", "keep-alive");
+        httpPost.addHeader("Keep-Alive", "timeout=5");
+        httpPost.addHeader("Accept", "application/json");
+        httpPost.setEntity(new StringEntity(BODY, org.apache.http.entity.ContentType.APPLICATION_JSON));
+
+        SimpleHttpRequest request = Http2Transport.createRequest(httpPost, RequestConfig.DEFAULT);
+
+        assertEquals("POST", request.getMethod());
+        assertNull(request.getFirstHeader("Connection"));
+        assertNull(request.getFirstHeader("Keep-Alive"));
+        assertEquals("application/json", request.getFirstHeader("Accept")
+                .getValue());
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), request.getBodyBytes());
+        assertEquals(ContentType.APPLICATION_JSON.getMimeType(), request.getContentType()
+                .getMimeType());
+    }
+
+    @Test
+    public void shouldApplyTimeoutsOfRequestConfig() throws IOException {
+        RequestConfig defaultRequestConfig = RequestConfig.custom()
+                .setResponseTimeout(Timeout.ofSeconds(30))
+                .setConnectionRequestTimeout(Timeout.ofSeconds(30))
+                .build();
+        HttpPost httpPost = new HttpPost(serverUrl + "/echo");
+
+        assertNull(Http2Transport.createRequest(httpPost, defaultRequestConfig)
+                .getConfig());
+
+        httpPost.setConfig(org.apache.http.client.config.RequestConfig.custom()
+                .setConnectionRequestTimeout(200)
+                .setSocketTimeout(800)
+                .build());
+        RequestConfig requestConfig = Http2Transport.createRequest(httpPost, defaultRequestConfig)
+                .getConfig();
+        assertEquals(Timeout.ofMilliseconds(800), requestConfig.getResponseTimeout());
+        assertEquals(Timeout.ofMilliseconds(200), requestConfig.getConnectionRequestTimeout());
+    }
+
+    @Test
+    public void shouldConvertResponse() throws IOException {
+        SimpleHttpResponse response = SimpleHttpResponse.create(201, BODY, ContentType.APPLICATION_JSON);
+        response.setVersion(HttpVersion.HTTP_2);
+
+        HttpResponse httpResponse = Http2Transport.toHttpResponse(response);
+
+        assertEquals(201, httpResponse.getStatusLine()
+                .getStatusCode());
+        assertEquals(2, httpResponse.getStatusLine()
+                .getProtocolVersion()
+                .getMajor());
+        assertTrue(httpResponse.getEntity()
+                .getContentType()
+                .getValue()
+                .startsWith("application/json"));
+        assertEquals(BODY, EntityUtils.toString(httpResponse.getEntity()));
+    }
+
+    @Test
+    public void shouldFallBackToHttp11WhenHttp2IsNotNegotiated() throws IOException {
+        try (Http2Transport transport = Http2Transport.builder()
+                .build()) {
+            HttpPost httpPost = new HttpPost(serverUrl + "/echo");
+            httpPost.addHeader("Keep-Alive", "timeout=5");
+            httpPost.setEntity(new StringEntity(BODY, org.apache.http.entity.ContentType.APPLICATION_JSON));
+
+            HttpResponse response = transport.execute(httpPost);
+
+            assertEquals(201, response.getStatusLine()
+                    .getStatusCode());
+            assertEquals(1, response.getStatusLine()
+                    .getProtocolVersion()
+                    .getMajor());
+            assertNull(receivedKeepAlive);
+            assertEquals(BODY, EntityUtils.toString(response.getEntity()));
+        }
+    }
+
+    @Test
+    public void shouldApplySubSecondTimeout() throws IOException {
+        try (Http2Transport transport = Http2Transport.builder()
+                .setTimeout(300, TimeUnit.MILLISECONDS)
+                .build()) {
+            long start = System.nanoTime();
+            try {
+                transport.execute(new HttpPost(serverUrl + "/slow"));
+                fail("The request should time out");
+            } catch (IOException e) {
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2500);
+            }
+        }
+    }
+
+    @Test
+    public void shouldApplyTimeoutOfEndpoint() throws IOException {
+        try (Http2Transport transport = Http2Transport.builder()
+                .build()) {
+            HttpPost httpPost = new HttpPost(serverUrl + "/slow");
+            httpPost.setConfig(org.apache.http.client.config.RequestConfig.custom()
+                    .setSocketTimeout(300)
+                    .build());
+            long start = System.nanoTime();
+            try {
+                transport.execute(httpPost);
+                fail("The request should time out");
+            } catch (IOException e) {
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2500);
+            }
+        }
+    }
+
+    @Test
+    public void shouldBoundWaitForSlowlyStreamedResponse() throws IOException {
+        try (Http2Transport transport = Http2Transport.builder()
+                .setTimeout(300, TimeUnit.MILLISECONDS)
+                .build()) {
+            long start = System.nanoTime();
+            try {
+                transport.execute(new HttpPost(serverUrl + "/trickle"));
+                fail("The request should time out");
+            } catch (SocketTimeoutException e) {
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2500);
+            }
+        }
+    }
+
+    @Test
+    public void shouldBoundWaitByTimeoutsOfRequest() {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(200))
+                .setResponseTimeout(Timeout.ofMilliseconds(800))
+                .build();
+
+        assertEquals(1300, Http2Transport.getMaxWaitMillis(requestConfig, 300));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTimeoutBelowMillisecond() {
+        Http2Transport.builder()
+                .setTimeout(500, TimeUnit.MICROSECONDS);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
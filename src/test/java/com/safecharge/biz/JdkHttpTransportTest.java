@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.safecharge.exception.SafechargeConfigurationException;
+import com.safecharge.model.Proxy;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link SafechargeTransport} of the Java 21 layer. The transport is only available when the tests run on Java 21
+ * against the multi-release jar, see the {@code test-java21} execution of the build, and the tests are skipped otherwise.
+ */
+public class JdkHttpTransportTest {
+
+    private static final String BODY = "{\"sessionToken\":\"token\"}";
+
+    private HttpServer server;
+    private String serverUrl;
+    private volatile String receivedUri;
+    private volatile String receivedKeepAlive;
+    private volatile String receivedAccept;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(RuntimeSupport.isJava21Supported());
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = readAll(exchange.getRequestBody());
+                receivedUri = exchange.getRequestURI()
+                        .toString();
+                receivedKeepAlive = exchange.getRequestHeaders()
+                        .getFirst("Keep-Alive");
+                receivedAccept = exchange.getRequestHeaders()
+                        .getFirst("Accept");
+                exchange.getResponseHeaders()
+                        .add("Content-Type", exchange.getRequestHeaders()
+                                .getFirst("Content-Type"));
+                exchange.sendResponseHeaders(201, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread()
+                            .interrupt();
+                }
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        serverUrl = "http://localhost:" + server.getAddress()
+                .getPort();
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void shouldSendRequestWithoutRestrictedHeaders() throws IOException {
+        try (SafechargeTransport transport = RuntimeSupport.createJdkHttpTransport(null, 30)) {
+            HttpPost httpPost = new HttpPost(serverUrl + "/echo");
+            httpPost.addHeader("Connection", "keep-alive");
+            httpPost.addHeader("Keep-Alive", "timeout=5");
+            httpPost.addHeader("Accept", "application/json");
+            httpPost.setEntity(new StringEntity(BODY, ContentType.APPLICATION_JSON));
+
+            HttpResponse response = transport.execute(httpPost);
+
+            assertEquals(201, response.getStatusLine()
+                    .getStatusCode());
+            assertEquals(1, response.getStatusLine()
+                    .getProtocolVersion()
+                    .getMajor());
+            assertTrue(response.getEntity()
+                    .getContentType()
+                    .getValue()
+                    .startsWith("application/json"));
+            assertEquals(BODY, EntityUtils.toString(response.getEntity()));
+            assertNull(receivedKeepAlive);
+            assertEquals("application/json", receivedAccept);
+        }
+    }
+
+    @Test
+    public void shouldUseDefaultSSLContextAndProtocols() throws Exception {
+        try (SafechargeTransport transport = RuntimeSupport.createJdkHttpTransport(null, 30)) {
+            // The tests are compiled against the baseline classes, which don't contain the transport
+            HttpClient httpClient = (HttpClient) transport.getClass()
+                    .getDeclaredMethod("getHttpClient")
+                    .invoke(transport);
+
+            assertSame(SafechargeClientBuilder.getDefaultSSLContext(), httpClient.sslContext());
+            assertArrayEquals(SafechargeClientBuilder.getSupportedSSLProtocols(SafechargeClientBuilder.getDefaultSSLContext()), httpClient.sslParameters()
+                    .getProtocols());
+        }
+    }
+
+    @Test
+    public void shouldSendThroughHttpProxy() throws IOException {
+        Proxy proxy = new Proxy("localhost", "http", server.getAddress()
+                .getPort());
+        try (SafechargeTransport transport = RuntimeSupport.createJdkHttpTransport(proxy, 30)) {
+            HttpPost httpPost = new HttpPost("http://safecharge.invalid/echo");
+            httpPost.setEntity(new StringEntity(BODY, ContentType.APPLICATION_JSON));
+
+            HttpResponse response = transport.execute(httpPost);
+
+            assertEquals(201, response.getStatusLine()
+                    .getStatusCode());
+            assertEquals("http://safecharge.invalid/echo", receivedUri);
+        }
+    }
+
+    @Test(expected = SafechargeConfigurationException.class)
+    public void shouldRejectNonHttpProxy() {
+        RuntimeSupport.createJdkHttpTransport(new Proxy("localhost", "socks", 1080), 30);
+    }
+
+    @Test
+    public void shouldTimeOut() throws IOException {
+        try (SafechargeTransport transport = RuntimeSupport.createJdkHttpTransport(null, 1)) {
+            long start = System.nanoTime();
+            try {
+                transport.execute(new HttpPost(serverUrl + "/slow"));
+                fail("The request should time out");
+            } catch (IOException e) {
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2500);
+            }
+        }
+    }
+
+    @Test
+    public void shouldApplyTimeoutOfEndpoint() throws IOException {
+        try (SafechargeTransport transport = RuntimeSupport.createJdkHttpTransport(null, 30)) {
+            HttpPost httpPost = new HttpPost(serverUrl + "/slow");
+            httpPost.setConfig(RequestConfig.custom()
+                    .setSocketTimeout(300)
+                    .build());
+            long start = System.nanoTime();
+            try {
+                transport.execute(httpPost);
+                fail("The request should time out");
+            } catch (IOException e) {
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2500);
+            }
+        }
+    }
+
+    @Test
+    public void shouldApplyConnectTimeoutOfEndpointAndRetryIt() throws IOException {
+        List<Socket> backlog = new ArrayList<>();
+        try (ServerSocket unresponsiveServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                SafechargeTransport transport = RuntimeSupport.createJdkHttpTransport(null, 30)) {
+            // the server never accepts, so once its backlog is full the connections are not established
+            for (int i = 0; i < 3; i++) {
+                Socket socket = new Socket();
+                backlog.add(socket);
+                try {
+                    socket.connect(unresponsiveServer.getLocalSocketAddress(), 200);
+                } catch (SocketTimeoutException e) {
+                    break;
+                }
+            }
+            HttpPost httpPost = new HttpPost("http://localhost:" + unresponsiveServer.getLocalPort() + "/slow");
+            httpPost.setConfig(RequestConfig.custom()
+                    .setConnectTimeout(300)
+                    .setSocketTimeout(30000)
+                    .build());
+            long start = System.nanoTime();
+            try {
+                transport.execute(httpPost);
+                fail("The request should time out");
+            } catch (ConnectTimeoutException e) {
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2500);
+                assertTrue(SafechargeRequestExecutor.isRetryable(e, EndpointPolicy.builder()
+                        .build()));
+            }
+        } finally {
+            for (Socket socket : backlog) {
+                socket.close();
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
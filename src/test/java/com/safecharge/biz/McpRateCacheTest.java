@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.safecharge.exception.SafechargeException;
+import com.safecharge.model.Rate;
+import com.safecharge.model.RateByCurrency;
+import com.safecharge.request.GetSessionTokenRequest;
+import com.safecharge.request.McpRatesRequest;
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.McpRatesResponse;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class McpRateCacheTest {
+
+    private static final List<String> PAYMENT_METHODS = Collections.singletonList("cc_card");
+
+    @Mock
+    private SafechargeRequestExecutor executor;
+
+    @InjectMocks
+    private Safecharge safecharge;
+
+    @Before
+    public void setUp() {
+        safecharge = new Safecharge();
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void shouldRequestRatesToAllCurrencies() throws SafechargeException {
+        SafechargeResponse sessionResponse = mock(SafechargeResponse.class);
+        when(sessionResponse.getSessionToken()).thenReturn("sessionToken");
+        when(executor.execute(any(GetSessionTokenRequest.class))).thenReturn(sessionResponse);
+        when(executor.execute(any(McpRatesRequest.class))).thenReturn(createResponse("2023-05-01 10:00:00", "1.1"));
+        safecharge.initialize("merchantKey", "id", "siteId", "localhost", Constants.HashAlgorithm.SHA256);
+
+        McpRateCache rateCache = new McpRateCache(safecharge, Collections.singletonList("EUR"), PAYMENT_METHODS, 1, TimeUnit.MINUTES);
+        assertEquals(new BigDecimal("11.000"), rateCache.convert(new BigDecimal("10.00"), "EUR", "USD", "cc_card"));
+
+        ArgumentCaptor<SafechargeBaseRequest> request = ArgumentCaptor.forClass(SafechargeBaseRequest.class);
+        verify(executor, times(2)).execute(request.capture());
+        McpRatesRequest mcpRatesRequest = (McpRatesRequest) request.getValue();
+        String json = SafechargeJsonCodec.getDefault()
+                .toJson(mcpRatesRequest);
+        // a toCurrency that isn't supplied requests the rates to all of the merchant site's currencies
+        assertFalse(json, json.contains("toCurrency"));
+        assertTrue(json, json.contains("\"fromCurrency\":\"EUR\""));
+        assertTrue(json, json.contains("\"paymentMethods\":[\"cc_card\"]"));
+    }
+
+    @Test
+    public void shouldRebuildTableOnlyWhenMcpTimestampChanges() throws SafechargeException {
+        Safecharge safecharge = mock(Safecharge.class);
+        when(safecharge.getMcpRates(isNull(String.class), isNull(String.class), eq("EUR"), isNull(List.class), eq(PAYMENT_METHODS))).thenReturn(
+                createResponse("2023-05-01 10:00:00", "1.1"), createResponse("2023-05-01 10:00:00", "1.2"), createResponse("2023-05-01 10:05:00", "1.3"));
+        McpRateCache rateCache = new McpRateCache(safecharge, Collections.singletonList("EUR"), PAYMENT_METHODS, 1, TimeUnit.MINUTES);
+
+        McpRateTable first = rateCache.getRateTable();
+        assertSame(first, rateCache.refresh());
+        McpRateTable changed = rateCache.refresh();
+
+        assertNotSame(first, changed);
+        assertEquals(new BigDecimal("11.000"), first.convert(new BigDecimal("10.00"), "EUR", "USD", "cc_card"));
+        assertEquals(new BigDecimal("13.000"), changed.convert(new BigDecimal("10.00"), "EUR", "USD", "cc_card"));
+        assertEquals("2023-05-01 10:05:00", changed.getMcpTimestamp("EUR"));
+        assertSame(changed, rateCache.getRateTable());
+    }
+
+    @Test
+    public void shouldKeepTableWhenRefreshFails() throws SafechargeException {
+        Safecharge safecharge = mock(Safecharge.class);
+        McpRatesResponse errorResponse = new McpRatesResponse();
+        errorResponse.setStatus(Constants.APIResponseStatus.ERROR);
+        errorResponse.setReason("Service unavailable");
+        when(safecharge.getMcpRates(isNull(String.class), isNull(String.class), eq("EUR"), isNull(List.class), eq(PAYMENT_METHODS))).thenReturn(
+                createResponse("2023-05-01 10:00:00", "1.1"), errorResponse);
+        McpRateCache rateCache = new McpRateCache(safecharge, Collections.singletonList("EUR"), PAYMENT_METHODS, 1, TimeUnit.MINUTES);
+        McpRateTable table = rateCache.getRateTable();
+
+        try {
+            rateCache.refresh();
+            fail("The refresh should fail");
+        } catch (SafechargeException e) {
+            assertEquals("Service unavailable", e.getMessage());
+        }
+
+        assertSame(table, rateCache.getRateTable());
+        assertEquals(new BigDecimal("11.000"), rateCache.convert(new BigDecimal("10.00"), "EUR", "USD", "cc_card"));
+    }
+
+    private static McpRatesResponse createResponse(String mcpTimestamp, String value) {
+        RateByCurrency rateByCurrency = new RateByCurrency();
+        rateByCurrency.setCurrency("USD");
+        rateByCurrency.setRate(value);
+        Rate rate = new Rate();
+        rate.setPaymentMethod("cc_card");
+        rate.setRatesByCurrencies(Arrays.asList(rateByCurrency));
+
+        McpRatesResponse response = new McpRatesResponse();
+        response.setStatus(Constants.APIResponseStatus.SUCCESS);
+        response.setMcpTimestamp(mcpTimestamp);
+        response.setRates(Arrays.asList(rate));
+        return response;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.safecharge.model.Rate;
+import com.safecharge.model.RateByCurrency;
+import com.safecharge.response.McpRatesResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class McpRateTableTest {
+
+    @Test
+    public void shouldConvertWithRatesOfPaymentMethod() {
+        McpRateTable rateTable = McpRateTable.builder()
+                .addRates("EUR", createResponse("2023-05-01 10:00:00", "cc_card", "USD", "1.1"))
+                .addRates("USD", createResponse("2023-05-01 10:00:01", "apmgw_expresscheckout", "EUR", "0.9"))
+                .build();
+
+        assertEquals(new BigDecimal("11.000"), rateTable.convert(new BigDecimal("10.00"), "EUR", "USD", "cc_card"));
+        assertEquals(new BigDecimal("9.000"), rateTable.convert(new BigDecimal("10.00"), "USD", "EUR", "apmgw_expresscheckout"));
+        assertEquals(new BigDecimal("10.00"), rateTable.convert(new BigDecimal("10.00"), "GBP", "GBP", "cc_card"));
+        assertEquals("2023-05-01 10:00:00", rateTable.getMcpTimestamp("EUR"));
+    }
+
+    @Test
+    public void shouldNotDeriveInverseRates() {
+        McpRateTable rateTable = McpRateTable.builder()
+                .addRates("EUR", createResponse("2023-05-01 10:00:00", "cc_card", "USD", "1.1"))
+                .build();
+
+        assertTrue(rateTable.hasRate("EUR", "USD", "cc_card"));
+        assertFalse(rateTable.hasRate("USD", "EUR", "cc_card"));
+        assertFalse(rateTable.hasRate("EUR", "USD", "apmgw_expresscheckout"));
+    }
+
+    @Test
+    public void shouldConvertWithExactRateOfResponse() {
+        McpRateTable rateTable = McpRateTable.builder()
+                .addRates("EUR", createResponse("2023-05-01 10:00:00", "cc_card", "USD", "1.12345678901234567890"))
+                .build();
+
+        assertEquals(new BigDecimal("1.12345678901234567890"), rateTable.getRate("EUR", "USD", "cc_card"));
+        assertEquals(new BigDecimal("11.2345678901234567890000"), rateTable.convert(new BigDecimal("10.00"), "EUR", "USD", "cc_card"));
+    }
+
+    @Test
+    public void shouldAddResponseWithoutRates() {
+        McpRatesResponse response = new McpRatesResponse();
+        response.setMcpTimestamp("2023-05-01 10:00:00");
+
+        McpRateTable rateTable = McpRateTable.builder()
+                .addRates("EUR", response)
+                .build();
+
+        assertNull(rateTable.getRate("EUR", "USD", "cc_card"));
+        assertEquals("2023-05-01 10:00:00", rateTable.getMcpTimestamp("EUR"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToConvertWithoutRate() {
+        McpRateTable.builder()
+                .build()
+                .convert(BigDecimal.ONE, "EUR", "USD", "cc_card");
+    }
+
+    private static McpRatesResponse createResponse(String mcpTimestamp, String paymentMethod, String currency, String value) {
+        RateByCurrency rateByCurrency = new RateByCurrency();
+        rateByCurrency.setCurrency(currency);
+        rateByCurrency.setRate(value);
+        Rate rate = new Rate();
+        rate.setPaymentMethod(paymentMethod);
+        rate.setRatesByCurrencies(Arrays.asList(rateByCurrency));
+
+        McpRatesResponse response = new McpRatesResponse();
+        response.setMcpTimestamp(mcpTimestamp);
+        response.setRates(Arrays.asList(rate));
+        return response;
+    }
+}
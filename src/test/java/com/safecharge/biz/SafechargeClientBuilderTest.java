@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.safecharge.biz.pool.AdaptiveConnectionManager;
+import com.safecharge.biz.pool.AdaptivePoolConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SafechargeClientBuilderTest {
+
+    private final RecordingSocketFactory sslSocketFactory = new RecordingSocketFactory();
+    private ServerSocket server;
+    private String serverUrl;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0);
+        // the connections are completed by the backlog of the server, which doesn't need to accept them
+        serverUrl = "https://localhost:" + server.getLocalPort() + "/ppp/";
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void shouldOpenPooledConnectionsWithSSLSocketFactoryOfBuilder() throws IOException {
+        SafechargeClientBuilder builder = SafechargeHttpClient.custom()
+                .setSSLSocketFactory(sslSocketFactory)
+                .setDefaultConnectionManager(10, 3);
+        builder.build();
+        PoolingHttpClientConnectionManager connectionManager = (PoolingHttpClientConnectionManager) builder.getConnectionManager();
+        try {
+            assertEquals(3, ConnectionPoolWarmer.warmUp(connectionManager, serverUrl, 5, 5000));
+            assertEquals(3, sslSocketFactory.connectCount.get());
+            assertEquals(3, connectionManager.getTotalStats()
+                    .getAvailable());
+
+            // only the missing connections are opened
+            assertEquals(0, ConnectionPoolWarmer.warmUp(connectionManager, serverUrl, 5, 5000));
+            assertEquals(3, sslSocketFactory.connectCount.get());
+        } finally {
+            connectionManager.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldOpenAdaptivelyPooledConnectionsWithSSLSocketFactoryOfBuilder() throws IOException {
+        SafechargeClientBuilder builder = SafechargeHttpClient.custom()
+                .setSSLSocketFactory(sslSocketFactory)
+                .setAdaptiveConnectionManager(AdaptivePoolConfig.builder()
+                        .build());
+        builder.build();
+        PoolingHttpClientConnectionManager connectionManager = (PoolingHttpClientConnectionManager) builder.getConnectionManager();
+        try {
+            assertTrue(connectionManager instanceof AdaptiveConnectionManager);
+            assertEquals(2, ConnectionPoolWarmer.warmUp(connectionManager, serverUrl, 2, 5000));
+            assertEquals(2, sslSocketFactory.connectCount.get());
+        } finally {
+            connectionManager.shutdown();
+        }
+    }
+
+    /**
+     * Opens plain sockets in place of TLS ones, counting them.
+     */
+    private static final class RecordingSocketFactory implements LayeredConnectionSocketFactory {
+
+        private final AtomicInteger connectCount = new AtomicInteger();
+
+        @Override
+        public Socket createSocket(HttpContext context) throws IOException {
+            return PlainConnectionSocketFactory.getSocketFactory()
+                    .createSocket(context);
+        }
+
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                InetSocketAddress localAddress, HttpContext context) throws IOException {
+            connectCount.incrementAndGet();
+            return PlainConnectionSocketFactory.getSocketFactory()
+                    .connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) {
+            return socket;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.safecharge.exception.SafechargeConfigurationException;
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.model.Proxy;
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the building and the closing of the {@link SafechargeClient}. Runs on Java 21 as well, see the {@code test-java21}
+ * execution of the build.
+ */
+public class SafechargeClientTest {
+
+    private static final MerchantInfo MERCHANT_INFO = new MerchantInfo("merchantKey", "479748173730597238", "180083",
+            "https://ppp-test.safecharge.com/ppp/", Constants.HashAlgorithm.SHA256);
+
+    private CloseableHttpClient httpClient;
+    private CloseableHttpAsyncClient httpAsyncClient;
+
+    @Before
+    public void setUp() {
+        httpClient = mock(CloseableHttpClient.class);
+        httpAsyncClient = mock(CloseableHttpAsyncClient.class);
+    }
+
+    @Test(expected = SafechargeConfigurationException.class)
+    public void shouldRequireMerchantInfo() {
+        SafechargeClient.builder()
+                .build();
+    }
+
+    @Test(expected = SafechargeConfigurationException.class)
+    public void shouldRejectJava21FeaturesOnOlderRuntime() {
+        Assume.assumeFalse(RuntimeSupport.isJava21Supported());
+
+        SafechargeClient.builder()
+                .setMerchantInfo(MERCHANT_INFO)
+                .setVirtualThreadsEnabled(true)
+                .build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldCloseSessionTokenPoolButNotClientsOfCaller() throws IOException {
+        SafechargeClient client = SafechargeClient.builder()
+                .setMerchantInfo(MERCHANT_INFO)
+                .setHttpClient(httpClient)
+                .setHttpAsyncClient(httpAsyncClient)
+                .setSessionTokenPoolSize(2)
+                .build();
+        verify(httpAsyncClient, times(2)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+
+        client.close();
+        client.getSessionTokenPool()
+                .refill();
+
+        verify(httpClient, never()).close();
+        verify(httpAsyncClient, never()).close();
+        verify(httpAsyncClient, times(2)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+    }
+
+    @Test
+    public void shouldCloseOwnClients() throws IOException {
+        SafechargeClient client = SafechargeClient.builder()
+                .setMerchantInfo(MERCHANT_INFO)
+                .build();
+        client.getHttpAsyncClient()
+                .start();
+
+        client.close();
+
+        assertFalse(client.getHttpAsyncClient()
+                .isRunning());
+        try {
+            client.warmUp(1);
+            fail("The connection pool should be shut down");
+        } catch (IllegalStateException e) {
+            assertEquals("Connection pool shut down", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldNotCreateHttp11ClientsReplacedByTransport() throws IOException {
+        try (SafechargeClient client = SafechargeClient.builder()
+                .setMerchantInfo(MERCHANT_INFO)
+                .setHttpTransport(Constants.HttpTransport.HTTP_2)
+                .build()) {
+            assertNull(client.getHttpClient());
+            assertNull(client.getHttpAsyncClient());
+            assertEquals(0, client.warmUp(1));
+        }
+    }
+
+    @Test
+    public void shouldNotCreateAsyncClientReplacedByVirtualThreads() throws IOException {
+        Assume.assumeTrue(RuntimeSupport.isJava21Supported());
+
+        try (SafechargeClient client = SafechargeClient.builder()
+                .setMerchantInfo(MERCHANT_INFO)
+                .setVirtualThreadsEnabled(true)
+                .build()) {
+            assertNotNull(client.getHttpClient());
+            assertNull(client.getHttpAsyncClient());
+        }
+    }
+
+    @Test
+    public void shouldBuildClientWhenWarmUpFails() throws IOException {
+        MerchantInfo merchantInfo = new MerchantInfo("merchantKey", "479748173730597238", "180083", "not a server host",
+                Constants.HashAlgorithm.SHA256);
+
+        try (SafechargeClient client = SafechargeClient.builder()
+                .setMerchantInfo(merchantInfo)
+                .setWarmUpConnections(2)
+                .build()) {
+            assertNotNull(client.getRequestExecutor());
+        }
+    }
+
+    @Test
+    public void shouldWarmUpMissingConnections() throws IOException {
+        try (ServerSocket server = new ServerSocket(0)) {
+            MerchantInfo merchantInfo = new MerchantInfo("merchantKey", "479748173730597238", "180083",
+                    "http://localhost:" + server.getLocalPort() + "/ppp/", Constants.HashAlgorithm.SHA256);
+
+            try (SafechargeClient client = SafechargeClient.builder()
+                    .setMerchantInfo(merchantInfo)
+                    .setConnectionPoolLimits(10, 3)
+                    .setWarmUpConnections(2)
+                    .build()) {
+                assertEquals(1, client.warmUp(3));
+                assertEquals(0, client.warmUp(3));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotWarmUpOwnHttpClient() throws IOException {
+        try (SafechargeClient client = SafechargeClient.builder()
+                .setMerchantInfo(MERCHANT_INFO)
+                .setHttpClient(httpClient)
+                .setHttpAsyncClient(httpAsyncClient)
+                .build()) {
+            assertEquals(0, client.warmUp(2));
+        }
+    }
+
+    @Test
+    public void shouldNotCloseClientsOfCallerWhenBuildFails() throws IOException {
+        Assume.assumeTrue(RuntimeSupport.isJava21Supported());
+
+        try {
+            SafechargeClient.builder()
+                    .setMerchantInfo(MERCHANT_INFO)
+                    .setHttpClient(httpClient)
+                    .setHttpAsyncClient(httpAsyncClient)
+                    .setHttpTransport(Constants.HttpTransport.JDK_HTTP_CLIENT)
+                    .setProxy(new Proxy("localhost", "socks", 1080))
+                    .build();
+            fail("The JDK HTTP client transport doesn't support SOCKS proxies");
+        } catch (SafechargeConfigurationException e) {
+            assertEquals(0, e.getSuppressed().length);
+        }
+
+        verify(httpClient, never()).close();
+        verify(httpAsyncClient, never()).close();
+    }
+}
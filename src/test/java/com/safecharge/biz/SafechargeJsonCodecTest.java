@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.safecharge.json.GeneratedTypeAdapter;
+import com.safecharge.request.GetPaymentStatusRequest;
+import com.safecharge.response.GetPaymentStatusResponse;
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SafechargeJsonCodecTest {
+
+    @Test
+    public void shouldResolveAdaptersOfApiTypesWhenCreated() {
+        RecordingTypeAdapterFactory factory = new RecordingTypeAdapterFactory();
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(factory)
+                .create();
+
+        SafechargeJsonCodec codec = new SafechargeJsonCodec(gson, SafechargeRequestExecutor.getApiTypes());
+
+        assertFalse(SafechargeRequestExecutor.getApiTypes()
+                .isEmpty());
+        assertTrue(factory.requestedTypes.containsAll(SafechargeRequestExecutor.getApiTypes()));
+        assertSame(gson, codec.getGson());
+
+        factory.requestedTypes.clear();
+        codec.toJson(new GetPaymentStatusRequest());
+        codec.fromJson("{}", GetPaymentStatusResponse.class);
+        assertTrue(factory.requestedTypes.isEmpty());
+    }
+
+    @Test
+    public void shouldUseGeneratedAdaptersByDefault() {
+        SafechargeJsonCodec codec = SafechargeJsonCodec.getDefault();
+
+        assertSame(codec, SafechargeJsonCodec.getDefault());
+        for (Class<?> type : SafechargeRequestExecutor.getApiTypes()) {
+            assertTrue(type.getName(), codec.getGson()
+                    .getAdapter(type) instanceof GeneratedTypeAdapter);
+        }
+    }
+
+    @Test
+    public void shouldWriteAndReadLikeStringMethods() throws Exception {
+        SafechargeJsonCodec codec = SafechargeJsonCodec.getDefault();
+        GetPaymentStatusRequest request = new GetPaymentStatusRequest();
+        request.setSessionToken("token");
+        String json = "{\"status\":\"SUCCESS\",\"sessionToken\":\"token\"}";
+
+        StringWriter writer = new StringWriter();
+        codec.writeJson(request, writer);
+
+        assertEquals(codec.toJson(request), writer.toString());
+        GetPaymentStatusResponse response = codec.fromJson(new StringReader(json), GetPaymentStatusResponse.class);
+        assertEquals(Constants.APIResponseStatus.SUCCESS, response.getStatus());
+        assertEquals(codec.fromJson(json, GetPaymentStatusResponse.class)
+                .getSessionToken(), response.getSessionToken());
+    }
+
+    private static class RecordingTypeAdapterFactory implements TypeAdapterFactory {
+
+        private final Set<Class<?>> requestedTypes = new HashSet<>();
+
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            requestedTypes.add(type.getRawType());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.safecharge.request.GetPaymentStatusRequest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SafechargeJsonEntityTest {
+
+    private final SafechargeJsonCodec codec = SafechargeJsonCodec.getDefault();
+
+    @Test
+    public void shouldHaveExactContentLength() throws IOException {
+        GetPaymentStatusRequest request = createRequest("tökén-€");
+        byte[] expected = codec.toJson(request)
+                .getBytes(StandardCharsets.UTF_8);
+
+        SafechargeJsonEntity entity = SafechargeJsonEntity.create(codec, request);
+        try {
+            assertEquals(expected.length, entity.getContentLength());
+            assertArrayEquals(expected, toByteArray(entity));
+            assertEquals("application/json; charset=UTF-8", entity.getContentType()
+                    .getValue());
+        } finally {
+            entity.release();
+        }
+    }
+
+    @Test
+    public void shouldBeRepeatable() throws IOException {
+        SafechargeJsonEntity entity = SafechargeJsonEntity.create(codec, createRequest("token"));
+        try {
+            assertTrue(entity.isRepeatable());
+            assertFalse(entity.isStreaming());
+
+            byte[] first = toByteArray(entity);
+            assertArrayEquals(first, toByteArray(entity));
+            assertArrayEquals(first, readAll(entity.getContent()));
+            assertArrayEquals(first, readAll(entity.getContent()));
+        } finally {
+            entity.release();
+        }
+    }
+
+    @Test
+    public void shouldReuseReleasedBufferOfThread() throws IOException {
+        SafechargeJsonEntity first = SafechargeJsonEntity.create(codec, createRequest("first"));
+        first.release();
+        assertTrue(first.isReleased());
+
+        SafechargeJsonEntity second = SafechargeJsonEntity.create(codec, createRequest("second"));
+        try {
+            assertTrue(second.sharesBufferWith(first));
+            assertFalse(second.isReleased());
+            assertEquals(codec.toJson(createRequest("second")), second.getContentAsString());
+        } finally {
+            second.release();
+        }
+    }
+
+    @Test
+    public void shouldNotShareBufferInUse() throws IOException {
+        SafechargeJsonEntity first = SafechargeJsonEntity.create(codec, createRequest("first"));
+        SafechargeJsonEntity second = SafechargeJsonEntity.create(codec, createRequest("second"));
+        try {
+            assertFalse(second.sharesBufferWith(first));
+            assertEquals(codec.toJson(createRequest("first")), first.getContentAsString());
+            assertEquals(codec.toJson(createRequest("second")), second.getContentAsString());
+        } finally {
+            second.release();
+            first.release();
+        }
+    }
+
+    @Test
+    public void shouldNotRetainLargeBuffer() throws IOException {
+        char[] token = new char[300 * 1024];
+        Arrays.fill(token, 'a');
+        SafechargeJsonEntity large = SafechargeJsonEntity.create(codec, createRequest(new String(token)));
+        large.release();
+        assertTrue(large.isReleased());
+
+        SafechargeJsonEntity next = SafechargeJsonEntity.create(codec, createRequest("next"));
+        try {
+            assertFalse(next.sharesBufferWith(large));
+        } finally {
+            next.release();
+        }
+    }
+
+    @Test
+    public void shouldCopyIntoByteArrayEntityAndRelease() throws IOException {
+        GetPaymentStatusRequest request = createRequest("token");
+        SafechargeJsonEntity entity = SafechargeJsonEntity.create(codec, request);
+
+        HttpEntity copy = entity.toByteArrayEntity();
+
+        assertTrue(entity.isReleased());
+        assertEquals(codec.toJson(request), EntityUtils.toString(copy));
+        SafechargeJsonEntity next = SafechargeJsonEntity.create(codec, createRequest("other"));
+        try {
+            assertTrue(next.sharesBufferWith(entity));
+            assertEquals(codec.toJson(request), EntityUtils.toString(copy));
+        } finally {
+            next.release();
+        }
+    }
+
+    @Test
+    public void shouldReleaseBufferWhenSerializationFails() throws IOException {
+        SafechargeJsonCodec failingCodec = new SafechargeJsonCodec(new GsonBuilder().registerTypeAdapter(GetPaymentStatusRequest.class,
+                new TypeAdapter<GetPaymentStatusRequest>() {
+                    @Override
+                    public void write(JsonWriter out, GetPaymentStatusRequest value) throws IOException {
+                        out.beginObject()
+                                .name("partial")
+                                .value("content");
+                        throw new IllegalStateException("serialization failed");
+                    }
+
+                    @Override
+                    public GetPaymentStatusRequest read(JsonReader in) {
+                        throw new UnsupportedOperationException();
+                    }
+                })
+                .create(), SafechargeRequestExecutor.getApiTypes());
+        try {
+            SafechargeJsonEntity.create(failingCodec, createRequest("token"));
+            fail("The serialization should fail");
+        } catch (IllegalStateException e) {
+            assertEquals("serialization failed", e.getMessage());
+        }
+
+        GetPaymentStatusRequest request = createRequest("next");
+        SafechargeJsonEntity next = SafechargeJsonEntity.create(codec, request);
+        try {
+            assertEquals(codec.toJson(request), next.getContentAsString());
+        } finally {
+            next.release();
+        }
+    }
+
+    private static GetPaymentStatusRequest createRequest(String sessionToken) {
+        GetPaymentStatusRequest request = new GetPaymentStatusRequest();
+        request.setSessionToken(sessionToken);
+        return request;
+    }
+
+    private static byte[] toByteArray(HttpEntity entity) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,603 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.safecharge.exception.SafechargeException;
+import com.safecharge.model.Proxy;
+import com.safecharge.request.CardDetailsRequest;
+import com.safecharge.request.GetOrderDetailsRequest;
+import com.safecharge.request.GetPaymentStatusRequest;
+import com.safecharge.request.PaymentRequest;
+import com.safecharge.response.GetPaymentStatusResponse;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.APIConstants;
+import com.safecharge.util.Constants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class SafechargeRequestExecutorTest {
+
+    private static final String SERVER_URL = "https://ppp-test.safecharge.com/ppp/";
+    private static final String UNICODE_RESPONSE = "{\"status\":\"SUCCESS\",\"reason\":\"Übersicht €\"}";
+    private static final String SUCCESS_RESPONSE = "{\"status\":\"SUCCESS\",\"transactionStatus\":\"APPROVED\"}";
+
+    private final HttpHost proxy = new HttpHost("proxy.example.com", 8080);
+    private CloseableHttpClient httpClient;
+    private SafechargeRequestExecutor executor;
+    private HttpServer server;
+    private CloseableHttpAsyncClient httpAsyncClient;
+    private volatile String receivedUri;
+
+    @Before
+    public void setUp() throws IOException {
+        httpClient = mock(CloseableHttpClient.class, withSettings().extraInterfaces(Configurable.class));
+        when(((Configurable) httpClient).getConfig()).thenReturn(RequestConfig.custom()
+                .setProxy(proxy)
+                .setRedirectsEnabled(false)
+                .setSocketTimeout(30000)
+                .build());
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        when(response.getEntity()).thenReturn(new StringEntity("{}", ContentType.APPLICATION_JSON));
+        when(httpClient.execute(any(HttpPost.class))).thenReturn(response);
+
+        executor = new SafechargeRequestExecutor(httpClient, null, null, Constants.ResponseJsonRetention.STRING);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (httpAsyncClient != null) {
+            httpAsyncClient.close();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void shouldDeriveEndpointTimeoutsFromClientConfig() throws IOException {
+        executor.executeJsonRequest("{}", SERVER_URL + "getCardDetails.do", CardDetailsRequest.class);
+
+        RequestConfig requestConfig = sentHttpPost().getConfig();
+        assertEquals(proxy, requestConfig.getProxy());
+        assertFalse(requestConfig.isRedirectsEnabled());
+        assertEquals(5000, requestConfig.getSocketTimeout());
+    }
+
+    @Test
+    public void shouldUseClientConfigForEndpointsWithoutTimeouts() throws IOException {
+        executor.executeJsonRequest("{}", SERVER_URL + "payment.do", PaymentRequest.class);
+
+        assertNull(sentHttpPost().getConfig());
+    }
+
+    @Test
+    public void shouldRetainJsonAsString() throws Exception {
+        SafechargeResponse response = executeWithRetention(Constants.ResponseJsonRetention.STRING, UNICODE_RESPONSE, ContentType.APPLICATION_JSON);
+
+        assertEquals(Constants.APIResponseStatus.SUCCESS, response.getStatus());
+        assertEquals(UNICODE_RESPONSE, response.getJson());
+        assertSame(response.getJson(), response.getJson());
+    }
+
+    @Test
+    public void shouldNotRetainJson() throws Exception {
+        SafechargeResponse response = executeWithRetention(Constants.ResponseJsonRetention.NONE, UNICODE_RESPONSE, ContentType.APPLICATION_JSON);
+
+        assertEquals(Constants.APIResponseStatus.SUCCESS, response.getStatus());
+        assertEquals("Übersicht €", response.getReason());
+        assertNull(response.getJson());
+    }
+
+    @Test
+    public void shouldRetainJsonBytesUntilFirstAccess() throws Exception {
+        SafechargeResponse response = executeWithRetention(Constants.ResponseJsonRetention.LAZY, UNICODE_RESPONSE, ContentType.APPLICATION_JSON);
+
+        assertEquals("Übersicht €", response.getReason());
+        String json = response.getJson();
+        assertEquals(UNICODE_RESPONSE, json);
+        assertSame(json, response.getJson());
+    }
+
+    @Test
+    public void shouldRetainJsonBytes() throws Exception {
+        SafechargeResponse response = executeWithRetention(Constants.ResponseJsonRetention.BYTES, UNICODE_RESPONSE, ContentType.APPLICATION_JSON);
+
+        assertEquals("Übersicht €", response.getReason());
+        String json = response.getJson();
+        assertEquals(UNICODE_RESPONSE, json);
+        assertEquals(json, response.getJson());
+        assertNotSame(json, response.getJson());
+    }
+
+    @Test
+    public void shouldReencodeJsonBytesOfOtherCharset() throws Exception {
+        String latin1Response = "{\"status\":\"SUCCESS\",\"reason\":\"Übersicht\"}";
+        for (Constants.ResponseJsonRetention jsonRetention : Constants.ResponseJsonRetention.values()) {
+            SafechargeResponse response = executeWithRetention(jsonRetention, latin1Response,
+                    ContentType.create("application/json", StandardCharsets.ISO_8859_1));
+
+            assertEquals(jsonRetention.name(), "Übersicht", response.getReason());
+            if (jsonRetention != Constants.ResponseJsonRetention.NONE) {
+                assertEquals(jsonRetention.name(), latin1Response, response.getJson());
+            }
+        }
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentIdenticalReads() throws Exception {
+        BlockingTransport transport = new BlockingTransport();
+        List<Future<SafechargeResponse>> responses = executeConcurrently(transport, 8);
+
+        transport.release.countDown();
+
+        SafechargeResponse response = responses.get(0)
+                .get(10, TimeUnit.SECONDS);
+        assertEquals(Constants.APIResponseStatus.SUCCESS, response.getStatus());
+        for (Future<SafechargeResponse> otherResponse : responses) {
+            assertSame(response, otherResponse.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, transport.sentCount.get());
+
+        executor.execute(createOrderDetailsRequest());
+        assertEquals(2, transport.sentCount.get());
+    }
+
+    @Test
+    public void shouldFailAllCoalescedReads() throws Exception {
+        BlockingTransport transport = new BlockingTransport();
+        transport.failure = new IOException("Upstream failed");
+        List<Future<SafechargeResponse>> responses = executeConcurrently(transport, 8);
+
+        transport.release.countDown();
+
+        for (Future<SafechargeResponse> response : responses) {
+            try {
+                response.get(10, TimeUnit.SECONDS);
+                fail("The request should fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SafechargeException);
+                assertEquals("Upstream failed", e.getCause()
+                        .getMessage());
+            }
+        }
+        assertEquals(1, transport.sentCount.get());
+    }
+
+    @Test
+    public void shouldFailAllCoalescedReadsWithError() throws Exception {
+        BlockingTransport transport = new BlockingTransport();
+        transport.error = new AssertionError("Broken transport");
+        List<Future<SafechargeResponse>> responses = executeConcurrently(transport, 4);
+
+        transport.release.countDown();
+
+        for (Future<SafechargeResponse> response : responses) {
+            try {
+                response.get(10, TimeUnit.SECONDS);
+                fail("The request should fail");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof SafechargeException ? e.getCause()
+                        .getCause() : e.getCause();
+                assertSame(transport.error, cause);
+            }
+        }
+        assertEquals(1, transport.sentCount.get());
+    }
+
+    @Test
+    public void shouldNotCoalesceWithReadFailedToSend() throws Exception {
+        BlockingTransport transport = new BlockingTransport() {
+
+            private final AtomicInteger asyncCount = new AtomicInteger();
+
+            @Override
+            public void execute(HttpPost httpPost, FutureCallback<HttpResponse> callback) {
+                if (asyncCount.incrementAndGet() == 1) {
+                    throw new IllegalStateException("I/O reactor has been shut down");
+                }
+                super.execute(httpPost, callback);
+            }
+        };
+        transport.release.countDown();
+        executor.setTransport(transport);
+        executor.setReadCoalescingEnabled(true);
+
+        CompletableFuture<SafechargeResponse> failed = executor.executeAsync(createOrderDetailsRequest());
+
+        try {
+            failed.get(10, TimeUnit.SECONDS);
+            fail("The request should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SafechargeException);
+            assertEquals("I/O reactor has been shut down", e.getCause()
+                    .getMessage());
+        }
+        assertEquals(Constants.APIResponseStatus.SUCCESS, executor.execute(createOrderDetailsRequest())
+                .getStatus());
+        CompletableFuture<SafechargeResponse> next = executor.executeAsync(createOrderDetailsRequest());
+        transport.callbacks.get(0)
+                .completed(createOrderDetailsResponse());
+        assertEquals(Constants.APIResponseStatus.SUCCESS, next.get(10, TimeUnit.SECONDS)
+                .getStatus());
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentIdenticalAsyncReads() throws Exception {
+        BlockingTransport transport = new BlockingTransport();
+        executor.setTransport(transport);
+        executor.setReadCoalescingEnabled(true);
+
+        CompletableFuture<SafechargeResponse> cancelled = executor.executeAsync(createOrderDetailsRequest());
+        CompletableFuture<SafechargeResponse> first = executor.executeAsync(createOrderDetailsRequest());
+        CompletableFuture<SafechargeResponse> second = executor.executeAsync(createOrderDetailsRequest());
+        assertEquals(1, transport.sentCount.get());
+
+        assertTrue(cancelled.cancel(true));
+        assertFalse(first.isDone());
+        transport.callbacks.get(0)
+                .completed(createOrderDetailsResponse());
+
+        assertTrue(cancelled.isCancelled());
+        assertEquals(Constants.APIResponseStatus.SUCCESS, first.get(10, TimeUnit.SECONDS)
+                .getStatus());
+        assertSame(first.get(), second.get(10, TimeUnit.SECONDS));
+        assertEquals(1, transport.sentCount.get());
+    }
+
+    @Test
+    public void shouldFailAllCoalescedAsyncReads() throws Exception {
+        BlockingTransport transport = new BlockingTransport();
+        executor.setTransport(transport);
+        executor.setReadCoalescingEnabled(true);
+
+        CompletableFuture<SafechargeResponse> first = executor.executeAsync(createOrderDetailsRequest());
+        CompletableFuture<SafechargeResponse> second = executor.executeAsync(createOrderDetailsRequest());
+        transport.callbacks.get(0)
+                .failed(new IOException("Upstream failed"));
+
+        for (CompletableFuture<SafechargeResponse> response : Arrays.asList(first, second)) {
+            try {
+                response.get(10, TimeUnit.SECONDS);
+                fail("The request should fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SafechargeException);
+                assertEquals("Upstream failed", e.getCause()
+                        .getMessage());
+            }
+        }
+        assertEquals(1, transport.sentCount.get());
+
+        executor.executeAsync(createOrderDetailsRequest());
+        assertEquals(2, transport.sentCount.get());
+    }
+
+    @Test
+    public void shouldExecuteAsyncWithAsyncClient() throws Exception {
+        String serverUrl = startServer();
+        SafechargeRequestExecutor asyncExecutor = createAsyncExecutor(null);
+
+        SafechargeResponse response = asyncExecutor.executeAsync(createRequest(serverUrl))
+                .get(10, TimeUnit.SECONDS);
+
+        assertTrue(response instanceof GetPaymentStatusResponse);
+        assertEquals(Constants.APIResponseStatus.SUCCESS, response.getStatus());
+        assertEquals(SUCCESS_RESPONSE, response.getJson());
+    }
+
+    @Test
+    public void shouldExecuteAsyncThroughProxy() throws Exception {
+        String serverUrl = startServer();
+        Proxy proxy = new Proxy("localhost", "http", server.getAddress()
+                .getPort());
+        SafechargeRequestExecutor asyncExecutor = createAsyncExecutor(proxy);
+
+        SafechargeResponse response = asyncExecutor.executeAsync(createRequest("http://safecharge.invalid/ppp/"))
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(Constants.APIResponseStatus.SUCCESS, response.getStatus());
+        assertEquals("http://safecharge.invalid/ppp/" + APIConstants.GET_PAYMENT_STATUS_URL, receivedUri);
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenAsyncRequestFails() throws Exception {
+        String serverUrl = startServer();
+        server.stop(0);
+        server = null;
+        SafechargeRequestExecutor asyncExecutor = createAsyncExecutor(null);
+
+        CompletableFuture<SafechargeResponse> response = asyncExecutor.executeAsync(createRequest(serverUrl));
+
+        try {
+            response.get(10, TimeUnit.SECONDS);
+            fail("The request should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SafechargeException);
+            assertTrue(e.getCause()
+                    .getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void shouldCancelAsyncRequestCancelledByClient() {
+        executor.setTransport(new TestTransport() {
+            @Override
+            public void execute(HttpPost httpPost, FutureCallback<HttpResponse> callback) {
+                callback.cancelled();
+            }
+        });
+
+        CompletableFuture<SafechargeResponse> response = executor.executeAsync(createRequest(SERVER_URL));
+
+        assertTrue(response.isCancelled());
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenAsyncRequestCannotBeCreated() throws Exception {
+        executor.setTransport(new BlockingTransport());
+
+        assertFailure(executor.executeAsync(createRequest("http://bad host/")), IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenAsyncRequestCannotBeSent() throws Exception {
+        executor.setTransport(new TestTransport() {
+            @Override
+            public void execute(HttpPost httpPost, FutureCallback<HttpResponse> callback) {
+                throw new IllegalStateException("I/O reactor has been shut down");
+            }
+        });
+
+        assertFailure(executor.executeAsync(createRequest(SERVER_URL)), IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenAsyncRetryCannotBeSent() throws Exception {
+        final AtomicInteger sentCount = new AtomicInteger();
+        executor.setTransport(new TestTransport() {
+            @Override
+            public void execute(HttpPost httpPost, FutureCallback<HttpResponse> callback) {
+                if (sentCount.incrementAndGet() > 1) {
+                    throw new IllegalStateException("I/O reactor has been shut down");
+                }
+                callback.failed(new ConnectException("Connection refused"));
+            }
+        });
+
+        assertFailure(executor.executeAsync(createRequest(SERVER_URL)), IllegalStateException.class);
+        assertEquals(2, sentCount.get());
+    }
+
+    private static void assertFailure(CompletableFuture<SafechargeResponse> response, Class<? extends Exception> cause) throws Exception {
+        try {
+            response.get(10, TimeUnit.SECONDS);
+            fail("The request should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SafechargeException);
+            assertTrue(String.valueOf(e.getCause()
+                    .getCause()), cause.isInstance(e.getCause()
+                    .getCause()));
+        }
+    }
+
+    private SafechargeResponse executeWithRetention(Constants.ResponseJsonRetention jsonRetention, String json,
+            ContentType contentType) throws Exception {
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        when(response.getEntity()).thenReturn(new ByteArrayEntity(json.getBytes(contentType.getCharset()), contentType));
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpClient.execute(any(HttpPost.class))).thenReturn(response);
+
+        return new SafechargeRequestExecutor(httpClient, null, null, jsonRetention).execute(createRequest(SERVER_URL));
+    }
+
+    /**
+     * Executes identical reads on separate threads and returns once all of them are waiting, either for the transport or for
+     * the read in flight.
+     */
+    private List<Future<SafechargeResponse>> executeConcurrently(BlockingTransport transport, int count) throws InterruptedException {
+        executor.setTransport(transport);
+        executor.setReadCoalescingEnabled(true);
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        ExecutorService threadPool = Executors.newFixedThreadPool(count, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                threads.add(thread);
+                return thread;
+            }
+        });
+
+        final CountDownLatch started = new CountDownLatch(count);
+        List<Future<SafechargeResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            responses.add(threadPool.submit(new Callable<SafechargeResponse>() {
+                @Override
+                public SafechargeResponse call() throws SafechargeException {
+                    started.countDown();
+                    return executor.execute(createOrderDetailsRequest());
+                }
+            }));
+        }
+        threadPool.shutdown();
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!areWaiting(threads)) {
+            assertTrue("The requests should be waiting", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+        return responses;
+    }
+
+    private static boolean areWaiting(List<Thread> threads) {
+        for (Thread thread : threads) {
+            if (thread.getState() != Thread.State.WAITING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static GetOrderDetailsRequest createOrderDetailsRequest() {
+        GetOrderDetailsRequest request = new GetOrderDetailsRequest();
+        request.setMerchantSiteId("180083");
+        request.setOrderId("271828");
+        request.setSessionToken("token");
+        request.setServerHost(SERVER_URL);
+        return request;
+    }
+
+    private static HttpResponse createOrderDetailsResponse() {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new StringEntity(SUCCESS_RESPONSE, ContentType.APPLICATION_JSON));
+        return response;
+    }
+
+    private String startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                receivedUri = exchange.getRequestURI()
+                        .toString();
+                byte[] body = SUCCESS_RESPONSE.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders()
+                        .add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+        return "http://localhost:" + server.getAddress()
+                .getPort() + "/ppp/";
+    }
+
+    private SafechargeRequestExecutor createAsyncExecutor(Proxy proxy) {
+        httpAsyncClient = new SafechargeAsyncClientBuilder().setProxy(proxy)
+                .setDefaultRequestConfig()
+                .setDefaultIOReactorConfig()
+                .setConnectionPoolLimits(4, 2)
+                .build();
+        return new SafechargeRequestExecutor(mock(CloseableHttpClient.class), httpAsyncClient, null);
+    }
+
+    private static GetPaymentStatusRequest createRequest(String serverUrl) {
+        GetPaymentStatusRequest request = new GetPaymentStatusRequest();
+        request.setServerHost(serverUrl);
+        return request;
+    }
+
+    private HttpPost sentHttpPost() throws IOException {
+        ArgumentCaptor<HttpPost> httpPost = ArgumentCaptor.forClass(HttpPost.class);
+        verify(httpClient).execute(httpPost.capture());
+        return httpPost.getValue();
+    }
+
+    /**
+     * Blocks the requests until released and keeps the callbacks of the asynchronous ones to be completed by the test.
+     */
+    private static class BlockingTransport extends TestTransport {
+
+        private final AtomicInteger sentCount = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<FutureCallback<HttpResponse>> callbacks = new CopyOnWriteArrayList<>();
+        private volatile IOException failure;
+        private volatile Error error;
+
+        @Override
+        public HttpResponse execute(HttpPost httpPost) throws IOException {
+            sentCount.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (error != null) {
+                throw error;
+            }
+            return createOrderDetailsResponse();
+        }
+
+        @Override
+        public void execute(HttpPost httpPost, FutureCallback<HttpResponse> callback) {
+            sentCount.incrementAndGet();
+            callbacks.add(callback);
+        }
+    }
+
+    private abstract static class TestTransport implements SafechargeTransport {
+
+        @Override
+        public HttpResponse execute(HttpPost httpPost) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -6,6 +6,10 @@
 
 package com.safecharge.biz;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import javax.validation.ConstraintViolationException;
 
 import org.junit.Before;
@@ -16,7 +20,11 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import com.safecharge.biz.cache.CacheConfig;
+import com.safecharge.biz.cache.RefreshingCache;
 import com.safecharge.exception.SafechargeConfigurationException;
 import com.safecharge.exception.SafechargeException;
 import com.safecharge.model.CardData;
@@ -25,6 +33,7 @@ import com.safecharge.request.AccountCaptureRequest;
 import com.safecharge.request.Authorize3dRequest;
 import com.safecharge.request.CardDetailsRequest;
 import com.safecharge.request.DccDetailsRequest;
+import com.safecharge.request.GetMerchantPaymentMethodsRequest;
 import com.safecharge.request.GetPaymentStatusRequest;
 import com.safecharge.request.GetSessionTokenRequest;
 import com.safecharge.request.InitPaymentRequest;
@@ -39,6 +48,7 @@ import com.safecharge.response.AccountCaptureResponse;
 import com.safecharge.response.Authorize3dResponse;
 import com.safecharge.response.CardDetailsResponse;
 import com.safecharge.response.DccDetailsResponse;
+import com.safecharge.response.GetMerchantPaymentMethodsResponse;
 import com.safecharge.response.GetPaymentStatusResponse;
 import com.safecharge.response.InitPaymentResponse;
 import com.safecharge.response.McpRatesResponse;
@@ -52,7 +62,10 @@ import com.safecharge.response.VoidTransactionResponse;
 import com.safecharge.util.Constants;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -231,6 +244,37 @@ public class SafechargeTest {
         assertNotNull(response);
     }
 
+    @Test
+    public void shouldQueryPaymentStatusInSessionOfPaymentWithoutReplay() throws SafechargeException {
+        SafechargeResponse sessionResponse = mock(SafechargeResponse.class);
+        when(sessionResponse.getSessionToken()).thenReturn("newSessionToken");
+        final GetPaymentStatusResponse expiredSessionResponse = new GetPaymentStatusResponse();
+        expiredSessionResponse.setStatus(Constants.APIResponseStatus.ERROR);
+        expiredSessionResponse.setErrorType(Constants.ErrorType.SESSION_EXPIRED);
+        final List<String> sentSessionTokens = new ArrayList<>();
+
+        when(executor.execute(any(GetSessionTokenRequest.class))).thenReturn(sessionResponse);
+        when(executor.execute(any(GetPaymentStatusRequest.class))).thenAnswer(new Answer<SafechargeResponse>() {
+            @Override
+            public SafechargeResponse answer(InvocationOnMock invocation) {
+                GetPaymentStatusRequest request = invocation.getArgument(0);
+                sentSessionTokens.add(request.getSessionToken());
+                return expiredSessionResponse;
+            }
+        });
+
+        sut.initialize("merchantKey", "id", "siteId", "localhost", Constants.HashAlgorithm.SHA256);
+        GetPaymentStatusResponse response = sut.getPaymentStatus("paymentSessionToken");
+
+        assertSame(expiredSessionResponse, response);
+        assertEquals(Arrays.asList("paymentSessionToken"), sentSessionTokens);
+        verify(executor, times(1)).execute(any(GetSessionTokenRequest.class));
+
+        sut.getPaymentStatus();
+        assertEquals(Arrays.asList("paymentSessionToken", "newSessionToken"), sentSessionTokens);
+        verify(executor, times(1)).execute(any(GetSessionTokenRequest.class));
+    }
+
     @Test
     public void shouldThrowExceptionWhenGetPaymentStatusRequestIsExecutedWithoutInitializeRequstBeforehand() throws SafechargeException {
         exception.expect(SafechargeConfigurationException.class);
@@ -444,6 +488,38 @@ public class SafechargeTest {
         assertNotNull(response);
     }
 
+    @Test
+    public void shouldReplayRequestWithNewSessionTokenWhenSessionExpired() throws SafechargeException {
+        SafechargeResponse sessionResponse = mock(SafechargeResponse.class);
+        when(sessionResponse.getSessionToken()).thenReturn("sessionToken", "newSessionToken");
+
+        final SafechargeResponse expiredSessionResponse = new CardDetailsResponse();
+        expiredSessionResponse.setStatus(Constants.APIResponseStatus.ERROR);
+        expiredSessionResponse.setErrorType(Constants.ErrorType.SESSION_EXPIRED);
+        final SafechargeResponse getCardDetailsResponse = new CardDetailsResponse();
+        final List<String> sentRequests = new ArrayList<>();
+
+        when(executor.execute(any(GetSessionTokenRequest.class))).thenReturn(sessionResponse);
+        when(executor.execute(any(CardDetailsRequest.class))).thenAnswer(new Answer<SafechargeResponse>() {
+            @Override
+            public SafechargeResponse answer(InvocationOnMock invocation) {
+                CardDetailsRequest request = invocation.getArgument(0);
+                sentRequests.add(request.getSessionToken() + "@" + request.getServerHost());
+                request.setServerHost(null);
+                return sentRequests.size() == 1 ? expiredSessionResponse : getCardDetailsResponse;
+            }
+        });
+
+        sut.initialize("merchantKey", "id", "siteId", "localhost", Constants.HashAlgorithm.SHA256);
+        CardDetailsResponse response = sut.getCardDetails(null, null, "123456");
+
+        verify(executor, times(2)).execute(any(GetSessionTokenRequest.class));
+        verify(executor, times(2)).execute(any(CardDetailsRequest.class));
+        verifyNoMoreInteractions(executor);
+        assertEquals(Arrays.asList("sessionToken@localhost", "newSessionToken@localhost"), sentRequests);
+        assertEquals(getCardDetailsResponse, response);
+    }
+
     @Test
     public void shouldThrowExceptionWhenGetCardDetailsRequestIsExecutedWithoutInitializeRequestBeforehand() throws SafechargeException {
         exception.expect(SafechargeConfigurationException.class);
@@ -555,4 +631,122 @@ public class SafechargeTest {
         sut.initialize("merchantKey", "id", "siteId", "localhost", Constants.HashAlgorithm.SHA256);
         sut.getCardDetails(null, null, null);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldLoadCachedMerchantPaymentMethodsWithGeneratedClientRequestIds() throws SafechargeException {
+        SafechargeResponse sessionResponse = mock(SafechargeResponse.class);
+        when(sessionResponse.getSessionToken()).thenReturn("sessionToken");
+
+        final GetMerchantPaymentMethodsResponse paymentMethodsResponse = new GetMerchantPaymentMethodsResponse();
+        paymentMethodsResponse.setStatus(Constants.APIResponseStatus.SUCCESS);
+        final List<String> sentClientRequestIds = new ArrayList<>();
+
+        when(executor.execute(any(GetSessionTokenRequest.class))).thenReturn(sessionResponse);
+        when(executor.execute(any(GetMerchantPaymentMethodsRequest.class))).thenAnswer(new Answer<SafechargeResponse>() {
+            @Override
+            public SafechargeResponse answer(InvocationOnMock invocation) {
+                GetMerchantPaymentMethodsRequest request = invocation.getArgument(0);
+                sentClientRequestIds.add(request.getClientRequestId());
+                return paymentMethodsResponse;
+            }
+        });
+
+        sut.initialize("merchantKey", "id", "siteId", "localhost", Constants.HashAlgorithm.SHA256);
+        sut.setMerchantPaymentMethodsCache(CacheConfig.builder()
+                .build());
+
+        assertSame(paymentMethodsResponse, sut.getMerchantPaymentMethods("first", "EUR", "DE", "en", null));
+        assertSame(paymentMethodsResponse, sut.getMerchantPaymentMethods("second", "EUR", "DE", "en", null));
+        sut.getMerchantPaymentMethodsCache()
+                .invalidateAll();
+        assertSame(paymentMethodsResponse, sut.getMerchantPaymentMethods("first", "EUR", "DE", "en", null));
+
+        assertEquals(1, sut.getMerchantPaymentMethodsCache()
+                .getHitCount());
+        assertEquals(2, sentClientRequestIds.size());
+        assertNotNull(sentClientRequestIds.get(0));
+        assertNotEquals(sentClientRequestIds.get(0), sentClientRequestIds.get(1));
+        assertFalse(sentClientRequestIds.contains("first"));
+        assertFalse(sentClientRequestIds.contains("second"));
+    }
+
+    @Test
+    public void shouldCacheCardDetailsByBin() throws SafechargeException {
+        SafechargeResponse sessionResponse = mock(SafechargeResponse.class);
+        when(sessionResponse.getSessionToken()).thenReturn("sessionToken");
+
+        final CardDetailsResponse cardDetailsResponse = new CardDetailsResponse();
+        cardDetailsResponse.setStatus(Constants.APIResponseStatus.SUCCESS);
+        final List<CardDetailsRequest> sentRequests = new ArrayList<>();
+
+        when(executor.execute(any(GetSessionTokenRequest.class))).thenReturn(sessionResponse);
+        when(executor.execute(any(CardDetailsRequest.class))).thenAnswer(new Answer<SafechargeResponse>() {
+            @Override
+            public SafechargeResponse answer(InvocationOnMock invocation) {
+                sentRequests.add(invocation.<CardDetailsRequest>getArgument(0));
+                return cardDetailsResponse;
+            }
+        });
+
+        sut.initialize("merchantKey", "id", "siteId", "localhost", Constants.HashAlgorithm.SHA256);
+        sut.setCardDetailsCache(CacheConfig.builder()
+                .build());
+        RefreshingCache<List<Object>, CardDetailsResponse> cache = sut.getCardDetailsCache();
+
+        assertSame(cardDetailsResponse, sut.getCardDetails(null, "first", "4111111111111111"));
+        assertSame(cardDetailsResponse, sut.getCardDetails(null, "second", "4111111122223333"));
+        assertSame(cardDetailsResponse, sut.getCardDetails(null, "third", "5555555555554444"));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+        cache.invalidate(Arrays.<Object>asList("id", "41111111"));
+        assertEquals(1, cache.size());
+
+        // the card number isn't sent by the loads, so it's never referenced by the cache or its loaders
+        assertEquals(2, sentRequests.size());
+        assertEquals("41111111", sentRequests.get(0)
+                .getCardNumber());
+        assertEquals("55555555", sentRequests.get(1)
+                .getCardNumber());
+        for (CardDetailsRequest request : sentRequests) {
+            assertNotNull(request.getClientRequestId());
+            assertFalse(Arrays.asList("first", "second", "third")
+                    .contains(request.getClientRequestId()));
+        }
+    }
+
+    @Test
+    public void shouldNotCacheCardDetailsOfInvalidCardNumber() throws SafechargeException {
+        SafechargeResponse sessionResponse = mock(SafechargeResponse.class);
+        when(sessionResponse.getSessionToken()).thenReturn("sessionToken");
+
+        final CardDetailsResponse cardDetailsResponse = new CardDetailsResponse();
+        cardDetailsResponse.setStatus(Constants.APIResponseStatus.SUCCESS);
+        final List<CardDetailsRequest> sentRequests = new ArrayList<>();
+
+        when(executor.execute(any(GetSessionTokenRequest.class))).thenReturn(sessionResponse);
+        when(executor.execute(any(CardDetailsRequest.class))).thenAnswer(new Answer<SafechargeResponse>() {
+            @Override
+            public SafechargeResponse answer(InvocationOnMock invocation) {
+                sentRequests.add(invocation.<CardDetailsRequest>getArgument(0));
+                return cardDetailsResponse;
+            }
+        });
+
+        sut.initialize("merchantKey", "id", "siteId", "localhost", Constants.HashAlgorithm.SHA256);
+        sut.setCardDetailsCache(CacheConfig.builder()
+                .build());
+
+        sut.getCardDetails(null, "first", "4111 1111");
+        sut.getCardDetails(null, "second", "4111 1111");
+
+        assertEquals(2, sentRequests.size());
+        assertEquals("4111 1111", sentRequests.get(1)
+                .getCardNumber());
+        assertEquals("second", sentRequests.get(1)
+                .getClientRequestId());
+        assertEquals(0, sut.getCardDetailsCache()
+                .size());
+    }
+}
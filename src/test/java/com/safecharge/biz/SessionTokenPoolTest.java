@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.request.GetSessionTokenRequest;
+import com.safecharge.request.PaymentCCRequest;
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.GetSessionTokenResponse;
+import com.safecharge.response.PaymentCCResponse;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+
+public class SessionTokenPoolTest {
+
+    private static final MerchantInfo MERCHANT_INFO = new MerchantInfo("merchantKey", "479748173730597238", "180083",
+            "https://ppp-test.safecharge.com/ppp/", Constants.HashAlgorithm.SHA256);
+
+    private final TokenIssuingExecutor executor = new TokenIssuingExecutor();
+
+    @Test
+    public void shouldHandOutPrefetchedTokensAndRefill() throws Exception {
+        SessionTokenPool pool = new SessionTokenPool(executor, MERCHANT_INFO, 2);
+        pool.refill();
+        assertEquals(2, pool.getPooledTokenCount());
+
+        assertEquals("token-1", pool.takeSessionToken());
+        assertEquals("token-2", pool.takeSessionToken());
+        assertEquals(2, pool.getPooledTokenCount());
+        assertEquals(4, executor.issuedTokens.get());
+        assertEquals(0, executor.synchronousRequests.get());
+    }
+
+    @Test
+    public void shouldFetchTokenSynchronouslyWhenPoolIsClosed() throws Exception {
+        SessionTokenPool pool = new SessionTokenPool(executor, MERCHANT_INFO, 2);
+        pool.close();
+
+        assertEquals("token-1", pool.takeSessionToken());
+        assertEquals(0, pool.getPooledTokenCount());
+        assertEquals(1, executor.synchronousRequests.get());
+    }
+
+    @Test
+    public void shouldRetryWithNewTokenAndDiscardPooledOnesWhenSessionExpired() throws Exception {
+        SessionTokenPool pool = new SessionTokenPool(executor, MERCHANT_INFO, 2);
+        pool.refill();
+        executor.expiredToken = "token-1";
+
+        SafechargeResponse response = pool.execute(new Function<String, SafechargeBaseRequest>() {
+            @Override
+            public SafechargeBaseRequest apply(String sessionToken) {
+                PaymentCCRequest request = new PaymentCCRequest();
+                request.setSessionToken(sessionToken);
+                return request;
+            }
+        });
+
+        assertEquals(Constants.APIResponseStatus.SUCCESS, response.getStatus());
+        // token-2 was pooled before the retry and token-3 was pre-fetched in place of token-1, both are discarded
+        assertEquals("token-4", response.getSessionToken());
+        assertEquals(2, pool.getPooledTokenCount());
+    }
+
+    private static final class TokenIssuingExecutor extends SafechargeRequestExecutor {
+
+        private final AtomicInteger issuedTokens = new AtomicInteger();
+        private final AtomicInteger synchronousRequests = new AtomicInteger();
+        private volatile String expiredToken;
+
+        private TokenIssuingExecutor() {
+            super(null, null, null);
+        }
+
+        @Override
+        public SafechargeResponse execute(SafechargeBaseRequest request) {
+            synchronousRequests.incrementAndGet();
+            return respond(request);
+        }
+
+        @Override
+        public CompletableFuture<SafechargeResponse> executeAsync(SafechargeBaseRequest request) {
+            return CompletableFuture.completedFuture(respond(request));
+        }
+
+        private SafechargeResponse respond(SafechargeBaseRequest request) {
+            SafechargeResponse response;
+            if (request instanceof GetSessionTokenRequest) {
+                response = new GetSessionTokenResponse();
+                response.setSessionToken("token-" + issuedTokens.incrementAndGet());
+            } else {
+                response = new PaymentCCResponse();
+                response.setSessionToken(request.getSessionToken());
+                if (request.getSessionToken()
+                        .equals(expiredToken)) {
+                    response.setStatus(Constants.APIResponseStatus.ERROR);
+                    response.setErrorType(Constants.ErrorType.SESSION_EXPIRED);
+                    return response;
+                }
+            }
+            response.setStatus(Constants.APIResponseStatus.SUCCESS);
+            return response;
+        }
+    }
+}
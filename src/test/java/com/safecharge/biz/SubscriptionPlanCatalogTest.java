@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.safecharge.exception.SafechargeException;
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.model.SubscriptionPlan;
+import com.safecharge.request.GetSubscriptionPlansRequest;
+import com.safecharge.response.GetSubscriptionPlansResponse;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SubscriptionPlanCatalogTest {
+
+    private static final MerchantInfo MERCHANT_INFO = new MerchantInfo("merchantKey", "479748173730597238", "180083",
+            "https://ppp-test.safecharge.com/ppp/", Constants.HashAlgorithm.SHA256);
+
+    private SafechargeRequestExecutor requestExecutor;
+    private SubscriptionPlanCatalog catalog;
+
+    @Before
+    public void setUp() {
+        requestExecutor = mock(SafechargeRequestExecutor.class);
+        catalog = new SubscriptionPlanCatalog(requestExecutor, MERCHANT_INFO);
+    }
+
+    @After
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Test
+    public void shouldFetchPlansOnFirstLookup() throws SafechargeException {
+        when(requestExecutor.execute(any(GetSubscriptionPlansRequest.class))).thenReturn(createResponse(createPlan(1L, "Basic"),
+                createPlan(2L, "Premium")));
+
+        assertEquals(2, catalog.getSubscriptionPlans()
+                .size());
+        assertEquals("Premium", catalog.getSubscriptionPlan(2L)
+                .getProductName());
+        assertNull(catalog.getSubscriptionPlan(3L));
+        verify(requestExecutor, times(1)).execute(any(GetSubscriptionPlansRequest.class));
+    }
+
+    @Test
+    public void shouldSwapSnapshotOnRefresh() throws SafechargeException {
+        SubscriptionPlan basic = createPlan(1L, "Basic");
+        SubscriptionPlan premium = createPlan(2L, "Premium");
+        when(requestExecutor.execute(any(GetSubscriptionPlansRequest.class))).thenReturn(createResponse(basic), createResponse(premium));
+        List<SubscriptionPlan> previousPlans = catalog.getSubscriptionPlans();
+
+        catalog.refresh();
+
+        assertEquals(Arrays.asList(basic), previousPlans);
+        assertEquals(Arrays.asList(premium), catalog.getSubscriptionPlans());
+        assertNull(catalog.getSubscriptionPlan(1L));
+        assertSame(premium, catalog.getSubscriptionPlan(2L));
+    }
+
+    @Test
+    public void shouldKeepSnapshotWhenRefreshFails() throws SafechargeException {
+        SubscriptionPlan basic = createPlan(1L, "Basic");
+        GetSubscriptionPlansResponse errorResponse = new GetSubscriptionPlansResponse();
+        errorResponse.setStatus(Constants.APIResponseStatus.ERROR);
+        errorResponse.setReason("Invalid merchant");
+        when(requestExecutor.execute(any(GetSubscriptionPlansRequest.class))).thenReturn(createResponse(basic), errorResponse);
+        List<SubscriptionPlan> plans = catalog.getSubscriptionPlans();
+
+        try {
+            catalog.refresh();
+            fail("The refresh should fail");
+        } catch (SafechargeException e) {
+            assertEquals("Invalid merchant", e.getMessage());
+        }
+
+        assertSame(plans, catalog.getSubscriptionPlans());
+        assertSame(basic, catalog.getSubscriptionPlan(1L));
+    }
+
+    @Test
+    public void shouldKeepSnapshotWhenScheduledRefreshFails() throws Exception {
+        final SubscriptionPlan basic = createPlan(1L, "Basic");
+        final CountDownLatch refreshes = new CountDownLatch(3);
+        when(requestExecutor.execute(any(GetSubscriptionPlansRequest.class))).thenAnswer(new Answer<SafechargeResponse>() {
+            @Override
+            public SafechargeResponse answer(InvocationOnMock invocation) throws SafechargeException {
+                try {
+                    if (refreshes.getCount() == 3) {
+                        return createResponse(basic);
+                    }
+                    throw new SafechargeException("Connection refused");
+                } finally {
+                    refreshes.countDown();
+                }
+            }
+        });
+
+        catalog.scheduleRefresh(10, TimeUnit.MILLISECONDS);
+
+        assertTrue(refreshes.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(basic), catalog.getSubscriptionPlans());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowModifyingPlans() throws SafechargeException {
+        when(requestExecutor.execute(any(GetSubscriptionPlansRequest.class))).thenReturn(createResponse(createPlan(1L, "Basic")));
+
+        catalog.getSubscriptionPlans()
+                .clear();
+    }
+
+    private static GetSubscriptionPlansResponse createResponse(SubscriptionPlan... subscriptionPlans) {
+        GetSubscriptionPlansResponse response = new GetSubscriptionPlansResponse();
+        response.setStatus(Constants.APIResponseStatus.SUCCESS);
+        response.setSubscriptionPlans(Arrays.asList(subscriptionPlans));
+        return response;
+    }
+
+    private static SubscriptionPlan createPlan(Long subscriptionPlanId, String productName) {
+        SubscriptionPlan subscriptionPlan = new SubscriptionPlan();
+        subscriptionPlan.setSubscriptionPlanId(subscriptionPlanId);
+        subscriptionPlan.setProductName(productName);
+        return subscriptionPlan;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.safecharge.exception.SafechargeException;
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.request.AddUPOCreditCardByTokenRequest;
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.AddUPOCreditCardByTokenResponse;
+import com.safecharge.response.SafechargeResponse;
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UPOImportPipelineTest {
+
+    private static final MerchantInfo MERCHANT_INFO = new MerchantInfo("merchantKey", "479748173730597238", "180083",
+            "https://ppp-test.safecharge.com/ppp/", Constants.HashAlgorithm.SHA256);
+
+    private final UPOIssuingExecutor executor = new UPOIssuingExecutor();
+
+    @Test
+    public void shouldImportRecordsAndResumeFromCheckpoint() throws Exception {
+        Path directory = Files.createTempDirectory("upo-import");
+        Path inputFile = Files.write(directory.resolve("cards.csv"), Arrays.asList(
+                "userTokenId,ccToken,brand,uniqueCC,bin,last4Digits,ccExpMonth,ccExpYear,ccNameOnCard",
+                "user-1,token-1,visa,unique-1,411111,1111,12,2030,\"Doe, John\"",
+                "",
+                "user-2,token-2,visa,unique-2,411111,2222,11,2030,Jane Doe",
+                "user-3,token-3,mastercard,unique-3,555555,4444,01,2031,Jim Doe"), StandardCharsets.UTF_8);
+        Path outputFile = directory.resolve("results.jsonl");
+        Path checkpointFile = directory.resolve("checkpoint");
+
+        UPOImportPipeline pipeline = UPOImportPipeline.builder()
+                .setRequestExecutor(executor)
+                .setMerchantInfo(MERCHANT_INFO)
+                .setInputFile(inputFile, Constants.ImportFileFormat.CSV)
+                .setOutputFile(outputFile)
+                .setCheckpointFile(checkpointFile)
+                .setConcurrency(2)
+                .build();
+
+        BatchRequestExecutor.BatchStats stats = pipeline.run();
+        assertEquals(2, stats.getSuccessCount());
+        // the request of token-2 can not be sent
+        assertEquals(1, stats.getFailureCount());
+        assertEquals("6", new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8));
+        assertEquals("Doe, John", executor.lastNameOnCard);
+
+        List<String> results = Files.readAllLines(outputFile, StandardCharsets.UTF_8);
+        assertEquals(3, results.size());
+        assertTrue(results.toString()
+                .contains("\"userPaymentOptionId\":\"upo-1\""));
+
+        assertEquals(0, pipeline.run()
+                .getTotalCount());
+        assertEquals(2, executor.requestCount.get());
+    }
+
+    @Test
+    public void shouldImportQuotedCsvValuesSpanningLines() throws Exception {
+        Path directory = Files.createTempDirectory("upo-import");
+        Path inputFile = Files.write(directory.resolve("cards.csv"), Arrays.asList(
+                "userTokenId,ccToken,brand,uniqueCC,bin,last4Digits,ccExpMonth,ccExpYear,ccNameOnCard",
+                "user-1,token-1,visa,unique-1,411111,1111,12,2030,\"John",
+                "\"\"Johnny\"\"",
+                "Doe\"",
+                "user-3,token-3,mastercard,unique-3,555555,4444,01,2031,Jim Doe"), StandardCharsets.UTF_8);
+        Path outputFile = directory.resolve("results.jsonl");
+        Path checkpointFile = directory.resolve("checkpoint");
+
+        BatchRequestExecutor.BatchStats stats = createPipeline(inputFile, outputFile, checkpointFile, 2).run();
+
+        assertEquals(2, stats.getSuccessCount());
+        assertEquals("John\n\"Johnny\"\nDoe", executor.lastNameOnCard);
+        assertEquals("6", new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8));
+        String results = Files.readAllLines(outputFile, StandardCharsets.UTF_8)
+                .toString();
+        assertTrue(results, results.contains("\"line\":2,"));
+        assertTrue(results, results.contains("\"line\":5,"));
+    }
+
+    @Test
+    public void shouldRejectUnterminatedQuote() throws Exception {
+        Path directory = Files.createTempDirectory("upo-import");
+        Path inputFile = Files.write(directory.resolve("cards.csv"), Arrays.asList(
+                "userTokenId,ccToken,brand,uniqueCC,bin,last4Digits,ccExpMonth,ccExpYear,ccNameOnCard",
+                "user-1,token-1,visa,unique-1,411111,1111,12,2030,Jane Doe",
+                "user-3,token-3,mastercard,unique-3,555555,4444,01,2031,\"Jim Doe",
+                "user-4,token-4,mastercard,unique-4,555555,5555,01,2031,Joe Doe"), StandardCharsets.UTF_8);
+        Path checkpointFile = directory.resolve("checkpoint");
+
+        try {
+            createPipeline(inputFile, directory.resolve("results.jsonl"), checkpointFile, 1).run();
+            fail("The import should fail");
+        } catch (IOException e) {
+            assertEquals("Unterminated quote in the record at line 3 of " + inputFile, e.getMessage());
+        }
+        assertEquals(1, executor.requestCount.get());
+    }
+
+    @Test
+    public void shouldWriteResultsCompletedOnManyThreads() throws Exception {
+        Path directory = Files.createTempDirectory("upo-import");
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 250; i++) {
+            lines.add("{\"userTokenId\":\"user-" + i + "\",\"ccToken\":\"token-" + i + "\",\"brand\":\"visa\",\"uniqueCC\":\"unique-" + i
+                    + "\",\"bin\":\"411111\",\"last4Digits\":\"1111\",\"ccExpMonth\":\"12\",\"ccExpYear\":\"2030\",\"ccNameOnCard\":\"Jane Doe\"}");
+        }
+        Path inputFile = Files.write(directory.resolve("cards.jsonl"), lines, StandardCharsets.UTF_8);
+        Path outputFile = directory.resolve("results.jsonl");
+        Path checkpointFile = directory.resolve("checkpoint");
+        final ExecutorService ioThreads = Executors.newFixedThreadPool(4);
+        SafechargeRequestExecutor asyncExecutor = new SafechargeRequestExecutor(null, null, null) {
+            @Override
+            public CompletableFuture<SafechargeResponse> executeAsync(SafechargeBaseRequest request) {
+                final AddUPOCreditCardByTokenResponse response = new AddUPOCreditCardByTokenResponse();
+                response.setStatus(Constants.APIResponseStatus.SUCCESS);
+                response.setUserPaymentOptionId(((AddUPOCreditCardByTokenRequest) request).getCcToken());
+                final CompletableFuture<SafechargeResponse> result = new CompletableFuture<>();
+                ioThreads.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        result.complete(response);
+                    }
+                });
+                return result;
+            }
+        };
+
+        try {
+            BatchRequestExecutor.BatchStats stats = UPOImportPipeline.builder()
+                    .setRequestExecutor(asyncExecutor)
+                    .setMerchantInfo(MERCHANT_INFO)
+                    .setInputFile(inputFile, Constants.ImportFileFormat.JSONL)
+                    .setOutputFile(outputFile)
+                    .setCheckpointFile(checkpointFile)
+                    .setConcurrency(16)
+                    .build()
+                    .run();
+            assertEquals(250, stats.getSuccessCount());
+        } finally {
+            ioThreads.shutdown();
+        }
+
+        assertEquals("251", new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8));
+        List<String> results = Files.readAllLines(outputFile, StandardCharsets.UTF_8);
+        assertEquals(250, results.size());
+        Set<String> tokens = new HashSet<>();
+        for (String result : results) {
+            tokens.add(result.replaceAll(".*\"userPaymentOptionId\":\"([^\"]*)\".*", "$1"));
+        }
+        assertEquals(250, tokens.size());
+        for (Thread thread : Thread.getAllStackTraces()
+                .keySet()) {
+            assertFalse(thread.getName()
+                    .equals("safecharge-upo-import-writer") && thread.isAlive());
+        }
+    }
+
+    @Test
+    public void shouldParseQuotedCsvValues() {
+        assertEquals(Arrays.asList("a", "b, c", "say \"hi\"", ""), UPOImportPipeline.parseCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+        assertEquals(Arrays.asList("a", "b\nc"), UPOImportPipeline.parseCsvLine("a,\"b\nc\""));
+    }
+
+    private UPOImportPipeline createPipeline(Path inputFile, Path outputFile, Path checkpointFile, int concurrency) {
+        return UPOImportPipeline.builder()
+                .setRequestExecutor(executor)
+                .setMerchantInfo(MERCHANT_INFO)
+                .setInputFile(inputFile, Constants.ImportFileFormat.CSV)
+                .setOutputFile(outputFile)
+                .setCheckpointFile(checkpointFile)
+                .setConcurrency(concurrency)
+                .build();
+    }
+
+    private static final class UPOIssuingExecutor extends SafechargeRequestExecutor {
+
+        private final AtomicInteger requestCount = new AtomicInteger();
+        private volatile String lastNameOnCard;
+
+        private UPOIssuingExecutor() {
+            super(null, null, null);
+        }
+
+        @Override
+        public CompletableFuture<SafechargeResponse> executeAsync(SafechargeBaseRequest request) {
+            AddUPOCreditCardByTokenRequest addUPORequest = (AddUPOCreditCardByTokenRequest) request;
+            if (addUPORequest.getCcToken()
+                    .equals("token-2")) {
+                CompletableFuture<SafechargeResponse> result = new CompletableFuture<>();
+                result.completeExceptionally(new SafechargeException("Connection refused"));
+                return result;
+            }
+            if (addUPORequest.getCcToken()
+                    .equals("token-1")) {
+                lastNameOnCard = addUPORequest.getCcNameOnCard();
+            }
+            AddUPOCreditCardByTokenResponse response = new AddUPOCreditCardByTokenResponse();
+            response.setStatus(Constants.APIResponseStatus.SUCCESS);
+            response.setUserPaymentOptionId("upo-" + requestCount.incrementAndGet());
+            return CompletableFuture.completedFuture((SafechargeResponse) response);
+        }
+    }
+}
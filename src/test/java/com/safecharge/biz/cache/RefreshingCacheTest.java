@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz.cache;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import com.safecharge.exception.SafechargeException;
+
+import static org.junit.Assert.assertEquals;
+
+public class RefreshingCacheTest {
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final LongSupplier clock = new LongSupplier() {
+        @Override
+        public long getAsLong() {
+            return nanoTime.get();
+        }
+    };
+
+    private final RefreshingCache.Loader<String, String> loader = new RefreshingCache.Loader<String, String>() {
+        @Override
+        public String load(String key) throws SafechargeException {
+            return key + "-" + loadCount.incrementAndGet();
+        }
+    };
+
+    @Test
+    public void shouldServeFreshValueUntilTimeToLive() throws Exception {
+        RefreshingCache<String, String> cache = createCache(0, 10, null);
+
+        assertEquals("a-1", cache.get("a", loader));
+        nanoTime.set(TimeUnit.SECONDS.toNanos(59));
+        assertEquals("a-1", cache.get("a", loader));
+        nanoTime.set(TimeUnit.SECONDS.toNanos(60));
+        assertEquals("a-2", cache.get("a", loader));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldServeStaleValueWhileRefreshing() throws Exception {
+        RefreshingCache<String, String> cache = createCache(30, 10, null);
+
+        assertEquals("a-1", cache.get("a", loader));
+        nanoTime.set(TimeUnit.SECONDS.toNanos(70));
+        assertEquals("a-1", cache.get("a", loader));
+        assertEquals("a-2", cache.get("a", loader));
+
+        assertEquals(1, cache.getStaleHitCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntry() throws Exception {
+        RefreshingCache<String, String> cache = createCache(0, 2, null);
+
+        cache.get("a", loader);
+        cache.get("b", loader);
+        cache.get("a", loader);
+        cache.get("c", loader);
+
+        assertEquals(2, cache.size());
+        assertEquals("a-1", cache.get("a", loader));
+        assertEquals("b-4", cache.get("b", loader));
+    }
+
+    @Test
+    public void shouldNotStoreNotCacheableValues() throws Exception {
+        RefreshingCache<String, String> cache = createCache(0, 10, new Predicate<String>() {
+            @Override
+            public boolean test(String value) {
+                return value.endsWith("-2");
+            }
+        });
+
+        assertEquals("a-1", cache.get("a", loader));
+        assertEquals("a-2", cache.get("a", loader));
+        assertEquals("a-2", cache.get("a", loader));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void shouldNotStoreValueLoadedDuringInvalidation() throws Exception {
+        final RefreshingCache<String, String> cache = createCache(0, 10, null);
+
+        assertEquals("a-1", cache.get("a", new RefreshingCache.Loader<String, String>() {
+            @Override
+            public String load(String key) throws SafechargeException {
+                cache.invalidate(key);
+                return loader.load(key);
+            }
+        }));
+        assertEquals(0, cache.size());
+        assertEquals("a-2", cache.get("a", loader));
+    }
+
+    private RefreshingCache<String, String> createCache(long staleWhileRevalidateSeconds, int maximumSize, Predicate<String> isCacheable) {
+        CacheConfig config = CacheConfig.builder()
+                .setTimeToLive(60, TimeUnit.SECONDS)
+                .setStaleWhileRevalidate(staleWhileRevalidateSeconds, TimeUnit.SECONDS)
+                .setMaximumSize(maximumSize)
+                .build();
+        return new RefreshingCache<>(config, isCacheable, DIRECT_EXECUTOR, clock);
+    }
+}
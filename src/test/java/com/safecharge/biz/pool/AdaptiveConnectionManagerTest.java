@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.junit.After;
+import org.junit.Test;
+
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class AdaptiveConnectionManagerTest {
+
+    private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("localhost", 8080));
+
+    // the connections are leased without being connected, so no server is needed
+    private final AdaptiveConnectionManager connectionManager = new AdaptiveConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .build(), AdaptivePoolConfig.builder()
+            .setConnectionsPerRoute(2, 4, 8)
+            .setShrinkAfterPeriods(2)
+            .setAdjustmentPeriod(1, TimeUnit.HOURS)
+            .build(), 30, TimeUnit.SECONDS);
+
+    @After
+    public void tearDown() {
+        connectionManager.shutdown();
+    }
+
+    @Test
+    public void shouldGrowRouteLimitAfterLeaseTimeout() throws Exception {
+        List<HttpClientConnection> connections = lease(4);
+        try {
+            connectionManager.requestConnection(ROUTE, null)
+                    .get(10, TimeUnit.MILLISECONDS);
+            fail("The pool should be exhausted");
+        } catch (ConnectionPoolTimeoutException expected) {
+            // the route is starved
+        }
+
+        connectionManager.maintain();
+
+        RouteMetrics metrics = connectionManager.getRouteMetrics()
+                .get(ROUTE);
+        assertEquals(Constants.PoolSizingDecision.GROW, metrics.getDecision());
+        assertEquals(6, metrics.getConnectionLimit());
+        assertEquals(4, metrics.getPeakLeased());
+        assertEquals(1, metrics.getLeaseTimeoutCount());
+        assertEquals(6, connectionManager.getMaxPerRoute(ROUTE));
+        assertEquals(1, connectionManager.getGrowCount());
+        release(connections);
+    }
+
+    @Test
+    public void shouldShrinkUnderusedRouteLimitGradually() throws Exception {
+        release(lease(1));
+
+        connectionManager.maintain();
+        assertEquals(Constants.PoolSizingDecision.KEEP, connectionManager.getRouteMetrics()
+                .get(ROUTE)
+                .getDecision());
+
+        connectionManager.maintain();
+        assertEquals(Constants.PoolSizingDecision.SHRINK, connectionManager.getRouteMetrics()
+                .get(ROUTE)
+                .getDecision());
+        assertEquals(3, connectionManager.getMaxPerRoute(ROUTE));
+
+        connectionManager.maintain();
+        connectionManager.maintain();
+        connectionManager.maintain();
+        connectionManager.maintain();
+        assertEquals(2, connectionManager.getMaxPerRoute(ROUTE));
+        assertEquals(2, connectionManager.getShrinkCount());
+    }
+
+    @Test
+    public void shouldNotCountUntrackedLeases() throws Exception {
+        List<HttpClientConnection> untracked = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            untracked.add(connectionManager.requestUntrackedConnection(ROUTE)
+                    .get(1, TimeUnit.SECONDS));
+        }
+        release(untracked);
+        release(lease(1));
+
+        connectionManager.maintain();
+
+        RouteMetrics metrics = connectionManager.getRouteMetrics()
+                .get(ROUTE);
+        assertEquals(1, metrics.getLeaseCount());
+        assertEquals(1, metrics.getPeakLeased());
+        assertEquals(0, metrics.getLeased());
+    }
+
+    private List<HttpClientConnection> lease(int count) throws Exception {
+        List<HttpClientConnection> connections = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            connections.add(connectionManager.requestConnection(ROUTE, null)
+                    .get(1, TimeUnit.SECONDS));
+        }
+        return connections;
+    }
+
+    private void release(List<HttpClientConnection> connections) {
+        for (HttpClientConnection connection : connections) {
+            connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+}
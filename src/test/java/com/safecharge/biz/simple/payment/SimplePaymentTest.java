@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.biz.simple.payment;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.safecharge.biz.SafechargeRequestExecutor;
+import com.safecharge.model.CardData;
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.request.GetSessionTokenRequest;
+import com.safecharge.request.PaymentAPMRequest;
+import com.safecharge.request.PaymentCCRequest;
+import com.safecharge.request.SafechargeBaseRequest;
+import com.safecharge.response.GetSessionTokenResponse;
+import com.safecharge.response.PaymentsCCResponse;
+import com.safecharge.response.PaymentsResponse;
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SimplePaymentTest {
+
+    private static final MerchantInfo MERCHANT_INFO = new MerchantInfo("merchantKey", "479748173730597238", "180083",
+            "https://ppp-test.safecharge.com/ppp/", Constants.HashAlgorithm.SHA256);
+
+    private SafechargeRequestExecutor requestExecutor;
+    private GetSessionTokenResponse sessionTokenResponse;
+    private PaymentsResponse paymentsResponse;
+
+    @Before
+    public void setUp() {
+        requestExecutor = mock(SafechargeRequestExecutor.class);
+        sessionTokenResponse = new GetSessionTokenResponse();
+        sessionTokenResponse.setStatus(Constants.APIResponseStatus.SUCCESS);
+        sessionTokenResponse.setSessionToken("token");
+        paymentsResponse = new PaymentsCCResponse();
+        when(requestExecutor.executeRequest(any(GetSessionTokenRequest.class))).thenReturn(sessionTokenResponse);
+        when(requestExecutor.executeRequest(any(PaymentCCRequest.class))).thenReturn(paymentsResponse);
+        when(requestExecutor.executeRequest(any(PaymentAPMRequest.class))).thenReturn(paymentsResponse);
+    }
+
+    @Test
+    public void shouldSendCreditCardPaymentWithGivenExecutor() {
+        SimpleCreditCardPayment payment = new SimpleCreditCardPayment(MERCHANT_INFO, requestExecutor);
+
+        assertSame(paymentsResponse, payment.executeSalePayment(new CardData(), "10", "EUR", null, null));
+
+        SafechargeBaseRequest paymentRequest = sentRequests().get(1);
+        assertTrue(paymentRequest instanceof PaymentCCRequest);
+        assertEquals("token", paymentRequest.getSessionToken());
+    }
+
+    @Test
+    public void shouldSendAPMPaymentWithGivenExecutor() {
+        SimpleAPMPayment payment = new SimpleAPMPayment(MERCHANT_INFO, requestExecutor);
+
+        assertSame(paymentsResponse, payment.executePayment("apmgw_expresscheckout", Collections.<String, String>emptyMap(), "10", "EUR", "DE"));
+
+        SafechargeBaseRequest paymentRequest = sentRequests().get(1);
+        assertTrue(paymentRequest instanceof PaymentAPMRequest);
+        assertEquals("token", paymentRequest.getSessionToken());
+    }
+
+    @Test
+    public void shouldNotPayWithoutSessionToken() {
+        sessionTokenResponse.setStatus(Constants.APIResponseStatus.ERROR);
+
+        assertNull(new SimpleCreditCardPayment(MERCHANT_INFO, requestExecutor).executeAuthPayment(new CardData(), "10", "EUR", null, null));
+        assertNull(new SimpleAPMPayment(MERCHANT_INFO, requestExecutor).executePayment("apmgw_expresscheckout",
+                Collections.<String, String>emptyMap(), "10", "EUR", "DE"));
+        verify(requestExecutor, times(2)).executeRequest(any(GetSessionTokenRequest.class));
+    }
+
+    private List<SafechargeBaseRequest> sentRequests() {
+        ArgumentCaptor<SafechargeBaseRequest> request = ArgumentCaptor.forClass(SafechargeBaseRequest.class);
+        verify(requestExecutor, times(2)).executeRequest(request.capture());
+        return request.getAllValues();
+    }
+}
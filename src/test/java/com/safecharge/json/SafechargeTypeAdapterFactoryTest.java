@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.safecharge.biz.Endpoint;
+import com.safecharge.biz.EndpointRegistry;
+import com.safecharge.model.MerchantInfo;
+import com.safecharge.request.McpRatesRequest;
+import com.safecharge.util.Constants;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The generated adapters must produce and accept exactly the JSON of Gson's reflective adapters, for every request and response
+ * type and the model types reachable from them, and must not change the serialized objects.
+ */
+public class SafechargeTypeAdapterFactoryTest {
+
+    private static final int MAX_DEPTH = 4;
+
+    private final Gson reflectiveGson = new GsonBuilder().create();
+    private final Gson serializeNullsGson = new GsonBuilder().serializeNulls()
+            .create();
+    private final Gson generatedGson = new GsonBuilder().registerTypeAdapterFactory(new SafechargeTypeAdapterFactory())
+            .create();
+    private int sequence;
+
+    @Test
+    public void shouldUseGeneratedAdapters() {
+        for (Class<?> type : getApiTypes()) {
+            assertTrue(type.getName(), generatedGson.getAdapter(type) instanceof GeneratedTypeAdapter);
+        }
+    }
+
+    @Test
+    public void shouldSerializeEmptyObjectsLikeReflectiveAdapter() throws Exception {
+        for (Class<?> type : getApiTypes()) {
+            Object value = type.newInstance();
+            String expected = reflectiveGson.toJson(value);
+
+            assertEquals(type.getName(), expected, generatedGson.toJson(value));
+            assertEquals(type.getName() + " was changed by the serialization", expected, reflectiveGson.toJson(value));
+        }
+    }
+
+    @Test
+    public void shouldSerializePopulatedObjectsLikeReflectiveAdapter() throws Exception {
+        for (Class<?> type : getApiTypes()) {
+            Object value = populate(type.newInstance(), 0);
+
+            assertEquals(type.getName(), reflectiveGson.toJson(value), generatedGson.toJson(value));
+        }
+    }
+
+    @Test
+    public void shouldParseLikeReflectiveAdapter() throws Exception {
+        for (Class<?> type : getApiTypes()) {
+            String json = serializeNullsGson.toJson(populate(type.newInstance(), 0));
+
+            Object expected = reflectiveGson.fromJson(json, type);
+            Object actual = generatedGson.fromJson(json, type);
+            assertEquals(type.getName(), serializeNullsGson.toJson(expected), serializeNullsGson.toJson(actual));
+        }
+    }
+
+    @Test
+    public void shouldNotSendEmptyListsOfLazyGetters() {
+        McpRatesRequest request = new McpRatesRequest();
+        request.setFromCurrency("EUR");
+
+        assertEquals("{\"fromCurrency\":\"EUR\",\"sourceApplication\":\"JAVA_SDK\"}", generatedGson.toJson(request));
+        assertEquals(reflectiveGson.toJson(request), generatedGson.toJson(request));
+    }
+
+    @Test
+    public void shouldWriteAndReadClassWithoutNoArgConstructorByWriteOnlyAdapter() {
+        MerchantInfo merchantInfo = new MerchantInfo("key", "id", "siteId", "host", Constants.HashAlgorithm.SHA256);
+        String json = reflectiveGson.toJson(merchantInfo);
+
+        assertTrue(generatedGson.getAdapter(MerchantInfo.class) instanceof GeneratedWriteOnlyTypeAdapter);
+        assertEquals(json, generatedGson.toJson(merchantInfo));
+        assertEquals(json, reflectiveGson.toJson(generatedGson.fromJson(json, MerchantInfo.class)));
+    }
+
+    private static List<Class<?>> getApiTypes() {
+        List<Class<?>> types = new ArrayList<>();
+        for (Endpoint endpoint : new EndpointRegistry().getEndpoints()) {
+            types.add(endpoint.getRequestType());
+            types.add(endpoint.getResponseType());
+        }
+        return types;
+    }
+
+    /**
+     * Sets every non-final field of the {@code value} and of the model objects it references to a sample value.
+     */
+    private Object populate(Object value, int depth) throws Exception {
+        for (Class<?> type = value.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                    continue;
+                }
+                Object sample = sample(field.getGenericType(), depth);
+                if (sample != null) {
+                    field.setAccessible(true);
+                    field.set(value, sample);
+                }
+            }
+        }
+        return value;
+    }
+
+    private Object sample(Type type, int depth) throws Exception {
+        if (type instanceof ParameterizedType) {
+            Class<?> rawType = (Class<?>) ((ParameterizedType) type).getRawType();
+            Type[] typeArguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (Collection.class.isAssignableFrom(rawType)) {
+                List<Object> list = new ArrayList<>();
+                Object element = sample(typeArguments[0], depth);
+                if (element != null) {
+                    list.add(element);
+                }
+                return list;
+            }
+            if (Map.class.isAssignableFrom(rawType)) {
+                Map<Object, Object> map = new LinkedHashMap<>();
+                map.put("key" + sequence++, sample(typeArguments[1], depth));
+                return map;
+            }
+            return null;
+        }
+        if (!(type instanceof Class)) {
+            return null;
+        }
+
+        Class<?> clazz = (Class<?>) type;
+        if (clazz == String.class) {
+            return "value" + sequence++;
+        } else if (clazz == Integer.class || clazz == int.class) {
+            return sequence++;
+        } else if (clazz == Long.class || clazz == long.class) {
+            return (long) sequence++;
+        } else if (clazz == Double.class || clazz == double.class) {
+            return sequence++ + 0.5;
+        } else if (clazz == Float.class || clazz == float.class) {
+            return sequence++ + 0.5f;
+        } else if (clazz == Boolean.class || clazz == boolean.class) {
+            return sequence++ % 2 == 0;
+        } else if (clazz == BigDecimal.class) {
+            return new BigDecimal(sequence++ + ".55");
+        } else if (clazz.isEnum()) {
+            Object[] constants = clazz.getEnumConstants();
+            return constants[sequence++ % constants.length];
+        } else if (clazz.getName()
+                .startsWith("com.safecharge.") && depth < MAX_DEPTH && !Modifier.isAbstract(clazz.getModifiers())) {
+            try {
+                return populate(clazz.getConstructor()
+                        .newInstance(), depth + 1);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
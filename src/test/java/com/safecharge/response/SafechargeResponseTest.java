@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.response;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SafechargeResponseTest {
+
+    private static final String JSON = "{\"status\":\"SUCCESS\",\"reason\":\"Übersicht €\"}";
+
+    @Test
+    public void shouldReplaceJsonBytesOnFirstAccess() {
+        SafechargeResponse response = new GetPaymentStatusResponse();
+        response.setJsonBytes(JSON.getBytes(StandardCharsets.UTF_8), true);
+
+        String json = response.getJson();
+
+        assertEquals(JSON, json);
+        assertSame(json, response.getJson());
+    }
+
+    @Test
+    public void shouldDecodeJsonBytesOnEveryAccess() {
+        SafechargeResponse response = new GetPaymentStatusResponse();
+        response.setJsonBytes(JSON.getBytes(StandardCharsets.UTF_8), false);
+
+        String json = response.getJson();
+
+        assertEquals(JSON, json);
+        assertEquals(json, response.getJson());
+        assertNotSame(json, response.getJson());
+    }
+
+    @Test
+    public void shouldOverrideJsonBytesWithJson() {
+        SafechargeResponse response = new GetPaymentStatusResponse();
+        response.setJsonBytes(JSON.getBytes(StandardCharsets.UTF_8), false);
+        response.setJson("{}");
+
+        assertEquals("{}", response.getJson());
+
+        response.setJsonBytes(JSON.getBytes(StandardCharsets.UTF_8), true);
+        assertEquals(JSON, response.getJson());
+
+        response.setJsonBytes(null, false);
+        assertNull(response.getJson());
+    }
+
+    @Test
+    public void shouldNotSerializeJsonBytes() {
+        SafechargeResponse response = new GetPaymentStatusResponse();
+        response.setJsonBytes(JSON.getBytes(StandardCharsets.UTF_8), false);
+
+        String serialized = new Gson().toJson(response);
+
+        assertFalse(serialized, serialized.contains("jsonBytes"));
+        assertFalse(serialized, serialized.contains("isJsonBytesReplaced"));
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.safecharge.model.UrlDetails;
+import com.safecharge.model.UserDetailsCashier;
+import com.safecharge.request.AddUPOAPMRequest;
+import com.safecharge.request.GetSessionTokenRequest;
+import com.safecharge.request.SettleTransactionRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Golden values of the checksums, calculated with the original concatenate-and-hash implementation.
+ */
+public class ChecksumUtilsTest {
+
+    private static final String MERCHANT_KEY = "merchantKey";
+
+    @Test
+    public void shouldCalculateGenericChecksum() {
+        GetSessionTokenRequest request = new GetSessionTokenRequest();
+        request.setMerchantId("479748173730597238");
+        request.setMerchantSiteId("180083");
+        request.setClientRequestId("1490357012345");
+        request.setTimeStamp("20170324120000");
+
+        assertEquals("2d305639269bb98785be0b1339e323aa0b6fb098d38fdb9883c664f4bd0d1d9a", ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.SHA256));
+        assertEquals("b0238f5fca8345124317473fc71e037a", ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.MD5));
+    }
+
+    @Test
+    public void shouldCalculateChecksumWithInnerObject() {
+        UrlDetails urlDetails = new UrlDetails();
+        urlDetails.setSuccessUrl("https://example.com/success");
+        urlDetails.setNotificationUrl("https://example.com/dmn");
+
+        SettleTransactionRequest request = new SettleTransactionRequest();
+        request.setMerchantId("479748173730597238");
+        request.setMerchantSiteId("180083");
+        request.setClientRequestId("1490357012345");
+        request.setClientUniqueId("unique");
+        request.setAmount("10.55");
+        request.setCurrency("EUR");
+        request.setRelatedTransactionId("1110000000001234567");
+        request.setAuthCode("8378749");
+        request.setDescriptorMerchantName("\u041A\u0430\u0444\u0435 \u00DCml");
+        request.setComment("\uD83D\uDE00 comment");
+        request.setUrlDetails(urlDetails);
+        request.setTimeStamp("20170324120000");
+
+        assertEquals("ea69e4157d3c53bcb38b58f62cd74b4a032f342e02ee27992de09f68b33d9957", ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.SHA256));
+        assertEquals("1749214f2f99ab2f9d4ba75a8596ab77", ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.MD5));
+    }
+
+    @Test
+    public void shouldCalculateChecksumWithMapAndInheritedFields() {
+        Map<String, String> apmData = new LinkedHashMap<>();
+        apmData.put("account_id", "john@example.com");
+        apmData.put("nettelerAccount", null);
+        apmData.put("secure_id", "123456");
+
+        UserDetailsCashier billingAddress = new UserDetailsCashier();
+        billingAddress.setFirstName("John");
+        billingAddress.setLastName("Smith");
+        billingAddress.setCountryCode("GB");
+        billingAddress.setEmail("john@example.com");
+
+        AddUPOAPMRequest request = new AddUPOAPMRequest();
+        request.setMerchantId("479748173730597238");
+        request.setMerchantSiteId("180083");
+        request.setUserTokenId("user1");
+        request.setClientRequestId("1490357012345");
+        request.setPaymentMethodName("apmgw_expresscheckout");
+        request.setApmData(apmData);
+        request.setBillingAddress(billingAddress);
+        request.setTimeStamp("20170324120000");
+
+        assertEquals("abb9c3ffdcbdf6108f3a9836c4a4af6de30f066a2eeb757bc40c4fc3e6da5ac7", ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.SHA256));
+    }
+
+    @Test
+    public void shouldCalculateChecksumWithListsAndNestedMaps() {
+        UrlDetails urlDetails = new UrlDetails();
+        urlDetails.setFailureUrl("https://example.com/failure");
+        urlDetails.setPendingUrl("https://example.com/pending");
+
+        Map<Object, Object> nested = new LinkedHashMap<>();
+        nested.put("list", Arrays.asList("x", 1, 2.5));
+        nested.put("empty", null);
+        nested.put("map", new LinkedHashMap<>(Collections.singletonMap("key", "value")));
+
+        List<Object> values = new ArrayList<>();
+        values.add(urlDetails);
+        values.add("plain");
+        values.add(42L);
+        values.add(nested);
+
+        ListChecksumObject object = new ListChecksumObject();
+        object.merchantId = "479748173730597238";
+        object.amount = values;
+        object.currency = nested;
+        object.timeStamp = "20170324120000";
+
+        assertEquals("0e91b892495fb6a730b40a595c29b7cc1d5286ae4e05f6d04f0c6a3e410a3a70", ChecksumUtils.calculateChecksum(object, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.SHA256));
+    }
+
+    @Test
+    public void shouldCalculateChecksumOfSurrogatePairSplitBetweenFields() {
+        GetSessionTokenRequest request = new GetSessionTokenRequest();
+        request.setMerchantId("merchant\uD83D");
+        request.setMerchantSiteId("\uDE00site");
+        request.setTimeStamp("20170324120000");
+
+        assertEquals("e4a74eb0b1998690accf60e7c10c94809adeb2498bd7014e04b39b9c7200007d", ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.SHA256));
+    }
+
+    @Test
+    public void shouldReturnNullForMalformedText() {
+        GetSessionTokenRequest request = new GetSessionTokenRequest();
+        request.setMerchantId("merchant\uD83D");
+        request.setMerchantSiteId("site");
+        request.setTimeStamp("20170324120000");
+
+        assertNull(ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.SHA256));
+        assertNull(ChecksumUtils.calculateChecksum(request, "\uDE00", Constants.CHARSET_UTF8, Constants.HashAlgorithm.MD5));
+    }
+
+    @Test
+    public void shouldCalculateChecksumOfLongValues() {
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longValue.append("\u00E4\u20AC").append(i);
+        }
+
+        GetSessionTokenRequest request = new GetSessionTokenRequest();
+        request.setMerchantId(longValue.toString());
+        request.setMerchantSiteId("180083");
+        request.setTimeStamp("20170324120000");
+
+        assertEquals("2975d93689a84cebbcad4dce9a636b767d65991f8d5611300c8aab7187ac291e", ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.SHA256));
+        assertEquals("bc5fc63e1d67a61868c1dd2fcbe9ebc7", ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.MD5));
+    }
+
+    @Test
+    public void shouldCalculateChecksumWithOtherEncoding() {
+        GetSessionTokenRequest request = new GetSessionTokenRequest();
+        request.setMerchantId("\u041A\u0430\u0444\u0435");
+        request.setMerchantSiteId("180083");
+        request.setTimeStamp("20170324120000");
+
+        assertEquals("dbe604298ceb6045017eb90f2b4df66e9a8ce9e08ef89bbfd45b1927f53c2889", ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, "UTF-16", Constants.HashAlgorithm.SHA256));
+        assertEquals("68148d8d1d71d8a63c72387b6c8fdc826720a919822d20e26f529032a1fcc393", ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, "utf-8", Constants.HashAlgorithm.SHA256));
+    }
+
+    @Test
+    public void shouldCalculateTheSameChecksumConcurrently() throws Exception {
+        final GetSessionTokenRequest request = new GetSessionTokenRequest();
+        request.setMerchantId("479748173730597238");
+        request.setMerchantSiteId("180083");
+        request.setClientRequestId("1490357012345");
+        request.setTimeStamp("20170324120000");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> checksums = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                final Constants.HashAlgorithm algorithm = i % 2 == 0 ? Constants.HashAlgorithm.SHA256 : Constants.HashAlgorithm.MD5;
+                checksums.add(executorService.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return ChecksumUtils.calculateChecksum(request, MERCHANT_KEY, Constants.CHARSET_UTF8, algorithm);
+                    }
+                }));
+            }
+            for (int i = 0; i < checksums.size(); i++) {
+                assertEquals(i % 2 == 0 ? "2d305639269bb98785be0b1339e323aa0b6fb098d38fdb9883c664f4bd0d1d9a" : "b0238f5fca8345124317473fc71e037a",
+                        checksums.get(i).get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldCalculateChecksumWithNullKey() {
+        GetSessionTokenRequest request = new GetSessionTokenRequest();
+        request.setMerchantId("479748173730597238");
+        request.setMerchantSiteId("180083");
+        request.setClientRequestId("1490357012345");
+        request.setTimeStamp("20170324120000");
+
+        assertEquals("81ca3c29ebe94f23a43534a1e437521789802f2cc94452090a1d6b646783e295", ChecksumUtils.calculateChecksum(request, null, Constants.CHARSET_UTF8, Constants.HashAlgorithm.SHA256));
+        assertEquals("5b7fbb4eea30baeced0e27bf9ee6bf03", ChecksumUtils.calculateChecksum(request, null, Constants.CHARSET_UTF8, Constants.HashAlgorithm.MD5));
+    }
+
+    @Test
+    public void shouldReleaseDigestWhenParameterFails() throws Exception {
+        ListChecksumObject object = new ListChecksumObject();
+        object.merchantId = "479748173730597238";
+        object.amount = Collections.<Object>singletonList(new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("failing parameter");
+            }
+        });
+
+        try {
+            ChecksumUtils.calculateChecksum(object, MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.SHA256);
+            fail("The failing parameter should fail the checksum");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        ChecksumDigest digest = ChecksumDigest.start(Constants.HashAlgorithm.SHA256, ChecksumDigest.UTF8_CHARSET);
+        digest.release();
+        ChecksumDigest nextDigest = ChecksumDigest.start(Constants.HashAlgorithm.MD5, ChecksumDigest.UTF8_CHARSET);
+        nextDigest.release();
+        assertSame(digest, nextDigest);
+    }
+
+    @Test
+    public void shouldReturnNullForObjectWithoutChecksumAnnotation() {
+        assertNull(ChecksumUtils.calculateChecksum(new Object(), MERCHANT_KEY, Constants.CHARSET_UTF8, Constants.HashAlgorithm.SHA256));
+    }
+
+    @ValidChecksum(orderMappingName = Constants.ChecksumOrderMapping.API_GENERIC_CHECKSUM_MAPPING)
+    private static class ListChecksumObject {
+
+        private String merchantId;
+        private List<Object> amount;
+        private Map<Object, Object> currency;
+        private String timeStamp;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClientRequestIdGeneratorTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2023-05-17T10:15:30.250Z"), ZoneOffset.UTC);
+
+    @Test
+    public void shouldComposeIdOfTimeNodeAndSequence() {
+        ClientRequestIdGenerator generator = new ClientRequestIdGenerator(5, CLOCK);
+        long millis = CLOCK.millis() - 1672531200000L;
+
+        assertEquals(millis << 22 | 5L << 12, generator.nextId());
+        assertEquals(millis << 22 | 5L << 12 | 1, generator.nextId());
+    }
+
+    @Test
+    public void shouldBorrowNextMillisecondOnSequenceOverflow() {
+        ClientRequestIdGenerator generator = new ClientRequestIdGenerator(5, CLOCK);
+
+        long previous = -1;
+        for (int i = 0; i < 3 * 4096; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(5, id >>> 12 & 1023);
+            previous = id;
+        }
+        assertEquals((CLOCK.millis() - 1672531200000L + 2) << 22 | 5L << 12 | 4095, previous);
+    }
+
+    @Test
+    public void shouldNotCollideBetweenNodes() {
+        assertNotEquals(new ClientRequestIdGenerator(1, CLOCK).nextId(), new ClientRequestIdGenerator(2, CLOCK).nextId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNodeIdOutOfRange() {
+        new ClientRequestIdGenerator(ClientRequestIdGenerator.MAX_NODE_ID + 1);
+    }
+
+    @Test
+    public void shouldGenerateUniqueIdsConcurrently() throws Exception {
+        final ClientRequestIdGenerator generator = new ClientRequestIdGenerator(7);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<long[]>() {
+                    @Override
+                    public long[] call() {
+                        long[] ids = new long[50000];
+                        for (int j = 0; j < ids.length; j++) {
+                            ids[j] = generator.nextId();
+                        }
+                        return ids;
+                    }
+                }));
+            }
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                for (long id : future.get()) {
+                    assertTrue(ids.add(id));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2007 - 2023 SafeCharge International Group Limited.
+ */
+
+package com.safecharge.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class RequestUtilsTest {
+
+    private static final Instant NOW = Instant.parse("2023-05-17T10:15:30.250Z");
+
+    @After
+    public void resetClock() {
+        RequestUtils.setTimestampClock(null);
+    }
+
+    @Test
+    public void shouldFormatTimestampInClockZone() {
+        RequestUtils.setTimestampClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        assertEquals("20230517101530", RequestUtils.calculateTimestamp());
+
+        RequestUtils.setTimestampClock(Clock.fixed(NOW, ZoneId.of("Europe/Sofia")));
+        assertEquals("20230517131530", RequestUtils.calculateTimestamp());
+    }
+
+    @Test
+    public void shouldReuseTimestampWithinSecond() {
+        MutableClock clock = new MutableClock(NOW);
+        RequestUtils.setTimestampClock(clock);
+        String timestamp = RequestUtils.calculateTimestamp();
+
+        clock.instant = NOW.plusMillis(500);
+        assertSame(timestamp, RequestUtils.calculateTimestamp());
+
+        clock.instant = NOW.plusMillis(750);
+        assertEquals("20230517101531", RequestUtils.calculateTimestamp());
+        assertEquals("20230517101530", timestamp);
+    }
+
+    @Test
+    public void shouldFormatTimestampBeforeEpoch() {
+        RequestUtils.setTimestampClock(Clock.fixed(Instant.parse("1969-12-31T23:59:59.500Z"), ZoneOffset.UTC));
+        assertEquals("19691231235959", RequestUtils.calculateTimestamp());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}